@@ -0,0 +1,66 @@
+package site.lifd.cache;
+
+import java.util.concurrent.CompletableFuture;
+
+import site.lifd.core.lang.func.Func1;
+
+/**
+ * 异步缓存接口，值以{@link CompletableFuture}的形式返回
+ * <p>
+ * 未命中时加载过程在线程池中执行，调用方不会被阻塞；同一个键并发未命中时共享同一个加载中的{@link CompletableFuture}，加载只执行一次。
+ *
+ * @param <K> 键类型
+ * @param <V> 值类型
+ * @author lifengdi
+ */
+public interface AsyncCache<K, V> {
+
+    /**
+     * 获取已缓存或正在加载的值，不触发加载
+     *
+     * @param key 键
+     * @return 值的{@link CompletableFuture}，既未缓存也未在加载时返回{@code null}
+     */
+    CompletableFuture<V> getIfPresent(K key);
+
+    /**
+     * 获取值，未命中时在线程池中调用loader加载，加载成功且值不为{@code null}时放入缓存
+     * <p>
+     * 同一个键的并发调用共享同一个加载中的{@link CompletableFuture}，加载失败时以异常完成且不缓存。
+     *
+     * @param key    键
+     * @param loader 加载函数，用于生产值对象
+     * @return 值的{@link CompletableFuture}
+     */
+    CompletableFuture<V> get(K key, Func1<K, V> loader);
+
+    /**
+     * 将异步计算的值放入缓存，计算完成前对此键的get调用会等待此计算结果
+     *
+     * @param key         键
+     * @param valueFuture 值的{@link CompletableFuture}
+     */
+    void put(K key, CompletableFuture<V> valueFuture);
+
+    /**
+     * 从缓存中移除对象，正在进行的加载不受影响
+     *
+     * @param key 键
+     */
+    void remove(K key);
+
+    /**
+     * 返回存放已加载值的同步缓存视图，对视图的修改会反映到此异步缓存
+     *
+     * @return 同步缓存
+     */
+    Cache<K, V> synchronous();
+
+    /**
+     * 设置监听，缓存对象被移除（包括过期和淘汰）时回调
+     *
+     * @param listener 监听
+     * @return this
+     */
+    AsyncCache<K, V> setListener(CacheListener<K, V> listener);
+}
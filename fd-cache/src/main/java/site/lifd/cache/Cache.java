@@ -1,9 +1,15 @@
 package site.lifd.cache;
 
 import java.io.Serializable;
+import java.util.HashMap;
 import java.util.Iterator;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Function;
 
 import site.lifd.cache.impl.CacheObj;
+import site.lifd.cache.stats.CacheStats;
 import site.lifd.core.lang.func.Func0;
 
 /**
@@ -49,6 +55,55 @@ public interface Cache<K, V> extends Iterable<V>, Serializable {
      */
     void put(K key, V object, long timeout);
 
+    /**
+     * 批量将对象加入到缓存，使用默认失效时长
+     *
+     * @param map 键值对
+     */
+    default void putAll(Map<? extends K, ? extends V> map) {
+        for (Map.Entry<? extends K, ? extends V> entry : map.entrySet()) {
+            put(entry.getKey(), entry.getValue());
+        }
+    }
+
+    /**
+     * 批量从缓存中获得对象，所有未命中的键通过一次bulkLoader调用加载，加载结果放入缓存
+     * <p>
+     * 每次调用此方法会刷新命中对象的最后访问时间。bulkLoader返回的结果中可以缺少部分键，缺少的键不会出现在返回值中；
+     * 也可以包含额外的键，额外的键会被放入缓存，但不会出现在返回值中。
+     *
+     * @param keys       键
+     * @param bulkLoader 批量加载函数，参数为未命中的键，{@code null}表示不加载
+     * @return 键值对，不包含未命中且未加载到的键
+     */
+    default Map<K, V> getAll(Iterable<K> keys, Function<Set<K>, Map<K, V>> bulkLoader) {
+        final Map<K, V> result = new HashMap<>();
+        final Set<K> misses = new LinkedHashSet<>();
+        for (K key : keys) {
+            final V value = get(key);
+            if (null != value) {
+                result.put(key, value);
+            } else {
+                misses.add(key);
+            }
+        }
+        if (misses.isEmpty() || null == bulkLoader) {
+            return result;
+        }
+
+        final Map<K, V> loaded = bulkLoader.apply(misses);
+        if (null != loaded) {
+            putAll(loaded);
+            for (K key : misses) {
+                final V value = loaded.get(key);
+                if (null != value) {
+                    result.put(key, value);
+                }
+            }
+        }
+        return result;
+    }
+
     /**
      * 从缓存中获得对象，当对象不在缓存中或已经过期返回{@code null}
      * <p>
@@ -187,4 +242,13 @@ public interface Cache<K, V> extends Iterable<V>, Serializable {
     default Cache<K, V> setListener(CacheListener<K, V> listener){
         return this;
     }
+
+    /**
+     * 返回缓存统计快照，不支持统计的缓存返回空统计
+     *
+     * @return 统计快照
+     */
+    default CacheStats stats() {
+        return CacheStats.empty();
+    }
 }
\ No newline at end of file
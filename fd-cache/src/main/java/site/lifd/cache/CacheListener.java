@@ -18,4 +18,16 @@ public interface CacheListener <K, V> {
      * @param cachedObject 被缓存的对象
      */
     void onRemove(K key, V cachedObject);
+
+    /**
+     * 对象移除回调，附带移除原因<br>
+     * 默认忽略原因，调用{@link #onRemove(Object, Object)}；需要区分主动移除、过期和淘汰时重写此方法
+     *
+     * @param key          键
+     * @param cachedObject 被缓存的对象
+     * @param cause        移除原因
+     */
+    default void onRemove(K key, V cachedObject, RemovalCause cause) {
+        onRemove(key, cachedObject);
+    }
 }
\ No newline at end of file
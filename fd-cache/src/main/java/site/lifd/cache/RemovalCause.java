@@ -0,0 +1,30 @@
+package site.lifd.cache;
+
+/**
+ * 缓存对象被移除的原因
+ *
+ * @author lifengdi
+ */
+public enum RemovalCause {
+    /**
+     * 调用remove或clear主动移除
+     */
+    EXPLICIT,
+    /**
+     * 超过超时时长，过期移除
+     */
+    EXPIRED,
+    /**
+     * 超出容量，按淘汰策略移除
+     */
+    SIZE;
+
+    /**
+     * 是否为缓存自动移除（过期或淘汰），而非调用方主动移除
+     *
+     * @return 是否为自动移除
+     */
+    public boolean wasEvicted() {
+        return this != EXPLICIT;
+    }
+}
@@ -0,0 +1,48 @@
+package site.lifd.cache;
+
+import site.lifd.cache.impl.ApproximateSizeWeigher;
+
+import java.io.Serializable;
+
+/**
+ * 缓存对象权重计算，用于按总权重（例如占用的字节数）而不是对象数限制缓存大小<br>
+ * 权重在对象放入缓存时计算一次，之后不再变化，因此值对象放入缓存后不应再修改。
+ *
+ * @param <K> 键类型
+ * @param <V> 值类型
+ * @author lifengdi
+ */
+@FunctionalInterface
+public interface Weigher<K, V> extends Serializable {
+
+    /**
+     * 计算对象的权重
+     *
+     * @param key   键
+     * @param value 值
+     * @return 权重，不能为负数
+     */
+    int weigh(K key, V value);
+
+    /**
+     * 每个对象权重均为1的权重计算，即按对象数限制
+     *
+     * @param <K> 键类型
+     * @param <V> 值类型
+     * @return 权重计算
+     */
+    static <K, V> Weigher<K, V> singleton() {
+        return (key, value) -> 1;
+    }
+
+    /**
+     * 按估算的堆内存占用字节数计算权重，见{@link ApproximateSizeWeigher}
+     *
+     * @param <K> 键类型
+     * @param <V> 值类型
+     * @return 权重计算
+     */
+    static <K, V> Weigher<K, V> approximateSize() {
+        return ApproximateSizeWeigher.instance();
+    }
+}
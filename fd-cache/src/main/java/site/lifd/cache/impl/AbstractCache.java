@@ -2,17 +2,27 @@ package site.lifd.cache.impl;
 
 import site.lifd.cache.Cache;
 import site.lifd.cache.CacheListener;
+import site.lifd.cache.RemovalCause;
+import site.lifd.cache.Weigher;
+import site.lifd.cache.stats.CacheStats;
+import site.lifd.cache.stats.ConcurrentStatsCounter;
+import site.lifd.cache.stats.StatsCounter;
 import site.lifd.core.lang.func.Func0;
-import site.lifd.core.lang.mutable.Mutable;
-import site.lifd.core.lang.mutable.MutableObj;
 import site.lifd.core.map.SafeConcurrentHashMap;
 
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
 import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
 import java.util.Map;
 import java.util.Set;
-import java.util.concurrent.atomic.LongAdder;
 import java.util.concurrent.locks.Lock;
 import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.BiConsumer;
+import java.util.function.Function;
 import java.util.stream.Collectors;
 
 /**
@@ -30,7 +40,10 @@ import java.util.stream.Collectors;
 public abstract class AbstractCache<K, V> implements Cache<K, V> {
 	private static final long serialVersionUID = 1L;
 
-	protected Map<Mutable<K>, CacheObj<K, V>> cacheMap;
+	/**
+	 * 缓存对象，键直接使用原始键，{@code null}键以{@link NullKey}代替
+	 */
+	protected Map<Object, CacheObj<K, V>> cacheMap;
 
 	/**
 	 * 写的时候每个key一把锁，降低锁的粒度
@@ -52,18 +65,32 @@ public abstract class AbstractCache<K, V> implements Cache<K, V> {
 	protected boolean existCustomTimeout;
 
 	/**
-	 * 命中数，即命中缓存计数
+	 * 权重计算，默认每个对象权重为1
+	 */
+	protected Weigher<? super K, ? super V> weigher = Weigher.singleton();
+	/**
+	 * 最大总权重，{@code 0}表示不按权重限制，此时按{@link #capacity}限制对象数
+	 */
+	protected long maximumWeight;
+	/**
+	 * 当前总权重，只在持有写锁时修改
 	 */
-	protected LongAdder hitCount = new LongAdder();
+	protected volatile long totalWeight;
+
 	/**
-	 * 丢失数，即未命中缓存计数
+	 * 统计记录器，记录命中、加载和移除
 	 */
-	protected LongAdder missCount = new LongAdder();
+	protected StatsCounter statsCounter = new ConcurrentStatsCounter();
 
 	/**
 	 * 缓存监听
 	 */
 	protected CacheListener<K, V> listener;
+	/**
+	 * 包内使用的移除回调，可以获取被移除的{@link CacheObj}，设置后替代{@link #onRemove(Object, Object, RemovalCause)}<br>
+	 * 用于{@link TieredCache}降级时保留对象剩余的超时时间
+	 */
+	transient volatile BiConsumer<CacheObj<K, V>, RemovalCause> removalHook;
 
 	// ---------------------------------------------------------------- put start
 	@Override
@@ -81,21 +108,24 @@ public abstract class AbstractCache<K, V> implements Cache<K, V> {
 	 */
 	protected void putWithoutLock(K key, V object, long timeout) {
 		CacheObj<K, V> co = new CacheObj<>(key, object, timeout);
+		co.weight = weigh(key, object);
 		if (timeout != 0) {
 			existCustomTimeout = true;
 		}
 
-		final MutableObj<K> mKey = MutableObj.of(key);
+		final Object mKey = NullKey.mask(key);
 
 		// issue#3618 对于替换的键值对，不做满队列检查和清除
 		if (cacheMap.containsKey(mKey)) {
 			// 存在相同key，覆盖之
-			cacheMap.put(mKey, co);
+			final CacheObj<K, V> old = cacheMap.put(mKey, co);
+			totalWeight += co.weight - old.weight;
 		} else {
 			if (isFull()) {
 				pruneCache();
 			}
 			cacheMap.put(mKey, co);
+			totalWeight += co.weight;
 		}
 	}
 	// ---------------------------------------------------------------- put end
@@ -105,14 +135,31 @@ public abstract class AbstractCache<K, V> implements Cache<K, V> {
 	 * @return 命中数
 	 */
 	public long getHitCount() {
-		return hitCount.sum();
+		return statsCounter.hitCount();
 	}
 
 	/**
 	 * @return 丢失数
 	 */
 	public long getMissCount() {
-		return missCount.sum();
+		return statsCounter.missCount();
+	}
+
+	@Override
+	public CacheStats stats() {
+		return statsCounter.snapshot();
+	}
+
+	/**
+	 * 设置统计记录器，传入{@link StatsCounter#disabled()}关闭统计，
+	 * 传入{@code new ConcurrentStatsCounter(true)}同时记录读写耗时分布
+	 *
+	 * @param statsCounter 统计记录器
+	 * @return this
+	 */
+	public AbstractCache<K, V> setStatsCounter(StatsCounter statsCounter) {
+		this.statsCounter = null == statsCounter ? StatsCounter.disabled() : statsCounter;
+		return this;
 	}
 
 	@Override
@@ -134,7 +181,7 @@ public abstract class AbstractCache<K, V> implements Cache<K, V> {
 				v = get(key, isUpdateLastAccess);
 				if (null == v) {
 					// supplier的创建是一个耗时过程，此处创建与全局锁无关，而与key锁相关，这样就保证每个key只创建一个value，且互斥
-					v = supplier.callWithRuntimeException();
+					v = load(supplier);
 					put(key, v, timeout);
 				}
 			} finally {
@@ -145,14 +192,141 @@ public abstract class AbstractCache<K, V> implements Cache<K, V> {
 		return v;
 	}
 
+	/**
+	 * 批量获取，未命中的键通过一次bulkLoader调用加载<br>
+	 * 与单键加载共用每个key一把锁：未命中的键先尝试获取键锁，获取成功的键在本批次中加载；
+	 * 获取失败说明其它线程正在加载此键，待本批次加载完成后等待其结果，不重复加载。
+	 *
+	 * @param keys       键
+	 * @param bulkLoader 批量加载函数，参数为未命中的键，{@code null}表示不加载
+	 * @return 键值对，不包含未命中且未加载到的键
+	 */
+	@Override
+	public Map<K, V> getAll(Iterable<K> keys, Function<Set<K>, Map<K, V>> bulkLoader) {
+		final Map<K, V> result = new HashMap<>();
+		final Set<K> misses = new LinkedHashSet<>();
+		for (K key : keys) {
+			final V value = get(key, true);
+			if (null != value) {
+				result.put(key, value);
+			} else {
+				misses.add(key);
+			}
+		}
+		if (misses.isEmpty() || null == bulkLoader) {
+			return result;
+		}
+
+		// 获取到键锁的由本批次加载，其余的正在被其它线程加载
+		final Map<K, Lock> ownedLocks = new LinkedHashMap<>();
+		final List<K> waiting = new ArrayList<>();
+		for (K key : misses) {
+			final Lock keyLock = keyLockMap.computeIfAbsent(key, k -> new ReentrantLock());
+			if (keyLock.tryLock()) {
+				ownedLocks.put(key, keyLock);
+			} else {
+				waiting.add(key);
+			}
+		}
+
+		try {
+			// 双重检查，获取键锁前可能已有其它线程写入
+			final Set<K> toLoad = new LinkedHashSet<>();
+			for (K key : ownedLocks.keySet()) {
+				final V value = get(key, true);
+				if (null != value) {
+					result.put(key, value);
+				} else {
+					toLoad.add(key);
+				}
+			}
+			if (false == toLoad.isEmpty()) {
+				final Map<K, V> loaded = bulkLoad(bulkLoader, toLoad);
+				if (null != loaded) {
+					putAll(loaded);
+					for (K key : toLoad) {
+						final V value = loaded.get(key);
+						if (null != value) {
+							result.put(key, value);
+						}
+					}
+				}
+			}
+		} finally {
+			for (Map.Entry<K, Lock> entry : ownedLocks.entrySet()) {
+				entry.getValue().unlock();
+				keyLockMap.remove(entry.getKey());
+			}
+		}
+
+		// 等待其它线程的加载结果，对方加载失败或未加载到时单独加载
+		for (K key : waiting) {
+			final V value = get(key, true, () -> {
+				final Map<K, V> loaded = bulkLoader.apply(Collections.singleton(key));
+				return null == loaded ? null : loaded.get(key);
+			});
+			if (null != value) {
+				result.put(key, value);
+			}
+		}
+		return result;
+	}
+
+	/**
+	 * 调用supplier加载并记录加载耗时，抛出异常或返回{@code null}记为加载失败
+	 *
+	 * @param supplier 值生产者
+	 * @return 值
+	 */
+	private V load(Func0<V> supplier) {
+		final long start = System.nanoTime();
+		final V v;
+		try {
+			v = supplier.callWithRuntimeException();
+		} catch (RuntimeException e) {
+			statsCounter.recordLoadFailure(System.nanoTime() - start);
+			throw e;
+		}
+		if (null == v) {
+			statsCounter.recordLoadFailure(System.nanoTime() - start);
+		} else {
+			statsCounter.recordLoadSuccess(System.nanoTime() - start);
+		}
+		return v;
+	}
+
+	/**
+	 * 调用批量加载函数并记录加载耗时，整个批次记为一次加载
+	 *
+	 * @param bulkLoader 批量加载函数
+	 * @param keys       需要加载的键
+	 * @return 加载结果
+	 */
+	private Map<K, V> bulkLoad(Function<Set<K>, Map<K, V>> bulkLoader, Set<K> keys) {
+		final long start = System.nanoTime();
+		final Map<K, V> loaded;
+		try {
+			loaded = bulkLoader.apply(keys);
+		} catch (RuntimeException e) {
+			statsCounter.recordLoadFailure(System.nanoTime() - start);
+			throw e;
+		}
+		if (null == loaded) {
+			statsCounter.recordLoadFailure(System.nanoTime() - start);
+		} else {
+			statsCounter.recordLoadSuccess(System.nanoTime() - start);
+		}
+		return loaded;
+	}
+
 	/**
 	 * 获取键对应的{@link CacheObj}
-	 * @param key 键，实际使用时会被包装为{@link MutableObj}
+	 * @param key 键，{@code null}时使用{@link NullKey}查询，不分配对象
 	 * @return {@link CacheObj}
 	 * @since 5.8.0
 	 */
 	protected CacheObj<K, V> getWithoutLock(K key){
-		return this.cacheMap.get(MutableObj.of(key));
+		return this.cacheMap.get(NullKey.mask(key));
 	}
 	// ---------------------------------------------------------------- get end
 
@@ -195,11 +369,49 @@ public abstract class AbstractCache<K, V> implements Cache<K, V> {
 		return (timeout != 0) || existCustomTimeout;
 	}
 
+	/**
+	 * 设置了最大总权重时按总权重判断，否则按对象数判断
+	 *
+	 * @return 是否已满
+	 */
 	@Override
 	public boolean isFull() {
+		if (maximumWeight > 0) {
+			return totalWeight >= maximumWeight;
+		}
 		return (capacity > 0) && (cacheMap.size() >= capacity);
 	}
 
+	/**
+	 * @return 最大总权重，{@code 0}表示不按权重限制
+	 */
+	public long getMaximumWeight() {
+		return maximumWeight;
+	}
+
+	/**
+	 * @return 当前总权重，未设置权重计算时等于对象数
+	 */
+	public long getTotalWeight() {
+		return totalWeight;
+	}
+
+	/**
+	 * 计算对象权重
+	 *
+	 * @param key   键
+	 * @param value 值
+	 * @return 权重
+	 * @throws IllegalArgumentException 权重为负数
+	 */
+	protected int weigh(K key, V value) {
+		final int weight = weigher.weigh(key, value);
+		if (weight < 0) {
+			throw new IllegalArgumentException("Weight of key [" + key + "] must not be negative: " + weight);
+		}
+		return weight;
+	}
+
 	@Override
 	public int size() {
 		return cacheMap.size();
@@ -236,20 +448,50 @@ public abstract class AbstractCache<K, V> implements Cache<K, V> {
 	 * @since 5.5.9
 	 */
 	public Set<K> keySet(){
-		return this.cacheMap.keySet().stream().map(Mutable::get).collect(Collectors.toSet());
+		return this.cacheMap.keySet().stream().map(NullKey::<K>unmask).collect(Collectors.toSet());
 	}
 
 	/**
 	 * 对象移除回调。默认无动作<br>
-	 * 子类可重写此方法用于监听移除事件，如果重写，listener将无效
+	 * 子类可重写此方法用于监听移除事件，由{@link #onRemove(Object, Object, RemovalCause)}的默认实现调用，
+	 * 重写此方法不影响listener
 	 *
 	 * @param key          键
 	 * @param cachedObject 被缓存的对象
 	 */
 	protected void onRemove(K key, V cachedObject) {
+		// 默认无动作
+	}
+
+	/**
+	 * 记录移除统计并触发移除回调，子类移除对象后应调用此方法而不是直接调用onRemove
+	 *
+	 * @param co    被移除的对象
+	 * @param cause 移除原因
+	 */
+	protected void notifyRemove(CacheObj<K, V> co, RemovalCause cause) {
+		statsCounter.recordRemoval(cause, co.weight);
+		final BiConsumer<CacheObj<K, V>, RemovalCause> removalHook = this.removalHook;
+		if (null != removalHook) {
+			removalHook.accept(co, cause);
+		} else {
+			onRemove(co.key, co.obj, cause);
+		}
+	}
+
+	/**
+	 * 对象移除回调，附带移除原因，默认先调用{@link #onRemove(Object, Object)}，再转发给listener<br>
+	 * 子类可重写此方法用于监听移除事件，如果重写，{@link #onRemove(Object, Object)}和listener将无效
+	 *
+	 * @param key          键
+	 * @param cachedObject 被缓存的对象
+	 * @param cause        移除原因
+	 */
+	protected void onRemove(K key, V cachedObject, RemovalCause cause) {
+		onRemove(key, cachedObject);
 		final CacheListener<K, V> listener = this.listener;
 		if (null != listener) {
-			listener.onRemove(key, cachedObject);
+			listener.onRemove(key, cachedObject, cause);
 		}
 	}
 
@@ -260,7 +502,11 @@ public abstract class AbstractCache<K, V> implements Cache<K, V> {
 	 * @return 移除的对象，无返回null
 	 */
 	protected CacheObj<K, V> removeWithoutLock(K key) {
-		return cacheMap.remove(MutableObj.of(key));
+		final CacheObj<K, V> co = cacheMap.remove(NullKey.mask(key));
+		if (null != co) {
+			totalWeight -= co.weight;
+		}
+		return co;
 	}
 
 	/**
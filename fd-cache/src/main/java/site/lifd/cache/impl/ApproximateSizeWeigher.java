@@ -0,0 +1,213 @@
+package site.lifd.cache.impl;
+
+import site.lifd.cache.Weigher;
+
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.Map;
+
+/**
+ * 按估算的堆内存占用字节数计算权重，权重为键与值的估算大小之和<br>
+ * 估算基于开启压缩指针的64位JVM（对象头12字节，引用4字节，按8字节对齐），不使用反射，代价与对象结构而非数据量相关：
+ * <ul>
+ *     <li>基本类型数组：数组头加元素大小乘以长度</li>
+ *     <li>{@link CharSequence}：按每个字符2字节估算，只包含Latin1字符的字符串实际占用约为估算值的一半</li>
+ *     <li>{@link Collection}、{@link Map}和对象数组：容器本身加每个元素（键值对）的开销，元素较多时只抽样前{@value #SAMPLE_SIZE}个按比例推算</li>
+ *     <li>基本类型包装类按实际大小，其它对象统一按{@value #DEFAULT_OBJECT_SIZE}字节估算，需要更精确时请自定义{@link Weigher}</li>
+ * </ul>
+ *
+ * @param <K> 键类型
+ * @param <V> 值类型
+ * @author lifengdi
+ */
+public class ApproximateSizeWeigher<K, V> implements Weigher<K, V> {
+	private static final long serialVersionUID = 1L;
+
+	@SuppressWarnings("rawtypes")
+	private static final ApproximateSizeWeigher INSTANCE = new ApproximateSizeWeigher();
+
+	/**
+	 * 数组头大小
+	 */
+	private static final int ARRAY_HEADER = 16;
+	/**
+	 * 引用大小
+	 */
+	private static final int REFERENCE = 4;
+	/**
+	 * String对象本身的大小，不含字符数组
+	 */
+	private static final int STRING_SHALLOW = 24;
+	/**
+	 * 集合对象本身的估算大小
+	 */
+	private static final int CONTAINER_SHALLOW = 48;
+	/**
+	 * 集合中每个元素的额外开销，按HashMap节点估算
+	 */
+	private static final int ENTRY_OVERHEAD = 32;
+	/**
+	 * 未知类型对象的估算大小
+	 */
+	private static final int DEFAULT_OBJECT_SIZE = 64;
+	/**
+	 * 容器元素抽样数
+	 */
+	private static final int SAMPLE_SIZE = 32;
+	/**
+	 * 容器嵌套的最大估算深度，更深的容器按未知对象估算
+	 */
+	private static final int MAX_DEPTH = 4;
+
+	/**
+	 * 获取单例
+	 *
+	 * @param <K> 键类型
+	 * @param <V> 值类型
+	 * @return 单例
+	 */
+	@SuppressWarnings("unchecked")
+	public static <K, V> ApproximateSizeWeigher<K, V> instance() {
+		return INSTANCE;
+	}
+
+	@Override
+	public int weigh(K key, V value) {
+		return (int) Math.min(estimate(key) + estimate(value), Integer.MAX_VALUE);
+	}
+
+	/**
+	 * 估算对象占用的堆内存字节数
+	 *
+	 * @param obj 对象
+	 * @return 估算字节数，{@code null}为0
+	 */
+	public static long estimate(Object obj) {
+		return estimate(obj, 0);
+	}
+
+	/**
+	 * 估算对象占用的堆内存字节数
+	 *
+	 * @param obj   对象
+	 * @param depth 当前容器嵌套深度
+	 * @return 估算字节数
+	 */
+	private static long estimate(Object obj, int depth) {
+		if (null == obj) {
+			return 0;
+		}
+		if (obj instanceof CharSequence) {
+			return STRING_SHALLOW + align(ARRAY_HEADER + 2L * ((CharSequence) obj).length());
+		}
+		if (obj instanceof byte[]) {
+			return align(ARRAY_HEADER + (long) ((byte[]) obj).length);
+		}
+		if (obj instanceof Long || obj instanceof Double) {
+			return 24;
+		}
+		if (obj instanceof Number || obj instanceof Boolean || obj instanceof Character) {
+			return 16;
+		}
+		if (obj.getClass().isArray()) {
+			return estimateArray(obj, depth);
+		}
+		if (depth >= MAX_DEPTH) {
+			return DEFAULT_OBJECT_SIZE;
+		}
+		if (obj instanceof Collection) {
+			final Collection<?> collection = (Collection<?>) obj;
+			return CONTAINER_SHALLOW + sample(collection.iterator(), collection.size(), depth, false);
+		}
+		if (obj instanceof Map) {
+			final Map<?, ?> map = (Map<?, ?>) obj;
+			return CONTAINER_SHALLOW + sample(map.entrySet().iterator(), map.size(), depth, true);
+		}
+		return DEFAULT_OBJECT_SIZE;
+	}
+
+	/**
+	 * 估算数组大小
+	 *
+	 * @param array 数组
+	 * @param depth 当前容器嵌套深度
+	 * @return 估算字节数
+	 */
+	private static long estimateArray(Object array, int depth) {
+		if (array instanceof Object[]) {
+			final Object[] objects = (Object[]) array;
+			long size = align(ARRAY_HEADER + (long) REFERENCE * objects.length);
+			if (depth < MAX_DEPTH) {
+				final int sampled = Math.min(objects.length, SAMPLE_SIZE);
+				long sampledSize = 0;
+				for (int i = 0; i < sampled; i++) {
+					sampledSize += estimate(objects[i], depth + 1);
+				}
+				size += 0 == sampled ? 0 : sampledSize * objects.length / sampled;
+			}
+			return size;
+		}
+		final int elementSize;
+		final int length;
+		if (array instanceof char[]) {
+			elementSize = 2;
+			length = ((char[]) array).length;
+		} else if (array instanceof short[]) {
+			elementSize = 2;
+			length = ((short[]) array).length;
+		} else if (array instanceof int[]) {
+			elementSize = 4;
+			length = ((int[]) array).length;
+		} else if (array instanceof float[]) {
+			elementSize = 4;
+			length = ((float[]) array).length;
+		} else if (array instanceof long[]) {
+			elementSize = 8;
+			length = ((long[]) array).length;
+		} else if (array instanceof double[]) {
+			elementSize = 8;
+			length = ((double[]) array).length;
+		} else {
+			// boolean[]
+			elementSize = 1;
+			length = ((boolean[]) array).length;
+		}
+		return align(ARRAY_HEADER + (long) elementSize * length);
+	}
+
+	/**
+	 * 抽样估算容器元素的大小，按抽样的平均值推算全部元素
+	 *
+	 * @param iterator 元素迭代器
+	 * @param size     元素总数
+	 * @param depth    当前容器嵌套深度
+	 * @param isMap    元素是否为{@link Map.Entry}
+	 * @return 估算字节数
+	 */
+	private static long sample(Iterator<?> iterator, int size, int depth, boolean isMap) {
+		long sampledSize = 0;
+		int sampled = 0;
+		while (sampled < SAMPLE_SIZE && iterator.hasNext()) {
+			final Object element = iterator.next();
+			if (isMap) {
+				final Map.Entry<?, ?> entry = (Map.Entry<?, ?>) element;
+				sampledSize += estimate(entry.getKey(), depth + 1) + estimate(entry.getValue(), depth + 1);
+			} else {
+				sampledSize += estimate(element, depth + 1);
+			}
+			sampled++;
+		}
+		final long elements = 0 == sampled ? 0 : sampledSize * size / sampled;
+		return elements + (long) ENTRY_OVERHEAD * size;
+	}
+
+	/**
+	 * 按8字节对齐
+	 *
+	 * @param size 大小
+	 * @return 对齐后的大小
+	 */
+	private static long align(long size) {
+		return (size + 7) & ~7L;
+	}
+}
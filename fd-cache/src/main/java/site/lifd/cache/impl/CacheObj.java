@@ -31,6 +31,19 @@ public class CacheObj<K, V> implements Serializable {
 	 * 对象存活时长，0表示永久存活
 	 */
 	protected final long ttl;
+	/**
+	 * 对象权重，放入缓存时由{@link site.lifd.cache.Weigher}计算
+	 */
+	protected int weight = 1;
+
+	/**
+	 * 时间轮中的前一个对象，由{@link TimerWheel}维护
+	 */
+	transient CacheObj<K, V> previousInWheel;
+	/**
+	 * 时间轮中的后一个对象，由{@link TimerWheel}维护
+	 */
+	transient CacheObj<K, V> nextInWheel;
 
 	/**
 	 * 构造
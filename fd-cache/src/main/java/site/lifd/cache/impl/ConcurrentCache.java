@@ -0,0 +1,434 @@
+package site.lifd.cache.impl;
+
+import site.lifd.cache.RemovalCause;
+import site.lifd.cache.stats.StatsCounter;
+import site.lifd.core.lang.Pair;
+import site.lifd.core.map.SafeConcurrentHashMap;
+
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * 读操作无锁的并发缓存<br>
+ * 对象存放在{@link SafeConcurrentHashMap}中，读操作直接查询Map，不获取任何锁；
+ * 读操作对淘汰策略的影响（访问顺序、访问频率）先记录到{@link StripedReadBuffer}中，
+ * 由维护任务在持有淘汰锁时批量重放，淘汰也在维护任务或写操作中完成，不在读路径上执行。
+ * <p>
+ * 写操作（put、remove、clear、prune）仍然在淘汰锁内执行，并在写之前顺带执行维护。
+ * 设置了超时的对象按过期时间放入{@link TimerWheel}，维护时推进时间轮移除过期对象，无需遍历全部对象。
+ * 维护任务默认提交到{@link ForkJoinPool#commonPool()}，可通过{@link #setExecutor(Executor)}自定义。
+ * <p>
+ * 子类只需实现淘汰策略相关的record方法和{@link #pruneCache()}，这些方法均在淘汰锁内调用，无需考虑并发。
+ * 在淘汰锁内移除的对象通过{@link #deferNotifyRemove(CacheObj, RemovalCause)}记录，释放锁后再回调，
+ * 避免慢的或重入的回调阻塞所有写操作。
+ *
+ * @param <K> 键类型
+ * @param <V> 值类型
+ * @author lifengdi
+ */
+public abstract class ConcurrentCache<K, V> extends AbstractCache<K, V> {
+	private static final long serialVersionUID = 1L;
+
+	/**
+	 * 淘汰锁，写操作和维护任务共用，读操作不使用
+	 */
+	protected final ReentrantLock evictionLock = new ReentrantLock();
+	/**
+	 * 读操作记录缓冲区
+	 */
+	private final StripedReadBuffer<CacheObj<K, V>> readBuffer = new StripedReadBuffer<>();
+	/**
+	 * 是否已提交维护任务，防止重复提交
+	 */
+	private final AtomicBoolean drainScheduled = new AtomicBoolean();
+	/**
+	 * 过期时间轮，只包含ttl大于0的对象
+	 */
+	private transient TimerWheel<K, V> timerWheel = new TimerWheel<>(System.currentTimeMillis());
+	/**
+	 * 执行维护任务的线程池，为{@code null}时由触发维护的线程尝试执行
+	 */
+	private transient Executor executor = ForkJoinPool.commonPool();
+	/**
+	 * 持有淘汰锁期间移除的对象及原因，释放锁后回调
+	 */
+	private transient List<Pair<CacheObj<K, V>, RemovalCause>> pendingRemovals = new ArrayList<>();
+
+	/**
+	 * 构造
+	 */
+	protected ConcurrentCache() {
+		this.cacheMap = new SafeConcurrentHashMap<>();
+	}
+
+	/**
+	 * 设置执行维护任务的线程池
+	 *
+	 * @param executor 线程池，{@code null}表示由触发维护的线程尝试执行
+	 * @return this
+	 */
+	public ConcurrentCache<K, V> setExecutor(Executor executor) {
+		this.executor = executor;
+		return this;
+	}
+
+	// ---------------------------------------------------------------- get start
+	@Override
+	public V get(K key, boolean isUpdateLastAccess) {
+		final StatsCounter statsCounter = this.statsCounter;
+		if (false == statsCounter.isRecordingLatency()) {
+			return getIfPresent(key, isUpdateLastAccess);
+		}
+		final long start = System.nanoTime();
+		try {
+			return getIfPresent(key, isUpdateLastAccess);
+		} finally {
+			statsCounter.recordGetLatency(System.nanoTime() - start);
+		}
+	}
+
+	/**
+	 * 无锁读取，记录命中统计，读操作记入读缓冲区
+	 *
+	 * @param key                键
+	 * @param isUpdateLastAccess 是否更新最后访问时间
+	 * @return 值或null
+	 */
+	private V getIfPresent(K key, boolean isUpdateLastAccess) {
+		final CacheObj<K, V> co = getWithoutLock(key);
+		if (null == co) {
+			statsCounter.recordMisses(1);
+			return null;
+		}
+		if (co.isExpired()) {
+			// 过期对象不在读路径上移除，交给维护任务
+			statsCounter.recordMisses(1);
+			scheduleDrain();
+			return null;
+		}
+
+		statsCounter.recordHits(1);
+		if (StripedReadBuffer.FULL == readBuffer.offer(co)) {
+			scheduleDrain();
+		}
+		return co.get(isUpdateLastAccess);
+	}
+
+	@Override
+	public boolean containsKey(K key) {
+		final CacheObj<K, V> co = getWithoutLock(key);
+		return null != co && false == co.isExpired();
+	}
+
+	@Override
+	public Iterator<CacheObj<K, V>> cacheObjIterator() {
+		// ConcurrentHashMap的迭代器是弱一致的，无需复制
+		return new CacheObjIterator<>(cacheObjIter());
+	}
+	// ---------------------------------------------------------------- get end
+
+	// ---------------------------------------------------------------- put start
+	@Override
+	public void put(K key, V object, long timeout) {
+		final StatsCounter statsCounter = this.statsCounter;
+		final boolean recordLatency = statsCounter.isRecordingLatency();
+		final long start = recordLatency ? System.nanoTime() : 0L;
+		evictionLock.lock();
+		try {
+			maintenance();
+			putWithoutLock(key, object, timeout);
+		} finally {
+			unlockEviction();
+		}
+		if (recordLatency) {
+			statsCounter.recordPutLatency(System.nanoTime() - start);
+		}
+	}
+
+	/**
+	 * 批量加入元素，整个批次只获取一次锁
+	 *
+	 * @param map 键值对
+	 */
+	@Override
+	public void putAll(Map<? extends K, ? extends V> map) {
+		evictionLock.lock();
+		try {
+			maintenance();
+			for (Map.Entry<? extends K, ? extends V> entry : map.entrySet()) {
+				putWithoutLock(entry.getKey(), entry.getValue(), timeout);
+			}
+		} finally {
+			unlockEviction();
+		}
+	}
+
+	/**
+	 * 加入元素并通知淘汰策略，调用方需持有淘汰锁
+	 *
+	 * @param key     键
+	 * @param object  值
+	 * @param timeout 超时时长
+	 */
+	@Override
+	protected void putWithoutLock(K key, V object, long timeout) {
+		final CacheObj<K, V> co = new CacheObj<>(key, object, timeout);
+		co.weight = weigh(key, object);
+		if (timeout != 0) {
+			existCustomTimeout = true;
+		}
+		final CacheObj<K, V> old = cacheMap.put(NullKey.mask(key), co);
+		totalWeight += co.weight;
+		if (null != old) {
+			totalWeight -= old.weight;
+			timerWheel.deschedule(old);
+		}
+		if (co.ttl > 0) {
+			timerWheel.schedule(co);
+		}
+		if (null == old) {
+			recordAdd(co);
+		} else {
+			recordReplace(old, co);
+		}
+	}
+	// ---------------------------------------------------------------- put end
+
+	// ---------------------------------------------------------------- remove start
+	@Override
+	public void remove(K key) {
+		CacheObj<K, V> co;
+		evictionLock.lock();
+		try {
+			co = removeWithoutLock(key);
+		} finally {
+			unlockEviction();
+		}
+		if (null != co) {
+			notifyRemove(co, RemovalCause.EXPLICIT);
+		}
+	}
+
+	/**
+	 * 移除对象并通知淘汰策略，调用方需持有淘汰锁
+	 *
+	 * @param key 键
+	 * @return 移除的对象，无返回null
+	 */
+	@Override
+	protected CacheObj<K, V> removeWithoutLock(K key) {
+		final CacheObj<K, V> co = cacheMap.remove(NullKey.mask(key));
+		if (null != co) {
+			totalWeight -= co.weight;
+			timerWheel.deschedule(co);
+			recordRemoval(co);
+		}
+		return co;
+	}
+
+	@Override
+	public void clear() {
+		final List<CacheObj<K, V>> removed = new ArrayList<>();
+		evictionLock.lock();
+		try {
+			// 丢弃未处理的读记录
+			readBuffer.drainTo(co -> {
+			});
+			final List<CacheObj<K, V>> values = new ArrayList<>(cacheMap.values());
+			for (CacheObj<K, V> value : values) {
+				final CacheObj<K, V> co = removeWithoutLock(value.key);
+				if (null != co) {
+					removed.add(co);
+				}
+			}
+		} finally {
+			unlockEviction();
+		}
+		for (CacheObj<K, V> co : removed) {
+			notifyRemove(co, RemovalCause.EXPLICIT);
+		}
+	}
+	// ---------------------------------------------------------------- remove end
+
+	// ---------------------------------------------------------------- prune start
+	@Override
+	public final int prune() {
+		evictionLock.lock();
+		try {
+			readBuffer.drainTo(this::recordAccess);
+			return expireEntries() + pruneCache();
+		} finally {
+			unlockEviction();
+		}
+	}
+
+	/**
+	 * 执行维护：重放读缓冲区，推进时间轮清理过期对象<br>
+	 * 调用方需持有淘汰锁
+	 */
+	protected void maintenance() {
+		readBuffer.drainTo(this::recordAccess);
+		expireEntries();
+	}
+
+	/**
+	 * 推进时间轮到当前时间，移除到期对象，调用方需持有淘汰锁<br>
+	 * 只处理时间轮跨过的桶，单次耗时与到期对象数相关，与缓存大小无关。
+	 *
+	 * @return 移除的对象数
+	 */
+	protected int expireEntries() {
+		if (false == isPruneExpiredActive()) {
+			return 0;
+		}
+		return timerWheel.advance(System.currentTimeMillis(), this::expire);
+	}
+
+	/**
+	 * 移除到期对象并触发移除回调
+	 *
+	 * @param co 到期对象
+	 * @return 是否移除，对象已被替换时返回{@code false}
+	 */
+	private boolean expire(CacheObj<K, V> co) {
+		if (cacheMap.get(NullKey.mask(co.key)) != co) {
+			return false;
+		}
+		removeWithoutLock(co.key);
+		deferNotifyRemove(co, RemovalCause.EXPIRED);
+		return true;
+	}
+
+	/**
+	 * 记录在淘汰锁内移除的对象，在{@link #unlockEviction()}释放锁后再触发移除回调<br>
+	 * 调用方需持有淘汰锁
+	 *
+	 * @param co    被移除的对象
+	 * @param cause 移除原因
+	 */
+	protected void deferNotifyRemove(CacheObj<K, V> co, RemovalCause cause) {
+		pendingRemovals.add(new Pair<>(co, cause));
+	}
+
+	/**
+	 * 释放淘汰锁，最外层释放时触发持有锁期间记录的移除回调
+	 */
+	protected void unlockEviction() {
+		List<Pair<CacheObj<K, V>, RemovalCause>> removals = null;
+		if (1 == evictionLock.getHoldCount() && false == pendingRemovals.isEmpty()) {
+			removals = pendingRemovals;
+			pendingRemovals = new ArrayList<>();
+		}
+		evictionLock.unlock();
+		if (null != removals) {
+			for (Pair<CacheObj<K, V>, RemovalCause> removal : removals) {
+				notifyRemove(removal.getKey(), removal.getValue());
+			}
+		}
+	}
+
+	/**
+	 * 提交维护任务，已提交未执行时忽略
+	 */
+	protected void scheduleDrain() {
+		if (false == drainScheduled.compareAndSet(false, true)) {
+			return;
+		}
+		final Executor executor = this.executor;
+		if (null != executor) {
+			try {
+				executor.execute(this::performMaintenance);
+				return;
+			} catch (RejectedExecutionException ignore) {
+				// 线程池拒绝时由当前线程尝试执行
+			}
+		}
+
+		// 获取不到锁说明有其它线程正在写入或维护，写入时会顺带维护，直接放弃
+		if (evictionLock.tryLock()) {
+			try {
+				drainScheduled.set(false);
+				maintenance();
+			} finally {
+				unlockEviction();
+			}
+		} else {
+			drainScheduled.set(false);
+		}
+	}
+
+	/**
+	 * 在线程池中执行的维护任务
+	 */
+	private void performMaintenance() {
+		evictionLock.lock();
+		try {
+			// 先重置标记，维护过程中读缓冲区再次填满时可以重新提交
+			drainScheduled.set(false);
+			maintenance();
+		} finally {
+			unlockEviction();
+		}
+	}
+	// ---------------------------------------------------------------- prune end
+
+	/**
+	 * 反序列化后时间轮中的链接丢失，按现有对象重建时间轮
+	 *
+	 * @param in 输入流
+	 * @throws IOException            IO异常
+	 * @throws ClassNotFoundException 类未找到
+	 */
+	private void readObject(ObjectInputStream in) throws IOException, ClassNotFoundException {
+		in.defaultReadObject();
+		this.executor = ForkJoinPool.commonPool();
+		this.pendingRemovals = new ArrayList<>();
+		this.timerWheel = new TimerWheel<>(System.currentTimeMillis());
+		for (CacheObj<K, V> co : cacheMap.values()) {
+			if (co.ttl > 0) {
+				timerWheel.schedule(co);
+			}
+		}
+	}
+
+	// ---------------------------------------------------------------- policy start
+	/**
+	 * 重放一次读操作，调整淘汰策略中的访问顺序或频率<br>
+	 * 由于读记录是异步重放的，传入的对象可能已被移除或替换，实现需自行判断
+	 *
+	 * @param co 被读取的对象
+	 */
+	protected abstract void recordAccess(CacheObj<K, V> co);
+
+	/**
+	 * 新对象加入后回调，超出容量时在此执行淘汰
+	 *
+	 * @param co 新加入的对象
+	 */
+	protected abstract void recordAdd(CacheObj<K, V> co);
+
+	/**
+	 * 已有的键被新对象覆盖后回调
+	 *
+	 * @param old 旧对象
+	 * @param co  新对象
+	 */
+	protected abstract void recordReplace(CacheObj<K, V> old, CacheObj<K, V> co);
+
+	/**
+	 * 对象从缓存中移除后回调
+	 *
+	 * @param co 被移除的对象
+	 */
+	protected abstract void recordRemoval(CacheObj<K, V> co);
+	// ---------------------------------------------------------------- policy end
+}
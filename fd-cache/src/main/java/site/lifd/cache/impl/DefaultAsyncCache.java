@@ -0,0 +1,281 @@
+package site.lifd.cache.impl;
+
+import site.lifd.cache.AsyncCache;
+import site.lifd.cache.Cache;
+import site.lifd.cache.CacheListener;
+import site.lifd.cache.RemovalCause;
+import site.lifd.core.lang.func.Func1;
+import site.lifd.core.map.SafeConcurrentHashMap;
+
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RejectedExecutionException;
+
+/**
+ * {@link AsyncCache}的默认实现，已加载的值存放在一个同步{@link Cache}中<br>
+ * <ul>
+ *     <li>未命中时，加载在指定的{@link Executor}中执行，同一个键的并发未命中共享同一个加载中的{@link CompletableFuture}</li>
+ *     <li>设置了写后刷新时长时，命中的值写入超过此时长后，在后台重新加载，加载完成前仍返回旧值，调用方不会等待</li>
+ *     <li>对象被移除、过期或淘汰时，通过{@link CacheListener}回调</li>
+ *     <li>{@link #remove(Object)}会作废同一个键进行中的加载和刷新，其结果不再写入缓存，避免写回移除前的旧值</li>
+ * </ul>
+ * 写后刷新不同于过期：过期的对象不再返回，而需要刷新的对象仍然返回，只是触发一次后台加载。
+ * 刷新时长应小于缓存的过期时长，否则对象在刷新前就已过期。
+ *
+ * @param <K> 键类型
+ * @param <V> 值类型
+ * @author lifengdi
+ */
+public class DefaultAsyncCache<K, V> implements AsyncCache<K, V> {
+
+	/**
+	 * 存放已加载值的同步缓存
+	 */
+	private final Cache<K, V> cache;
+	/**
+	 * 执行加载的线程池
+	 */
+	private final Executor executor;
+	/**
+	 * 写后刷新时长，单位毫秒，{@code 0}表示不刷新
+	 */
+	private final long refreshAfterWrite;
+	/**
+	 * 加载中的值，包括未命中加载和后台刷新
+	 */
+	private final Map<Object, CompletableFuture<V>> inFlight = new SafeConcurrentHashMap<>();
+	/**
+	 * 对象写入时间，仅在开启写后刷新时记录
+	 */
+	private final Map<Object, Long> writeTimeMap = new SafeConcurrentHashMap<>();
+	/**
+	 * 缓存监听
+	 */
+	private volatile CacheListener<K, V> listener;
+
+	/**
+	 * 构造，使用{@link ForkJoinPool#commonPool()}加载，不刷新
+	 *
+	 * @param cache 存放已加载值的同步缓存
+	 */
+	public DefaultAsyncCache(Cache<K, V> cache) {
+		this(cache, ForkJoinPool.commonPool());
+	}
+
+	/**
+	 * 构造，不刷新
+	 *
+	 * @param cache    存放已加载值的同步缓存
+	 * @param executor 执行加载的线程池
+	 */
+	public DefaultAsyncCache(Cache<K, V> cache, Executor executor) {
+		this(cache, executor, 0);
+	}
+
+	/**
+	 * 构造
+	 *
+	 * @param cache             存放已加载值的同步缓存，其监听将被此对象接管，请通过{@link #setListener(CacheListener)}设置监听
+	 * @param executor          执行加载的线程池
+	 * @param refreshAfterWrite 写后刷新时长，单位毫秒，{@code 0}表示不刷新
+	 */
+	public DefaultAsyncCache(Cache<K, V> cache, Executor executor, long refreshAfterWrite) {
+		this.cache = cache;
+		this.executor = null == executor ? ForkJoinPool.commonPool() : executor;
+		this.refreshAfterWrite = Math.max(refreshAfterWrite, 0);
+		cache.setListener(new CacheListener<K, V>() {
+			@Override
+			public void onRemove(K key, V cachedObject) {
+				onRemove(key, cachedObject, RemovalCause.EXPLICIT);
+			}
+
+			@Override
+			public void onRemove(K key, V cachedObject, RemovalCause cause) {
+				DefaultAsyncCache.this.onRemove(key, cachedObject, cause);
+			}
+		});
+	}
+
+	@Override
+	public CompletableFuture<V> getIfPresent(K key) {
+		final V value = cache.get(key);
+		if (null != value) {
+			return CompletableFuture.completedFuture(value);
+		}
+		return inFlight.get(NullKey.mask(key));
+	}
+
+	@Override
+	public CompletableFuture<V> get(K key, Func1<K, V> loader) {
+		final V value = cache.get(key);
+		if (null != value) {
+			if (isRefreshRequired(key)) {
+				refresh(key, loader);
+			}
+			return CompletableFuture.completedFuture(value);
+		}
+
+		final Object mKey = NullKey.mask(key);
+		CompletableFuture<V> future = inFlight.get(mKey);
+		if (null != future) {
+			return future;
+		}
+		final CompletableFuture<V> newFuture = new CompletableFuture<>();
+		future = inFlight.putIfAbsent(mKey, newFuture);
+		if (null != future) {
+			// 其它线程已开始加载，共享其结果
+			return future;
+		}
+
+		// 双重检查，防止在检查缓存和登记加载之间其它线程的加载已完成
+		final V loaded = cache.get(key, false);
+		if (null != loaded) {
+			inFlight.remove(mKey, newFuture);
+			newFuture.complete(loaded);
+			return newFuture;
+		}
+		load(key, mKey, loader, newFuture);
+		return newFuture;
+	}
+
+	@Override
+	public void put(K key, CompletableFuture<V> valueFuture) {
+		final Object mKey = NullKey.mask(key);
+		inFlight.put(mKey, valueFuture);
+		valueFuture.whenComplete((value, e) -> {
+			if (null == e) {
+				// 已被之后的put或remove替代时不写入，防止晚完成的旧值覆盖新值
+				completeLoad(key, mKey, valueFuture, value);
+			} else {
+				inFlight.remove(mKey, valueFuture);
+			}
+		});
+	}
+
+	@Override
+	public void remove(K key) {
+		final Object mKey = NullKey.mask(key);
+		// 先作废进行中的加载，其结果不会在移除后写回
+		inFlight.remove(mKey);
+		cache.remove(key);
+		writeTimeMap.remove(mKey);
+	}
+
+	@Override
+	public Cache<K, V> synchronous() {
+		return this.cache;
+	}
+
+	@Override
+	public DefaultAsyncCache<K, V> setListener(CacheListener<K, V> listener) {
+		this.listener = listener;
+		return this;
+	}
+
+	/**
+	 * 判断命中的值是否需要刷新<br>
+	 * 直接写入同步视图的对象没有写入时间记录，此时以首次判断的时间作为写入时间
+	 *
+	 * @param key 键
+	 * @return 是否需要刷新
+	 */
+	private boolean isRefreshRequired(K key) {
+		if (0 == refreshAfterWrite) {
+			return false;
+		}
+		final long now = System.currentTimeMillis();
+		final Long writeTime = writeTimeMap.putIfAbsent(NullKey.mask(key), now);
+		return null != writeTime && (now - writeTime) >= refreshAfterWrite;
+	}
+
+	/**
+	 * 后台刷新，已有同一键的加载或刷新在进行时忽略；刷新失败时保留旧值，下次命中时再次尝试
+	 *
+	 * @param key    键
+	 * @param loader 加载函数
+	 */
+	private void refresh(K key, Func1<K, V> loader) {
+		final Object mKey = NullKey.mask(key);
+		final CompletableFuture<V> future = new CompletableFuture<>();
+		if (null == inFlight.putIfAbsent(mKey, future)) {
+			load(key, mKey, loader, future);
+		}
+	}
+
+	/**
+	 * 在线程池中执行加载，完成后放入缓存并移除加载登记
+	 *
+	 * @param key    键
+	 * @param mKey   经{@link NullKey#mask(Object)}处理后的键
+	 * @param loader 加载函数
+	 * @param future 已登记的{@link CompletableFuture}
+	 */
+	private void load(K key, Object mKey, Func1<K, V> loader, CompletableFuture<V> future) {
+		try {
+			executor.execute(() -> {
+				final V value;
+				try {
+					value = loader.call(key);
+				} catch (Throwable e) {
+					inFlight.remove(mKey, future);
+					future.completeExceptionally(e);
+					return;
+				}
+				// 先写入缓存并移除登记再完成，保证回调中再次get时可以直接命中缓存
+				completeLoad(key, mKey, future, value);
+				future.complete(value);
+			});
+		} catch (RejectedExecutionException e) {
+			inFlight.remove(mKey, future);
+			future.completeExceptionally(e);
+		}
+	}
+
+	/**
+	 * 加载完成，登记仍有效时移除登记并写入缓存；登记已被{@link #remove(Object)}或新的加载替代时丢弃结果<br>
+	 * 先原子地移除登记再写入同步缓存，写入触发的监听不在Map的compute中执行，可以再次操作此缓存
+	 *
+	 * @param key    键
+	 * @param mKey   经{@link NullKey#mask(Object)}处理后的键
+	 * @param future 加载登记的{@link CompletableFuture}
+	 * @param value  加载的值，{@code null}不写入
+	 */
+	private void completeLoad(K key, Object mKey, CompletableFuture<V> future, V value) {
+		if (inFlight.remove(mKey, future) && null != value) {
+			putLoaded(key, mKey, value);
+		}
+	}
+
+	/**
+	 * 放入加载完成的值，开启刷新时记录写入时间
+	 *
+	 * @param key   键
+	 * @param mKey  经{@link NullKey#mask(Object)}处理后的键
+	 * @param value 值
+	 */
+	private void putLoaded(K key, Object mKey, V value) {
+		cache.put(key, value);
+		if (refreshAfterWrite > 0) {
+			writeTimeMap.put(mKey, System.currentTimeMillis());
+		}
+	}
+
+	/**
+	 * 同步缓存的移除回调，清理写入时间后转发给监听
+	 *
+	 * @param key          键
+	 * @param cachedObject 被缓存的对象
+	 * @param cause        移除原因
+	 */
+	private void onRemove(K key, V cachedObject, RemovalCause cause) {
+		if (refreshAfterWrite > 0) {
+			writeTimeMap.remove(NullKey.mask(key));
+		}
+		final CacheListener<K, V> listener = this.listener;
+		if (null != listener) {
+			listener.onRemove(key, cachedObject, cause);
+		}
+	}
+}
@@ -0,0 +1,631 @@
+package site.lifd.cache.impl;
+
+import site.lifd.core.io.FileUtil;
+import site.lifd.core.io.IORuntimeException;
+import site.lifd.core.io.NioUtil;
+import site.lifd.core.io.file.FileMode;
+import site.lifd.core.util.SerializeUtil;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * 基于内存映射文件的追加写分段存储，用作{@link TieredCache}的二级缓存<br>
+ * <ul>
+ *     <li>记录以追加方式写入固定大小的段文件（{@code 00000001.data}），每个段通过{@link MappedByteBuffer}映射，读写不经过系统调用</li>
+ *     <li>键到记录位置的索引常驻堆内，值只在读取时从映射区复制</li>
+ *     <li>删除时追加墓碑记录；段写满后封存，同时生成只包含键和位置的紧凑索引文件（{@code 00000001.hint}）</li>
+ *     <li>重新打开时已封存的段只读取索引文件，不扫描数据，只有最后一个活动段需要扫描</li>
+ *     <li>段数超过上限时整段删除最旧的段，其中的对象随之丢弃</li>
+ * </ul>
+ * 记录格式：魔数(4) 键长度(4) 值长度(4，墓碑为-1) 过期时间(8，0表示不过期) 键 值。
+ * 魔数在记录的其它部分写入后才写入，进程中途退出留下的不完整记录在重新打开时被忽略。
+ *
+ * @param <K> 键类型，需可序列化
+ * @author lifengdi
+ */
+public class FileSegmentStore<K> implements Closeable {
+
+	/**
+	 * 默认段大小：64MB
+	 */
+	public static final int DEFAULT_SEGMENT_SIZE = 64 << 20;
+	/**
+	 * 默认最大段数
+	 */
+	public static final int DEFAULT_MAX_SEGMENTS = 16;
+
+	/**
+	 * 记录魔数，即"FDC1"
+	 */
+	private static final int MAGIC = 0x46444331;
+	/**
+	 * 记录头长度
+	 */
+	private static final int HEADER_SIZE = 20;
+	private static final String DATA_SUFFIX = ".data";
+	private static final String HINT_SUFFIX = ".hint";
+
+	/**
+	 * 存储目录
+	 */
+	private final File dir;
+	/**
+	 * 段大小
+	 */
+	private final int segmentSize;
+	/**
+	 * 最大段数
+	 */
+	private final int maxSegments;
+	/**
+	 * 键反序列化白名单类
+	 */
+	private final Class<?>[] acceptClasses;
+	/**
+	 * 所有段，按编号排序
+	 */
+	private final TreeMap<Integer, Segment> segments = new TreeMap<>();
+	/**
+	 * 键到最新记录的索引
+	 */
+	private final Map<K, Location> index = new HashMap<>();
+	private final Lock lock = new ReentrantLock();
+	/**
+	 * 当前写入的段
+	 */
+	private Segment active;
+
+	/**
+	 * 构造，使用默认段大小和段数
+	 *
+	 * @param dir           存储目录，不存在时创建，存在时加载已有数据
+	 * @param acceptClasses 键反序列化白名单类
+	 */
+	public FileSegmentStore(File dir, Class<?>... acceptClasses) {
+		this(dir, DEFAULT_SEGMENT_SIZE, DEFAULT_MAX_SEGMENTS, acceptClasses);
+	}
+
+	/**
+	 * 构造
+	 *
+	 * @param dir           存储目录，不存在时创建，存在时加载已有数据
+	 * @param segmentSize   段大小，单条记录不能超过此大小
+	 * @param maxSegments   最大段数，磁盘占用上限为segmentSize * maxSegments
+	 * @param acceptClasses 键反序列化白名单类
+	 */
+	public FileSegmentStore(File dir, int segmentSize, int maxSegments, Class<?>... acceptClasses) {
+		if (segmentSize <= HEADER_SIZE) {
+			throw new IllegalArgumentException("Segment size must be greater than " + HEADER_SIZE);
+		}
+		if (maxSegments < 1) {
+			throw new IllegalArgumentException("Max segments must be positive");
+		}
+		this.dir = FileUtil.mkdir(dir);
+		this.segmentSize = segmentSize;
+		this.maxSegments = maxSegments;
+		this.acceptClasses = acceptClasses;
+		open();
+	}
+
+	// ---------------------------------------------------------------- read write start
+
+	/**
+	 * 写入值，覆盖已有记录
+	 *
+	 * @param key      键
+	 * @param value    值
+	 * @param expireAt 过期时间戳，{@code 0}表示不过期
+	 */
+	public void put(K key, byte[] value, long expireAt) {
+		final byte[] keyBytes = SerializeUtil.serialize(key);
+		lock.lock();
+		try {
+			final int offset = append(keyBytes, value, expireAt);
+			release(index.put(key, new Location(active, offset, keyBytes.length, value.length, expireAt)));
+			active.liveCount++;
+			dropEmptyOldest();
+		} finally {
+			lock.unlock();
+		}
+	}
+
+	/**
+	 * 读取值，过期的记录同时从索引中移除
+	 *
+	 * @param key 键
+	 * @return 值的副本，不存在或已过期返回{@code null}
+	 */
+	public byte[] get(K key) {
+		lock.lock();
+		try {
+			final Location location = index.get(key);
+			if (null == location) {
+				return null;
+			}
+			if (location.isExpired(System.currentTimeMillis())) {
+				release(index.remove(key));
+				dropEmptyOldest();
+				return null;
+			}
+			final byte[] bytes = new byte[location.valueLength];
+			location.segment.buffer.get(location.offset + HEADER_SIZE + location.keyLength, bytes);
+			return bytes;
+		} finally {
+			lock.unlock();
+		}
+	}
+
+	/**
+	 * 获取记录的过期时间戳
+	 *
+	 * @param key 键
+	 * @return 过期时间戳，{@code 0}表示不过期，不存在返回{@code -1}
+	 */
+	public long getExpireAt(K key) {
+		lock.lock();
+		try {
+			final Location location = index.get(key);
+			return null == location ? -1 : location.expireAt;
+		} finally {
+			lock.unlock();
+		}
+	}
+
+	/**
+	 * 是否包含未过期的记录
+	 *
+	 * @param key 键
+	 * @return 是否包含
+	 */
+	public boolean containsKey(K key) {
+		lock.lock();
+		try {
+			final Location location = index.get(key);
+			return null != location && false == location.isExpired(System.currentTimeMillis());
+		} finally {
+			lock.unlock();
+		}
+	}
+
+	/**
+	 * 移除记录，存在时追加墓碑记录，保证重新打开后不会恢复
+	 *
+	 * @param key 键
+	 * @return 是否存在并移除
+	 */
+	public boolean remove(K key) {
+		lock.lock();
+		try {
+			final Location location = index.remove(key);
+			if (null == location) {
+				return false;
+			}
+			append(SerializeUtil.serialize(key), null, 0);
+			release(location);
+			dropEmptyOldest();
+			return true;
+		} finally {
+			lock.unlock();
+		}
+	}
+
+	/**
+	 * 从索引中清理过期记录，过期时间已写入记录，无需墓碑
+	 *
+	 * @return 清理的记录数
+	 */
+	public int prune() {
+		lock.lock();
+		try {
+			final long now = System.currentTimeMillis();
+			int count = 0;
+			final Iterator<Location> iterator = index.values().iterator();
+			while (iterator.hasNext()) {
+				final Location location = iterator.next();
+				if (location.isExpired(now)) {
+					iterator.remove();
+					release(location);
+					count++;
+				}
+			}
+			dropEmptyOldest();
+			return count;
+		} finally {
+			lock.unlock();
+		}
+	}
+
+	/**
+	 * 删除所有段文件，从新的段开始写入
+	 */
+	public void clear() {
+		lock.lock();
+		try {
+			final int nextId = active.id + 1;
+			for (Segment segment : segments.values().toArray(new Segment[0])) {
+				deleteSegment(segment);
+			}
+			index.clear();
+			active = openSegment(nextId);
+			segments.put(active.id, active);
+		} finally {
+			lock.unlock();
+		}
+	}
+
+	/**
+	 * 将活动段的修改刷写到磁盘
+	 */
+	public void flush() {
+		lock.lock();
+		try {
+			active.buffer.force();
+		} finally {
+			lock.unlock();
+		}
+	}
+
+	/**
+	 * 刷写活动段，之后不应再使用此对象
+	 */
+	@Override
+	public void close() {
+		flush();
+	}
+	// ---------------------------------------------------------------- read write end
+
+	/**
+	 * 记录数，可能包含尚未清理的过期记录
+	 *
+	 * @return 记录数
+	 */
+	public int size() {
+		lock.lock();
+		try {
+			return index.size();
+		} finally {
+			lock.unlock();
+		}
+	}
+
+	/**
+	 * 段数
+	 *
+	 * @return 段数
+	 */
+	public int getSegmentCount() {
+		lock.lock();
+		try {
+			return segments.size();
+		} finally {
+			lock.unlock();
+		}
+	}
+
+	/**
+	 * 存储目录
+	 *
+	 * @return 存储目录
+	 */
+	public File getDir() {
+		return this.dir;
+	}
+
+	// ---------------------------------------------------------------- segment start
+
+	/**
+	 * 加载已有段，按编号从旧到新重放，已封存且有索引文件的段只读取索引文件
+	 */
+	private void open() {
+		final File[] files = FileUtil.ls(dir.getAbsolutePath());
+		for (File file : files) {
+			final String name = file.getName();
+			if (name.endsWith(DATA_SUFFIX)) {
+				final int id;
+				try {
+					id = Integer.parseInt(name.substring(0, name.length() - DATA_SUFFIX.length()));
+				} catch (NumberFormatException e) {
+					// 不是段文件，忽略
+					continue;
+				}
+				segments.put(id, openSegment(id));
+			}
+		}
+		if (segments.isEmpty()) {
+			active = openSegment(1);
+			segments.put(active.id, active);
+			return;
+		}
+
+		active = segments.lastEntry().getValue();
+		for (Segment segment : segments.values()) {
+			if (segment == active || false == loadHint(segment)) {
+				scan(segment);
+			}
+		}
+		dropEmptyOldest();
+	}
+
+	/**
+	 * 打开或创建段文件并映射，映射建立后即关闭通道，映射在缓冲区被回收前一直有效
+	 *
+	 * @param id 段编号
+	 * @return 段
+	 */
+	private Segment openSegment(int id) {
+		final String name = String.format("%08d", id);
+		final File dataFile = FileUtil.file(dir, name + DATA_SUFFIX);
+		RandomAccessFile file = null;
+		try {
+			file = new RandomAccessFile(dataFile, FileMode.rw.name());
+			final FileChannel channel = file.getChannel();
+			final long capacity = Math.max(segmentSize, Math.min(file.length(), Integer.MAX_VALUE));
+			final MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, capacity);
+			return new Segment(id, dataFile, FileUtil.file(dir, name + HINT_SUFFIX), buffer);
+		} catch (IOException e) {
+			throw new IORuntimeException(e);
+		} finally {
+			NioUtil.close(file);
+		}
+	}
+
+	/**
+	 * 追加一条记录，活动段空间不足时先切换到新段
+	 *
+	 * @param keyBytes 序列化后的键
+	 * @param value    值，{@code null}表示墓碑
+	 * @param expireAt 过期时间戳
+	 * @return 记录在活动段中的偏移
+	 */
+	private int append(byte[] keyBytes, byte[] value, long expireAt) {
+		final int valueLength = null == value ? -1 : value.length;
+		final long recordLength = (long) HEADER_SIZE + keyBytes.length + Math.max(valueLength, 0);
+		if (recordLength > segmentSize) {
+			throw new IllegalArgumentException("Record length " + recordLength + " exceeds segment size " + segmentSize);
+		}
+		if (active.position + recordLength > active.buffer.capacity()) {
+			rollover();
+		}
+
+		final MappedByteBuffer buffer = active.buffer;
+		final int offset = active.position;
+		buffer.putInt(offset + 4, keyBytes.length);
+		buffer.putInt(offset + 8, valueLength);
+		buffer.putLong(offset + 12, expireAt);
+		buffer.put(offset + HEADER_SIZE, keyBytes);
+		if (null != value) {
+			buffer.put(offset + HEADER_SIZE + keyBytes.length, value);
+		}
+		// 魔数最后写入，标记记录完整
+		buffer.putInt(offset, MAGIC);
+		active.position = (int) (offset + recordLength);
+		return offset;
+	}
+
+	/**
+	 * 封存活动段并写入索引文件，创建新的活动段，段数超出上限时删除最旧的段
+	 */
+	private void rollover() {
+		writeHint(active);
+		active.buffer.force();
+		active = openSegment(active.id + 1);
+		segments.put(active.id, active);
+
+		while (segments.size() > maxSegments) {
+			final Segment oldest = segments.firstEntry().getValue();
+			index.values().removeIf(location -> location.segment == oldest);
+			deleteSegment(oldest);
+		}
+	}
+
+	/**
+	 * 扫描段中的所有完整记录并应用到索引，同时确定段的写入位置
+	 *
+	 * @param segment 段
+	 */
+	private void scan(Segment segment) {
+		final MappedByteBuffer buffer = segment.buffer;
+		final int capacity = buffer.capacity();
+		int position = 0;
+		while (position + HEADER_SIZE <= capacity && MAGIC == buffer.getInt(position)) {
+			final int keyLength = buffer.getInt(position + 4);
+			final int valueLength = buffer.getInt(position + 8);
+			final long recordLength = (long) HEADER_SIZE + keyLength + Math.max(valueLength, 0);
+			if (keyLength < 0 || position + recordLength > capacity) {
+				break;
+			}
+			final byte[] keyBytes = new byte[keyLength];
+			buffer.get(position + HEADER_SIZE, keyBytes);
+			apply(segment, keyBytes, position, valueLength, buffer.getLong(position + 12));
+			position += (int) recordLength;
+		}
+		segment.position = position;
+	}
+
+	/**
+	 * 读取段的索引文件并应用到索引<br>
+	 * 索引文件不完整时返回{@code false}由调用方改为扫描数据，由于记录按相同顺序重放，重复应用是安全的。
+	 *
+	 * @param segment 段
+	 * @return 是否读取成功
+	 */
+	private boolean loadHint(Segment segment) {
+		if (false == FileUtil.exist(segment.hintFile)) {
+			return false;
+		}
+		try (DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(segment.hintFile)))) {
+			if (MAGIC != in.readInt()) {
+				return false;
+			}
+			final int count = in.readInt();
+			for (int i = 0; i < count; i++) {
+				final int keyLength = in.readInt();
+				final int valueLength = in.readInt();
+				final int offset = in.readInt();
+				final long expireAt = in.readLong();
+				final byte[] keyBytes = new byte[keyLength];
+				in.readFully(keyBytes);
+				apply(segment, keyBytes, offset, valueLength, expireAt);
+			}
+		} catch (IOException e) {
+			return false;
+		}
+		segment.position = segment.buffer.capacity();
+		return true;
+	}
+
+	/**
+	 * 为封存的段写入索引文件，只读取记录头和键，不读取值
+	 *
+	 * @param segment 段
+	 */
+	private void writeHint(Segment segment) {
+		final MappedByteBuffer buffer = segment.buffer;
+		int count = 0;
+		for (int position = 0; position < segment.position; ) {
+			position += HEADER_SIZE + buffer.getInt(position + 4) + Math.max(buffer.getInt(position + 8), 0);
+			count++;
+		}
+		try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(segment.hintFile)))) {
+			out.writeInt(MAGIC);
+			out.writeInt(count);
+			for (int position = 0; position < segment.position; ) {
+				final int keyLength = buffer.getInt(position + 4);
+				final int valueLength = buffer.getInt(position + 8);
+				final byte[] keyBytes = new byte[keyLength];
+				buffer.get(position + HEADER_SIZE, keyBytes);
+				out.writeInt(keyLength);
+				out.writeInt(valueLength);
+				out.writeInt(position);
+				out.writeLong(buffer.getLong(position + 12));
+				out.write(keyBytes);
+				position += HEADER_SIZE + keyLength + Math.max(valueLength, 0);
+			}
+		} catch (IOException e) {
+			// 索引文件只用于加速加载，写入失败时删除，重新打开时扫描数据
+			FileUtil.del(segment.hintFile);
+		}
+	}
+
+	/**
+	 * 将一条记录应用到索引，墓碑和已过期的记录覆盖之前的记录
+	 *
+	 * @param segment     所在段
+	 * @param keyBytes    序列化后的键
+	 * @param offset      记录偏移
+	 * @param valueLength 值长度，-1表示墓碑
+	 * @param expireAt    过期时间戳
+	 */
+	private void apply(Segment segment, byte[] keyBytes, int offset, int valueLength, long expireAt) {
+		final K key = SerializeUtil.deserialize(keyBytes, acceptClasses);
+		final Location location = new Location(segment, offset, keyBytes.length, valueLength, expireAt);
+		if (valueLength < 0 || location.isExpired(System.currentTimeMillis())) {
+			release(index.remove(key));
+		} else {
+			release(index.put(key, location));
+			segment.liveCount++;
+		}
+	}
+
+	/**
+	 * 释放被覆盖或移除的记录，减少所在段的有效记录数
+	 *
+	 * @param location 记录位置，{@code null}时忽略
+	 */
+	private void release(Location location) {
+		if (null != location) {
+			location.segment.liveCount--;
+		}
+	}
+
+	/**
+	 * 从最旧的段开始删除不再包含有效记录的已封存段<br>
+	 * 较新的段中的墓碑可能用于屏蔽更旧段中的记录，因此只能从最旧的段开始删除。
+	 */
+	private void dropEmptyOldest() {
+		while (segments.size() > 1) {
+			final Segment oldest = segments.firstEntry().getValue();
+			if (oldest == active || oldest.liveCount > 0) {
+				return;
+			}
+			deleteSegment(oldest);
+		}
+	}
+
+	/**
+	 * 删除段文件及其索引文件
+	 *
+	 * @param segment 段
+	 */
+	private void deleteSegment(Segment segment) {
+		segments.remove(segment.id);
+		FileUtil.del(segment.dataFile);
+		FileUtil.del(segment.hintFile);
+	}
+	// ---------------------------------------------------------------- segment end
+
+	/**
+	 * 段文件
+	 */
+	private static class Segment {
+		final int id;
+		final File dataFile;
+		final File hintFile;
+		final MappedByteBuffer buffer;
+		/**
+		 * 写入位置，已封存的段为容量
+		 */
+		int position;
+		/**
+		 * 索引中指向此段的记录数
+		 */
+		int liveCount;
+
+		Segment(int id, File dataFile, File hintFile, MappedByteBuffer buffer) {
+			this.id = id;
+			this.dataFile = dataFile;
+			this.hintFile = hintFile;
+			this.buffer = buffer;
+		}
+	}
+
+	/**
+	 * 记录位置
+	 */
+	private static class Location {
+		final Segment segment;
+		final int offset;
+		final int keyLength;
+		final int valueLength;
+		final long expireAt;
+
+		Location(Segment segment, int offset, int keyLength, int valueLength, long expireAt) {
+			this.segment = segment;
+			this.offset = offset;
+			this.keyLength = keyLength;
+			this.valueLength = valueLength;
+			this.expireAt = expireAt;
+		}
+
+		boolean isExpired(long now) {
+			return expireAt > 0 && now > expireAt;
+		}
+	}
+}
@@ -0,0 +1,162 @@
+package site.lifd.cache.impl;
+
+import java.io.Serializable;
+
+/**
+ * 基于Count-Min Sketch的访问频率估算器，用于TinyLFU的准入判断<br>
+ * 每个计数器占4位（最大15），一个long存放16个计数器，每个元素在4个不同位置计数，取最小值作为估算频率。<br>
+ * 当累计的计数次数达到采样大小（容量的10倍）时，所有计数器减半，使历史热点随时间老化。
+ * <p>
+ * 此类非线程安全，调用方需保证互斥访问。
+ *
+ * @param <E> 元素类型
+ * @author lifengdi
+ * @see <a href="https://arxiv.org/abs/1512.00727">TinyLFU: A Highly Efficient Cache Admission Policy</a>
+ */
+class FrequencySketch<E> implements Serializable {
+	private static final long serialVersionUID = 1L;
+
+	/**
+	 * 每个计数器减半后清除溢出到相邻计数器的高位
+	 */
+	private static final long RESET_MASK = 0x7777777777777777L;
+	/**
+	 * 每个计数器的最低位，用于统计减半时被舍弃的奇数次数
+	 */
+	private static final long ONE_MASK = 0x1111111111111111L;
+	/**
+	 * 4个哈希函数使用的种子
+	 */
+	private static final long[] SEED = {
+			0xc3a5c85c97cb3127L, 0xb492b66fbe98f273L, 0x9ae16a3b2f90404fL, 0xcbf29ce484222325L};
+
+	private long[] table;
+	private int tableMask;
+	/**
+	 * 老化前允许的最大计数次数
+	 */
+	private int sampleSize;
+	/**
+	 * 当前累计计数次数
+	 */
+	private int size;
+
+	/**
+	 * 构造
+	 *
+	 * @param maximumSize 缓存最大容量，用于决定计数表大小
+	 */
+	FrequencySketch(long maximumSize) {
+		ensureCapacity(maximumSize);
+	}
+
+	/**
+	 * 按照容量重新初始化计数表，已有的计数将被清除
+	 *
+	 * @param maximumSize 缓存最大容量
+	 */
+	void ensureCapacity(long maximumSize) {
+		final int maximum = (int) Math.min(Math.max(maximumSize, 0), Integer.MAX_VALUE >>> 1);
+		this.table = new long[Math.max(ceilingPowerOfTwo(maximum), 8)];
+		this.tableMask = this.table.length - 1;
+		this.sampleSize = (0 == maximum) ? 10 : (10 * maximum);
+		this.size = 0;
+	}
+
+	/**
+	 * 估算元素的访问频率，最大值为15
+	 *
+	 * @param e 元素
+	 * @return 估算频率
+	 */
+	int frequency(E e) {
+		final int hash = spread(hashOf(e));
+		final int start = (hash & 3) << 2;
+		int frequency = Integer.MAX_VALUE;
+		for (int i = 0; i < 4; i++) {
+			final int index = indexOf(hash, i);
+			final int count = (int) ((table[index] >>> ((start + i) << 2)) & 0xfL);
+			frequency = Math.min(frequency, count);
+		}
+		return frequency;
+	}
+
+	/**
+	 * 元素访问频率加1，计数器已饱和时不再增加；累计次数达到采样大小时执行老化
+	 *
+	 * @param e 元素
+	 */
+	void increment(E e) {
+		final int hash = spread(hashOf(e));
+		final int start = (hash & 3) << 2;
+		boolean added = false;
+		for (int i = 0; i < 4; i++) {
+			added |= incrementAt(indexOf(hash, i), start + i);
+		}
+		if (added && (++size == sampleSize)) {
+			reset();
+		}
+	}
+
+	/**
+	 * 指定位置的计数器加1
+	 *
+	 * @param i 表中的long下标
+	 * @param j 计数器在long中的序号（0~15）
+	 * @return 是否增加成功，计数器饱和返回{@code false}
+	 */
+	private boolean incrementAt(int i, int j) {
+		final int offset = j << 2;
+		final long mask = (0xfL << offset);
+		if ((table[i] & mask) != mask) {
+			table[i] += (1L << offset);
+			return true;
+		}
+		return false;
+	}
+
+	/**
+	 * 所有计数器减半
+	 */
+	private void reset() {
+		int count = 0;
+		for (int i = 0; i < table.length; i++) {
+			count += Long.bitCount(table[i] & ONE_MASK);
+			table[i] = (table[i] >>> 1) & RESET_MASK;
+		}
+		size = (size >>> 1) - (count >>> 2);
+	}
+
+	/**
+	 * 第i个哈希函数对应的表下标
+	 *
+	 * @param item 元素哈希
+	 * @param i    哈希函数序号
+	 * @return 表下标
+	 */
+	private int indexOf(int item, int i) {
+		long hash = (item + SEED[i]) * SEED[i];
+		hash += (hash >>> 32);
+		return ((int) hash) & tableMask;
+	}
+
+	/**
+	 * 对hashCode再次散列，弥补较差的hashCode实现
+	 *
+	 * @param x hashCode
+	 * @return 散列后的值
+	 */
+	private static int spread(int x) {
+		x = ((x >>> 16) ^ x) * 0x45d9f3b;
+		x = ((x >>> 16) ^ x) * 0x45d9f3b;
+		return (x >>> 16) ^ x;
+	}
+
+	private static int hashOf(Object e) {
+		return null == e ? 0 : e.hashCode();
+	}
+
+	private static int ceilingPowerOfTwo(int x) {
+		return (x <= 1) ? 1 : 1 << (32 - Integer.numberOfLeadingZeros(x - 1));
+	}
+}
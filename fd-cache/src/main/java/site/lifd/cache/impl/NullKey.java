@@ -0,0 +1,34 @@
+package site.lifd.cache.impl;
+
+/**
+ * 缓存Map中代表{@code null}键的占位对象<br>
+ * 并发Map不支持{@code null}键，以此对象代替，而不是为每次查询包装一个键对象。
+ * 使用枚举保证反序列化后仍为同一实例。
+ *
+ * @author lifengdi
+ */
+enum NullKey {
+	INSTANCE;
+
+	/**
+	 * 将{@code null}键替换为占位对象
+	 *
+	 * @param key 键
+	 * @return 可用于Map的键
+	 */
+	static Object mask(Object key) {
+		return null == key ? INSTANCE : key;
+	}
+
+	/**
+	 * 将占位对象还原为{@code null}键
+	 *
+	 * @param <K> 键类型
+	 * @param key Map中的键
+	 * @return 原始键
+	 */
+	@SuppressWarnings("unchecked")
+	static <K> K unmask(Object key) {
+		return INSTANCE == key ? null : (K) key;
+	}
+}
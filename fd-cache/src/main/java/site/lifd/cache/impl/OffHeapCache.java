@@ -0,0 +1,870 @@
+package site.lifd.cache.impl;
+
+import site.lifd.cache.Cache;
+import site.lifd.cache.CacheListener;
+import site.lifd.cache.RemovalCause;
+import site.lifd.cache.stats.CacheStats;
+import site.lifd.cache.stats.ConcurrentStatsCounter;
+import site.lifd.cache.stats.StatsCounter;
+import site.lifd.core.io.IORuntimeException;
+import site.lifd.core.io.IoUtil;
+import site.lifd.core.lang.func.Func0;
+import site.lifd.core.map.SafeConcurrentHashMap;
+import site.lifd.core.util.SerializeUtil;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * 堆外字节数组缓存<br>
+ * 值存放在堆外的slab中（直接内存或内存映射文件），堆内只保留一个紧凑的索引（键、所在slab、块序号、长度、访问时间），
+ * 缓存大量较大的序列化数据时，不会占用老年代，也不会增加GC停顿。
+ * <p>
+ * 内存管理方式类似memcached：
+ * <ul>
+ *     <li>内存按固定大小的slab申请，总大小不超过maxMemory</li>
+ *     <li>每个slab属于一个大小级别，被切分为相同大小的块，块大小从64字节开始按1.25倍递增，值放入能容纳它的最小块中</li>
+ *     <li>某个级别没有空闲块且不能再申请slab时，在该级别内按CLOCK（近似LRU）淘汰；该级别没有任何slab时，从slab最多的级别回收一个slab</li>
+ * </ul>
+ * 块大小与值长度之间的差值为内部碎片，可通过{@link #getFragmentation()}观察。
+ * <p>
+ * 所有操作使用同一把锁，读操作需要从堆外复制数据，同样在锁内执行。
+ *
+ * @param <K> 键类型
+ * @author lifengdi
+ */
+public class OffHeapCache<K> implements Cache<K, byte[]>, Closeable {
+	private static final long serialVersionUID = 1L;
+
+	/**
+	 * 默认slab大小，1MB
+	 */
+	public static final int DEFAULT_SLAB_SIZE = 1 << 20;
+	/**
+	 * 最小块大小
+	 */
+	private static final int MIN_CHUNK_SIZE = 64;
+	/**
+	 * 块大小增长系数
+	 */
+	private static final double GROWTH_FACTOR = 1.25;
+
+	/**
+	 * 每个slab的大小，也是单个值的最大长度
+	 */
+	private final int slabSize;
+	/**
+	 * 堆外内存上限
+	 */
+	private final long maxMemory;
+	/**
+	 * 默认失效时长，{@code 0}表示不过期，单位毫秒
+	 */
+	private final long timeout;
+	/**
+	 * 内存映射文件，{@code null}表示使用直接内存
+	 */
+	private final File mappedFile;
+
+	private transient ReentrantLock lock;
+	private transient Map<K, Entry<K>> index;
+	private transient SizeClass[] classes;
+	private transient List<Slab> slabs;
+	private transient FileChannel channel;
+	/**
+	 * 写的时候每个key一把锁，降低锁的粒度
+	 */
+	private transient SafeConcurrentHashMap<K, Lock> keyLockMap;
+
+	/**
+	 * 统计记录器，移除权重为值的字节数
+	 */
+	private transient StatsCounter statsCounter;
+	private transient long evictionCount;
+	private transient long usedBytes;
+	private transient long usedChunkBytes;
+
+	/**
+	 * 缓存监听
+	 */
+	private transient CacheListener<K, byte[]> listener;
+
+	/**
+	 * 构造，使用直接内存，默认slab大小，不过期
+	 *
+	 * @param maxMemory 堆外内存上限，单位字节
+	 */
+	public OffHeapCache(long maxMemory) {
+		this(maxMemory, DEFAULT_SLAB_SIZE, 0, null);
+	}
+
+	/**
+	 * 构造
+	 *
+	 * @param maxMemory  堆外内存上限，单位字节，至少为一个slab大小
+	 * @param slabSize   slab大小，单位字节，也是单个值的最大长度
+	 * @param timeout    默认失效时长，单位毫秒，{@code 0}表示不过期
+	 * @param mappedFile 内存映射文件，{@code null}表示使用直接内存。文件只用于承载数据，重启后不会恢复
+	 */
+	public OffHeapCache(long maxMemory, int slabSize, long timeout, File mappedFile) {
+		if (slabSize < MIN_CHUNK_SIZE) {
+			throw new IllegalArgumentException("Slab size must be at least " + MIN_CHUNK_SIZE);
+		}
+		if (maxMemory < slabSize) {
+			throw new IllegalArgumentException("Max memory must not be less than slab size");
+		}
+		this.maxMemory = maxMemory;
+		this.slabSize = slabSize;
+		this.timeout = timeout;
+		this.mappedFile = mappedFile;
+		init();
+	}
+
+	/**
+	 * 初始化堆外存储和索引
+	 */
+	private void init() {
+		this.lock = new ReentrantLock();
+		this.index = new HashMap<>();
+		this.slabs = new ArrayList<>();
+		this.keyLockMap = new SafeConcurrentHashMap<>();
+		this.statsCounter = new ConcurrentStatsCounter();
+
+		final List<SizeClass> classList = new ArrayList<>();
+		int chunkSize = MIN_CHUNK_SIZE;
+		while (chunkSize < slabSize) {
+			classList.add(new SizeClass(chunkSize, slabSize / chunkSize));
+			// 按8字节对齐
+			chunkSize = Math.max(chunkSize + 8, ((int) (chunkSize * GROWTH_FACTOR) + 7) & ~7);
+		}
+		classList.add(new SizeClass(slabSize, 1));
+		this.classes = classList.toArray(new SizeClass[0]);
+
+		if (null != mappedFile) {
+			try {
+				this.channel = new RandomAccessFile(mappedFile, "rw").getChannel();
+			} catch (IOException e) {
+				throw new IORuntimeException(e);
+			}
+		}
+	}
+
+	// ---------------------------------------------------------------- put start
+	@Override
+	public void put(K key, byte[] object) {
+		put(key, object, timeout);
+	}
+
+	/**
+	 * 将字节数组复制到堆外存储
+	 *
+	 * @param key     键
+	 * @param object  值，长度不能超过slab大小
+	 * @param timeout 失效时长，单位毫秒
+	 * @throws IllegalArgumentException 值超过slab大小
+	 */
+	@Override
+	public void put(K key, byte[] object, long timeout) {
+		final SizeClass sizeClass = sizeClassOf(object.length);
+		if (null == sizeClass) {
+			throw new IllegalArgumentException("Value length " + object.length + " exceeds slab size " + slabSize);
+		}
+		final List<Entry<K>> removed = new ArrayList<>();
+		lock.lock();
+		try {
+			final Entry<K> old = index.get(key);
+			if (null != old) {
+				// 覆盖不算移除，不回调
+				remove(old);
+			}
+			final long chunk = allocate(sizeClass, removed);
+			final Slab slab = slabs.get((int) (chunk >>> 32));
+			final int chunkIndex = (int) chunk;
+			slab.buffer.put(chunkIndex * sizeClass.chunkSize, object);
+
+			final Entry<K> entry = new Entry<>(key, slab, chunkIndex, object.length, timeout);
+			slab.owners[chunkIndex] = entry;
+			index.put(key, entry);
+			usedBytes += object.length;
+			usedChunkBytes += sizeClass.chunkSize;
+		} finally {
+			lock.unlock();
+		}
+		notifyRemoved(removed);
+	}
+
+	/**
+	 * 使用{@link SerializeUtil}序列化对象后放入缓存
+	 *
+	 * @param key    键
+	 * @param object 对象，必须实现{@link java.io.Serializable}
+	 */
+	public void putObject(K key, Object object) {
+		final byte[] bytes = SerializeUtil.serialize(object);
+		if (null == bytes) {
+			throw new IllegalArgumentException("Object is not serializable: " + object.getClass());
+		}
+		put(key, bytes);
+	}
+	// ---------------------------------------------------------------- put end
+
+	// ---------------------------------------------------------------- get start
+	@Override
+	public byte[] get(K key, boolean isUpdateLastAccess, Func0<byte[]> supplier) {
+		return get(key, isUpdateLastAccess, this.timeout, supplier);
+	}
+
+	@Override
+	public byte[] get(K key, boolean isUpdateLastAccess, long timeout, Func0<byte[]> supplier) {
+		byte[] v = get(key, isUpdateLastAccess);
+		if (null == v && null != supplier) {
+			final Lock keyLock = keyLockMap.computeIfAbsent(key, k -> new ReentrantLock());
+			keyLock.lock();
+			try {
+				v = get(key, isUpdateLastAccess);
+				if (null == v) {
+					final long start = System.nanoTime();
+					try {
+						v = supplier.callWithRuntimeException();
+					} catch (RuntimeException e) {
+						statsCounter.recordLoadFailure(System.nanoTime() - start);
+						throw e;
+					}
+					if (null == v) {
+						// 堆外无法存储null，加载不到值时不缓存
+						statsCounter.recordLoadFailure(System.nanoTime() - start);
+					} else {
+						statsCounter.recordLoadSuccess(System.nanoTime() - start);
+						put(key, v, timeout);
+					}
+				}
+			} finally {
+				keyLock.unlock();
+				keyLockMap.remove(key);
+			}
+		}
+		return v;
+	}
+
+	/**
+	 * 从堆外复制值，过期的值将被移除
+	 *
+	 * @param key                键
+	 * @param isUpdateLastAccess 是否更新最后访问时间，即重新计算超时时间。
+	 * @return 值的副本，不存在或已过期返回{@code null}
+	 */
+	@Override
+	public byte[] get(K key, boolean isUpdateLastAccess) {
+		final List<Entry<K>> removed = new ArrayList<>();
+		lock.lock();
+		try {
+			final Entry<K> entry = index.get(key);
+			if (null != entry) {
+				if (false == entry.isExpired()) {
+					entry.referenced = true;
+					if (isUpdateLastAccess) {
+						entry.lastAccess = System.currentTimeMillis();
+					}
+					statsCounter.recordHits(1);
+					return read(entry);
+				}
+				// 过期移除
+				removeAndCollect(entry, RemovalCause.EXPIRED, removed);
+			}
+		} finally {
+			lock.unlock();
+		}
+		statsCounter.recordMisses(1);
+		notifyRemoved(removed);
+		return null;
+	}
+
+	/**
+	 * 获取值并使用{@link SerializeUtil}反序列化
+	 *
+	 * @param <T>           对象类型
+	 * @param key           键
+	 * @param acceptClasses 反序列化白名单类
+	 * @return 对象，不存在或已过期返回{@code null}
+	 */
+	public <T> T getObject(K key, Class<?>... acceptClasses) {
+		final byte[] bytes = get(key);
+		return null == bytes ? null : SerializeUtil.deserialize(bytes, acceptClasses);
+	}
+	// ---------------------------------------------------------------- get end
+
+	@Override
+	public Iterator<byte[]> iterator() {
+		return new CacheValuesIterator<>((CacheObjIterator<K, byte[]>) cacheObjIterator());
+	}
+
+	/**
+	 * 返回所有未过期对象的副本迭代器，每个值都会从堆外复制一次
+	 *
+	 * @return 缓存对象迭代器
+	 */
+	@Override
+	public Iterator<CacheObj<K, byte[]>> cacheObjIterator() {
+		final List<CacheObj<K, byte[]>> copied = new ArrayList<>();
+		lock.lock();
+		try {
+			for (Entry<K> entry : index.values()) {
+				final CacheObj<K, byte[]> co = new CacheObj<>(entry.key, read(entry), entry.ttl);
+				co.lastAccess = entry.lastAccess;
+				copied.add(co);
+			}
+		} finally {
+			lock.unlock();
+		}
+		return new CacheObjIterator<>(copied.iterator());
+	}
+
+	@Override
+	public int prune() {
+		final List<Entry<K>> removed = new ArrayList<>();
+		final List<Entry<K>> expired = new ArrayList<>();
+		lock.lock();
+		try {
+			for (Entry<K> entry : index.values()) {
+				if (entry.isExpired()) {
+					expired.add(entry);
+				}
+			}
+			for (Entry<K> entry : expired) {
+				removeAndCollect(entry, RemovalCause.EXPIRED, removed);
+			}
+		} finally {
+			lock.unlock();
+		}
+		notifyRemoved(removed);
+		return expired.size();
+	}
+
+	/**
+	 * 已申请的堆外内存达到上限时视为已满，此后写入需要淘汰
+	 *
+	 * @return 是否已满
+	 */
+	@Override
+	public boolean isFull() {
+		return (long) slabs.size() * slabSize + slabSize > maxMemory;
+	}
+
+	@Override
+	public void remove(K key) {
+		final List<Entry<K>> removed = new ArrayList<>();
+		lock.lock();
+		try {
+			final Entry<K> entry = index.get(key);
+			if (null != entry) {
+				removeAndCollect(entry, RemovalCause.EXPLICIT, removed);
+			}
+		} finally {
+			lock.unlock();
+		}
+		notifyRemoved(removed);
+	}
+
+	@Override
+	public void clear() {
+		final List<Entry<K>> removed = new ArrayList<>();
+		lock.lock();
+		try {
+			for (Entry<K> entry : new ArrayList<>(index.values())) {
+				removeAndCollect(entry, RemovalCause.EXPLICIT, removed);
+			}
+		} finally {
+			lock.unlock();
+		}
+		notifyRemoved(removed);
+	}
+
+	/**
+	 * 容量按堆外内存限制，条目数不限
+	 *
+	 * @return {@code 0}
+	 */
+	@Override
+	public int capacity() {
+		return 0;
+	}
+
+	@Override
+	public long timeout() {
+		return this.timeout;
+	}
+
+	@Override
+	public int size() {
+		lock.lock();
+		try {
+			return index.size();
+		} finally {
+			lock.unlock();
+		}
+	}
+
+	@Override
+	public boolean isEmpty() {
+		return 0 == size();
+	}
+
+	@Override
+	public boolean containsKey(K key) {
+		lock.lock();
+		try {
+			final Entry<K> entry = index.get(key);
+			return null != entry && false == entry.isExpired();
+		} finally {
+			lock.unlock();
+		}
+	}
+
+	@Override
+	public OffHeapCache<K> setListener(CacheListener<K, byte[]> listener) {
+		this.listener = listener;
+		return this;
+	}
+
+	/**
+	 * 清空缓存并关闭内存映射文件，关闭后不可再使用
+	 */
+	@Override
+	public void close() {
+		clear();
+		lock.lock();
+		try {
+			slabs.clear();
+			for (SizeClass sizeClass : classes) {
+				sizeClass.slabs.clear();
+				sizeClass.freeSize = 0;
+			}
+			IoUtil.close(channel);
+		} finally {
+			lock.unlock();
+		}
+	}
+
+	// ---------------------------------------------------------------- stats start
+	/**
+	 * @return 命中数
+	 */
+	public long getHitCount() {
+		return statsCounter.hitCount();
+	}
+
+	/**
+	 * @return 丢失数
+	 */
+	public long getMissCount() {
+		return statsCounter.missCount();
+	}
+
+	@Override
+	public CacheStats stats() {
+		return statsCounter.snapshot();
+	}
+
+	/**
+	 * 设置统计记录器，传入{@link StatsCounter#disabled()}关闭统计
+	 *
+	 * @param statsCounter 统计记录器
+	 * @return this
+	 */
+	public OffHeapCache<K> setStatsCounter(StatsCounter statsCounter) {
+		this.statsCounter = null == statsCounter ? StatsCounter.disabled() : statsCounter;
+		return this;
+	}
+
+	/**
+	 * @return 因空间不足被淘汰的对象数
+	 */
+	public long getEvictionCount() {
+		return evictionCount;
+	}
+
+	/**
+	 * @return 已申请的堆外内存，单位字节
+	 */
+	public long getAllocatedBytes() {
+		return (long) slabs.size() * slabSize;
+	}
+
+	/**
+	 * @return 值实际占用的字节数
+	 */
+	public long getUsedBytes() {
+		return usedBytes;
+	}
+
+	/**
+	 * @return 已分配块的总字节数
+	 */
+	public long getUsedChunkBytes() {
+		return usedChunkBytes;
+	}
+
+	/**
+	 * 占用率，即已分配块占已申请内存的比例
+	 *
+	 * @return 占用率，0~1
+	 */
+	public double getOccupancy() {
+		final long allocated = getAllocatedBytes();
+		return 0 == allocated ? 0 : (double) usedChunkBytes / allocated;
+	}
+
+	/**
+	 * 内部碎片率，即已分配块中未被值使用的比例
+	 *
+	 * @return 碎片率，0~1
+	 */
+	public double getFragmentation() {
+		return 0 == usedChunkBytes ? 0 : 1 - (double) usedBytes / usedChunkBytes;
+	}
+
+	@Override
+	public String toString() {
+		return "OffHeapCache [size=" + index.size() + ", allocated=" + getAllocatedBytes() + ", used=" + usedBytes
+				+ ", occupancy=" + getOccupancy() + ", fragmentation=" + getFragmentation() + ", evictions=" + evictionCount + "]";
+	}
+	// ---------------------------------------------------------------- stats end
+
+	// ---------------------------------------------------------------- slab start
+	/**
+	 * 能容纳指定长度的最小级别
+	 *
+	 * @param length 值长度
+	 * @return 级别，超过slab大小返回{@code null}
+	 */
+	private SizeClass sizeClassOf(int length) {
+		if (length > slabSize) {
+			return null;
+		}
+		int low = 0;
+		int high = classes.length - 1;
+		while (low < high) {
+			final int mid = (low + high) >>> 1;
+			if (classes[mid].chunkSize < length) {
+				low = mid + 1;
+			} else {
+				high = mid;
+			}
+		}
+		return classes[low];
+	}
+
+	/**
+	 * 从指定级别分配一个块，必要时申请新slab或淘汰
+	 *
+	 * @param sizeClass 级别
+	 * @param removed   被淘汰的对象，用于锁外回调
+	 * @return 块位置，高32位为slab序号，低32位为块序号
+	 */
+	private long allocate(SizeClass sizeClass, List<Entry<K>> removed) {
+		if (0 == sizeClass.freeSize) {
+			if ((long) slabs.size() * slabSize + slabSize <= maxMemory) {
+				assign(newSlab(), sizeClass);
+			} else if (false == sizeClass.slabs.isEmpty()) {
+				evictByClock(sizeClass, removed);
+			} else {
+				assign(reclaimSlab(removed), sizeClass);
+			}
+		}
+		return sizeClass.free[--sizeClass.freeSize];
+	}
+
+	/**
+	 * 申请一个新slab
+	 *
+	 * @return 新slab
+	 */
+	private Slab newSlab() {
+		final ByteBuffer buffer;
+		if (null != channel) {
+			try {
+				buffer = channel.map(FileChannel.MapMode.READ_WRITE, (long) slabs.size() * slabSize, slabSize);
+			} catch (IOException e) {
+				throw new IORuntimeException(e);
+			}
+		} else {
+			buffer = ByteBuffer.allocateDirect(slabSize);
+		}
+		final Slab slab = new Slab(slabs.size(), buffer);
+		slabs.add(slab);
+		return slab;
+	}
+
+	/**
+	 * 将slab划分给指定级别，所有块加入空闲列表
+	 *
+	 * @param slab      slab
+	 * @param sizeClass 级别
+	 */
+	private void assign(Slab slab, SizeClass sizeClass) {
+		slab.sizeClass = sizeClass;
+		slab.owners = new Entry[sizeClass.chunksPerSlab];
+		sizeClass.slabs.add(slab);
+		for (int i = sizeClass.chunksPerSlab - 1; i >= 0; i--) {
+			sizeClass.pushFree(((long) slab.id << 32) | i);
+		}
+	}
+
+	/**
+	 * CLOCK淘汰：时钟指针依次扫描本级别的块，被访问过的块清除标记并跳过，未被访问的块被淘汰
+	 *
+	 * @param sizeClass 级别
+	 * @param removed   被淘汰的对象
+	 */
+	private void evictByClock(SizeClass sizeClass, List<Entry<K>> removed) {
+		// 最多扫描两圈，第一圈清除所有标记，第二圈必然找到可淘汰的块
+		final long limit = 2L * sizeClass.slabs.size() * sizeClass.chunksPerSlab;
+		for (long i = 0; i < limit; i++) {
+			final Slab slab = sizeClass.slabs.get(sizeClass.handSlab);
+			final Entry<K> owner = slab.owner(sizeClass.handChunk);
+			if (++sizeClass.handChunk >= sizeClass.chunksPerSlab) {
+				sizeClass.handChunk = 0;
+				sizeClass.handSlab = (sizeClass.handSlab + 1) % sizeClass.slabs.size();
+			}
+			if (null == owner) {
+				continue;
+			}
+			if (owner.referenced) {
+				owner.referenced = false;
+				continue;
+			}
+			removeAndCollect(owner, RemovalCause.SIZE, removed);
+			evictionCount++;
+			return;
+		}
+	}
+
+	/**
+	 * 从slab最多的级别回收一个slab，其中的对象全部淘汰
+	 *
+	 * @param removed 被淘汰的对象
+	 * @return 回收的slab
+	 */
+	private Slab reclaimSlab(List<Entry<K>> removed) {
+		SizeClass victim = classes[0];
+		for (SizeClass sizeClass : classes) {
+			if (sizeClass.slabs.size() > victim.slabs.size()) {
+				victim = sizeClass;
+			}
+		}
+		final Slab slab = victim.slabs.get(victim.handSlab % victim.slabs.size());
+		for (int i = 0; i < slab.owners.length; i++) {
+			final Entry<K> owner = slab.owner(i);
+			if (null != owner) {
+				removeAndCollect(owner, RemovalCause.SIZE, removed);
+				evictionCount++;
+			}
+		}
+		victim.removeFree(slab.id);
+		victim.slabs.remove(slab);
+		victim.handSlab = 0;
+		victim.handChunk = 0;
+		return slab;
+	}
+
+	/**
+	 * 从堆外复制值
+	 *
+	 * @param entry 索引项
+	 * @return 值的副本
+	 */
+	private byte[] read(Entry<K> entry) {
+		final byte[] bytes = new byte[entry.length];
+		entry.slab.buffer.get(entry.chunk * entry.slab.sizeClass.chunkSize, bytes);
+		return bytes;
+	}
+
+	/**
+	 * 释放索引项占用的块
+	 *
+	 * @param entry 索引项
+	 */
+	private void release(Entry<K> entry) {
+		final SizeClass sizeClass = entry.slab.sizeClass;
+		entry.slab.owners[entry.chunk] = null;
+		sizeClass.pushFree(((long) entry.slab.id << 32) | entry.chunk);
+		usedBytes -= entry.length;
+		usedChunkBytes -= sizeClass.chunkSize;
+	}
+
+	/**
+	 * 移除索引项并释放块
+	 *
+	 * @param entry 索引项
+	 */
+	private void remove(Entry<K> entry) {
+		index.remove(entry.key);
+		release(entry);
+	}
+
+	/**
+	 * 移除索引项，有监听时先复制值用于锁外回调
+	 *
+	 * @param entry   索引项
+	 * @param cause   移除原因
+	 * @param removed 被移除的对象
+	 */
+	private void removeAndCollect(Entry<K> entry, RemovalCause cause, List<Entry<K>> removed) {
+		statsCounter.recordRemoval(cause, entry.length);
+		if (null != listener) {
+			entry.removedValue = read(entry);
+			entry.removalCause = cause;
+			removed.add(entry);
+		}
+		remove(entry);
+	}
+
+	/**
+	 * 在锁外回调监听
+	 *
+	 * @param removed 被移除的对象
+	 */
+	private void notifyRemoved(List<Entry<K>> removed) {
+		final CacheListener<K, byte[]> listener = this.listener;
+		if (null == listener) {
+			return;
+		}
+		for (Entry<K> entry : removed) {
+			listener.onRemove(entry.key, entry.removedValue, entry.removalCause);
+		}
+	}
+	// ---------------------------------------------------------------- slab end
+
+	/**
+	 * 堆外存储不参与序列化，反序列化后为空缓存
+	 *
+	 * @param in 输入流
+	 * @throws IOException            IO异常
+	 * @throws ClassNotFoundException 类未找到
+	 */
+	private void readObject(ObjectInputStream in) throws IOException, ClassNotFoundException {
+		in.defaultReadObject();
+		init();
+	}
+
+	/**
+	 * 堆内索引项
+	 *
+	 * @param <K> 键类型
+	 */
+	private static class Entry<K> {
+		final K key;
+		final Slab slab;
+		final int chunk;
+		final int length;
+		final long ttl;
+		long lastAccess;
+		/**
+		 * CLOCK访问标记
+		 */
+		boolean referenced;
+		/**
+		 * 移除时复制出的值，仅用于回调
+		 */
+		byte[] removedValue;
+		/**
+		 * 移除原因，仅用于回调
+		 */
+		RemovalCause removalCause;
+
+		Entry(K key, Slab slab, int chunk, int length, long ttl) {
+			this.key = key;
+			this.slab = slab;
+			this.chunk = chunk;
+			this.length = length;
+			this.ttl = ttl;
+			this.lastAccess = System.currentTimeMillis();
+		}
+
+		boolean isExpired() {
+			return ttl > 0 && (System.currentTimeMillis() - lastAccess) > ttl;
+		}
+	}
+
+	/**
+	 * 一块连续的堆外内存，划分给某个级别后切分为等长的块
+	 */
+	private static class Slab {
+		final int id;
+		final ByteBuffer buffer;
+		SizeClass sizeClass;
+		/**
+		 * 每个块对应的索引项，空闲块为{@code null}
+		 */
+		Entry<?>[] owners;
+
+		Slab(int id, ByteBuffer buffer) {
+			this.id = id;
+			this.buffer = buffer;
+		}
+
+		@SuppressWarnings("unchecked")
+		<K> Entry<K> owner(int chunk) {
+			return (Entry<K>) owners[chunk];
+		}
+	}
+
+	/**
+	 * 块大小级别
+	 */
+	private static class SizeClass {
+		final int chunkSize;
+		final int chunksPerSlab;
+		final List<Slab> slabs = new ArrayList<>();
+		/**
+		 * 空闲块栈，元素为slab序号和块序号组合的long
+		 */
+		long[] free = new long[16];
+		int freeSize;
+		/**
+		 * CLOCK指针
+		 */
+		int handSlab;
+		int handChunk;
+
+		SizeClass(int chunkSize, int chunksPerSlab) {
+			this.chunkSize = chunkSize;
+			this.chunksPerSlab = chunksPerSlab;
+		}
+
+		void pushFree(long chunk) {
+			if (freeSize == free.length) {
+				free = Arrays.copyOf(free, free.length << 1);
+			}
+			free[freeSize++] = chunk;
+		}
+
+		/**
+		 * 移除属于指定slab的空闲块
+		 *
+		 * @param slabId slab序号
+		 */
+		void removeFree(int slabId) {
+			int j = 0;
+			for (int i = 0; i < freeSize; i++) {
+				if ((int) (free[i] >>> 32) != slabId) {
+					free[j++] = free[i];
+				}
+			}
+			freeSize = j;
+		}
+	}
+}
@@ -0,0 +1,141 @@
+package site.lifd.cache.impl;
+
+import java.io.Serializable;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.function.Consumer;
+
+/**
+ * 分段有损环形缓冲区，用于记录读操作<br>
+ * 读线程按线程哈希选择一个分段，通过CAS写入，不加锁；分段已满或CAS竞争失败时直接丢弃本次记录（有损）。
+ * 访问顺序只用于淘汰策略的近似判断，丢失少量记录不影响正确性，而换来的是读操作之间没有共享的锁。
+ * <p>
+ * {@link #drainTo(Consumer)}只能由单个线程（持有淘汰锁的维护线程）调用。
+ *
+ * @param <E> 元素类型
+ * @author lifengdi
+ */
+class StripedReadBuffer<E> implements Serializable {
+	private static final long serialVersionUID = 1L;
+
+	/**
+	 * offer结果：成功写入
+	 */
+	static final int SUCCESS = 0;
+	/**
+	 * offer结果：竞争失败，记录被丢弃
+	 */
+	static final int FAILED = 1;
+	/**
+	 * offer结果：分段已满，需要尽快执行维护
+	 */
+	static final int FULL = 2;
+
+	/**
+	 * 每个分段的容量，必须为2的幂
+	 */
+	private static final int BUFFER_SIZE = 16;
+	private static final int BUFFER_MASK = BUFFER_SIZE - 1;
+	/**
+	 * 分段数，为CPU核数4倍向上取2的幂，降低读线程之间的冲突
+	 */
+	private static final int STRIPES = ceilingPowerOfTwo(4 * Runtime.getRuntime().availableProcessors());
+	private static final int STRIPE_MASK = STRIPES - 1;
+
+	private final Stripe<E>[] stripes;
+
+	/**
+	 * 构造
+	 */
+	@SuppressWarnings("unchecked")
+	StripedReadBuffer() {
+		stripes = new Stripe[STRIPES];
+		for (int i = 0; i < STRIPES; i++) {
+			stripes[i] = new Stripe<>();
+		}
+	}
+
+	/**
+	 * 记录一个元素，不阻塞
+	 *
+	 * @param e 元素
+	 * @return {@link #SUCCESS}、{@link #FAILED}或{@link #FULL}
+	 */
+	int offer(E e) {
+		return stripes[probe() & STRIPE_MASK].offer(e);
+	}
+
+	/**
+	 * 将所有分段中已记录的元素依次交给消费者处理，并清空缓冲区
+	 *
+	 * @param consumer 消费者
+	 */
+	void drainTo(Consumer<E> consumer) {
+		for (Stripe<E> stripe : stripes) {
+			stripe.drainTo(consumer);
+		}
+	}
+
+	/**
+	 * 当前线程的哈希，同一线程总是落在同一分段
+	 *
+	 * @return 线程哈希
+	 */
+	private static int probe() {
+		int h = System.identityHashCode(Thread.currentThread());
+		h ^= (h >>> 16);
+		h *= 0x85ebca6b;
+		return h ^ (h >>> 13);
+	}
+
+	private static int ceilingPowerOfTwo(int x) {
+		return (x <= 1) ? 1 : 1 << (32 - Integer.numberOfLeadingZeros(x - 1));
+	}
+
+	/**
+	 * 单个环形缓冲区，多生产者单消费者
+	 *
+	 * @param <E> 元素类型
+	 */
+	private static class Stripe<E> implements Serializable {
+		private static final long serialVersionUID = 1L;
+
+		private final AtomicReferenceArray<E> buffer = new AtomicReferenceArray<>(BUFFER_SIZE);
+		private final AtomicLong writeCounter = new AtomicLong();
+		/**
+		 * 只由消费线程修改
+		 */
+		private volatile long readCounter;
+
+		int offer(E e) {
+			final long head = readCounter;
+			final long tail = writeCounter.get();
+			final long size = tail - head;
+			if (size >= BUFFER_SIZE) {
+				return FULL;
+			}
+			if (writeCounter.compareAndSet(tail, tail + 1)) {
+				buffer.lazySet((int) (tail & BUFFER_MASK), e);
+				return (size + 1 >= BUFFER_SIZE) ? FULL : SUCCESS;
+			}
+			return FAILED;
+		}
+
+		void drainTo(Consumer<E> consumer) {
+			long head = readCounter;
+			final long tail = writeCounter.get();
+			while (head != tail) {
+				final int index = (int) (head & BUFFER_MASK);
+				final E e = buffer.get(index);
+				if (null == e) {
+					// 写线程已占位但尚未写入，下次维护时再处理
+					break;
+				}
+				buffer.lazySet(index, null);
+				consumer.accept(e);
+				head++;
+			}
+			readCounter = head;
+		}
+	}
+}
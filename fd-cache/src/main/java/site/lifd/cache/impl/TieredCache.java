@@ -0,0 +1,371 @@
+package site.lifd.cache.impl;
+
+import site.lifd.cache.Cache;
+import site.lifd.cache.CacheListener;
+import site.lifd.cache.RemovalCause;
+import site.lifd.cache.stats.CacheStats;
+import site.lifd.core.lang.func.Func0;
+import site.lifd.core.util.SerializeUtil;
+
+import java.io.Closeable;
+import java.io.File;
+import java.util.Iterator;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 两级缓存，一级为堆内缓存，二级为基于内存映射文件的{@link FileSegmentStore}<br>
+ * <ul>
+ *     <li>降级：一级缓存因超出容量淘汰的对象，通过移除回调序列化后写入二级缓存，而不是直接丢弃</li>
+ *     <li>升级：一级缓存未命中而二级缓存命中时，对象从二级缓存移出并放回一级缓存</li>
+ *     <li>重启：二级缓存的数据保存在磁盘上，使用同一目录重新创建时无需预热；{@link #close()}时一级缓存中的对象也会写入二级缓存</li>
+ * </ul>
+ * 两级之间是互斥的，同一个键只存在于其中一级。过期和主动移除的对象不会降级，而是回调监听；降级和升级不回调监听。
+ * 两级之间的移动不是原子的，并发修改同一个键时可能短暂出现两级同时存在该键，此时以一级缓存为准。
+ * <p>
+ * 键和值需可序列化，迭代器只包含一级缓存中的对象。
+ *
+ * @param <K> 键类型
+ * @param <V> 值类型
+ * @author lifengdi
+ */
+public class TieredCache<K, V> implements Cache<K, V>, Closeable {
+	private static final long serialVersionUID = 1L;
+
+	/**
+	 * 一级缓存
+	 */
+	private final Cache<K, V> l1;
+	/**
+	 * 二级缓存，不参与序列化
+	 */
+	private final transient FileSegmentStore<K> l2;
+	/**
+	 * 值反序列化白名单类
+	 */
+	private final Class<?>[] acceptClasses;
+	/**
+	 * 二级缓存命中数
+	 */
+	private final LongAdder l2HitCount = new LongAdder();
+	/**
+	 * 降级数
+	 */
+	private final LongAdder demotionCount = new LongAdder();
+	/**
+	 * 降级失败数，值无法序列化或超出段大小时降级失败
+	 */
+	private final LongAdder demotionFailureCount = new LongAdder();
+	/**
+	 * 缓存监听
+	 */
+	private volatile CacheListener<K, V> listener;
+
+	/**
+	 * 构造，二级缓存使用默认段大小和段数
+	 *
+	 * @param l1            一级缓存
+	 * @param dir           二级缓存目录，存在时加载已有数据
+	 * @param acceptClasses 反序列化白名单类
+	 */
+	public TieredCache(Cache<K, V> l1, File dir, Class<?>... acceptClasses) {
+		this(l1, new FileSegmentStore<>(dir, acceptClasses), acceptClasses);
+	}
+
+	/**
+	 * 构造
+	 *
+	 * @param l1            一级缓存，其监听将被此对象接管，请通过{@link #setListener(CacheListener)}设置监听
+	 * @param l2            二级缓存
+	 * @param acceptClasses 值反序列化白名单类
+	 */
+	public TieredCache(Cache<K, V> l1, FileSegmentStore<K> l2, Class<?>... acceptClasses) {
+		this.l1 = l1;
+		this.l2 = l2;
+		this.acceptClasses = acceptClasses;
+		if (l1 instanceof AbstractCache) {
+			// 通过内部回调获取被淘汰的对象，降级时保留其剩余的超时时间
+			((AbstractCache<K, V>) l1).removalHook = (co, cause) ->
+					onL1Remove(co.key, co.obj, cause, co.ttl > 0 ? co.lastAccess + co.ttl : 0);
+		} else {
+			l1.setListener(new CacheListener<K, V>() {
+				@Override
+				public void onRemove(K key, V cachedObject) {
+					onRemove(key, cachedObject, RemovalCause.EXPLICIT);
+				}
+
+				@Override
+				public void onRemove(K key, V cachedObject, RemovalCause cause) {
+					// 监听中无法得到对象剩余的超时时间，按默认超时时长从降级时重新计算
+					final long timeout = l1.timeout();
+					onL1Remove(key, cachedObject, cause, timeout > 0 ? System.currentTimeMillis() + timeout : 0);
+				}
+			});
+		}
+	}
+
+	@Override
+	public int capacity() {
+		return l1.capacity();
+	}
+
+	@Override
+	public long timeout() {
+		return l1.timeout();
+	}
+
+	// ---------------------------------------------------------------- put start
+	@Override
+	public void put(K key, V object) {
+		put(key, object, l1.timeout());
+	}
+
+	/**
+	 * 放入一级缓存，同时移除二级缓存中的旧值
+	 *
+	 * @param key     键
+	 * @param object  缓存的对象
+	 * @param timeout 失效时长，单位毫秒
+	 */
+	@Override
+	public void put(K key, V object, long timeout) {
+		l2.remove(key);
+		l1.put(key, object, timeout);
+	}
+	// ---------------------------------------------------------------- put end
+
+	// ---------------------------------------------------------------- get start
+	@Override
+	public V get(K key, boolean isUpdateLastAccess, Func0<V> supplier) {
+		return get(key, isUpdateLastAccess, l1.timeout(), supplier);
+	}
+
+	/**
+	 * 从一级缓存获取，未命中时先尝试从二级缓存升级，仍未命中时调用supplier生产<br>
+	 * 从二级缓存升级与{@link #get(Object, boolean)}相同，保留二级缓存中记录的过期时间，不经过一级缓存的加载，不计为加载
+	 *
+	 * @param key                键
+	 * @param isUpdateLastAccess 是否更新最后访问时间，即重新计算超时时间
+	 * @param timeout            自定义超时时间
+	 * @param supplier           如果不存在回调方法，用于生产值对象
+	 * @return 值对象
+	 */
+	@Override
+	public V get(K key, boolean isUpdateLastAccess, long timeout, Func0<V> supplier) {
+		if (null == supplier) {
+			return get(key, isUpdateLastAccess);
+		}
+		final V value = get(key, isUpdateLastAccess);
+		if (null != value) {
+			return value;
+		}
+		return l1.get(key, isUpdateLastAccess, timeout, () -> {
+			// 期间被淘汰到二级缓存的旧值不再需要
+			l2.remove(key);
+			return supplier.call();
+		});
+	}
+
+	@Override
+	public V get(K key, boolean isUpdateLastAccess) {
+		V value = l1.get(key, isUpdateLastAccess);
+		if (null != value) {
+			return value;
+		}
+		// 升级时保留二级缓存中记录的过期时间
+		final long expireAt = l2.getExpireAt(key);
+		value = takeFromL2(key);
+		if (null != value) {
+			if (expireAt > 0) {
+				l1.put(key, value, Math.max(expireAt - System.currentTimeMillis(), 1));
+			} else {
+				l1.put(key, value);
+			}
+		}
+		return value;
+	}
+
+	@Override
+	public Iterator<V> iterator() {
+		return new CacheValuesIterator<>((CacheObjIterator<K, V>) cacheObjIterator());
+	}
+
+	/**
+	 * 一级缓存中对象的迭代器，不包含二级缓存
+	 *
+	 * @return 缓存对象迭代器
+	 */
+	@Override
+	public Iterator<CacheObj<K, V>> cacheObjIterator() {
+		return l1.cacheObjIterator();
+	}
+	// ---------------------------------------------------------------- get end
+
+	@Override
+	public int prune() {
+		return l1.prune() + l2.prune();
+	}
+
+	@Override
+	public boolean isFull() {
+		return l1.isFull();
+	}
+
+	@Override
+	public void remove(K key) {
+		l1.remove(key);
+		l2.remove(key);
+	}
+
+	@Override
+	public void clear() {
+		l1.clear();
+		l2.clear();
+	}
+
+	/**
+	 * 两级缓存的对象数之和，二级缓存中可能包含尚未清理的过期对象
+	 *
+	 * @return 对象数
+	 */
+	@Override
+	public int size() {
+		return l1.size() + l2.size();
+	}
+
+	@Override
+	public boolean isEmpty() {
+		return 0 == size();
+	}
+
+	@Override
+	public boolean containsKey(K key) {
+		return l1.containsKey(key) || l2.containsKey(key);
+	}
+
+	/**
+	 * 一级缓存的统计，二级缓存的命中在一级缓存中记为未命中，另见{@link #getL2HitCount()}
+	 *
+	 * @return 统计快照
+	 */
+	@Override
+	public CacheStats stats() {
+		return l1.stats();
+	}
+
+	@Override
+	public TieredCache<K, V> setListener(CacheListener<K, V> listener) {
+		this.listener = listener;
+		return this;
+	}
+
+	/**
+	 * 将一级缓存中的对象全部写入二级缓存并刷写到磁盘，用于停机前保存，之后不应再使用此对象
+	 */
+	@Override
+	public void close() {
+		final Iterator<CacheObj<K, V>> iterator = l1.cacheObjIterator();
+		while (iterator.hasNext()) {
+			final CacheObj<K, V> co = iterator.next();
+			if (false == co.isExpired()) {
+				demote(co.key, co.obj, co.ttl > 0 ? co.lastAccess + co.ttl : 0);
+			}
+		}
+		l2.close();
+	}
+
+	/**
+	 * @return 一级缓存
+	 */
+	public Cache<K, V> getL1() {
+		return this.l1;
+	}
+
+	/**
+	 * @return 二级缓存
+	 */
+	public FileSegmentStore<K> getL2() {
+		return this.l2;
+	}
+
+	/**
+	 * @return 二级缓存命中数，即升级次数
+	 */
+	public long getL2HitCount() {
+		return l2HitCount.sum();
+	}
+
+	/**
+	 * @return 降级次数
+	 */
+	public long getDemotionCount() {
+		return demotionCount.sum();
+	}
+
+	/**
+	 * @return 降级失败次数，降级失败的对象按淘汰回调监听
+	 */
+	public long getDemotionFailureCount() {
+		return demotionFailureCount.sum();
+	}
+
+	@Override
+	public String toString() {
+		return "TieredCache{l1=" + l1.size() + ", l2=" + l2.size() + ", l2Hit=" + getL2HitCount()
+				+ ", demotion=" + getDemotionCount() + ", demotionFailure=" + getDemotionFailureCount() + "}";
+	}
+
+	/**
+	 * 一级缓存的移除回调，超出容量淘汰的对象降级到二级缓存，其它原因转发给监听
+	 *
+	 * @param key          键
+	 * @param cachedObject 被缓存的对象
+	 * @param cause        移除原因
+	 * @param expireAt     对象的过期时间戳，{@code 0}表示不过期
+	 */
+	private void onL1Remove(K key, V cachedObject, RemovalCause cause, long expireAt) {
+		if (RemovalCause.SIZE == cause && (0 == expireAt || expireAt > System.currentTimeMillis())) {
+			if (demote(key, cachedObject, expireAt)) {
+				return;
+			}
+		}
+		final CacheListener<K, V> listener = this.listener;
+		if (null != listener) {
+			listener.onRemove(key, cachedObject, cause);
+		}
+	}
+
+	/**
+	 * 从二级缓存读取并移除，用于升级
+	 *
+	 * @param key 键
+	 * @return 值，不存在返回{@code null}
+	 */
+	private V takeFromL2(K key) {
+		final byte[] bytes = l2.get(key);
+		if (null == bytes) {
+			return null;
+		}
+		l2.remove(key);
+		l2HitCount.increment();
+		return SerializeUtil.deserialize(bytes, acceptClasses);
+	}
+
+	/**
+	 * 序列化后写入二级缓存
+	 *
+	 * @param key      键
+	 * @param value    值
+	 * @param expireAt 过期时间戳，{@code 0}表示不过期
+	 * @return 是否写入成功，值无法序列化或超出段大小时返回{@code false}
+	 */
+	private boolean demote(K key, V value, long expireAt) {
+		try {
+			l2.put(key, SerializeUtil.serialize(value), expireAt);
+		} catch (RuntimeException e) {
+			demotionFailureCount.increment();
+			return false;
+		}
+		demotionCount.increment();
+		return true;
+	}
+}
@@ -0,0 +1,230 @@
+package site.lifd.cache.impl;
+
+import java.util.function.Predicate;
+
+/**
+ * 分层时间轮，按过期时间将{@link CacheObj}放入不同粒度的桶中，用于在均摊O(1)的时间内找到过期对象<br>
+ * 共5层，每层的桶宽度和桶数如下（时间单位毫秒，均为2的幂，以便用移位计算下标）：
+ * <ul>
+ *     <li>第1层：64个桶，每个约1.02秒</li>
+ *     <li>第2层：64个桶，每个约1.09分钟</li>
+ *     <li>第3层：32个桶，每个约1.17小时</li>
+ *     <li>第4层：4个桶，每个约1.55天</li>
+ *     <li>第5层：1个桶，存放6.2天以后过期的对象</li>
+ * </ul>
+ * 时间轮前进时，只处理跨过的桶：已过期的对象交给回调移除，未过期的对象（例如访问后刷新了过期时间，或位于较粗粒度的层）重新计算所在的桶。
+ * 因此放入时间轮的过期时间只要不晚于真实过期时间即可，访问刷新过期时间后无需立即调整。
+ * 过期判断与{@link CacheObj#isExpired()}一致：当前时间严格大于过期时间才算过期。
+ * <p>
+ * 此类非线程安全，调用方需持有淘汰锁。
+ *
+ * @param <K> 键类型
+ * @param <V> 值类型
+ * @author lifengdi
+ * @see <a href="http://www.cs.columbia.edu/~nahum/w6998/papers/ton97-timing-wheels.pdf">Hashed and Hierarchical Timing Wheels</a>
+ */
+class TimerWheel<K, V> {
+
+	/**
+	 * 每层桶数
+	 */
+	private static final int[] BUCKETS = {64, 64, 32, 4, 1};
+	/**
+	 * 每层桶的时间跨度，SPANS[i + 1]为第i层的总跨度
+	 */
+	private static final long[] SPANS = {
+			1L << 10, // 1.02s
+			1L << 16, // 1.09m
+			1L << 22, // 1.17h
+			1L << 27, // 1.55d
+			4L << 27, // 6.2d
+			4L << 27, // 6.2d
+	};
+	/**
+	 * 每层由时间计算刻度时的移位数
+	 */
+	private static final long[] SHIFT = {
+			Long.numberOfTrailingZeros(SPANS[0]),
+			Long.numberOfTrailingZeros(SPANS[1]),
+			Long.numberOfTrailingZeros(SPANS[2]),
+			Long.numberOfTrailingZeros(SPANS[3]),
+			Long.numberOfTrailingZeros(SPANS[4]),
+	};
+
+	/**
+	 * 各层的桶，每个桶是以哨兵节点为头的双向循环链表
+	 */
+	private final CacheObj<K, V>[][] wheel;
+	/**
+	 * 时间轮当前时间
+	 */
+	private long time;
+
+	/**
+	 * 构造
+	 *
+	 * @param currentTime 当前时间，单位毫秒
+	 */
+	@SuppressWarnings("unchecked")
+	TimerWheel(long currentTime) {
+		this.time = currentTime;
+		this.wheel = new CacheObj[BUCKETS.length][];
+		for (int i = 0; i < wheel.length; i++) {
+			wheel[i] = new CacheObj[BUCKETS[i]];
+			for (int j = 0; j < wheel[i].length; j++) {
+				final CacheObj<K, V> sentinel = new CacheObj<>(null, null, 0);
+				sentinel.previousInWheel = sentinel;
+				sentinel.nextInWheel = sentinel;
+				wheel[i][j] = sentinel;
+			}
+		}
+	}
+
+	/**
+	 * 时间轮前进到当前时间，处理所有跨过的桶
+	 *
+	 * @param currentTime 当前时间，单位毫秒
+	 * @param evictor     过期对象的移除回调，返回{@code false}表示未移除，对象将被重新放入时间轮
+	 * @return 移除的对象数
+	 */
+	int advance(long currentTime, Predicate<CacheObj<K, V>> evictor) {
+		final long previousTime = this.time;
+		this.time = currentTime;
+		int count = 0;
+		for (int i = 0; i < SHIFT.length; i++) {
+			final long previousTicks = (previousTime >>> SHIFT[i]);
+			final long currentTicks = (currentTime >>> SHIFT[i]);
+			final long delta = currentTicks - previousTicks;
+			if (delta <= 0L) {
+				// 低层没有跨过刻度，高层也不会跨过
+				break;
+			}
+			count += expire(i, previousTicks, delta, evictor);
+		}
+		return count;
+	}
+
+	/**
+	 * 处理某一层中跨过的桶
+	 *
+	 * @param index         层序号
+	 * @param previousTicks 上次前进时的刻度
+	 * @param delta         跨过的刻度数
+	 * @param evictor       过期对象的移除回调
+	 * @return 移除的对象数
+	 */
+	private int expire(int index, long previousTicks, long delta, Predicate<CacheObj<K, V>> evictor) {
+		final CacheObj<K, V>[] timerWheel = wheel[index];
+		final int mask = timerWheel.length - 1;
+		// 包含上次所在的桶，该桶中可能有上次尚未到期的对象
+		final int steps = (int) Math.min(1 + delta, timerWheel.length);
+		final int start = (int) (previousTicks & mask);
+		final int end = start + steps;
+
+		int count = 0;
+		for (int i = start; i < end; i++) {
+			final CacheObj<K, V> sentinel = timerWheel[i & mask];
+			CacheObj<K, V> node = sentinel.nextInWheel;
+			// 整个桶摘下后再逐个处理，重新放入的对象不会被本次再次遍历
+			sentinel.previousInWheel = sentinel;
+			sentinel.nextInWheel = sentinel;
+
+			while (node != sentinel) {
+				final CacheObj<K, V> next = node.nextInWheel;
+				node.previousInWheel = null;
+				node.nextInWheel = null;
+
+				if (expireTime(node) - time >= 0L || false == evictor.test(node)) {
+					schedule(node);
+				} else {
+					count++;
+				}
+				node = next;
+			}
+		}
+		return count;
+	}
+
+	/**
+	 * 按对象当前的过期时间放入时间轮，对象已在时间轮中时先移出
+	 *
+	 * @param co 缓存对象，ttl必须大于0
+	 */
+	void schedule(CacheObj<K, V> co) {
+		if (null != co.nextInWheel) {
+			unlink(co);
+		}
+		// 已过期的对象放入当前刻度的桶，下次前进时即被处理
+		final CacheObj<K, V> sentinel = findBucket(Math.max(expireTime(co), time));
+		co.nextInWheel = sentinel;
+		co.previousInWheel = sentinel.previousInWheel;
+		sentinel.previousInWheel.nextInWheel = co;
+		sentinel.previousInWheel = co;
+	}
+
+	/**
+	 * 将对象移出时间轮，不在时间轮中时无动作
+	 *
+	 * @param co 缓存对象
+	 */
+	void deschedule(CacheObj<K, V> co) {
+		if (null != co.nextInWheel) {
+			unlink(co);
+		}
+	}
+
+	/**
+	 * 清空时间轮，所有对象的链接会被断开
+	 */
+	void clear() {
+		for (CacheObj<K, V>[] timerWheel : wheel) {
+			for (CacheObj<K, V> sentinel : timerWheel) {
+				CacheObj<K, V> node = sentinel.nextInWheel;
+				while (node != sentinel) {
+					final CacheObj<K, V> next = node.nextInWheel;
+					node.previousInWheel = null;
+					node.nextInWheel = null;
+					node = next;
+				}
+				sentinel.previousInWheel = sentinel;
+				sentinel.nextInWheel = sentinel;
+			}
+		}
+	}
+
+	/**
+	 * 根据过期时间与当前时间的距离，确定所在的层和桶
+	 *
+	 * @param expireTime 过期时间
+	 * @return 桶的哨兵节点
+	 */
+	private CacheObj<K, V> findBucket(long expireTime) {
+		final long duration = expireTime - time;
+		final int length = wheel.length - 1;
+		for (int i = 0; i < length; i++) {
+			if (duration < SPANS[i + 1]) {
+				final long ticks = (expireTime >>> SHIFT[i]);
+				final int index = (int) (ticks & (wheel[i].length - 1));
+				return wheel[i][index];
+			}
+		}
+		return wheel[length][0];
+	}
+
+	private void unlink(CacheObj<K, V> co) {
+		co.previousInWheel.nextInWheel = co.nextInWheel;
+		co.nextInWheel.previousInWheel = co.previousInWheel;
+		co.previousInWheel = null;
+		co.nextInWheel = null;
+	}
+
+	/**
+	 * 对象的过期时间，访问后会随最后访问时间变化
+	 *
+	 * @param co 缓存对象
+	 * @return 过期时间，单位毫秒
+	 */
+	private static long expireTime(CacheObj<?, ?> co) {
+		return co.lastAccess + co.ttl;
+	}
+}
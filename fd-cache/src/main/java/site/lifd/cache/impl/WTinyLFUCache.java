@@ -0,0 +1,333 @@
+package site.lifd.cache.impl;
+
+import site.lifd.cache.RemovalCause;
+import site.lifd.cache.Weigher;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * W-TinyLFU缓存<br>
+ * 缓存空间分为三段：
+ * <ul>
+ *     <li>窗口段（window，默认1%）：新对象先进入窗口，按LRU淘汰，用于吸收突发的新热点</li>
+ *     <li>考察段（probation）：从窗口淘汰的对象进入此段，再次被访问时晋升到保护段</li>
+ *     <li>保护段（protected，默认占主空间80%）：多次被访问的热点对象，超出时按LRU降级回考察段</li>
+ * </ul>
+ * 窗口淘汰出的候选对象进入主空间时，如果缓存已满，则使用{@link FrequencySketch}估算候选对象和考察段中最久未使用对象（受害者）的访问频率，
+ * 只有候选对象频率更高时才淘汰受害者，否则直接淘汰候选对象。这样只访问一次的对象（例如一次全表扫描）不会把热点对象挤出缓存。
+ * <p>
+ * 可以按对象数或按总权重限制大小，按总权重限制时各分段的大小也按权重计算，例如使用{@link Weigher#approximateSize()}按估算的字节数限制。
+ * <p>
+ * 读操作无锁，分段顺序和访问频率的调整由{@link ConcurrentCache}的维护任务批量重放，淘汰只在写入和维护时进行。
+ *
+ * @param <K> 键类型
+ * @param <V> 值类型
+ * @author lifengdi
+ * @see <a href="https://arxiv.org/abs/1512.00727">TinyLFU: A Highly Efficient Cache Admission Policy</a>
+ */
+public class WTinyLFUCache<K, V> extends ConcurrentCache<K, V> {
+	private static final long serialVersionUID = 1L;
+
+	/**
+	 * 窗口段占总容量的百分比
+	 */
+	private static final int WINDOW_PERCENT = 1;
+	/**
+	 * 保护段占主空间的百分比
+	 */
+	private static final int PROTECTED_PERCENT = 80;
+
+	/**
+	 * 窗口段，按访问顺序排列，头部为最久未使用
+	 */
+	private final LinkedHashMap<Object, CacheObj<K, V>> window;
+	/**
+	 * 考察段，按访问顺序排列，头部为最久未使用
+	 */
+	private final LinkedHashMap<Object, CacheObj<K, V>> probation;
+	/**
+	 * 保护段，按访问顺序排列，头部为最久未使用
+	 */
+	private final LinkedHashMap<Object, CacheObj<K, V>> protect;
+	/**
+	 * 访问频率估算
+	 */
+	private final FrequencySketch<Object> sketch;
+
+	/**
+	 * 最大总权重，未设置权重计算时即容量，{@code 0}表示无限制
+	 */
+	private final long maximum;
+	/**
+	 * 窗口段的最大权重
+	 */
+	private final long maxWindow;
+	/**
+	 * 保护段的最大权重
+	 */
+	private final long maxProtected;
+	/**
+	 * 窗口段当前权重
+	 */
+	private long windowWeight;
+	/**
+	 * 保护段当前权重
+	 */
+	private long protectedWeight;
+	/**
+	 * 按权重限制时对象数未知，访问频率估算的容量随对象数增长
+	 */
+	private long sketchCapacity;
+
+	/**
+	 * 构造，默认对象不过期
+	 *
+	 * @param capacity 容量，{@code 0}表示无大小限制
+	 */
+	public WTinyLFUCache(int capacity) {
+		this(capacity, 0);
+	}
+
+	/**
+	 * 构造
+	 *
+	 * @param capacity 容量，{@code 0}表示无大小限制
+	 * @param timeout  默认过期时间，单位毫秒，{@code 0}表示不过期
+	 */
+	public WTinyLFUCache(int capacity, long timeout) {
+		this(Math.max(capacity == Integer.MAX_VALUE ? capacity - 1 : capacity, 0), 0, null, timeout);
+	}
+
+	/**
+	 * 构造，按总权重限制缓存大小，例如使用{@link Weigher#approximateSize()}按估算的字节数限制
+	 *
+	 * @param maximumWeight 最大总权重，{@code 0}表示无大小限制
+	 * @param weigher       权重计算
+	 * @param timeout       默认过期时间，单位毫秒，{@code 0}表示不过期
+	 */
+	public WTinyLFUCache(long maximumWeight, Weigher<? super K, ? super V> weigher, long timeout) {
+		this(0, Math.max(maximumWeight, 0), weigher, timeout);
+	}
+
+	/**
+	 * 构造
+	 *
+	 * @param capacity      容量，按权重限制时为{@code 0}
+	 * @param maximumWeight 最大总权重，按容量限制时为{@code 0}
+	 * @param weigher       权重计算，{@code null}表示每个对象权重为1
+	 * @param timeout       默认过期时间，单位毫秒，{@code 0}表示不过期
+	 */
+	private WTinyLFUCache(int capacity, long maximumWeight, Weigher<? super K, ? super V> weigher, long timeout) {
+		this.capacity = capacity;
+		this.maximumWeight = maximumWeight;
+		if (null != weigher) {
+			this.weigher = weigher;
+		}
+		this.timeout = timeout;
+
+		this.maximum = maximumWeight > 0 ? maximumWeight : capacity;
+		if (this.maximum > 0) {
+			this.maxWindow = Math.max(1, this.maximum * WINDOW_PERCENT / 100);
+			this.maxProtected = (this.maximum - this.maxWindow) * PROTECTED_PERCENT / 100;
+		} else {
+			// 无容量限制时不需要淘汰，所有对象保留在窗口中
+			this.maxWindow = Long.MAX_VALUE;
+			this.maxProtected = 0;
+		}
+
+		this.window = new LinkedHashMap<>(16, 0.75f, true);
+		this.probation = new LinkedHashMap<>(16, 0.75f, true);
+		this.protect = new LinkedHashMap<>(16, 0.75f, true);
+		this.sketchCapacity = maximumWeight > 0 ? 16 : capacity;
+		this.sketch = new FrequencySketch<>(this.sketchCapacity);
+	}
+
+	// ---------------------------------------------------------------- policy start
+	@Override
+	protected void recordAdd(CacheObj<K, V> co) {
+		if (maximumWeight > 0 && cacheMap.size() > sketchCapacity) {
+			// 按权重限制时随对象数倍增估算容量，扩容会清除已有计数
+			sketchCapacity = Math.max(sketchCapacity * 2, cacheMap.size());
+			sketch.ensureCapacity(sketchCapacity);
+		}
+		final Object mKey = NullKey.mask(co.key);
+		sketch.increment(mKey);
+		window.put(mKey, co);
+		windowWeight += co.weight;
+		evict();
+	}
+
+	@Override
+	protected void recordReplace(CacheObj<K, V> old, CacheObj<K, V> co) {
+		final Object mKey = NullKey.mask(co.key);
+		sketch.increment(mKey);
+		// 替换已有对象，保持其所在分段不变
+		if (window.containsKey(mKey)) {
+			window.put(mKey, co);
+			windowWeight += co.weight - old.weight;
+		} else if (probation.containsKey(mKey)) {
+			probation.put(mKey, co);
+		} else {
+			protect.put(mKey, co);
+			protectedWeight += co.weight - old.weight;
+		}
+		// 新值的权重可能更大
+		evict();
+	}
+
+	/**
+	 * 记录一次访问：增加访问频率并调整对象在分段中的位置
+	 *
+	 * @param co 被访问的对象
+	 */
+	@Override
+	protected void recordAccess(CacheObj<K, V> co) {
+		final Object mKey = NullKey.mask(co.key);
+		sketch.increment(mKey);
+		if (null != window.get(mKey) || null != protect.get(mKey)) {
+			// LinkedHashMap访问顺序模式下get即移动到尾部
+			return;
+		}
+		final CacheObj<K, V> current = probation.remove(mKey);
+		if (null != current) {
+			// 考察段中再次被访问，晋升到保护段，超出时将保护段中最久未使用的对象降级回考察段
+			protect.put(mKey, current);
+			protectedWeight += current.weight;
+			while (protectedWeight > maxProtected && protect.size() > 1) {
+				final Map.Entry<Object, CacheObj<K, V>> demoted = eldest(protect);
+				protect.remove(demoted.getKey());
+				protectedWeight -= demoted.getValue().weight;
+				probation.put(demoted.getKey(), demoted.getValue());
+			}
+		}
+		// 不在任何分段中说明对象已被移除，忽略
+	}
+
+	@Override
+	protected void recordRemoval(CacheObj<K, V> co) {
+		final Object mKey = NullKey.mask(co.key);
+		if (null != window.remove(mKey)) {
+			windowWeight -= co.weight;
+		} else if (null == probation.remove(mKey) && null != protect.remove(mKey)) {
+			protectedWeight -= co.weight;
+		}
+	}
+	// ---------------------------------------------------------------- policy end
+
+	/**
+	 * 过期对象由时间轮在维护时清理，此处只处理超出容量（总权重）的情况，从主空间中按最久未使用淘汰
+	 *
+	 * @return 清理对象数
+	 */
+	@Override
+	protected int pruneCache() {
+		int count = 0;
+		while (isOverflow()) {
+			if (null == evictFromMain()) {
+				break;
+			}
+			count++;
+		}
+		return count;
+	}
+
+	/**
+	 * 窗口超出大小时，将窗口中最久未使用的对象作为候选移入主空间，总权重超出时进行准入淘汰
+	 */
+	private void evict() {
+		while (windowWeight > maxWindow && false == window.isEmpty()) {
+			final Map.Entry<Object, CacheObj<K, V>> candidate = eldest(window);
+			window.remove(candidate.getKey());
+			windowWeight -= candidate.getValue().weight;
+			probation.put(candidate.getKey(), candidate.getValue());
+			if (candidate.getValue().weight > maximum && maximum > 0) {
+				// 超过最大总权重的对象无法放入，直接淘汰
+				evictEntry(candidate.getValue());
+				continue;
+			}
+			// 一次淘汰可能不足以腾出候选对象所需的权重，直到候选对象被淘汰或总权重不再超出
+			while (isOverflow()) {
+				if (false == admit(candidate.getKey(), candidate.getValue())) {
+					break;
+				}
+			}
+		}
+		// 窗口未超出但总权重超出，例如替换为更大的值
+		pruneCache();
+	}
+
+	/**
+	 * 准入判断：比较候选对象和主空间中最久未使用的对象（受害者）的访问频率，淘汰频率较低的一方<br>
+	 * 频率相同时淘汰候选对象，防止只访问一次的新对象冲刷掉已有对象
+	 *
+	 * @param candidateKey 候选对象的键
+	 * @param candidate    候选对象
+	 * @return 候选对象是否仍保留在缓存中
+	 */
+	private boolean admit(Object candidateKey, CacheObj<K, V> candidate) {
+		Map.Entry<Object, CacheObj<K, V>> victim = eldest(probation);
+		if (victim.getKey().equals(candidateKey)) {
+			// 考察段中只有候选对象，受害者取保护段头部
+			if (protect.isEmpty()) {
+				evictEntry(candidate);
+				return false;
+			}
+			victim = eldest(protect);
+		}
+
+		if (sketch.frequency(candidateKey) > sketch.frequency(victim.getKey())) {
+			evictEntry(victim.getValue());
+			return true;
+		}
+		evictEntry(candidate);
+		return false;
+	}
+
+	/**
+	 * 是否超出最大总权重
+	 *
+	 * @return 是否超出
+	 */
+	private boolean isOverflow() {
+		return maximum > 0 && totalWeight > maximum;
+	}
+
+	/**
+	 * 不经准入判断，直接淘汰主空间（优先考察段）中最久未使用的对象
+	 *
+	 * @return 被淘汰的对象，无可淘汰对象返回{@code null}
+	 */
+	private CacheObj<K, V> evictFromMain() {
+		LinkedHashMap<Object, CacheObj<K, V>> queue = probation;
+		if (queue.isEmpty()) {
+			queue = protect.isEmpty() ? window : protect;
+			if (queue.isEmpty()) {
+				return null;
+			}
+		}
+		final CacheObj<K, V> co = eldest(queue).getValue();
+		evictEntry(co);
+		return co;
+	}
+
+	/**
+	 * 移除对象，释放淘汰锁后触发移除回调
+	 *
+	 * @param co 被淘汰的对象
+	 */
+	private void evictEntry(CacheObj<K, V> co) {
+		removeWithoutLock(co.key);
+		deferNotifyRemove(co, RemovalCause.SIZE);
+	}
+
+	/**
+	 * 获取LinkedHashMap中最久未使用的键值对
+	 *
+	 * @param map 分段
+	 * @return 最久未使用的键值对
+	 */
+	private Map.Entry<Object, CacheObj<K, V>> eldest(LinkedHashMap<Object, CacheObj<K, V>> map) {
+		return map.entrySet().iterator().next();
+	}
+}
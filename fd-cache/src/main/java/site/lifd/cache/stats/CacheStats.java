@@ -0,0 +1,197 @@
+package site.lifd.cache.stats;
+
+import site.lifd.cache.RemovalCause;
+
+import java.io.Serializable;
+
+/**
+ * 缓存统计快照，不可变<br>
+ * 命中率等比率在请求数为0时按无请求处理：命中率为1，未命中率为0。
+ *
+ * @author lifengdi
+ */
+public final class CacheStats implements Serializable {
+	private static final long serialVersionUID = 1L;
+
+	private static final CacheStats EMPTY = new CacheStats(0, 0, 0, 0, 0,
+			new long[RemovalCause.values().length], 0, LatencyHistogram.Snapshot.EMPTY, LatencyHistogram.Snapshot.EMPTY);
+
+	private final long hitCount;
+	private final long missCount;
+	private final long loadSuccessCount;
+	private final long loadFailureCount;
+	private final long totalLoadTime;
+	/**
+	 * 按{@link RemovalCause#ordinal()}索引的移除数
+	 */
+	private final long[] removalCounts;
+	private final long evictionWeight;
+	private final LatencyHistogram.Snapshot getLatency;
+	private final LatencyHistogram.Snapshot putLatency;
+
+	/**
+	 * 构造
+	 *
+	 * @param hitCount         命中数
+	 * @param missCount        未命中数
+	 * @param loadSuccessCount 成功加载数
+	 * @param loadFailureCount 失败加载数
+	 * @param totalLoadTime    加载总耗时，单位纳秒
+	 * @param removalCounts    按{@link RemovalCause#ordinal()}索引的移除数
+	 * @param evictionWeight   过期和淘汰移除的总权重
+	 * @param getLatency       get耗时分布，未记录时为{@link LatencyHistogram.Snapshot#EMPTY}
+	 * @param putLatency       put耗时分布，未记录时为{@link LatencyHistogram.Snapshot#EMPTY}
+	 */
+	public CacheStats(long hitCount, long missCount, long loadSuccessCount, long loadFailureCount, long totalLoadTime,
+					  long[] removalCounts, long evictionWeight,
+					  LatencyHistogram.Snapshot getLatency, LatencyHistogram.Snapshot putLatency) {
+		if (removalCounts.length != RemovalCause.values().length) {
+			throw new IllegalArgumentException("Removal counts length must be " + RemovalCause.values().length);
+		}
+		this.hitCount = hitCount;
+		this.missCount = missCount;
+		this.loadSuccessCount = loadSuccessCount;
+		this.loadFailureCount = loadFailureCount;
+		this.totalLoadTime = totalLoadTime;
+		this.removalCounts = removalCounts.clone();
+		this.evictionWeight = evictionWeight;
+		this.getLatency = null == getLatency ? LatencyHistogram.Snapshot.EMPTY : getLatency;
+		this.putLatency = null == putLatency ? LatencyHistogram.Snapshot.EMPTY : putLatency;
+	}
+
+	/**
+	 * 空统计
+	 *
+	 * @return 空统计
+	 */
+	public static CacheStats empty() {
+		return EMPTY;
+	}
+
+	/**
+	 * @return 命中数
+	 */
+	public long getHitCount() {
+		return hitCount;
+	}
+
+	/**
+	 * @return 未命中数
+	 */
+	public long getMissCount() {
+		return missCount;
+	}
+
+	/**
+	 * @return 请求数，即命中数与未命中数之和
+	 */
+	public long getRequestCount() {
+		return hitCount + missCount;
+	}
+
+	/**
+	 * @return 命中率
+	 */
+	public double getHitRate() {
+		final long requestCount = getRequestCount();
+		return 0 == requestCount ? 1.0 : (double) hitCount / requestCount;
+	}
+
+	/**
+	 * @return 未命中率
+	 */
+	public double getMissRate() {
+		final long requestCount = getRequestCount();
+		return 0 == requestCount ? 0.0 : (double) missCount / requestCount;
+	}
+
+	/**
+	 * @return 成功加载数
+	 */
+	public long getLoadSuccessCount() {
+		return loadSuccessCount;
+	}
+
+	/**
+	 * @return 失败加载数，包括加载抛出异常和加载结果为{@code null}
+	 */
+	public long getLoadFailureCount() {
+		return loadFailureCount;
+	}
+
+	/**
+	 * @return 加载数
+	 */
+	public long getLoadCount() {
+		return loadSuccessCount + loadFailureCount;
+	}
+
+	/**
+	 * @return 加载总耗时，单位纳秒
+	 */
+	public long getTotalLoadTime() {
+		return totalLoadTime;
+	}
+
+	/**
+	 * @return 平均加载耗时，单位纳秒
+	 */
+	public double getAverageLoadPenalty() {
+		final long loadCount = getLoadCount();
+		return 0 == loadCount ? 0.0 : (double) totalLoadTime / loadCount;
+	}
+
+	/**
+	 * 指定原因的移除数
+	 *
+	 * @param cause 移除原因
+	 * @return 移除数
+	 */
+	public long getRemovalCount(RemovalCause cause) {
+		return removalCounts[cause.ordinal()];
+	}
+
+	/**
+	 * @return 过期和淘汰移除数，不包括主动移除
+	 */
+	public long getEvictionCount() {
+		return getRemovalCount(RemovalCause.EXPIRED) + getRemovalCount(RemovalCause.SIZE);
+	}
+
+	/**
+	 * @return 过期和淘汰移除的总权重
+	 */
+	public long getEvictionWeight() {
+		return evictionWeight;
+	}
+
+	/**
+	 * @return get耗时分布，单位纳秒
+	 */
+	public LatencyHistogram.Snapshot getGetLatency() {
+		return getLatency;
+	}
+
+	/**
+	 * @return put耗时分布，单位纳秒
+	 */
+	public LatencyHistogram.Snapshot getPutLatency() {
+		return putLatency;
+	}
+
+	@Override
+	public String toString() {
+		return "CacheStats{hitCount=" + hitCount
+				+ ", missCount=" + missCount
+				+ ", loadSuccessCount=" + loadSuccessCount
+				+ ", loadFailureCount=" + loadFailureCount
+				+ ", totalLoadTime=" + totalLoadTime
+				+ ", explicitCount=" + getRemovalCount(RemovalCause.EXPLICIT)
+				+ ", expiredCount=" + getRemovalCount(RemovalCause.EXPIRED)
+				+ ", sizeCount=" + getRemovalCount(RemovalCause.SIZE)
+				+ ", evictionWeight=" + evictionWeight
+				+ ", getLatency=" + getLatency
+				+ ", putLatency=" + putLatency
+				+ "}";
+	}
+}
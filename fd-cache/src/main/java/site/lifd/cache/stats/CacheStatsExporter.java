@@ -0,0 +1,167 @@
+package site.lifd.cache.stats;
+
+import site.lifd.cache.Cache;
+import site.lifd.cache.RemovalCause;
+import site.lifd.core.exceptions.UtilException;
+
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import java.lang.management.ManagementFactory;
+
+/**
+ * 将缓存统计导出为JMX MBean，ObjectName为{@code site.lifd.cache:type=CacheStats,name=缓存名}
+ *
+ * <pre>
+ * CacheStatsExporter.register("userCache", userCache);
+ * </pre>
+ *
+ * @author lifengdi
+ */
+public class CacheStatsExporter implements CacheStatsMXBean {
+
+	/**
+	 * ObjectName的域
+	 */
+	public static final String DOMAIN = "site.lifd.cache";
+
+	private final Cache<?, ?> cache;
+
+	/**
+	 * 构造
+	 *
+	 * @param cache 缓存
+	 */
+	public CacheStatsExporter(Cache<?, ?> cache) {
+		this.cache = cache;
+	}
+
+	/**
+	 * 注册到平台MBeanServer，同名的已注册MBean将被替换
+	 *
+	 * @param name  缓存名
+	 * @param cache 缓存
+	 * @return 注册的ObjectName
+	 */
+	public static ObjectName register(String name, Cache<?, ?> cache) {
+		final MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+		try {
+			final ObjectName objectName = objectName(name);
+			if (server.isRegistered(objectName)) {
+				server.unregisterMBean(objectName);
+			}
+			server.registerMBean(new CacheStatsExporter(cache), objectName);
+			return objectName;
+		} catch (JMException e) {
+			throw new UtilException(e, "Register cache stats MBean [{}] error!", name);
+		}
+	}
+
+	/**
+	 * 从平台MBeanServer注销，未注册时忽略
+	 *
+	 * @param name 缓存名
+	 */
+	public static void unregister(String name) {
+		final MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+		try {
+			final ObjectName objectName = objectName(name);
+			if (server.isRegistered(objectName)) {
+				server.unregisterMBean(objectName);
+			}
+		} catch (JMException e) {
+			throw new UtilException(e, "Unregister cache stats MBean [{}] error!", name);
+		}
+	}
+
+	/**
+	 * 生成缓存名对应的ObjectName
+	 *
+	 * @param name 缓存名
+	 * @return ObjectName
+	 * @throws JMException 名称不合法
+	 */
+	private static ObjectName objectName(String name) throws JMException {
+		return new ObjectName(DOMAIN + ":type=CacheStats,name=" + ObjectName.quote(name));
+	}
+
+	@Override
+	public int getSize() {
+		return cache.size();
+	}
+
+	@Override
+	public long getHitCount() {
+		return cache.stats().getHitCount();
+	}
+
+	@Override
+	public long getMissCount() {
+		return cache.stats().getMissCount();
+	}
+
+	@Override
+	public double getHitRate() {
+		return cache.stats().getHitRate();
+	}
+
+	@Override
+	public long getLoadSuccessCount() {
+		return cache.stats().getLoadSuccessCount();
+	}
+
+	@Override
+	public long getLoadFailureCount() {
+		return cache.stats().getLoadFailureCount();
+	}
+
+	@Override
+	public long getTotalLoadTime() {
+		return cache.stats().getTotalLoadTime();
+	}
+
+	@Override
+	public double getAverageLoadPenalty() {
+		return cache.stats().getAverageLoadPenalty();
+	}
+
+	@Override
+	public long getExplicitRemovalCount() {
+		return cache.stats().getRemovalCount(RemovalCause.EXPLICIT);
+	}
+
+	@Override
+	public long getExpiredCount() {
+		return cache.stats().getRemovalCount(RemovalCause.EXPIRED);
+	}
+
+	@Override
+	public long getSizeEvictionCount() {
+		return cache.stats().getRemovalCount(RemovalCause.SIZE);
+	}
+
+	@Override
+	public long getEvictionWeight() {
+		return cache.stats().getEvictionWeight();
+	}
+
+	@Override
+	public long getGetLatencyP99() {
+		return cache.stats().getGetLatency().getP99();
+	}
+
+	@Override
+	public long getGetLatencyMax() {
+		return cache.stats().getGetLatency().getMax();
+	}
+
+	@Override
+	public long getPutLatencyP99() {
+		return cache.stats().getPutLatency().getP99();
+	}
+
+	@Override
+	public long getPutLatencyMax() {
+		return cache.stats().getPutLatency().getMax();
+	}
+}
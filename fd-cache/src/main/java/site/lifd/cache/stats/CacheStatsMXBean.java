@@ -0,0 +1,90 @@
+package site.lifd.cache.stats;
+
+/**
+ * 缓存统计的JMX接口，通过{@link CacheStatsExporter#register(String, site.lifd.cache.Cache)}注册<br>
+ * 每次读取属性都会生成一次新的统计快照，耗时单位均为纳秒。
+ *
+ * @author lifengdi
+ */
+public interface CacheStatsMXBean {
+
+    /**
+     * @return 缓存的对象数
+     */
+    int getSize();
+
+    /**
+     * @return 命中数
+     */
+    long getHitCount();
+
+    /**
+     * @return 未命中数
+     */
+    long getMissCount();
+
+    /**
+     * @return 命中率
+     */
+    double getHitRate();
+
+    /**
+     * @return 成功加载数
+     */
+    long getLoadSuccessCount();
+
+    /**
+     * @return 失败加载数
+     */
+    long getLoadFailureCount();
+
+    /**
+     * @return 加载总耗时
+     */
+    long getTotalLoadTime();
+
+    /**
+     * @return 平均加载耗时
+     */
+    double getAverageLoadPenalty();
+
+    /**
+     * @return 主动移除数
+     */
+    long getExplicitRemovalCount();
+
+    /**
+     * @return 过期移除数
+     */
+    long getExpiredCount();
+
+    /**
+     * @return 超出容量淘汰数
+     */
+    long getSizeEvictionCount();
+
+    /**
+     * @return 过期和淘汰移除的总权重
+     */
+    long getEvictionWeight();
+
+    /**
+     * @return get耗时的99分位值，未记录耗时为0
+     */
+    long getGetLatencyP99();
+
+    /**
+     * @return get耗时的最大值，未记录耗时为0
+     */
+    long getGetLatencyMax();
+
+    /**
+     * @return put耗时的99分位值，未记录耗时为0
+     */
+    long getPutLatencyP99();
+
+    /**
+     * @return put耗时的最大值，未记录耗时为0
+     */
+    long getPutLatencyMax();
+}
@@ -0,0 +1,129 @@
+package site.lifd.cache.stats;
+
+import site.lifd.cache.RemovalCause;
+
+import java.io.Serializable;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 基于{@link LongAdder}的线程安全统计记录器，缓存默认使用此记录器<br>
+ * 读写耗时分布默认不记录，开启后每次get和put会额外调用两次{@link System#nanoTime()}。
+ *
+ * @author lifengdi
+ */
+public class ConcurrentStatsCounter implements StatsCounter, Serializable {
+	private static final long serialVersionUID = 1L;
+
+	private final LongAdder hitCount = new LongAdder();
+	private final LongAdder missCount = new LongAdder();
+	private final LongAdder loadSuccessCount = new LongAdder();
+	private final LongAdder loadFailureCount = new LongAdder();
+	private final LongAdder totalLoadTime = new LongAdder();
+	private final LongAdder[] removalCounts;
+	private final LongAdder evictionWeight = new LongAdder();
+	/**
+	 * get耗时分布，不记录时为{@code null}
+	 */
+	private final LatencyHistogram getLatency;
+	/**
+	 * put耗时分布，不记录时为{@code null}
+	 */
+	private final LatencyHistogram putLatency;
+
+	/**
+	 * 构造，不记录读写耗时
+	 */
+	public ConcurrentStatsCounter() {
+		this(false);
+	}
+
+	/**
+	 * 构造
+	 *
+	 * @param recordLatency 是否记录读写耗时分布
+	 */
+	public ConcurrentStatsCounter(boolean recordLatency) {
+		this.removalCounts = new LongAdder[RemovalCause.values().length];
+		for (int i = 0; i < removalCounts.length; i++) {
+			removalCounts[i] = new LongAdder();
+		}
+		this.getLatency = recordLatency ? new LatencyHistogram() : null;
+		this.putLatency = recordLatency ? new LatencyHistogram() : null;
+	}
+
+	@Override
+	public void recordHits(int count) {
+		hitCount.add(count);
+	}
+
+	@Override
+	public void recordMisses(int count) {
+		missCount.add(count);
+	}
+
+	@Override
+	public void recordLoadSuccess(long loadTime) {
+		loadSuccessCount.increment();
+		totalLoadTime.add(loadTime);
+	}
+
+	@Override
+	public void recordLoadFailure(long loadTime) {
+		loadFailureCount.increment();
+		totalLoadTime.add(loadTime);
+	}
+
+	@Override
+	public void recordRemoval(RemovalCause cause, long weight) {
+		removalCounts[cause.ordinal()].increment();
+		if (cause.wasEvicted()) {
+			evictionWeight.add(weight);
+		}
+	}
+
+	@Override
+	public boolean isRecordingLatency() {
+		return null != getLatency;
+	}
+
+	@Override
+	public void recordGetLatency(long nanos) {
+		if (null != getLatency) {
+			getLatency.record(nanos);
+		}
+	}
+
+	@Override
+	public void recordPutLatency(long nanos) {
+		if (null != putLatency) {
+			putLatency.record(nanos);
+		}
+	}
+
+	@Override
+	public long hitCount() {
+		return hitCount.sum();
+	}
+
+	@Override
+	public long missCount() {
+		return missCount.sum();
+	}
+
+	@Override
+	public CacheStats snapshot() {
+		final long[] removals = new long[removalCounts.length];
+		for (int i = 0; i < removals.length; i++) {
+			removals[i] = removalCounts[i].sum();
+		}
+		return new CacheStats(hitCount.sum(), missCount.sum(), loadSuccessCount.sum(), loadFailureCount.sum(),
+				totalLoadTime.sum(), removals, evictionWeight.sum(),
+				null == getLatency ? null : getLatency.snapshot(),
+				null == putLatency ? null : putLatency.snapshot());
+	}
+
+	@Override
+	public String toString() {
+		return snapshot().toString();
+	}
+}
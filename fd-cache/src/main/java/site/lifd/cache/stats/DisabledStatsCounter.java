@@ -0,0 +1,52 @@
+package site.lifd.cache.stats;
+
+import site.lifd.cache.RemovalCause;
+
+/**
+ * 不记录任何统计的记录器，所有方法均为空操作
+ *
+ * @author lifengdi
+ */
+enum DisabledStatsCounter implements StatsCounter {
+	INSTANCE;
+
+	@Override
+	public void recordHits(int count) {
+	}
+
+	@Override
+	public void recordMisses(int count) {
+	}
+
+	@Override
+	public void recordLoadSuccess(long loadTime) {
+	}
+
+	@Override
+	public void recordLoadFailure(long loadTime) {
+	}
+
+	@Override
+	public void recordRemoval(RemovalCause cause, long weight) {
+	}
+
+	@Override
+	public long hitCount() {
+		return 0;
+	}
+
+	@Override
+	public long missCount() {
+		return 0;
+	}
+
+	@Override
+	public CacheStats snapshot() {
+		return CacheStats.empty();
+	}
+
+	@Override
+	public String toString() {
+		return "DisabledStatsCounter";
+	}
+}
@@ -0,0 +1,207 @@
+package site.lifd.cache.stats;
+
+import java.io.Serializable;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 耗时分布直方图，参考HdrHistogram的对数-线性分桶<br>
+ * 以最高有效位划分指数区间，每个区间再线性划分为32个子桶，任意值的相对误差不超过1/32（约3%），
+ * 桶数固定，记录操作只是一次数组下标计算和原子自增，不分配对象。
+ *
+ * @author lifengdi
+ */
+public class LatencyHistogram implements Serializable {
+	private static final long serialVersionUID = 1L;
+
+	/**
+	 * 子桶位数
+	 */
+	private static final int SUB_BUCKET_BITS = 5;
+	/**
+	 * 每个指数区间的子桶数
+	 */
+	private static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+	/**
+	 * 总桶数：小于{@link #SUB_BUCKETS}的值各占一个桶，之后每个指数区间占{@link #SUB_BUCKETS}个桶
+	 */
+	private static final int BUCKETS = SUB_BUCKETS + (63 - SUB_BUCKET_BITS) * SUB_BUCKETS;
+
+	private final AtomicLongArray counts = new AtomicLongArray(BUCKETS);
+	private final LongAdder total = new LongAdder();
+	private final LongAccumulator max = new LongAccumulator(Math::max, 0);
+
+	/**
+	 * 记录一个值，负值按0记录
+	 *
+	 * @param value 值，通常为纳秒耗时
+	 */
+	public void record(long value) {
+		if (value < 0) {
+			value = 0;
+		}
+		counts.incrementAndGet(indexOf(value));
+		total.add(value);
+		max.accumulate(value);
+	}
+
+	/**
+	 * 生成当前分布的快照<br>
+	 * 记录与快照并发进行时，快照中的各项可能不完全一致，但误差仅限于快照期间的记录。
+	 *
+	 * @return 快照
+	 */
+	public Snapshot snapshot() {
+		final long[] copied = new long[BUCKETS];
+		long count = 0;
+		for (int i = 0; i < BUCKETS; i++) {
+			copied[i] = counts.get(i);
+			count += copied[i];
+		}
+		if (0 == count) {
+			return Snapshot.EMPTY;
+		}
+		final long max = this.max.get();
+		return new Snapshot(count, (double) total.sum() / count, max,
+				valueAt(copied, count, 0.5, max), valueAt(copied, count, 0.9, max),
+				valueAt(copied, count, 0.99, max), valueAt(copied, count, 0.999, max));
+	}
+
+	/**
+	 * 计算值所在的桶
+	 *
+	 * @param value 非负值
+	 * @return 桶下标
+	 */
+	static int indexOf(long value) {
+		if (value < SUB_BUCKETS) {
+			return (int) value;
+		}
+		final int msb = 63 - Long.numberOfLeadingZeros(value);
+		final int shift = msb - SUB_BUCKET_BITS;
+		return SUB_BUCKETS + shift * SUB_BUCKETS + (int) ((value >>> shift) & (SUB_BUCKETS - 1));
+	}
+
+	/**
+	 * 桶的上界，即落入此桶的最大值
+	 *
+	 * @param index 桶下标
+	 * @return 上界
+	 */
+	static long highestEquivalentValue(int index) {
+		if (index < SUB_BUCKETS) {
+			return index;
+		}
+		final int shift = (index - SUB_BUCKETS) / SUB_BUCKETS;
+		final long sub = (index - SUB_BUCKETS) % SUB_BUCKETS;
+		final long lowest = (1L << (shift + SUB_BUCKET_BITS)) | (sub << shift);
+		return lowest + (1L << shift) - 1;
+	}
+
+	/**
+	 * 计算百分位值，结果为所在桶的上界，且不超过最大值
+	 *
+	 * @param counts     各桶计数
+	 * @param count      总数
+	 * @param percentile 百分位，0~1
+	 * @param max        最大值
+	 * @return 百分位值
+	 */
+	private static long valueAt(long[] counts, long count, double percentile, long max) {
+		final long rank = Math.max(1, (long) Math.ceil(percentile * count));
+		long seen = 0;
+		for (int i = 0; i < counts.length; i++) {
+			seen += counts[i];
+			if (seen >= rank) {
+				return Math.min(highestEquivalentValue(i), max);
+			}
+		}
+		return max;
+	}
+
+	/**
+	 * 耗时分布快照
+	 */
+	public static class Snapshot implements Serializable {
+		private static final long serialVersionUID = 1L;
+
+		/**
+		 * 无记录的快照
+		 */
+		public static final Snapshot EMPTY = new Snapshot(0, 0, 0, 0, 0, 0, 0);
+
+		private final long count;
+		private final double mean;
+		private final long max;
+		private final long p50;
+		private final long p90;
+		private final long p99;
+		private final long p999;
+
+		Snapshot(long count, double mean, long max, long p50, long p90, long p99, long p999) {
+			this.count = count;
+			this.mean = mean;
+			this.max = max;
+			this.p50 = p50;
+			this.p90 = p90;
+			this.p99 = p99;
+			this.p999 = p999;
+		}
+
+		/**
+		 * @return 记录数
+		 */
+		public long getCount() {
+			return count;
+		}
+
+		/**
+		 * @return 平均值
+		 */
+		public double getMean() {
+			return mean;
+		}
+
+		/**
+		 * @return 最大值
+		 */
+		public long getMax() {
+			return max;
+		}
+
+		/**
+		 * @return 50分位值
+		 */
+		public long getP50() {
+			return p50;
+		}
+
+		/**
+		 * @return 90分位值
+		 */
+		public long getP90() {
+			return p90;
+		}
+
+		/**
+		 * @return 99分位值
+		 */
+		public long getP99() {
+			return p99;
+		}
+
+		/**
+		 * @return 99.9分位值
+		 */
+		public long getP999() {
+			return p999;
+		}
+
+		@Override
+		public String toString() {
+			return "{count=" + count + ", mean=" + Math.round(mean) + ", p50=" + p50 + ", p90=" + p90
+					+ ", p99=" + p99 + ", p999=" + p999 + ", max=" + max + "}";
+		}
+	}
+}
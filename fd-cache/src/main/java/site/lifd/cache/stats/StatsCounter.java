@@ -0,0 +1,108 @@
+package site.lifd.cache.stats;
+
+import site.lifd.cache.RemovalCause;
+
+/**
+ * 缓存统计记录器，缓存在命中、加载、移除时回调<br>
+ * 实现需线程安全，且各记录方法应足够轻量，它们位于缓存的读写路径上。
+ * 不需要统计时使用{@link #disabled()}，所有记录方法均为空操作。
+ *
+ * @author lifengdi
+ */
+public interface StatsCounter {
+
+    /**
+     * 记录命中
+     *
+     * @param count 命中数
+     */
+    void recordHits(int count);
+
+    /**
+     * 记录未命中
+     *
+     * @param count 未命中数
+     */
+    void recordMisses(int count);
+
+    /**
+     * 记录一次成功加载
+     *
+     * @param loadTime 加载耗时，单位纳秒
+     */
+    void recordLoadSuccess(long loadTime);
+
+    /**
+     * 记录一次失败加载，包括加载抛出异常和加载结果为{@code null}
+     *
+     * @param loadTime 加载耗时，单位纳秒
+     */
+    void recordLoadFailure(long loadTime);
+
+    /**
+     * 记录一次移除
+     *
+     * @param cause  移除原因
+     * @param weight 被移除对象的权重
+     */
+    void recordRemoval(RemovalCause cause, long weight);
+
+    /**
+     * 是否记录读写耗时，返回{@code false}时缓存不会计时，也不会调用{@link #recordGetLatency(long)}和{@link #recordPutLatency(long)}
+     *
+     * @return 是否记录读写耗时
+     */
+    default boolean isRecordingLatency() {
+        return false;
+    }
+
+    /**
+     * 记录一次get耗时
+     *
+     * @param nanos 耗时，单位纳秒
+     */
+    default void recordGetLatency(long nanos) {
+    }
+
+    /**
+     * 记录一次put耗时
+     *
+     * @param nanos 耗时，单位纳秒
+     */
+    default void recordPutLatency(long nanos) {
+    }
+
+    /**
+     * 当前命中数，默认从快照中读取，实现可直接读取计数以避免生成完整快照
+     *
+     * @return 命中数
+     */
+    default long hitCount() {
+        return snapshot().getHitCount();
+    }
+
+    /**
+     * 当前未命中数，默认从快照中读取，实现可直接读取计数以避免生成完整快照
+     *
+     * @return 未命中数
+     */
+    default long missCount() {
+        return snapshot().getMissCount();
+    }
+
+    /**
+     * 生成当前统计的快照
+     *
+     * @return 统计快照
+     */
+    CacheStats snapshot();
+
+    /**
+     * 不记录任何统计的记录器
+     *
+     * @return 空记录器
+     */
+    static StatsCounter disabled() {
+        return DisabledStatsCounter.INSTANCE;
+    }
+}
@@ -0,0 +1,6 @@
+/**
+ * 缓存统计，包括命中、加载、移除计数和读写耗时分布，以及JMX导出
+ *
+ * @author lifengdi
+ */
+package site.lifd.cache.stats;
@@ -4,7 +4,9 @@ import site.lifd.core.lang.hash.Hash32;
 import site.lifd.core.util.HashUtil;
 
 import java.io.Serializable;
+import java.util.Arrays;
 import java.util.Collection;
+import java.util.Map;
 import java.util.SortedMap;
 import java.util.TreeMap;
 
@@ -12,18 +14,23 @@ import java.util.TreeMap;
  * 一致性Hash算法
  * 算法详解：http://blog.csdn.net/sparkliang/article/details/5279393
  * 算法实现：https://weblogs.java.net/blog/2007/11/27/consistent-hashing
+ * <p>
+ * 虚拟节点的Hash值保存在有序的int数组中，查找时二分查找，不装箱也不遍历红黑树；
+ * 增删节点时重建数组后整体替换（写时复制），查找无锁。
  * *
  * @param <T>	节点类型
  */
-public class ConsistentHash<T> implements Serializable{
+public class ConsistentHash<T> implements NodeLocator<T>, Serializable{
 	private static final long serialVersionUID = 1L;
 
 	/** Hash计算对象，用于自定义hash算法 */
 	Hash32<Object> hashFunc;
 	/** 复制的节点个数 */
 	private final int numberOfReplicas;
-	/** 一致性Hash环 */
+	/** 一致性Hash环，增删节点时在此修改后重建{@link #ring}，受this锁保护 */
 	private final SortedMap<Integer, T> circle = new TreeMap<>();
+	/** 查找使用的只读快照 */
+	private volatile Ring ring = new Ring(new int[0], new Object[0]);
 
 	/**
 	 * 构造，使用Java默认的Hash算法
@@ -37,9 +44,7 @@ public class ConsistentHash<T> implements Serializable{
 			return HashUtil.fnvHash(key.toString());
 		};
 		//初始化节点
-		for (T node : nodes) {
-			add(node);
-		}
+		addAll(nodes);
 	}
 
 	/**
@@ -52,9 +57,7 @@ public class ConsistentHash<T> implements Serializable{
 		this.numberOfReplicas = numberOfReplicas;
 		this.hashFunc = hashFunc;
 		//初始化节点
-		for (T node : nodes) {
-			add(node);
-		}
+		addAll(nodes);
 	}
 
 	/**
@@ -64,20 +67,33 @@ public class ConsistentHash<T> implements Serializable{
 	 * 由于hash算法会调用node的toString方法，故按照toString去重
 	 * @param node 节点对象
 	 */
-	public void add(T node) {
-		for (int i = 0; i < numberOfReplicas; i++) {
-			circle.put(hashFunc.hash32(node.toString() + i), node);
+	@Override
+	public synchronized void add(T node) {
+		putReplicas(node);
+		rebuild();
+	}
+
+	/**
+	 * 批量增加节点，全部加入后只重建一次
+	 * @param nodes 节点对象
+	 */
+	public synchronized void addAll(Collection<T> nodes) {
+		for (T node : nodes) {
+			putReplicas(node);
 		}
+		rebuild();
 	}
 
 	/**
 	 * 移除节点的同时移除相应的虚拟节点
 	 * @param node 节点对象
 	 */
-	public void remove(T node) {
+	@Override
+	public synchronized void remove(T node) {
 		for (int i = 0; i < numberOfReplicas; i++) {
 			circle.remove(hashFunc.hash32(node.toString() + i));
 		}
+		rebuild();
 	}
 
 	/**
@@ -85,16 +101,61 @@ public class ConsistentHash<T> implements Serializable{
 	 * @param key 为给定键取Hash，取得顺时针方向上最近的一个虚拟节点对应的实际节点
 	 * @return 节点对象
 	 */
+	@Override
+	@SuppressWarnings("unchecked")
 	public T get(Object key) {
-		if (circle.isEmpty()) {
+		final Ring ring = this.ring;
+		final int[] hashes = ring.hashes;
+		if (0 == hashes.length) {
 			return null;
 		}
-		int hash = hashFunc.hash32(key);
-		if (false == circle.containsKey(hash)) {
-			SortedMap<Integer, T> tailMap = circle.tailMap(hash);	//返回此映射的部分视图，其键大于等于 hash
-			hash = tailMap.isEmpty() ? circle.firstKey() : tailMap.firstKey();
+		int index = Arrays.binarySearch(hashes, hashFunc.hash32(key));
+		if (index < 0) {
+			// 未正好命中，取顺时针方向的下一个，超出末尾时回到环首
+			index = -index - 1;
+			if (index == hashes.length) {
+				index = 0;
+			}
+		}
+		return (T) ring.nodes[index];
+	}
+
+	/**
+	 * 在环上放入节点的全部虚拟节点，不重建快照
+	 * @param node 节点对象
+	 */
+	private void putReplicas(T node) {
+		for (int i = 0; i < numberOfReplicas; i++) {
+			circle.put(hashFunc.hash32(node.toString() + i), node);
+		}
+	}
+
+	/**
+	 * 由{@link #circle}重建查找快照
+	 */
+	private void rebuild() {
+		final int[] hashes = new int[circle.size()];
+		final Object[] nodes = new Object[hashes.length];
+		int i = 0;
+		for (Map.Entry<Integer, T> entry : circle.entrySet()) {
+			hashes[i] = entry.getKey();
+			nodes[i++] = entry.getValue();
+		}
+		this.ring = new Ring(hashes, nodes);
+	}
+
+	/**
+	 * 环的只读快照，虚拟节点的Hash值升序排列，与节点一一对应
+	 */
+	private static class Ring implements Serializable {
+		private static final long serialVersionUID = 1L;
+
+		private final int[] hashes;
+		private final Object[] nodes;
+
+		Ring(int[] hashes, Object[] nodes) {
+			this.hashes = hashes;
+			this.nodes = nodes;
 		}
-		//正好命中
-		return circle.get(hash);
 	}
-}
\ No newline at end of file
+}
@@ -0,0 +1,127 @@
+package site.lifd.core.lang;
+
+import site.lifd.core.lang.hash.Hash64;
+import site.lifd.core.lang.hash.XXHash3;
+import site.lifd.core.util.StrUtil;
+
+import java.io.Serializable;
+import java.util.Arrays;
+import java.util.Collection;
+
+/**
+ * Jump一致性Hash算法，由Google的John Lamping和Eric Veach提出<br>
+ * 节点按下标编号，查找只需O(log n)次乘法，不占用额外内存，各节点分到的键数量几乎完全均匀。
+ * <p>
+ * 在末尾增加节点时只有约1/n的键迁移到新节点；移除节点时末尾节点移到被移除的位置，
+ * 被移除节点和原末尾节点的键会迁移，约为2/n。节点经常从中间移除时请使用{@link ConsistentHash}或{@link MaglevHash}。
+ * <p>
+ * 论文：https://arxiv.org/abs/1406.2294
+ *
+ * @param <T> 节点类型
+ * @author lifengdi
+ */
+public class JumpConsistentHash<T> implements NodeLocator<T>, Serializable {
+	private static final long serialVersionUID = 1L;
+
+	/** Hash计算对象，用于自定义hash算法 */
+	private final Hash64<Object> hashFunc;
+	/** 节点，增删时整体替换 */
+	private volatile Object[] nodes = new Object[0];
+
+	/**
+	 * 构造，使用XXH3算法计算键的{@code toString()}的Hash值
+	 *
+	 * @param nodes 节点对象
+	 */
+	public JumpConsistentHash(Collection<T> nodes) {
+		this(key -> XXHash3.DEFAULT.hash64(StrUtil.utf8Bytes(key.toString())), nodes);
+	}
+
+	/**
+	 * 构造
+	 *
+	 * @param hashFunc hash算法对象
+	 * @param nodes    节点对象
+	 */
+	public JumpConsistentHash(Hash64<Object> hashFunc, Collection<T> nodes) {
+		this.hashFunc = hashFunc;
+		for (T node : nodes) {
+			add(node);
+		}
+	}
+
+	/**
+	 * 在末尾增加节点，已存在的节点忽略
+	 *
+	 * @param node 节点对象
+	 */
+	@Override
+	public synchronized void add(T node) {
+		final Object[] nodes = this.nodes;
+		if (indexOf(nodes, node) >= 0) {
+			return;
+		}
+		final Object[] newNodes = Arrays.copyOf(nodes, nodes.length + 1);
+		newNodes[nodes.length] = node;
+		this.nodes = newNodes;
+	}
+
+	/**
+	 * 移除节点，末尾节点移到被移除节点的位置
+	 *
+	 * @param node 节点对象
+	 */
+	@Override
+	public synchronized void remove(T node) {
+		final Object[] nodes = this.nodes;
+		final int index = indexOf(nodes, node);
+		if (index < 0) {
+			return;
+		}
+		final Object[] newNodes = Arrays.copyOf(nodes, nodes.length - 1);
+		if (index < newNodes.length) {
+			newNodes[index] = nodes[nodes.length - 1];
+		}
+		this.nodes = newNodes;
+	}
+
+	@Override
+	@SuppressWarnings("unchecked")
+	public T get(Object key) {
+		final Object[] nodes = this.nodes;
+		if (0 == nodes.length) {
+			return null;
+		}
+		return (T) nodes[jump(hashFunc.hash64(key), nodes.length)];
+	}
+
+	/**
+	 * Jump一致性Hash，计算键所在的桶
+	 *
+	 * @param key     键的Hash值
+	 * @param buckets 桶数，需大于0
+	 * @return 桶下标，范围为[0, buckets)
+	 */
+	public static int jump(long key, int buckets) {
+		if (buckets <= 0) {
+			throw new IllegalArgumentException("Buckets must be > 0");
+		}
+		long b = -1;
+		long j = 0;
+		while (j < buckets) {
+			b = j;
+			key = key * 2862933555777941757L + 1;
+			j = (long) ((b + 1) * ((double) (1L << 31) / (double) ((key >>> 33) + 1)));
+		}
+		return (int) b;
+	}
+
+	private static int indexOf(Object[] nodes, Object node) {
+		for (int i = 0; i < nodes.length; i++) {
+			if (nodes[i].equals(node)) {
+				return i;
+			}
+		}
+		return -1;
+	}
+}
@@ -0,0 +1,193 @@
+package site.lifd.core.lang;
+
+import site.lifd.core.lang.hash.Hash64;
+import site.lifd.core.lang.hash.XXHash3;
+import site.lifd.core.util.NumberUtil;
+import site.lifd.core.util.StrUtil;
+
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * Maglev一致性Hash算法，由Google在Maglev负载均衡器中提出<br>
+ * 根据节点生成大小为质数的查找表，查找只需一次取模和一次数组访问；各节点在表中占的槽位数最多相差1，
+ * 节点增减时大部分槽位保持不变。增删节点时重建查找表后整体替换，查找无锁。
+ * <p>
+ * 查找表大小应远大于节点数，默认{@value #DEFAULT_TABLE_SIZE}，查找表占用内存约为大小乘以引用长度。
+ * 节点按{@code toString()}计算Hash，按加入顺序填表，相同的节点序列总是生成相同的查找表。
+ * <p>
+ * 论文：https://research.google/pubs/pub44824/
+ *
+ * @param <T> 节点类型
+ * @author lifengdi
+ */
+public class MaglevHash<T> implements NodeLocator<T>, Serializable {
+	private static final long serialVersionUID = 1L;
+
+	/**
+	 * 默认查找表大小
+	 */
+	public static final int DEFAULT_TABLE_SIZE = 65537;
+
+	/** Hash计算对象，用于自定义hash算法 */
+	private final Hash64<Object> hashFunc;
+	/** 查找表大小，质数 */
+	private final int tableSize;
+	/** 节点，受this锁保护 */
+	private final List<T> nodes = new ArrayList<>();
+	/** 查找表，增删节点时整体替换 */
+	private volatile Object[] table = new Object[0];
+
+	/**
+	 * 构造，使用默认查找表大小和XXH3算法计算键的{@code toString()}的Hash值
+	 *
+	 * @param nodes 节点对象
+	 */
+	public MaglevHash(Collection<T> nodes) {
+		this(DEFAULT_TABLE_SIZE, nodes);
+	}
+
+	/**
+	 * 构造，使用XXH3算法计算键的{@code toString()}的Hash值
+	 *
+	 * @param tableSize 查找表大小，必须为质数
+	 * @param nodes     节点对象
+	 */
+	public MaglevHash(int tableSize, Collection<T> nodes) {
+		this(key -> XXHash3.DEFAULT.hash64(StrUtil.utf8Bytes(key.toString())), tableSize, nodes);
+	}
+
+	/**
+	 * 构造
+	 *
+	 * @param hashFunc  hash算法对象
+	 * @param tableSize 查找表大小，必须为质数
+	 * @param nodes     节点对象
+	 */
+	public MaglevHash(Hash64<Object> hashFunc, int tableSize, Collection<T> nodes) {
+		Assert.isTrue(tableSize > 1 && NumberUtil.isPrimes(tableSize), "Table size must be a prime: {}", tableSize);
+		this.hashFunc = hashFunc;
+		this.tableSize = tableSize;
+		addAll(nodes);
+	}
+
+	/**
+	 * 增加节点，已存在的节点忽略
+	 *
+	 * @param node 节点对象
+	 */
+	@Override
+	public synchronized void add(T node) {
+		if (putNode(node)) {
+			rebuild();
+		}
+	}
+
+	/**
+	 * 批量增加节点，全部加入后只重建一次
+	 *
+	 * @param nodes 节点对象
+	 */
+	public synchronized void addAll(Collection<T> nodes) {
+		boolean changed = false;
+		for (T node : nodes) {
+			changed |= putNode(node);
+		}
+		if (changed) {
+			rebuild();
+		}
+	}
+
+	@Override
+	public synchronized void remove(T node) {
+		if (nodes.remove(node)) {
+			rebuild();
+		}
+	}
+
+	@Override
+	@SuppressWarnings("unchecked")
+	public T get(Object key) {
+		final Object[] table = this.table;
+		if (0 == table.length) {
+			return null;
+		}
+		return (T) table[(int) Long.remainderUnsigned(hashFunc.hash64(key), table.length)];
+	}
+
+	/**
+	 * @return 查找表大小
+	 */
+	public int getTableSize() {
+		return tableSize;
+	}
+
+	/**
+	 * 加入节点，不重建查找表
+	 *
+	 * @param node 节点对象
+	 * @return 是否加入，节点已存在或超出查找表大小时返回{@code false}
+	 */
+	private boolean putNode(T node) {
+		if (nodes.contains(node)) {
+			return false;
+		}
+		Assert.isTrue(nodes.size() < tableSize, "Node count must be less than table size: {}", tableSize);
+		nodes.add(node);
+		return true;
+	}
+
+	/**
+	 * 重建查找表<br>
+	 * 每个节点由Hash值得到起点offset和步长skip，按(offset + j * skip) mod M生成槽位的排列，
+	 * 各节点轮流取自己排列中下一个未被占用的槽位，直到填满。
+	 */
+	private void rebuild() {
+		final int n = nodes.size();
+		if (0 == n) {
+			this.table = new Object[0];
+			return;
+		}
+		final int m = tableSize;
+		final int[] next = new int[n];
+		final int[] skip = new int[n];
+		for (int i = 0; i < n; i++) {
+			final byte[] name = StrUtil.utf8Bytes(nodes.get(i).toString());
+			next[i] = (int) Long.remainderUnsigned(XXHash3.hash64(name, 0), m);
+			skip[i] = (int) Long.remainderUnsigned(XXHash3.hash64(name, 1), m - 1) + 1;
+		}
+
+		final int[] entry = new int[m];
+		Arrays.fill(entry, -1);
+		int filled = 0;
+		while (true) {
+			for (int i = 0; i < n; i++) {
+				int c = next[i];
+				while (entry[c] >= 0) {
+					c = advance(c, skip[i], m);
+				}
+				entry[c] = i;
+				next[i] = advance(c, skip[i], m);
+				if (++filled == m) {
+					final Object[] table = new Object[m];
+					for (int j = 0; j < m; j++) {
+						table[j] = nodes.get(entry[j]);
+					}
+					this.table = table;
+					return;
+				}
+			}
+		}
+	}
+
+	/**
+	 * 排列中的下一个槽位
+	 */
+	private static int advance(int c, int skip, int m) {
+		c -= m - skip;
+		return c < 0 ? c + m : c;
+	}
+}
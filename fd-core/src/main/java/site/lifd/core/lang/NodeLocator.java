@@ -0,0 +1,36 @@
+package site.lifd.core.lang;
+
+/**
+ * 节点定位接口，根据键的Hash值将键映射到一组节点中的一个，用于负载均衡和数据分片<br>
+ * 节点增减时只有少量键改变映射，实现类的{@link #get(Object)}应无锁且线程安全。
+ *
+ * @param <T> 节点类型
+ * @author lifengdi
+ * @see ConsistentHash
+ * @see JumpConsistentHash
+ * @see MaglevHash
+ */
+public interface NodeLocator<T> {
+
+	/**
+	 * 增加节点
+	 *
+	 * @param node 节点对象
+	 */
+	void add(T node);
+
+	/**
+	 * 移除节点
+	 *
+	 * @param node 节点对象
+	 */
+	void remove(T node);
+
+	/**
+	 * 获取键对应的节点
+	 *
+	 * @param key 键
+	 * @return 节点对象，没有节点时返回{@code null}
+	 */
+	T get(Object key);
+}
@@ -8,6 +8,7 @@ import site.lifd.core.util.StrUtil;
 
 import java.net.NetworkInterface;
 import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
 import java.util.Enumeration;
 import java.util.concurrent.atomic.AtomicInteger;
 
@@ -44,6 +45,7 @@ public class ObjectId {
 	private static final AtomicInteger NEXT_INC = new AtomicInteger(RandomUtil.randomInt());
 	/** 机器信息 */
 	private static final int MACHINE = getMachinePiece() | getProcessPiece();
+	private static final byte[] HEX_DIGITS = {'0', '1', '2', '3', '4', '5', '6', '7', '8', '9', 'a', 'b', 'c', 'd', 'e', 'f'};
 
 	/**
 	 * 给定的字符串是否为有效的ObjectId
@@ -109,24 +111,37 @@ public class ObjectId {
 	 * @return objectId
 	 */
 	public static String next(boolean withHyphen) {
-		byte[] array = nextBytes();
-		final StringBuilder buf = new StringBuilder(withHyphen ? 26 : 24);
-		int t;
-		for (int i = 0; i < array.length; i++) {
-			if (withHyphen && i % 4 == 0 && i != 0) {
-				buf.append("-");
-			}
-			t = array[i] & 0xff;
-			if (t < 16) {
-				buf.append('0');
-			}
-			buf.append(Integer.toHexString(t));
-
+		// 与nextBytes()相同的三段直接写为hex，不创建中间的byte[]
+		final byte[] buf = new byte[withHyphen ? 26 : 24];
+		int i = hex((int) DateUtil.currentSeconds(), buf, 0);
+		if (withHyphen) {
+			buf[i++] = '-';
 		}
-		return buf.toString();
+		i = hex(MACHINE, buf, i);
+		if (withHyphen) {
+			buf[i++] = '-';
+		}
+		hex(NEXT_INC.getAndIncrement(), buf, i);
+		return new String(buf, StandardCharsets.ISO_8859_1);
 	}
 
 	// ----------------------------------------------------------------------------------------- Private method start
+	/**
+	 * 将int以8位小写hex写入数组
+	 *
+	 * @param val    值
+	 * @param buf    目标数组
+	 * @param offset 开始位置
+	 * @return 写入后的位置
+	 */
+	private static int hex(int val, byte[] buf, int offset) {
+		for (int i = offset + 7; i >= offset; i--) {
+			buf[i] = HEX_DIGITS[val & 0xF];
+			val >>>= 4;
+		}
+		return offset + 8;
+	}
+
 	/**
 	 * 获取机器码片段
 	 *
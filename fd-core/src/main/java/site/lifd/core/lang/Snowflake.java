@@ -5,8 +5,16 @@ import site.lifd.core.lang.id.IdConstants;
 import site.lifd.core.util.RandomUtil;
 import site.lifd.core.util.StrUtil;
 
+import java.io.IOException;
+import java.io.ObjectInputStream;
 import java.io.Serializable;
+import java.util.Arrays;
 import java.util.Date;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.stream.LongStream;
 
 /**
  * Twitter的Snowflake 算法<br>
@@ -26,6 +34,18 @@ import java.util.Date;
  * <p>
  * 并且可以通过生成的id反推出生成时间,datacenterId和workerId
  * <p>
+ * 生成ID时不加锁，上次时间戳和序号合并存放在一个long中，通过CAS更新，
+ * 批量生成时一次CAS即可预留同一毫秒内的一段连续序号，见{@link #nextIds(int)}。
+ * <p>
+ * 分片模式：指定分片位数{@code shardBits}后，12位序号的高{@code shardBits}位作为分片号，每个分片独立维护时间戳和序号，
+ * 线程首次生成ID时按轮询分配一个分片，之后固定使用该分片，各线程之间不再竞争同一个缓存行。
+ * 分片号是ID的一部分，因此不同分片的ID不会重复；同一分片内ID递增，但同一毫秒内不同分片的ID之间不保证先后顺序。
+ * 每个分片每毫秒只能生成{@code 4096 >> shardBits}个ID，单个分片用完时线程会改用下一个分片。
+ * <p>
+ * 借用时间：指定{@code maxBorrowMillis}后，时钟回拨或序号用完时不再报错或等待，而是继续使用逻辑时钟生成ID，
+ * 逻辑时钟可领先系统时间，但领先不超过{@code maxBorrowMillis}毫秒，系统时间追上后自动恢复使用系统时间。
+ * 借用情况可通过{@link #getBorrowCount()}、{@link #getMaxBorrowedMillis()}等方法监控。
+ * <p>
  *
  */
 public class Snowflake implements Serializable {
@@ -59,6 +79,22 @@ public class Snowflake implements Serializable {
 	private static final long TIMESTAMP_LEFT_SHIFT = SEQUENCE_BITS + WORKER_ID_BITS + DATA_CENTER_ID_BITS;
 	// 序列掩码，用于限定序列最大值不能超过4095
 	private static final long SEQUENCE_MASK = ~(-1L << SEQUENCE_BITS);// 4095
+	/**
+	 * 最大分片位数，即最多256个分片，每个分片每毫秒16个序号
+	 */
+	public static final int MAX_SHARD_BITS = 8;
+	/**
+	 * 分片状态在数组中的间隔，每个分片独占128字节，避免伪共享
+	 */
+	private static final int SHARD_STRIDE = 16;
+	/**
+	 * 用于给线程轮询分配分片
+	 */
+	private static final AtomicInteger SHARD_COUNTER = new AtomicInteger();
+	/**
+	 * 当前线程的分片序号，与各实例的分片数取模后使用
+	 */
+	private static final ThreadLocal<Integer> THREAD_SHARD = ThreadLocal.withInitial(SHARD_COUNTER::getAndIncrement);
 
 	/**
 	 * 初始化时间点
@@ -80,10 +116,35 @@ public class Snowflake implements Serializable {
 	private final long randomSequenceLimit;
 
 	/**
-	 * 自增序号，当高频模式下时，同一毫秒内生成N个ID，则这个序号在同一毫秒下，自增以避免ID重复。
+	 * 分片位数，0表示不分片
+	 */
+	private final int shardBits;
+	/**
+	 * 分片内的序号掩码，反序列化时可能需要重建因此不是final
+	 */
+	private long shardSequenceMask;
+	/**
+	 * 各分片上次生成ID的时间戳和序号，高{@code 64 - SEQUENCE_BITS}位为时间戳，低位为分片内序号，
+	 * 第i个分片位于下标{@code i * SHARD_STRIDE}<br>
+	 * 高频模式下同一毫秒内生成N个ID时，序号在同一毫秒下自增以避免ID重复。
+	 */
+	private AtomicLongArray states;
+	/**
+	 * 逻辑时钟可领先系统时间的最大毫秒数，0表示不借用
 	 */
-	private long sequence = 0L;
-	private long lastTimestamp = -1L;
+	private final long maxBorrowMillis;
+	/**
+	 * 序号用完的次数
+	 */
+	private LongAdder sequenceExhaustedCount = new LongAdder();
+	/**
+	 * 借用未来毫秒的次数
+	 */
+	private LongAdder borrowCount = new LongAdder();
+	/**
+	 * 逻辑时钟领先系统时间的最大毫秒数
+	 */
+	private AtomicLong maxBorrowedMillis = new AtomicLong();
 
 	/**
 	 * 构造，使用自动生成的工作节点ID和数据中心ID
@@ -122,6 +183,17 @@ public class Snowflake implements Serializable {
 		this(null, workerId, dataCenterId, isUseSystemClock);
 	}
 
+	/**
+	 * 构造分片模式的生成器
+	 *
+	 * @param workerId     终端ID
+	 * @param dataCenterId 数据中心ID
+	 * @param shardBits    分片位数，0~{@link #MAX_SHARD_BITS}，0表示不分片
+	 */
+	public Snowflake(long workerId, long dataCenterId, int shardBits) {
+		this(null, workerId, dataCenterId, false, DEFAULT_TIME_OFFSET, 0, shardBits);
+	}
+
 	/**
 	 * @param epochDate        初始化时间起点（null表示默认起始日期）,后期修改会导致id重复,如果要修改连workerId dataCenterId，慎用
 	 * @param workerId         工作机器节点id
@@ -156,12 +228,46 @@ public class Snowflake implements Serializable {
 	 */
 	public Snowflake(Date epochDate, long workerId, long dataCenterId,
 					 boolean isUseSystemClock, long timeOffset, long randomSequenceLimit) {
+		this(epochDate, workerId, dataCenterId, isUseSystemClock, timeOffset, randomSequenceLimit, 0);
+	}
+
+	/**
+	 * @param epochDate           初始化时间起点（null表示默认起始日期）,后期修改会导致id重复,如果要修改连workerId dataCenterId，慎用
+	 * @param workerId            工作机器节点id
+	 * @param dataCenterId        数据中心id
+	 * @param isUseSystemClock    是否使用{@link SystemClock} 获取当前时间戳
+	 * @param timeOffset          允许时间回拨的毫秒数
+	 * @param randomSequenceLimit 限定一个随机上限，在不同毫秒下生成序号时，给定一个随机数，避免偶数问题，0表示无随机，上限不包括值本身，分片模式下不超过分片内序号上限。
+	 * @param shardBits           分片位数，0~{@link #MAX_SHARD_BITS}，0表示不分片
+	 */
+	public Snowflake(Date epochDate, long workerId, long dataCenterId,
+					 boolean isUseSystemClock, long timeOffset, long randomSequenceLimit, int shardBits) {
+		this(epochDate, workerId, dataCenterId, isUseSystemClock, timeOffset, randomSequenceLimit, shardBits, 0);
+	}
+
+	/**
+	 * @param epochDate           初始化时间起点（null表示默认起始日期）,后期修改会导致id重复,如果要修改连workerId dataCenterId，慎用
+	 * @param workerId            工作机器节点id
+	 * @param dataCenterId        数据中心id
+	 * @param isUseSystemClock    是否使用{@link SystemClock} 获取当前时间戳
+	 * @param timeOffset          允许时间回拨的毫秒数
+	 * @param randomSequenceLimit 限定一个随机上限，在不同毫秒下生成序号时，给定一个随机数，避免偶数问题，0表示无随机，上限不包括值本身，分片模式下不超过分片内序号上限。
+	 * @param shardBits           分片位数，0~{@link #MAX_SHARD_BITS}，0表示不分片
+	 * @param maxBorrowMillis     时钟回拨或序号用完时，逻辑时钟可领先系统时间的最大毫秒数，0表示不借用
+	 */
+	public Snowflake(Date epochDate, long workerId, long dataCenterId, boolean isUseSystemClock,
+					 long timeOffset, long randomSequenceLimit, int shardBits, long maxBorrowMillis) {
 		this.twepoch = (null != epochDate) ? epochDate.getTime() : DEFAULT_TWEPOCH;
 		this.workerId = Assert.checkBetween(workerId, 0, MAX_WORKER_ID);
 		this.dataCenterId = Assert.checkBetween(dataCenterId, 0, MAX_DATA_CENTER_ID);
 		this.useSystemClock = isUseSystemClock;
 		this.timeOffset = timeOffset;
 		this.randomSequenceLimit = Assert.checkBetween(randomSequenceLimit, 0, SEQUENCE_MASK);
+		this.shardBits = Assert.checkBetween(shardBits, 0, MAX_SHARD_BITS);
+		this.shardSequenceMask = SEQUENCE_MASK >>> shardBits;
+		this.states = new AtomicLongArray(0 == shardBits ? 1 : (1 << shardBits) * SHARD_STRIDE);
+		Assert.isTrue(maxBorrowMillis >= 0, "Max borrow millis must be >= 0");
+		this.maxBorrowMillis = maxBorrowMillis;
 	}
 
 	/**
@@ -233,39 +339,86 @@ public class Snowflake implements Serializable {
 	 *
 	 * @return ID
 	 */
-	public synchronized long nextId() {
-		long timestamp = genTime();
-		if (timestamp < this.lastTimestamp) {
-			if (this.lastTimestamp - timestamp < timeOffset) {
-				// 容忍指定的回拨，避免NTP校时造成的异常
-				timestamp = lastTimestamp;
+	public long nextId() {
+		int shard = currentShard();
+		int probes = 0;
+		while (true) {
+			final int slot = shard * SHARD_STRIDE;
+			final long last = states.get(slot);
+			final long lastTimestamp = last >>> SEQUENCE_BITS;
+			long timestamp = currentTime(lastTimestamp);
+			long sequence;
+			if (timestamp == lastTimestamp) {
+				sequence = (last & shardSequenceMask) + 1;
+				if (sequence > shardSequenceMask) {
+					if (++probes < (1 << shardBits)) {
+						// 本分片序号已用完，当前线程改用下一个分片
+						shard = (shard + 1) & ((1 << shardBits) - 1);
+						THREAD_SHARD.set(shard);
+						continue;
+					}
+					// 本毫秒序号已用完，进入下一毫秒
+					probes = 0;
+					timestamp = tilNextMillis(lastTimestamp);
+					sequence = firstSequence();
+				}
 			} else {
-				// 如果服务器时间有问题(时钟后退) 报错。
-				throw new IllegalStateException(StrUtil.format("Clock moved backwards. Refusing to generate id for {}ms", lastTimestamp - timestamp));
+				sequence = firstSequence();
+			}
+			if (states.compareAndSet(slot, last, (timestamp << SEQUENCE_BITS) | sequence)) {
+				return toId(timestamp, shard, sequence);
 			}
 		}
+	}
 
-		if (timestamp == this.lastTimestamp) {
-			final long sequence = (this.sequence + 1) & SEQUENCE_MASK;
-			if (sequence == 0) {
-				timestamp = tilNextMillis(lastTimestamp);
-			}
-			this.sequence = sequence;
-		} else {
-			// issue#I51EJY
-			if (randomSequenceLimit > 1) {
-				sequence = RandomUtil.randomLong(randomSequenceLimit);
+	/**
+	 * 批量生成ID<br>
+	 * 每次CAS预留当前毫秒内剩余的一段连续序号，数量不足时在下一毫秒继续预留，
+	 * 因此同一毫秒内的ID是连续的，整体保持递增。分片模式下只在当前线程的分片内预留。
+	 *
+	 * @param n ID个数
+	 * @return ID数组
+	 */
+	public long[] nextIds(int n) {
+		Assert.isTrue(n >= 0, "ID count must be >= 0");
+		final long[] ids = new long[n];
+		final int shard = currentShard();
+		final int slot = shard * SHARD_STRIDE;
+		int filled = 0;
+		while (filled < n) {
+			final long last = states.get(slot);
+			final long lastTimestamp = last >>> SEQUENCE_BITS;
+			long timestamp = currentTime(lastTimestamp);
+			long start;
+			if (timestamp == lastTimestamp) {
+				start = (last & shardSequenceMask) + 1;
+				if (start > shardSequenceMask) {
+					timestamp = tilNextMillis(lastTimestamp);
+					start = firstSequence();
+				}
 			} else {
-				sequence = 0L;
+				start = firstSequence();
+			}
+			final int count = (int) Math.min(n - filled, shardSequenceMask - start + 1);
+			final long end = start + count - 1;
+			if (states.compareAndSet(slot, last, (timestamp << SEQUENCE_BITS) | end)) {
+				final long base = toId(timestamp, shard, start);
+				for (int i = 0; i < count; i++) {
+					ids[filled++] = base + i;
+				}
 			}
 		}
+		return ids;
+	}
 
-		lastTimestamp = timestamp;
-
-		return ((timestamp - twepoch) << TIMESTAMP_LEFT_SHIFT)
-				| (dataCenterId << DATA_CENTER_ID_SHIFT)
-				| (workerId << WORKER_ID_SHIFT)
-				| sequence;
+	/**
+	 * 批量生成ID，ID在调用时即全部预留，见{@link #nextIds(int)}
+	 *
+	 * @param n ID个数
+	 * @return ID流
+	 */
+	public LongStream nextIdStream(int n) {
+		return Arrays.stream(nextIds(n));
 	}
 
 	/**
@@ -277,28 +430,161 @@ public class Snowflake implements Serializable {
 		return Long.toString(nextId());
 	}
 
+	/**
+	 * @return 某一毫秒（分片模式下为某一分片的某一毫秒）的序号用完的次数
+	 */
+	public long getSequenceExhaustedCount() {
+		return sequenceExhaustedCount.sum();
+	}
+
+	/**
+	 * @return 序号用完时借用未来一毫秒的次数
+	 */
+	public long getBorrowCount() {
+		return borrowCount.sum();
+	}
+
+	/**
+	 * @return 逻辑时钟领先系统时间的最大毫秒数，包括时钟回拨和借用未来时间
+	 */
+	public long getMaxBorrowedMillis() {
+		return maxBorrowedMillis.get();
+	}
+
+	/**
+	 * @return 逻辑时钟当前领先系统时间的毫秒数，未领先时为0
+	 */
+	public long getBorrowedMillis() {
+		long lastTimestamp = 0;
+		for (int i = 0; i < states.length(); i += SHARD_STRIDE) {
+			lastTimestamp = Math.max(lastTimestamp, states.get(i) >>> SEQUENCE_BITS);
+		}
+		return Math.max(lastTimestamp - genTime(), 0);
+	}
+
 	// ------------------------------------------------------------------------------------------------------------------------------------ Private method start
 
 	/**
-	 * 循环等待下一个时间
+	 * 反序列化，兼容旧版本以{@code sequence}和{@code lastTimestamp}记录状态的序列化形式<br>
+	 * 旧版本中没有的分片状态和计数器按构造时的初始值重建，即相当于使用相同参数新建的生成器，不分片、不借用时间
 	 *
-	 * @param lastTimestamp 上次记录的时间
-	 * @return 下一个时间
+	 * @param in 输入流
+	 * @throws IOException            IO异常
+	 * @throws ClassNotFoundException 类未找到
 	 */
-	private long tilNextMillis(long lastTimestamp) {
-		long timestamp = genTime();
-		// 循环直到操作系统时间戳变化
-		while (timestamp == lastTimestamp) {
-			timestamp = genTime();
+	private void readObject(ObjectInputStream in) throws IOException, ClassNotFoundException {
+		in.defaultReadObject();
+		if (null == this.states) {
+			this.shardSequenceMask = SEQUENCE_MASK >>> shardBits;
+			this.states = new AtomicLongArray(0 == shardBits ? 1 : (1 << shardBits) * SHARD_STRIDE);
+		}
+		if (null == this.sequenceExhaustedCount) {
+			this.sequenceExhaustedCount = new LongAdder();
+		}
+		if (null == this.borrowCount) {
+			this.borrowCount = new LongAdder();
+		}
+		if (null == this.maxBorrowedMillis) {
+			this.maxBorrowedMillis = new AtomicLong();
 		}
+	}
+
+	/**
+	 * 获取当前时间戳，容忍{@link #timeOffset}或{@link #maxBorrowMillis}以内的回拨
+	 *
+	 * @param lastTimestamp 上次记录的时间
+	 * @return 当前时间戳，回拨在容忍范围内时返回上次记录的时间
+	 */
+	private long currentTime(long lastTimestamp) {
+		final long timestamp = genTime();
 		if (timestamp < lastTimestamp) {
-			// 如果发现新的时间戳比上次记录的时间戳数值小，说明操作系统时间发生了倒退，报错
-			throw new IllegalStateException(
-					StrUtil.format("Clock moved backwards. Refusing to generate id for {}ms", lastTimestamp - timestamp));
+			final long offset = lastTimestamp - timestamp;
+			if (offset < timeOffset || offset <= maxBorrowMillis) {
+				// 容忍指定的回拨，避免NTP校时造成的异常
+				recordBorrowed(offset);
+				return lastTimestamp;
+			}
+			// 如果服务器时间有问题(时钟后退) 报错。
+			throw new IllegalStateException(StrUtil.format("Clock moved backwards. Refusing to generate id for {}ms", offset));
 		}
 		return timestamp;
 	}
 
+	/**
+	 * 记录逻辑时钟领先系统时间的毫秒数
+	 *
+	 * @param borrowedMillis 领先的毫秒数
+	 */
+	private void recordBorrowed(long borrowedMillis) {
+		long max;
+		while (borrowedMillis > (max = maxBorrowedMillis.get())) {
+			if (maxBorrowedMillis.compareAndSet(max, borrowedMillis)) {
+				return;
+			}
+		}
+	}
+
+	/**
+	 * 新的一毫秒中的起始序号
+	 *
+	 * @return 起始序号
+	 */
+	private long firstSequence() {
+		// issue#I51EJY
+		return randomSequenceLimit > 1 ? RandomUtil.randomLong(Math.min(randomSequenceLimit, shardSequenceMask)) : 0L;
+	}
+
+	/**
+	 * 当前线程使用的分片
+	 *
+	 * @return 分片号，不分片时为0
+	 */
+	private int currentShard() {
+		return 0 == shardBits ? 0 : THREAD_SHARD.get() & ((1 << shardBits) - 1);
+	}
+
+	/**
+	 * 根据时间戳、分片和序号组装ID
+	 *
+	 * @param timestamp 时间戳
+	 * @param shard     分片号
+	 * @param sequence  分片内序号
+	 * @return ID
+	 */
+	private long toId(long timestamp, int shard, long sequence) {
+		return ((timestamp - twepoch) << TIMESTAMP_LEFT_SHIFT)
+				| (dataCenterId << DATA_CENTER_ID_SHIFT)
+				| (workerId << WORKER_ID_SHIFT)
+				| ((long) shard << (SEQUENCE_BITS - shardBits))
+				| sequence;
+	}
+
+	/**
+	 * 序号用完时获取下一个时间<br>
+	 * 借用后领先系统时间不超过{@link #maxBorrowMillis}时直接借用下一毫秒，否则循环等待系统时间追上
+	 *
+	 * @param lastTimestamp 上次记录的时间
+	 * @return 下一个时间
+	 */
+	private long tilNextMillis(long lastTimestamp) {
+		sequenceExhaustedCount.increment();
+		final long nextTimestamp = lastTimestamp + 1;
+		while (true) {
+			final long timestamp = currentTime(lastTimestamp);
+			if (timestamp > lastTimestamp) {
+				return timestamp;
+			}
+			final long borrowed = nextTimestamp - genTime();
+			if (borrowed > 0 && borrowed <= maxBorrowMillis) {
+				borrowCount.increment();
+				recordBorrowed(borrowed);
+				return nextTimestamp;
+			}
+			// 循环直到操作系统时间戳变化
+			Thread.onSpinWait();
+		}
+	}
+
 	/**
 	 * 生成时间戳
 	 *
@@ -1,12 +1,16 @@
 package site.lifd.core.lang;
 
 import site.lifd.core.util.RandomUtil;
-import site.lifd.core.util.StrUtil;
 
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.nio.ByteOrder;
+import java.nio.charset.StandardCharsets;
 import java.security.MessageDigest;
 import java.security.NoSuchAlgorithmException;
 import java.security.SecureRandom;
 import java.util.Random;
+import java.util.concurrent.atomic.AtomicLong;
 
 /**
  * 提供通用唯一识别码（universally unique identifier）（UUID）实现，UUID表示一个128位的值。<br>
@@ -36,8 +40,13 @@ import java.util.Random;
  * variant 字段包含一个表示 UUID 布局的值。以上描述的位布局仅在 UUID 的 variant 值为 2（表示 Leach-Salz 变体）时才有效。 *
  * <p>
  * version 字段保存描述此 UUID 类型的值。有 4 种不同的基本 UUID 类型：基于时间的 UUID、DCE 安全 UUID、基于名称的 UUID 和随机生成的 UUID。<br>
- * 这些类型的 version 值分别为 1、2、3 和 4。
+ * 这些类型的 version 值分别为 1、2、3 和 4。此外支持 RFC 9562 中基于Unix时间戳的有序UUID，version 值为 7。
  *
+ * <p>
+ * 随机UUID不创建中间数组：非安全模式直接取{@link java.util.concurrent.ThreadLocalRandom}的两个long；
+ * 安全模式每个线程从{@link SecureRandom}批量取随机字节缓存，减少对共享SecureRandom的加锁次数；
+ * 虚拟线程通常只执行一个短任务，批量缓存反而多取随机字节，因此直接读取16字节。
+ * 字符串形式直接写入Latin-1字节数组后创建String。
  *
  */
 public class UUID implements java.io.Serializable, Comparable<UUID> {
@@ -49,8 +58,16 @@ public class UUID implements java.io.Serializable, Comparable<UUID> {
 	 * */
 	private static class Holder {
 		static final SecureRandom NUMBER_GENERATOR = RandomUtil.getSecureRandom();
+		static final ThreadLocal<EntropyPool> POOL = ThreadLocal.withInitial(EntropyPool::new);
 	}
 
+	private static final byte[] HEX_DIGITS = {'0', '1', '2', '3', '4', '5', '6', '7', '8', '9', 'a', 'b', 'c', 'd', 'e', 'f'};
+
+	/**
+	 * 有序UUID上一次使用的时间戳和计数器，高位为毫秒时间戳，低12位为同一毫秒内的计数器
+	 */
+	private static final AtomicLong LAST_TIME_ORDERED = new AtomicLong();
+
 	/**
 	 * 此UUID的最高64有效位
 	 */
@@ -116,17 +133,53 @@ public class UUID implements java.io.Serializable, Comparable<UUID> {
 	 * @return 随机生成的 {@code UUID}
 	 */
 	public static UUID randomUUID(boolean isSecure) {
-		final Random ng = isSecure ? Holder.NUMBER_GENERATOR : RandomUtil.getRandom();
+		long msb;
+		long lsb;
+		if (isSecure) {
+			if (Thread.currentThread().isVirtual()) {
+				final byte[] bytes = new byte[16];
+				Holder.NUMBER_GENERATOR.nextBytes(bytes);
+				msb = EntropyPool.getLong(bytes, 0);
+				lsb = EntropyPool.getLong(bytes, 8);
+			} else {
+				final EntropyPool pool = Holder.POOL.get();
+				msb = pool.nextLong();
+				lsb = pool.nextLong();
+			}
+		} else {
+			final Random ng = RandomUtil.getRandom();
+			msb = ng.nextLong();
+			lsb = ng.nextLong();
+		}
 
-		final byte[] randomBytes = new byte[16];
-		ng.nextBytes(randomBytes);
+		msb &= ~0xF000L; /* clear version */
+		msb |= 0x4000L; /* set to version 4 */
+		lsb &= 0x3FFFFFFFFFFFFFFFL; /* clear variant */
+		lsb |= 0x8000000000000000L; /* set to IETF variant */
 
-		randomBytes[6] &= 0x0f; /* clear version */
-		randomBytes[6] |= 0x40; /* set to version 4 */
-		randomBytes[8] &= 0x3f; /* clear variant */
-		randomBytes[8] |= 0x80; /* set to IETF variant */
+		return new UUID(msb, lsb);
+	}
 
-		return new UUID(randomBytes);
+	/**
+	 * 获取类型 7（基于Unix时间戳的有序）UUID 的静态工厂，布局见 RFC 9562。<br>
+	 * 高48位为毫秒时间戳，之后12位为同一毫秒内的计数器，其余62位为{@link java.util.concurrent.ThreadLocalRandom}生成的随机数。
+	 * 同一进程内生成的UUID严格递增，按字符串或{@link #compareTo(UUID)}排序与生成顺序一致，适合作为数据库索引键。
+	 * 同一毫秒内超过4096个时借用下一毫秒，时钟回拨时沿用上一次的时间戳继续递增。
+	 *
+	 * @return 有序的 {@code UUID}
+	 */
+	public static UUID timeOrderedUUID() {
+		final long now = System.currentTimeMillis() << 12;
+		long last;
+		long next;
+		do {
+			last = LAST_TIME_ORDERED.get();
+			next = now > last ? now : last + 1;
+		} while (false == LAST_TIME_ORDERED.compareAndSet(last, next));
+
+		final long msb = ((next >>> 12) << 16) | 0x7000L | (next & 0xFFFL);
+		final long lsb = (RandomUtil.getRandom().nextLong() & 0x3FFFFFFFFFFFFFFFL) | 0x8000000000000000L;
+		return new UUID(msb, lsb);
 	}
 
 	/**
@@ -206,6 +259,7 @@ public class UUID implements java.io.Serializable, Comparable<UUID> {
 	 * <li>2 DCE 安全 UUID
 	 * <li>3 基于名称的 UUID
 	 * <li>4 随机生成的 UUID
+	 * <li>7 基于Unix时间戳的有序 UUID
 	 * </ul>
 	 *
 	 * @return 此 {@code UUID} 的版本号
@@ -343,31 +397,31 @@ public class UUID implements java.io.Serializable, Comparable<UUID> {
 	 * @return 此{@code UUID} 的字符串表现形式
 	 */
 	public String toString(boolean isSimple) {
-		final StringBuilder builder = StrUtil.builder(isSimple ? 32 : 36);
+		final byte[] buf = new byte[isSimple ? 32 : 36];
 		// time_low
-		builder.append(digits(mostSigBits >> 32, 8));
+		int i = digits(mostSigBits >> 32, 8, buf, 0);
 		if (false == isSimple) {
-			builder.append('-');
+			buf[i++] = '-';
 		}
 		// time_mid
-		builder.append(digits(mostSigBits >> 16, 4));
+		i = digits(mostSigBits >> 16, 4, buf, i);
 		if (false == isSimple) {
-			builder.append('-');
+			buf[i++] = '-';
 		}
 		// time_high_and_version
-		builder.append(digits(mostSigBits, 4));
+		i = digits(mostSigBits, 4, buf, i);
 		if (false == isSimple) {
-			builder.append('-');
+			buf[i++] = '-';
 		}
 		// variant_and_sequence
-		builder.append(digits(leastSigBits >> 48, 4));
+		i = digits(leastSigBits >> 48, 4, buf, i);
 		if (false == isSimple) {
-			builder.append('-');
+			buf[i++] = '-';
 		}
 		// node
-		builder.append(digits(leastSigBits, 12));
+		digits(leastSigBits, 12, buf, i);
 
-		return builder.toString();
+		return new String(buf, StandardCharsets.ISO_8859_1);
 	}
 
 	/**
@@ -423,15 +477,20 @@ public class UUID implements java.io.Serializable, Comparable<UUID> {
 	// ------------------------------------------------------------------------------------------------------------------- Private method start
 
 	/**
-	 * 返回指定数字对应的hex值
+	 * 将指定数字的低位以小写hex写入数组
 	 *
 	 * @param val    值
 	 * @param digits 位
-	 * @return 值
+	 * @param buf    目标数组
+	 * @param offset 开始位置
+	 * @return 写入后的位置
 	 */
-	private static String digits(long val, int digits) {
-		long hi = 1L << (digits * 4);
-		return Long.toHexString(hi | (val & (hi - 1))).substring(1);
+	private static int digits(long val, int digits, byte[] buf, int offset) {
+		for (int i = offset + digits - 1; i >= offset; i--) {
+			buf[i] = HEX_DIGITS[(int) (val & 0xF)];
+			val >>>= 4;
+		}
+		return offset + digits;
 	}
 
 	/**
@@ -443,4 +502,35 @@ public class UUID implements java.io.Serializable, Comparable<UUID> {
 		}
 	}
 	// ------------------------------------------------------------------------------------------------------------------- Private method end
+
+	/**
+	 * 线程独享的安全随机数缓冲，用完后从{@link SecureRandom}批量补充，只用于平台线程
+	 */
+	private static class EntropyPool {
+		private static final VarHandle LONG_HANDLE = MethodHandles.byteArrayViewVarHandle(long[].class, ByteOrder.BIG_ENDIAN);
+
+		private final byte[] buf = new byte[256];
+		private int pos = buf.length;
+
+		long nextLong() {
+			if (pos == buf.length) {
+				Holder.NUMBER_GENERATOR.nextBytes(buf);
+				pos = 0;
+			}
+			final long value = getLong(buf, pos);
+			pos += 8;
+			return value;
+		}
+
+		/**
+		 * 按大端序读取long
+		 *
+		 * @param bytes  字节数组
+		 * @param offset 开始位置
+		 * @return long值
+		 */
+		static long getLong(byte[] bytes, int offset) {
+			return (long) LONG_HANDLE.get(bytes, offset);
+		}
+	}
 }
@@ -1,13 +1,15 @@
 package site.lifd.core.lang;
 
 import site.lifd.core.collection.CollUtil;
-import site.lifd.core.map.MapUtil;
 import site.lifd.core.util.RandomUtil;
 
+import java.io.IOException;
+import java.io.ObjectInputStream;
 import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
 import java.util.Random;
-import java.util.SortedMap;
-import java.util.TreeMap;
 
 /**
  * 权重随机算法实现<br>
@@ -17,11 +19,13 @@ import java.util.TreeMap;
  * <p>
  * 如有4个元素A、B、C、D，权重分别为1、2、3、4，随机结果中A:B:C:D的比例要为1:2:3:4。<br>
  * </p>
- * 总体思路：累加每个元素的权重A(1)-B(3)-C(6)-D(10)，则4个元素的的权重管辖区间分别为[0,1)、[1,3)、[3,6)、[6,10)。<br>
- * 然后随机出一个[0,10)之间的随机数。落在哪个区间，则该区间之后的元素即为按权重命中的元素。<br>
- *
+ * 实现采用Vose别名法（Alias Method）：将n个元素的权重归一化为平均值1后，把超出1的部分依次补给不足1的元素，
+ * 得到n个桶，每个桶最多包含两个元素，分别记录概率和另一个元素（别名）。<br>
+ * 建表的时间复杂度为O(n)，每次随机只需随机选一个桶，再随机决定取桶中的元素还是别名，时间复杂度为O(1)。
+ * <p>
+ * 增加或清空元素后，别名表在下一次随机时重建。别名表是不可变的快照，多线程随机时无需加锁。
  * <p>
- * 参考博客：https://www.cnblogs.com/waterystone/p/5708063.html
+ * 参考：https://www.keithschwarz.com/darts-dice-coins/
  * <p>
  *
  * @param <T> 权重随机获取的对象类型
@@ -30,7 +34,14 @@ import java.util.TreeMap;
 public class WeightRandom<T> implements Serializable {
 	private static final long serialVersionUID = -8244697995702786499L;
 
-	private final TreeMap<Double, T> weightMap;
+	/**
+	 * 权重大于0的对象，受this锁保护，反序列化时赋值因此不是final
+	 */
+	private List<WeightObj<T>> weightObjs;
+	/**
+	 * 别名表，元素变更后置为{@code null}，随机时重建
+	 */
+	private transient volatile AliasTable table;
 
 
 	/**
@@ -48,7 +59,7 @@ public class WeightRandom<T> implements Serializable {
 	 * 构造
 	 */
 	public WeightRandom() {
-		weightMap = new TreeMap<>();
+		weightObjs = new ArrayList<>();
 
 	}
 
@@ -103,17 +114,16 @@ public class WeightRandom<T> implements Serializable {
 	}
 
 	/**
-	 * 增加对象权重
+	 * 增加对象权重，权重不大于0的对象忽略
 	 *
 	 * @param weightObj 权重对象
 	 * @return this
 	 */
-	public WeightRandom<T> add(WeightObj<T> weightObj) {
+	public synchronized WeightRandom<T> add(WeightObj<T> weightObj) {
 		if(null != weightObj) {
-			final double weight = weightObj.getWeight();
 			if(weightObj.getWeight() > 0) {
-				double lastWeight = (this.weightMap.size() == 0) ? 0 : this.weightMap.lastKey();
-				this.weightMap.put(weight + lastWeight, weightObj.getObj());// 权重累加
+				this.weightObjs.add(weightObj);
+				this.table = null;
 			}
 		}
 		return this;
@@ -124,10 +134,11 @@ public class WeightRandom<T> implements Serializable {
 	 *
 	 * @return this
 	 */
-	public WeightRandom<T> clear() {
-		if(null != this.weightMap) {
-			this.weightMap.clear();
+	public synchronized WeightRandom<T> clear() {
+		if(null != this.weightObjs) {
+			this.weightObjs.clear();
 		}
+		this.table = null;
 		return this;
 	}
 
@@ -136,14 +147,134 @@ public class WeightRandom<T> implements Serializable {
 	 *
 	 * @return 随机对象
 	 */
+	@SuppressWarnings("unchecked")
 	public T next() {
-		if(MapUtil.isEmpty(this.weightMap)) {
-			return null;
+		AliasTable table = this.table;
+		if(null == table) {
+			table = buildTable();
+		}
+		return (T) table.next(RandomUtil.getRandom());
+	}
+
+	/**
+	 * 获取别名表，不存在时重建
+	 *
+	 * @return 别名表
+	 */
+	private synchronized AliasTable buildTable() {
+		AliasTable table = this.table;
+		if(null == table) {
+			table = new AliasTable(this.weightObjs);
+			this.table = table;
+		}
+		return table;
+	}
+
+	/**
+	 * 反序列化，兼容旧版本以累计权重为键的{@code TreeMap<Double, T> weightMap}序列化形式
+	 *
+	 * @param in 输入流
+	 * @throws IOException            IO异常
+	 * @throws ClassNotFoundException 类未找到
+	 */
+	@SuppressWarnings("unchecked")
+	private void readObject(ObjectInputStream in) throws IOException, ClassNotFoundException {
+		final ObjectInputStream.GetField fields = in.readFields();
+		List<WeightObj<T>> weightObjs = (List<WeightObj<T>>) fields.get("weightObjs", null);
+		if (null == weightObjs) {
+			weightObjs = new ArrayList<>();
+			if (null != fields.getObjectStreamClass().getField("weightMap")) {
+				final Map<Double, T> weightMap = (Map<Double, T>) fields.get("weightMap", null);
+				if (null != weightMap) {
+					// 键为累计权重，相邻两个键的差即为对象的权重
+					double lastWeight = 0;
+					for (Map.Entry<Double, T> entry : weightMap.entrySet()) {
+						weightObjs.add(new WeightObj<>(entry.getValue(), entry.getKey() - lastWeight));
+						lastWeight = entry.getKey();
+					}
+				}
+			}
+		}
+		this.weightObjs = weightObjs;
+	}
+
+	/**
+	 * Vose别名表，构造后不可变
+	 */
+	private static class AliasTable {
+		/** 桶中元素 */
+		private final Object[] objs;
+		/** 取桶中元素的概率，否则取别名 */
+		private final double[] probs;
+		/** 别名元素的下标 */
+		private final int[] aliases;
+
+		/**
+		 * 构造
+		 *
+		 * @param weightObjs 权重大于0的对象
+		 */
+		AliasTable(List<? extends WeightObj<?>> weightObjs) {
+			final int n = weightObjs.size();
+			objs = new Object[n];
+			probs = new double[n];
+			aliases = new int[n];
+
+			double sum = 0;
+			for (WeightObj<?> weightObj : weightObjs) {
+				sum += weightObj.getWeight();
+			}
+			// 归一化为平均值1，小于1的为small，其余为large，两个栈共用一个数组的两端
+			final double[] scaled = new double[n];
+			final int[] work = new int[n];
+			int small = 0;
+			int large = n;
+			for (int i = 0; i < n; i++) {
+				final WeightObj<?> weightObj = weightObjs.get(i);
+				objs[i] = weightObj.getObj();
+				scaled[i] = weightObj.getWeight() * n / sum;
+				if (scaled[i] < 1) {
+					work[small++] = i;
+				} else {
+					work[--large] = i;
+				}
+			}
+			// 每次用一个large补满一个small，large剩余部分重新归类
+			while (small > 0 && large < n) {
+				final int less = work[--small];
+				final int more = work[large++];
+				probs[less] = scaled[less];
+				aliases[less] = more;
+				scaled[more] = (scaled[more] + scaled[less]) - 1;
+				if (scaled[more] < 1) {
+					work[small++] = more;
+				} else {
+					work[--large] = more;
+				}
+			}
+			// 剩余的桶概率为1，small中剩余的仅由浮点误差导致
+			while (large < n) {
+				probs[work[large++]] = 1;
+			}
+			while (small > 0) {
+				probs[work[--small]] = 1;
+			}
+		}
+
+		/**
+		 * 随机取一个元素
+		 *
+		 * @param random 随机数生成器
+		 * @return 元素，表为空时返回{@code null}
+		 */
+		Object next(Random random) {
+			final int n = objs.length;
+			if (0 == n) {
+				return null;
+			}
+			final int i = random.nextInt(n);
+			return random.nextDouble() < probs[i] ? objs[i] : objs[aliases[i]];
 		}
-		final Random random = RandomUtil.getRandom();
-		final double randomWeight = this.weightMap.lastKey() * random.nextDouble();
-		final SortedMap<Double, T> tailMap = this.weightMap.tailMap(randomWeight, false);
-		return this.weightMap.get(tailMap.firstKey());
 	}
 
 	/**
@@ -152,7 +283,9 @@ public class WeightRandom<T> implements Serializable {
 	 * *
 	 * @param <T> 对象类型
 	 */
-	public static class WeightObj<T> {
+	public static class WeightObj<T> implements Serializable {
+		private static final long serialVersionUID = 1L;
+
 		/** 对象 */
 		private T obj;
 		/** 权重 */
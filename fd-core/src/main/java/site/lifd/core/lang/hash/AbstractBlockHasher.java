@@ -0,0 +1,296 @@
+package site.lifd.core.lang.hash;
+
+import java.lang.foreign.MemorySegment;
+import java.lang.foreign.ValueLayout;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+
+/**
+ * 按固定大小数据块计算的流式Hash抽象实现<br>
+ * 数据按小端序以4、8或16字节为一块交由子类处理，不足一块的数据暂存在两个long中，
+ * 对byte[]、{@link ByteBuffer}和{@link MemorySegment}直接整块读取，输入过程中不创建任何数组。
+ *
+ * @param <T> 子类类型，用于链式调用
+ * @author lifengdi
+ */
+public abstract class AbstractBlockHasher<T extends AbstractBlockHasher<T>> implements Hasher {
+
+	private static final VarHandle INT_HANDLE = MethodHandles.byteArrayViewVarHandle(int[].class, ByteOrder.LITTLE_ENDIAN);
+	private static final VarHandle LONG_HANDLE = MethodHandles.byteArrayViewVarHandle(long[].class, ByteOrder.LITTLE_ENDIAN);
+	private static final ValueLayout.OfInt SEGMENT_INT = ValueLayout.JAVA_INT_UNALIGNED.withOrder(ByteOrder.LITTLE_ENDIAN);
+	private static final ValueLayout.OfLong SEGMENT_LONG = ValueLayout.JAVA_LONG_UNALIGNED.withOrder(ByteOrder.LITTLE_ENDIAN);
+
+	/**
+	 * 块大小，4、8或16
+	 */
+	private final int blockSize;
+	/**
+	 * 未满一块的数据，第0~7字节
+	 */
+	private long tail0;
+	/**
+	 * 未满一块的数据，第8~15字节
+	 */
+	private long tail1;
+	/**
+	 * 未满一块的数据长度
+	 */
+	private int tailLength;
+	/**
+	 * 已输入的总长度
+	 */
+	private long length;
+
+	/**
+	 * 构造
+	 *
+	 * @param blockSize 块大小，4、8或16
+	 */
+	protected AbstractBlockHasher(int blockSize) {
+		if (4 != blockSize && 8 != blockSize && 16 != blockSize) {
+			throw new IllegalArgumentException("Block size must be 4, 8 or 16");
+		}
+		this.blockSize = blockSize;
+	}
+
+	@Override
+	public T put(byte b) {
+		length++;
+		buffer(b);
+		return self();
+	}
+
+	@Override
+	public T put(byte[] bytes) {
+		return put(bytes, 0, bytes.length);
+	}
+
+	@Override
+	public T put(byte[] bytes, int offset, int length) {
+		if (offset < 0 || length < 0 || offset + length > bytes.length) {
+			throw new IndexOutOfBoundsException("offset: " + offset + ", length: " + length + ", size: " + bytes.length);
+		}
+		this.length += length;
+		final int end = offset + length;
+		int i = offset;
+		while (tailLength > 0 && i < end) {
+			buffer(bytes[i++]);
+		}
+		for (; i + blockSize <= end; i += blockSize) {
+			switch (blockSize) {
+				case 4:
+					process((int) INT_HANDLE.get(bytes, i), 0);
+					break;
+				case 8:
+					process((long) LONG_HANDLE.get(bytes, i), 0);
+					break;
+				default:
+					process((long) LONG_HANDLE.get(bytes, i), (long) LONG_HANDLE.get(bytes, i + 8));
+			}
+		}
+		while (i < end) {
+			buffer(bytes[i++]);
+		}
+		return self();
+	}
+
+	@Override
+	public T put(ByteBuffer buffer) {
+		final boolean swap = ByteOrder.LITTLE_ENDIAN != buffer.order();
+		final int end = buffer.limit();
+		int i = buffer.position();
+		this.length += end - i;
+		while (tailLength > 0 && i < end) {
+			buffer(buffer.get(i++));
+		}
+		for (; i + blockSize <= end; i += blockSize) {
+			switch (blockSize) {
+				case 4:
+					final int k = buffer.getInt(i);
+					process(swap ? Integer.reverseBytes(k) : k, 0);
+					break;
+				case 8:
+					final long k1 = buffer.getLong(i);
+					process(swap ? Long.reverseBytes(k1) : k1, 0);
+					break;
+				default:
+					final long k2 = buffer.getLong(i);
+					final long k3 = buffer.getLong(i + 8);
+					process(swap ? Long.reverseBytes(k2) : k2, swap ? Long.reverseBytes(k3) : k3);
+			}
+		}
+		while (i < end) {
+			buffer(buffer.get(i++));
+		}
+		return self();
+	}
+
+	@Override
+	public T put(MemorySegment segment) {
+		final long end = segment.byteSize();
+		long i = 0;
+		this.length += end;
+		while (tailLength > 0 && i < end) {
+			buffer(segment.get(ValueLayout.JAVA_BYTE, i++));
+		}
+		for (; i + blockSize <= end; i += blockSize) {
+			switch (blockSize) {
+				case 4:
+					process(segment.get(SEGMENT_INT, i), 0);
+					break;
+				case 8:
+					process(segment.get(SEGMENT_LONG, i), 0);
+					break;
+				default:
+					process(segment.get(SEGMENT_LONG, i), segment.get(SEGMENT_LONG, i + 8));
+			}
+		}
+		while (i < end) {
+			buffer(segment.get(ValueLayout.JAVA_BYTE, i++));
+		}
+		return self();
+	}
+
+	@Override
+	public T putUtf8(CharSequence chars) {
+		final int len = chars.length();
+		int i = 0;
+		while (i < len) {
+			if (0 == tailLength && i + blockSize <= len && putAsciiBlock(chars, i)) {
+				i += blockSize;
+				continue;
+			}
+			final char c = chars.charAt(i++);
+			if (c < 0x80) {
+				putByte(c);
+			} else if (c < 0x800) {
+				putByte(0xc0 | (c >>> 6));
+				putByte(0x80 | (c & 0x3f));
+			} else if (Character.isSurrogate(c)) {
+				if (Character.isHighSurrogate(c) && i < len && Character.isLowSurrogate(chars.charAt(i))) {
+					final int codePoint = Character.toCodePoint(c, chars.charAt(i++));
+					putByte(0xf0 | (codePoint >>> 18));
+					putByte(0x80 | ((codePoint >>> 12) & 0x3f));
+					putByte(0x80 | ((codePoint >>> 6) & 0x3f));
+					putByte(0x80 | (codePoint & 0x3f));
+				} else {
+					// 与String.getBytes一致，不成对的代理字符替换为'?'
+					putByte('?');
+				}
+			} else {
+				putByte(0xe0 | (c >>> 12));
+				putByte(0x80 | ((c >>> 6) & 0x3f));
+				putByte(0x80 | (c & 0x3f));
+			}
+		}
+		return self();
+	}
+
+	@Override
+	public T reset() {
+		tail0 = 0;
+		tail1 = 0;
+		tailLength = 0;
+		length = 0;
+		return self();
+	}
+
+	/**
+	 * 处理一个完整的块
+	 *
+	 * @param k1 块的第0~7字节（4字节的块为低32位）
+	 * @param k2 块的第8~15字节，块小于16字节时为0
+	 */
+	protected abstract void process(long k1, long k2);
+
+	/**
+	 * @return 已输入的总长度
+	 */
+	protected long getLength() {
+		return length;
+	}
+
+	/**
+	 * @return 未满一块的数据长度
+	 */
+	protected int getTailLength() {
+		return tailLength;
+	}
+
+	/**
+	 * @return 未满一块的数据的第0~7字节，小端序
+	 */
+	protected long getTail0() {
+		return tail0;
+	}
+
+	/**
+	 * @return 未满一块的数据的第8~15字节，小端序
+	 */
+	protected long getTail1() {
+		return tail1;
+	}
+
+	/**
+	 * 字符序列从指定位置开始的一整块均为ASCII字符时，直接组装为一块处理
+	 *
+	 * @param chars 字符序列
+	 * @param start 开始位置
+	 * @return 是否已处理，遇到非ASCII字符时返回{@code false}
+	 */
+	private boolean putAsciiBlock(CharSequence chars, int start) {
+		long k1 = 0;
+		long k2 = 0;
+		for (int j = 0; j < blockSize; j++) {
+			final char c = chars.charAt(start + j);
+			if (c >= 0x80) {
+				return false;
+			}
+			if (j < 8) {
+				k1 |= (long) c << (j << 3);
+			} else {
+				k2 |= (long) c << ((j - 8) << 3);
+			}
+		}
+		length += blockSize;
+		process(k1, k2);
+		return true;
+	}
+
+	/**
+	 * 输入一个字节
+	 *
+	 * @param b 字节，只取低8位
+	 */
+	private void putByte(int b) {
+		length++;
+		buffer((byte) b);
+	}
+
+	/**
+	 * 暂存一个字节，凑满一块后处理
+	 *
+	 * @param b 字节
+	 */
+	private void buffer(byte b) {
+		final long value = (b & 0xffL) << ((tailLength & 7) << 3);
+		if (tailLength < 8) {
+			tail0 |= value;
+		} else {
+			tail1 |= value;
+		}
+		if (++tailLength == blockSize) {
+			process(tail0, tail1);
+			tail0 = 0;
+			tail1 = 0;
+			tailLength = 0;
+		}
+	}
+
+	@SuppressWarnings("unchecked")
+	private T self() {
+		return (T) this;
+	}
+}
@@ -2,7 +2,10 @@ package site.lifd.core.lang.hash;
 
 import site.lifd.core.util.ByteUtil;
 
-import java.util.Arrays;
+import java.lang.foreign.MemorySegment;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.nio.ByteBuffer;
 
 /**
  * Google发布的Hash计算算法：CityHash64 与 CityHash128。<br>
@@ -12,6 +15,8 @@ import java.util.Arrays;
  * 代码来自：https://github.com/rolandhe/string-tools<br>
  * 原始算法：https://github.com/google/cityhash
  *
+ * <p>
+ * 除byte[]外，还可直接对{@link ByteBuffer}和{@link MemorySegment}计算，按本机字节序直接读取，不复制数据，结果与对应的byte[]相同。
  */
 public class CityHash {
 
@@ -25,6 +30,12 @@ public class CityHash {
 	private static final int c1 = 0xcc9e2d51;
 	private static final int c2 = 0x1b873593;
 
+	/**
+	 * 按本机字节序从byte[]读取long和int
+	 */
+	private static final VarHandle LONG_HANDLE = MethodHandles.byteArrayViewVarHandle(long[].class, ByteUtil.CPU_ENDIAN);
+	private static final VarHandle INT_HANDLE = MethodHandles.byteArrayViewVarHandle(int[].class, ByteUtil.CPU_ENDIAN);
+
 
 	/**
 	 * 计算32位City Hash值
@@ -33,7 +44,147 @@ public class CityHash {
 	 * @return hash值
 	 */
 	public static int hash32(byte[] data) {
-		int len = data.length;
+		return hash32Internal(data);
+	}
+
+	/**
+	 * 计算32位City Hash值，计算position到limit之间的数据，不改变position
+	 *
+	 * @param data 数据
+	 * @return hash值
+	 */
+	public static int hash32(ByteBuffer data) {
+		return hash32Internal(view(data));
+	}
+
+	/**
+	 * 计算32位City Hash值，数据不能超过{@link Integer#MAX_VALUE}字节
+	 *
+	 * @param data 数据
+	 * @return hash值
+	 */
+	public static int hash32(MemorySegment data) {
+		return hash32Internal(view(data));
+	}
+
+	/**
+	 * 计算64位City Hash值
+	 *
+	 * @param data 数据
+	 * @return hash值
+	 */
+	public static long hash64(byte[] data) {
+		return hash64Internal(data);
+	}
+
+	/**
+	 * 计算64位City Hash值，计算position到limit之间的数据，不改变position
+	 *
+	 * @param data 数据
+	 * @return hash值
+	 */
+	public static long hash64(ByteBuffer data) {
+		return hash64Internal(view(data));
+	}
+
+	/**
+	 * 计算64位City Hash值，数据不能超过{@link Integer#MAX_VALUE}字节
+	 *
+	 * @param data 数据
+	 * @return hash值
+	 */
+	public static long hash64(MemorySegment data) {
+		return hash64Internal(view(data));
+	}
+
+	/**
+	 * 计算64位City Hash值
+	 *
+	 * @param data  数据
+	 * @param seed0 种子1
+	 * @param seed1 种子2
+	 * @return hash值
+	 */
+	public static long hash64(byte[] data, long seed0, long seed1) {
+		return hashLen16(hash64(data) - seed0, seed1);
+	}
+
+	/**
+	 * 计算64位City Hash值，种子1使用默认的{@link #k2}
+	 *
+	 * @param data 数据
+	 * @param seed 种子2
+	 * @return hash值
+	 */
+	public static long hash64(byte[] data, long seed) {
+		return hash64(data, k2, seed);
+	}
+
+	/**
+	 * 计算128位City Hash值
+	 *
+	 * @param data 数据
+	 * @return hash值
+	 */
+	public static Number128 hash128(byte[] data) {
+		return hash128Internal(data);
+	}
+
+	/**
+	 * 计算128位City Hash值，计算position到limit之间的数据，不改变position
+	 *
+	 * @param data 数据
+	 * @return hash值
+	 */
+	public static Number128 hash128(ByteBuffer data) {
+		return hash128Internal(view(data));
+	}
+
+	/**
+	 * 计算128位City Hash值，数据不能超过{@link Integer#MAX_VALUE}字节
+	 *
+	 * @param data 数据
+	 * @return hash值
+	 */
+	public static Number128 hash128(MemorySegment data) {
+		return hash128Internal(view(data));
+	}
+
+	/**
+	 * 计算128位City Hash值
+	 *
+	 * @param data 数据
+	 * @param seed 种子
+	 * @return hash值
+	 */
+	public static Number128 hash128(byte[] data, Number128 seed) {
+		return hash128(data, 0, seed);
+	}
+
+	//------------------------------------------------------------------------------------------------------- Private method start
+
+	/**
+	 * position到limit之间数据的视图，下标从0开始，按本机字节序读取，不改变原{@link ByteBuffer}
+	 *
+	 * @param data 数据
+	 * @return {@link ByteBuffer}
+	 */
+	private static ByteBuffer view(ByteBuffer data) {
+		return data.slice().order(ByteUtil.CPU_ENDIAN);
+	}
+
+	/**
+	 * {@link MemorySegment}的视图，按本机字节序读取，不复制数据
+	 *
+	 * @param data 数据
+	 * @return {@link ByteBuffer}
+	 */
+	private static ByteBuffer view(MemorySegment data) {
+		return data.asByteBuffer().order(ByteUtil.CPU_ENDIAN);
+	}
+
+	private static int hash32Internal(Object data) {
+		int len = length(data);
 		if (len <= 24) {
 			return len <= 12 ?
 					(len <= 4 ? hash32Len0to4(data) : hash32Len5to12(data)) :
@@ -109,17 +260,11 @@ public class CityHash {
 		return h;
 	}
 
-	/**
-	 * 计算64位City Hash值
-	 *
-	 * @param data 数据
-	 * @return hash值
-	 */
-	public static long hash64(byte[] data) {
-		int len = data.length;
+	private static long hash64Internal(Object data) {
+		int len = length(data);
 		if (len <= 32) {
 			if (len <= 16) {
-				return hashLen0to16(data);
+				return hashLen0to16(data, 0, len);
 			} else {
 				return hashLen17to32(data);
 			}
@@ -158,60 +303,19 @@ public class CityHash {
 				hashLen16(v.getHighValue(), w.getHighValue()) + x);
 	}
 
-	/**
-	 * 计算64位City Hash值
-	 *
-	 * @param data  数据
-	 * @param seed0 种子1
-	 * @param seed1 种子2
-	 * @return hash值
-	 */
-	public static long hash64(byte[] data, long seed0, long seed1) {
-		return hashLen16(hash64(data) - seed0, seed1);
-	}
-
-	/**
-	 * 计算64位City Hash值，种子1使用默认的{@link #k2}
-	 *
-	 * @param data 数据
-	 * @param seed 种子2
-	 * @return hash值
-	 */
-	public static long hash64(byte[] data, long seed) {
-		return hash64(data, k2, seed);
-	}
-
-	/**
-	 * 计算128位City Hash值
-	 *
-	 * @param data 数据
-	 * @return hash值
-	 */
-	public static Number128 hash128(byte[] data) {
-		int len = data.length;
+	private static Number128 hash128Internal(Object data) {
+		int len = length(data);
 		return len >= 16 ?
 				hash128(data, 16,
 						new Number128(fetch64(data, 0), fetch64(data, 8) + k0)) :
 				hash128(data, 0, new Number128(k0, k1));
 	}
 
-	/**
-	 * 计算128位City Hash值
-	 *
-	 * @param data 数据
-	 * @param seed 种子
-	 * @return hash值
-	 */
-	public static Number128 hash128(byte[] data, Number128 seed) {
-		return hash128(data, 0, seed);
-	}
-
-	//------------------------------------------------------------------------------------------------------- Private method start
-	private static Number128 hash128(final byte[] byteArray, int start, final Number128 seed) {
-		int len = byteArray.length - start;
+	private static Number128 hash128(final Object data, int start, final Number128 seed) {
+		int len = length(data) - start;
 
 		if (len < 128) {
-			return cityMurmur(Arrays.copyOfRange(byteArray, start, byteArray.length), seed);
+			return cityMurmur(data, start, len, seed);
 		}
 
 		// We expect len >= 128 to be the common case.  Keep 56 bytes of state:
@@ -221,33 +325,33 @@ public class CityHash {
 		long x = seed.getLowValue();
 		long y = seed.getHighValue();
 		long z = len * k1;
-		v.setLowValue(rotate64(y ^ k1, 49) * k1 + fetch64(byteArray, start));
-		v.setHighValue(rotate64(v.getLowValue(), 42) * k1 + fetch64(byteArray, start + 8));
+		v.setLowValue(rotate64(y ^ k1, 49) * k1 + fetch64(data, start));
+		v.setHighValue(rotate64(v.getLowValue(), 42) * k1 + fetch64(data, start + 8));
 		w.setLowValue(rotate64(y + z, 35) * k1 + x);
-		w.setHighValue(rotate64(x + fetch64(byteArray, start + 88), 53) * k1);
+		w.setHighValue(rotate64(x + fetch64(data, start + 88), 53) * k1);
 
 		// This is the same inner loop as CityHash64(), manually unrolled.
 		int pos = start;
 		do {
-			x = rotate64(x + y + v.getLowValue() + fetch64(byteArray, pos + 8), 37) * k1;
-			y = rotate64(y + v.getHighValue() + fetch64(byteArray, pos + 48), 42) * k1;
+			x = rotate64(x + y + v.getLowValue() + fetch64(data, pos + 8), 37) * k1;
+			y = rotate64(y + v.getHighValue() + fetch64(data, pos + 48), 42) * k1;
 			x ^= w.getHighValue();
-			y += v.getLowValue() + fetch64(byteArray, pos + 40);
+			y += v.getLowValue() + fetch64(data, pos + 40);
 			z = rotate64(z + w.getLowValue(), 33) * k1;
-			v = weakHashLen32WithSeeds(byteArray, pos, v.getHighValue() * k1, x + w.getLowValue());
-			w = weakHashLen32WithSeeds(byteArray, pos + 32, z + w.getHighValue(), y + fetch64(byteArray, pos + 16));
+			v = weakHashLen32WithSeeds(data, pos, v.getHighValue() * k1, x + w.getLowValue());
+			w = weakHashLen32WithSeeds(data, pos + 32, z + w.getHighValue(), y + fetch64(data, pos + 16));
 
 			long swapValue = x;
 			x = z;
 			z = swapValue;
 			pos += 64;
-			x = rotate64(x + y + v.getLowValue() + fetch64(byteArray, pos + 8), 37) * k1;
-			y = rotate64(y + v.getHighValue() + fetch64(byteArray, pos + 48), 42) * k1;
+			x = rotate64(x + y + v.getLowValue() + fetch64(data, pos + 8), 37) * k1;
+			y = rotate64(y + v.getHighValue() + fetch64(data, pos + 48), 42) * k1;
 			x ^= w.getHighValue();
-			y += v.getLowValue() + fetch64(byteArray, pos + 40);
+			y += v.getLowValue() + fetch64(data, pos + 40);
 			z = rotate64(z + w.getLowValue(), 33) * k1;
-			v = weakHashLen32WithSeeds(byteArray, pos, v.getHighValue() * k1, x + w.getLowValue());
-			w = weakHashLen32WithSeeds(byteArray, pos + 32, z + w.getHighValue(), y + fetch64(byteArray, pos + 16));
+			v = weakHashLen32WithSeeds(data, pos, v.getHighValue() * k1, x + w.getLowValue());
+			w = weakHashLen32WithSeeds(data, pos + 32, z + w.getHighValue(), y + fetch64(data, pos + 16));
 			swapValue = x;
 			x = z;
 			z = swapValue;
@@ -264,11 +368,11 @@ public class CityHash {
 		for (int tail_done = 0; tail_done < len; ) {
 			tail_done += 32;
 			y = rotate64(x + y, 42) * k0 + v.getHighValue();
-			w.setLowValue(w.getLowValue() + fetch64(byteArray, pos + len - tail_done + 16));
+			w.setLowValue(w.getLowValue() + fetch64(data, pos + len - tail_done + 16));
 			x = x * k0 + w.getLowValue();
-			z += w.getHighValue() + fetch64(byteArray, pos + len - tail_done);
+			z += w.getHighValue() + fetch64(data, pos + len - tail_done);
 			w.setHighValue(w.getHighValue() + v.getLowValue());
-			v = weakHashLen32WithSeeds(byteArray, pos + len - tail_done, v.getLowValue() + z, v.getHighValue());
+			v = weakHashLen32WithSeeds(data, pos + len - tail_done, v.getLowValue() + z, v.getHighValue());
 			v.setLowValue(v.getLowValue() * k0);
 		}
 		// At this point our 56 bytes of state should contain more than
@@ -281,59 +385,58 @@ public class CityHash {
 
 	}
 
-	private static int hash32Len0to4(final byte[] byteArray) {
+	private static int hash32Len0to4(final Object data) {
 		int b = 0;
 		int c = 9;
-		int len = byteArray.length;
-		for (int v : byteArray) {
-			b = b * c1 + v;
+		int len = length(data);
+		for (int i = 0; i < len; i++) {
+			b = b * c1 + get(data, i);
 			c ^= b;
 		}
 		return fmix(mur(b, mur(len, c)));
 	}
 
-	private static int hash32Len5to12(final byte[] byteArray) {
-		int len = byteArray.length;
+	private static int hash32Len5to12(final Object data) {
+		int len = length(data);
 		int a = len, b = len * 5, c = 9, d = b;
-		a += fetch32(byteArray, 0);
-		b += fetch32(byteArray, len - 4);
-		c += fetch32(byteArray, ((len >>> 1) & 4));
+		a += fetch32(data, 0);
+		b += fetch32(data, len - 4);
+		c += fetch32(data, ((len >>> 1) & 4));
 		return fmix(mur(c, mur(b, mur(a, d))));
 	}
 
-	private static int hash32Len13to24(byte[] byteArray) {
-		int len = byteArray.length;
-		int a = fetch32(byteArray, (len >>> 1) - 4);
-		int b = fetch32(byteArray, 4);
-		int c = fetch32(byteArray, len - 8);
-		int d = fetch32(byteArray, (len >>> 1));
-		int e = fetch32(byteArray, 0);
-		int f = fetch32(byteArray, len - 4);
+	private static int hash32Len13to24(Object data) {
+		int len = length(data);
+		int a = fetch32(data, (len >>> 1) - 4);
+		int b = fetch32(data, 4);
+		int c = fetch32(data, len - 8);
+		int d = fetch32(data, (len >>> 1));
+		int e = fetch32(data, 0);
+		int f = fetch32(data, len - 4);
 		@SuppressWarnings("UnnecessaryLocalVariable")
 		int h = len;
 
 		return fmix(mur(f, mur(e, mur(d, mur(c, mur(b, mur(a, h)))))));
 	}
 
-	private static long hashLen0to16(byte[] byteArray) {
-		int len = byteArray.length;
+	private static long hashLen0to16(Object data, int start, int len) {
 		if (len >= 8) {
 			long mul = k2 + len * 2L;
-			long a = fetch64(byteArray, 0) + k2;
-			long b = fetch64(byteArray, len - 8);
+			long a = fetch64(data, start) + k2;
+			long b = fetch64(data, start + len - 8);
 			long c = rotate64(b, 37) * mul + a;
 			long d = (rotate64(a, 25) + b) * mul;
 			return hashLen16(c, d, mul);
 		}
 		if (len >= 4) {
 			long mul = k2 + len * 2;
-			long a = fetch32(byteArray, 0) & 0xffffffffL;
-			return hashLen16(len + (a << 3), fetch32(byteArray, len - 4) & 0xffffffffL, mul);
+			long a = fetch32(data, start) & 0xffffffffL;
+			return hashLen16(len + (a << 3), fetch32(data, start + len - 4) & 0xffffffffL, mul);
 		}
 		if (len > 0) {
-			int a = byteArray[0] & 0xff;
-			int b = byteArray[len >>> 1] & 0xff;
-			int c = byteArray[len - 1] & 0xff;
+			int a = get(data, start) & 0xff;
+			int b = get(data, start + (len >>> 1)) & 0xff;
+			int c = get(data, start + len - 1) & 0xff;
 			int y = a + (b << 8);
 			int z = len + (c << 2);
 			return shiftMix(y * k2 ^ z * k0) * k2;
@@ -342,28 +445,28 @@ public class CityHash {
 	}
 
 	// This probably works well for 16-byte strings as well, but it may be overkill in that case.
-	private static long hashLen17to32(byte[] byteArray) {
-		int len = byteArray.length;
+	private static long hashLen17to32(Object data) {
+		int len = length(data);
 		long mul = k2 + len * 2L;
-		long a = fetch64(byteArray, 0) * k1;
-		long b = fetch64(byteArray, 8);
-		long c = fetch64(byteArray, len - 8) * mul;
-		long d = fetch64(byteArray, len - 16) * k2;
+		long a = fetch64(data, 0) * k1;
+		long b = fetch64(data, 8);
+		long c = fetch64(data, len - 8) * mul;
+		long d = fetch64(data, len - 16) * k2;
 		return hashLen16(rotate64(a + b, 43) + rotate64(c, 30) + d,
 				a + rotate64(b + k2, 18) + c, mul);
 	}
 
-	private static long hashLen33to64(byte[] byteArray) {
-		int len = byteArray.length;
+	private static long hashLen33to64(Object data) {
+		int len = length(data);
 		long mul = k2 + len * 2L;
-		long a = fetch64(byteArray, 0) * k2;
-		long b = fetch64(byteArray, 8);
-		long c = fetch64(byteArray, len - 24);
-		long d = fetch64(byteArray, len - 32);
-		long e = fetch64(byteArray, 16) * k2;
-		long f = fetch64(byteArray, 24) * 9;
-		long g = fetch64(byteArray, len - 8);
-		long h = fetch64(byteArray, len - 16) * mul;
+		long a = fetch64(data, 0) * k2;
+		long b = fetch64(data, 8);
+		long c = fetch64(data, len - 24);
+		long d = fetch64(data, len - 32);
+		long e = fetch64(data, 16) * k2;
+		long f = fetch64(data, 24) * 9;
+		long g = fetch64(data, len - 8);
+		long h = fetch64(data, len - 16) * mul;
 		long u = rotate64(a + g, 43) + (rotate64(b, 30) + c) * 9;
 		long v = ((a + g) ^ d) + f + 1;
 		long w = Long.reverseBytes((u + v) * mul) + h;
@@ -375,12 +478,26 @@ public class CityHash {
 		return b + x;
 	}
 
-	private static long fetch64(byte[] byteArray, int start) {
-		return ByteUtil.bytesToLong(byteArray, start, ByteUtil.CPU_ENDIAN);
+	/**
+	 * 数据长度
+	 *
+	 * @param data byte[]或{@link #view(ByteBuffer)}返回的{@link ByteBuffer}
+	 * @return 长度
+	 */
+	private static int length(Object data) {
+		return data instanceof byte[] bytes ? bytes.length : ((ByteBuffer) data).limit();
+	}
+
+	private static byte get(Object data, int index) {
+		return data instanceof byte[] bytes ? bytes[index] : ((ByteBuffer) data).get(index);
+	}
+
+	private static long fetch64(Object data, int start) {
+		return data instanceof byte[] bytes ? (long) LONG_HANDLE.get(bytes, start) : ((ByteBuffer) data).getLong(start);
 	}
 
-	private static int fetch32(byte[] byteArray, final int start) {
-		return ByteUtil.bytesToInt(byteArray, start, ByteUtil.CPU_ENDIAN);
+	private static int fetch32(Object data, final int start) {
+		return data instanceof byte[] bytes ? (int) INT_HANDLE.get(bytes, start) : ((ByteBuffer) data).getInt(start);
 	}
 
 	private static long rotate64(long val, int shift) {
@@ -453,17 +570,16 @@ public class CityHash {
 
 	// Return a 16-byte hash for s[0] ... s[31], a, and b.  Quick and dirty.
 	private static Number128 weakHashLen32WithSeeds(
-			byte[] byteArray, int start, long a, long b) {
-		return weakHashLen32WithSeeds(fetch64(byteArray, start),
-				fetch64(byteArray, start + 8),
-				fetch64(byteArray, start + 16),
-				fetch64(byteArray, start + 24),
+			Object data, int start, long a, long b) {
+		return weakHashLen32WithSeeds(fetch64(data, start),
+				fetch64(data, start + 8),
+				fetch64(data, start + 16),
+				fetch64(data, start + 24),
 				a,
 				b);
 	}
 
-	private static Number128 cityMurmur(final byte[] byteArray, Number128 seed) {
-		int len = byteArray.length;
+	private static Number128 cityMurmur(final Object data, int start, int len, Number128 seed) {
 		long a = seed.getLowValue();
 		long b = seed.getHighValue();
 		long c;
@@ -471,18 +587,18 @@ public class CityHash {
 		int l = len - 16;
 		if (l <= 0) {  // len <= 16
 			a = shiftMix(a * k1) * k1;
-			c = b * k1 + hashLen0to16(byteArray);
-			d = shiftMix(a + (len >= 8 ? fetch64(byteArray, 0) : c));
+			c = b * k1 + hashLen0to16(data, start, len);
+			d = shiftMix(a + (len >= 8 ? fetch64(data, start) : c));
 		} else {  // len > 16
-			c = hashLen16(fetch64(byteArray, len - 8) + k1, a);
-			d = hashLen16(b + len, c + fetch64(byteArray, len - 16));
+			c = hashLen16(fetch64(data, start + len - 8) + k1, a);
+			d = hashLen16(b + len, c + fetch64(data, start + len - 16));
 			a += d;
-			int pos = 0;
+			int pos = start;
 			do {
-				a ^= shiftMix(fetch64(byteArray, pos) * k1) * k1;
+				a ^= shiftMix(fetch64(data, pos) * k1) * k1;
 				a *= k1;
 				b ^= a;
-				c ^= shiftMix(fetch64(byteArray, pos + 8) * k1) * k1;
+				c ^= shiftMix(fetch64(data, pos + 8) * k1) * k1;
 				c *= k1;
 				d ^= c;
 				pos += 16;
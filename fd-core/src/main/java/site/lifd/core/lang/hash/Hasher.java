@@ -0,0 +1,73 @@
+package site.lifd.core.lang.hash;
+
+import java.lang.foreign.MemorySegment;
+import java.nio.ByteBuffer;
+
+/**
+ * 流式Hash计算接口，数据可分多次输入，结果与一次性输入全部数据相同<br>
+ * 输入方法返回自身以便链式调用，计算结果的方法由具体实现提供。
+ *
+ * @author lifengdi
+ */
+public interface Hasher {
+
+	/**
+	 * 输入一个字节
+	 *
+	 * @param b 字节
+	 * @return this
+	 */
+	Hasher put(byte b);
+
+	/**
+	 * 输入字节数组
+	 *
+	 * @param bytes 字节数组
+	 * @return this
+	 */
+	default Hasher put(byte[] bytes) {
+		return put(bytes, 0, bytes.length);
+	}
+
+	/**
+	 * 输入字节数组的一部分
+	 *
+	 * @param bytes  字节数组
+	 * @param offset 开始位置
+	 * @param length 长度
+	 * @return this
+	 */
+	Hasher put(byte[] bytes, int offset, int length);
+
+	/**
+	 * 输入{@link ByteBuffer}中position到limit之间的数据，不改变position
+	 *
+	 * @param buffer 堆内或堆外的{@link ByteBuffer}
+	 * @return this
+	 */
+	Hasher put(ByteBuffer buffer);
+
+	/**
+	 * 输入{@link MemorySegment}的全部数据
+	 *
+	 * @param segment 内存段
+	 * @return this
+	 */
+	Hasher put(MemorySegment segment);
+
+	/**
+	 * 按UTF-8编码输入字符序列，边编码边计算，不生成中间的byte[]<br>
+	 * 结果与输入{@code String.getBytes(UTF_8)}相同，不成对的代理字符按{@code '?'}处理。
+	 *
+	 * @param chars 字符序列
+	 * @return this
+	 */
+	Hasher putUtf8(CharSequence chars);
+
+	/**
+	 * 重置为初始状态，以便复用此对象计算新的数据
+	 *
+	 * @return this
+	 */
+	Hasher reset();
+}
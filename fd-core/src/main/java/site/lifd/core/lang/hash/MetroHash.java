@@ -1,9 +1,10 @@
 package site.lifd.core.lang.hash;
 
-import site.lifd.core.util.ByteUtil;
-
+import java.lang.foreign.MemorySegment;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.nio.ByteBuffer;
 import java.nio.ByteOrder;
-import java.util.Arrays;
 
 /**
  * Apache 发布的MetroHash算法，是一组用于非加密用例的最先进的哈希函数。
@@ -13,6 +14,9 @@ import java.util.Arrays;
  * 官方实现：https://github.com/jandrewrogers/MetroHash
  * 官方文档：http://www.jandrewrogers.com/2015/05/27/metrohash/
  * Go语言实现：https://github.com/linvon/cuckoo-filter/blob/main/vendor/github.com/dgryski/go-metro/
+ *
+ * <p>
+ * 除byte[]外，还可直接对{@link ByteBuffer}和{@link MemorySegment}计算，按小端序直接读取，不复制数据，结果与对应的byte[]相同。
  */
 public class MetroHash {
 
@@ -32,6 +36,12 @@ public class MetroHash {
 	private final static long k2_128 = 0x7BDEC03B;
 	private final static long k3_128 = 0x2F5870A5;
 
+	/**
+	 * 按小端序从byte[]读取long和short
+	 */
+	private static final VarHandle LONG_HANDLE = MethodHandles.byteArrayViewVarHandle(long[].class, ByteOrder.LITTLE_ENDIAN);
+	private static final VarHandle SHORT_HANDLE = MethodHandles.byteArrayViewVarHandle(short[].class, ByteOrder.LITTLE_ENDIAN);
+
 	public static long hash64(byte[] data) {
 		return hash64(data, 1337);
 	}
@@ -41,7 +51,100 @@ public class MetroHash {
 	}
 
 	public static long hash64(byte[] data, long seed) {
-		byte[] buffer = data;
+		return hash64Internal(data, seed);
+	}
+
+	public static Number128 hash128(byte[] data, long seed) {
+		return hash128Internal(data, seed);
+	}
+
+	/**
+	 * 计算64位MetroHash值，计算position到limit之间的数据，不改变position
+	 *
+	 * @param data 数据
+	 * @return hash值
+	 */
+	public static long hash64(ByteBuffer data) {
+		return hash64(data, 1337);
+	}
+
+	/**
+	 * 计算64位MetroHash值，计算position到limit之间的数据，不改变position
+	 *
+	 * @param data 数据
+	 * @param seed 种子
+	 * @return hash值
+	 */
+	public static long hash64(ByteBuffer data, long seed) {
+		return hash64Internal(view(data), seed);
+	}
+
+	/**
+	 * 计算64位MetroHash值，数据不能超过{@link Integer#MAX_VALUE}字节
+	 *
+	 * @param data 数据
+	 * @return hash值
+	 */
+	public static long hash64(MemorySegment data) {
+		return hash64(data, 1337);
+	}
+
+	/**
+	 * 计算64位MetroHash值，数据不能超过{@link Integer#MAX_VALUE}字节
+	 *
+	 * @param data 数据
+	 * @param seed 种子
+	 * @return hash值
+	 */
+	public static long hash64(MemorySegment data, long seed) {
+		return hash64Internal(view(data), seed);
+	}
+
+	/**
+	 * 计算128位MetroHash值，计算position到limit之间的数据，不改变position
+	 *
+	 * @param data 数据
+	 * @return hash值
+	 */
+	public static Number128 hash128(ByteBuffer data) {
+		return hash128(data, 1337);
+	}
+
+	/**
+	 * 计算128位MetroHash值，计算position到limit之间的数据，不改变position
+	 *
+	 * @param data 数据
+	 * @param seed 种子
+	 * @return hash值
+	 */
+	public static Number128 hash128(ByteBuffer data, long seed) {
+		return hash128Internal(view(data), seed);
+	}
+
+	/**
+	 * 计算128位MetroHash值，数据不能超过{@link Integer#MAX_VALUE}字节
+	 *
+	 * @param data 数据
+	 * @return hash值
+	 */
+	public static Number128 hash128(MemorySegment data) {
+		return hash128(data, 1337);
+	}
+
+	/**
+	 * 计算128位MetroHash值，数据不能超过{@link Integer#MAX_VALUE}字节
+	 *
+	 * @param data 数据
+	 * @param seed 种子
+	 * @return hash值
+	 */
+	public static Number128 hash128(MemorySegment data, long seed) {
+		return hash128Internal(view(data), seed);
+	}
+
+	private static long hash64Internal(Object data, long seed) {
+		final int len = length(data);
+		int pos = 0;
 		long hash = (seed + k2_64) * k0_64;
 
 		long v0, v1, v2, v3;
@@ -50,18 +153,18 @@ public class MetroHash {
 		v2 = hash;
 		v3 = hash;
 
-		if (buffer.length >= 32) {
+		if (len - pos >= 32) {
 
-			while (buffer.length >= 32) {
-				v0 += littleEndian64(buffer, 0) * k0_64;
+			while (len - pos >= 32) {
+				v0 += littleEndian64(data, pos) * k0_64;
 				v0 = rotateLeft64(v0, -29) + v2;
-				v1 += littleEndian64(buffer, 8) * k1_64;
+				v1 += littleEndian64(data, pos + 8) * k1_64;
 				v1 = rotateLeft64(v1, -29) + v3;
-				v2 += littleEndian64(buffer, 24) * k2_64;
+				v2 += littleEndian64(data, pos + 24) * k2_64;
 				v2 = rotateLeft64(v2, -29) + v0;
-				v3 += littleEndian64(buffer, 32) * k3_64;
+				v3 += littleEndian64(data, pos + 32) * k3_64;
 				v3 = rotateLeft64(v3, -29) + v1;
-				buffer = Arrays.copyOfRange(buffer, 32, buffer.length);
+				pos += 32;
 			}
 
 			v2 ^= rotateLeft64(((v0 + v3) * k0_64) + v1, -37) * k1_64;
@@ -71,37 +174,37 @@ public class MetroHash {
 			hash += v0 ^ v1;
 		}
 
-		if (buffer.length >= 16) {
-			v0 = hash + littleEndian64(buffer, 0) * k2_64;
+		if (len - pos >= 16) {
+			v0 = hash + littleEndian64(data, pos) * k2_64;
 			v0 = rotateLeft64(v0, -29) * k3_64;
-			v1 = hash + littleEndian64(buffer, 8) * k2_64;
+			v1 = hash + littleEndian64(data, pos + 8) * k2_64;
 			v1 = rotateLeft64(v1, -29) * k3_64;
 			v0 ^= rotateLeft64(v0 * k0_64, -21) + v1;
 			v1 ^= rotateLeft64(v1 * k3_64, -21) + v0;
 			hash += v1;
-			buffer = Arrays.copyOfRange(buffer, 16, buffer.length);
+			pos += 16;
 		}
 
-		if (buffer.length >= 8) {
-			hash += littleEndian64(buffer, 0) * k3_64;
-			buffer = Arrays.copyOfRange(buffer, 8, buffer.length);
+		if (len - pos >= 8) {
+			hash += littleEndian64(data, pos) * k3_64;
+			pos += 8;
 			hash ^= rotateLeft64(hash, -55) * k1_64;
 		}
 
-		if (buffer.length >= 4) {
-			hash += (long) littleEndian32(Arrays.copyOfRange(buffer, 0, 4)) * k3_64;
+		if (len - pos >= 4) {
+			hash += (long) littleEndian32(data, pos) * k3_64;
 			hash ^= rotateLeft64(hash, -26) * k1_64;
-			buffer = Arrays.copyOfRange(buffer, 4, buffer.length);
+			pos += 4;
 		}
 
-		if (buffer.length >= 2) {
-			hash += (long) littleEndian16(Arrays.copyOfRange(buffer, 0, 2)) * k3_64;
-			buffer = Arrays.copyOfRange(buffer, 2, buffer.length);
+		if (len - pos >= 2) {
+			hash += (long) littleEndian16(data, pos) * k3_64;
+			pos += 2;
 			hash ^= rotateLeft64(hash, -48) * k1_64;
 		}
 
-		if (buffer.length >= 1) {
-			hash += (long) buffer[0] * k3_64;
+		if (len - pos >= 1) {
+			hash += (long) get(data, pos) * k3_64;
 			hash ^= rotateLeft64(hash, -38) * k1_64;
 		}
 
@@ -112,30 +215,31 @@ public class MetroHash {
 		return hash;
 	}
 
-	public static Number128 hash128(byte[] data, long seed) {
-		byte[] buffer = data;
+	private static Number128 hash128Internal(Object data, long seed) {
+		final int len = length(data);
+		int pos = 0;
 
 		long v0, v1, v2, v3;
 
 		v0 = (seed - k0_128) * k3_128;
 		v1 = (seed + k1_128) * k2_128;
 
-		if (buffer.length >= 32) {
+		if (len - pos >= 32) {
 			v2 = (seed + k0_128) * k2_128;
 			v3 = (seed - k1_128) * k3_128;
 
-			while (buffer.length >= 32) {
-				v0 += littleEndian64(buffer, 0) * k0_128;
-				buffer = Arrays.copyOfRange(buffer, 8, buffer.length);
+			while (len - pos >= 32) {
+				v0 += littleEndian64(data, pos) * k0_128;
+				pos += 8;
 				v0 = rotateRight(v0, 29) + v2;
-				v1 += littleEndian64(buffer, 0) * k1_128;
-				buffer = Arrays.copyOfRange(buffer, 8, buffer.length);
+				v1 += littleEndian64(data, pos) * k1_128;
+				pos += 8;
 				v1 = rotateRight(v1, 29) + v3;
-				v2 += littleEndian64(buffer, 0) * k2_128;
-				buffer = Arrays.copyOfRange(buffer, 8, buffer.length);
+				v2 += littleEndian64(data, pos) * k2_128;
+				pos += 8;
 				v2 = rotateRight(v2, 29) + v0;
-				v3 = littleEndian64(buffer, 0) * k3_128;
-				buffer = Arrays.copyOfRange(buffer, 8, buffer.length);
+				v3 = littleEndian64(data, pos) * k3_128;
+				pos += 8;
 				v3 = rotateRight(v3, 29) + v1;
 			}
 
@@ -145,40 +249,40 @@ public class MetroHash {
 			v1 ^= rotateRight(((v1 + v3) * k1_128) + v2, 21) * k0_128;
 		}
 
-		if (buffer.length >= 16) {
-			v0 += littleEndian64(buffer, 0) * k2_128;
-			buffer = Arrays.copyOfRange(buffer, 8, buffer.length);
+		if (len - pos >= 16) {
+			v0 += littleEndian64(data, pos) * k2_128;
+			pos += 8;
 			v0 = rotateRight(v0, 33) * k3_128;
-			v1 += littleEndian64(buffer, 0) * k2_128;
-			buffer = Arrays.copyOfRange(buffer, 8, buffer.length);
+			v1 += littleEndian64(data, pos) * k2_128;
+			pos += 8;
 			v1 = rotateRight(v1, 33) * k3_128;
 			v0 ^= rotateRight((v0 * k2_128) + v1, 45) + k1_128;
 			v1 ^= rotateRight((v1 * k3_128) + v0, 45) + k0_128;
 		}
 
-		if (buffer.length >= 8) {
-			v0 += littleEndian64(buffer, 0) * k2_128;
-			buffer = Arrays.copyOfRange(buffer, 8, buffer.length);
+		if (len - pos >= 8) {
+			v0 += littleEndian64(data, pos) * k2_128;
+			pos += 8;
 			v0 = rotateRight(v0, 33) * k3_128;
 			v0 ^= rotateRight((v0 * k2_128) + v1, 27) * k1_128;
 		}
 
-		if (buffer.length >= 4) {
-			v1 += (long) littleEndian32(buffer) * k2_128;
-			buffer = Arrays.copyOfRange(buffer, 4, buffer.length);
+		if (len - pos >= 4) {
+			v1 += (long) littleEndian32(data, pos) * k2_128;
+			pos += 4;
 			v1 = rotateRight(v1, 33) * k3_128;
 			v1 ^= rotateRight((v1 * k3_128) + v0, 46) * k0_128;
 		}
 
-		if (buffer.length >= 2) {
-			v0 += (long) littleEndian16(buffer) * k2_128;
-			buffer = Arrays.copyOfRange(buffer, 2, buffer.length);
+		if (len - pos >= 2) {
+			v0 += (long) littleEndian16(data, pos) * k2_128;
+			pos += 2;
 			v0 = rotateRight(v0, 33) * k3_128;
 			v0 ^= rotateRight((v0 * k2_128) * v1, 22) * k1_128;
 		}
 
-		if (buffer.length >= 1) {
-			v1 += (long) buffer[0] * k2_128;
+		if (len - pos >= 1) {
+			v1 += (long) get(data, pos) * k2_128;
 			v1 = rotateRight(v1, 33) * k3_128;
 			v1 ^= rotateRight((v1 * k3_128) + v0, 58) * k0_128;
 		}
@@ -191,17 +295,51 @@ public class MetroHash {
 		return new Number128(v0, v1);
 	}
 
+	/**
+	 * position到limit之间数据的视图，下标从0开始，按小端序读取，不改变原{@link ByteBuffer}
+	 *
+	 * @param data 数据
+	 * @return {@link ByteBuffer}
+	 */
+	private static ByteBuffer view(ByteBuffer data) {
+		return data.slice().order(ByteOrder.LITTLE_ENDIAN);
+	}
+
+	/**
+	 * {@link MemorySegment}的视图，按小端序读取，不复制数据
+	 *
+	 * @param data 数据
+	 * @return {@link ByteBuffer}
+	 */
+	private static ByteBuffer view(MemorySegment data) {
+		return data.asByteBuffer().order(ByteOrder.LITTLE_ENDIAN);
+	}
+
+	/**
+	 * 数据长度
+	 *
+	 * @param data byte[]或{@link #view(ByteBuffer)}返回的{@link ByteBuffer}
+	 * @return 长度
+	 */
+	private static int length(Object data) {
+		return data instanceof byte[] bytes ? bytes.length : ((ByteBuffer) data).limit();
+	}
+
+	private static byte get(Object data, int index) {
+		return data instanceof byte[] bytes ? bytes[index] : ((ByteBuffer) data).get(index);
+	}
 
-	private static long littleEndian64(byte[] b, int start) {
-		return ByteUtil.bytesToLong(b, start, ByteOrder.LITTLE_ENDIAN);
+	private static long littleEndian64(Object data, int start) {
+		return data instanceof byte[] bytes ? (long) LONG_HANDLE.get(bytes, start) : ((ByteBuffer) data).getLong(start);
 	}
 
-	private static int littleEndian32(byte[] b) {
-		return (int) b[0] | (int) b[1] << 8 | (int) b[2] << 16 | (int) b[3] << 24;
+	private static int littleEndian32(Object data, int start) {
+		// 与原实现一致，各字节按有符号数合并
+		return (int) get(data, start) | (int) get(data, start + 1) << 8 | (int) get(data, start + 2) << 16 | (int) get(data, start + 3) << 24;
 	}
 
-	private static int littleEndian16(byte[] b) {
-		return ByteUtil.bytesToShort(b, ByteOrder.LITTLE_ENDIAN);
+	private static short littleEndian16(Object data, int start) {
+		return data instanceof byte[] bytes ? (short) SHORT_HANDLE.get(bytes, start) : ((ByteBuffer) data).getShort(start);
 	}
 
 	private static long rotateLeft64(long x, int k) {
@@ -1,12 +1,11 @@
 package site.lifd.core.lang.hash;
 
 import site.lifd.core.util.ByteUtil;
-import site.lifd.core.util.CharsetUtil;
-import site.lifd.core.util.StrUtil;
 
 import java.io.Serializable;
+import java.lang.foreign.MemorySegment;
+import java.nio.ByteBuffer;
 import java.nio.ByteOrder;
-import java.nio.charset.Charset;
 
 /**
  * Murmur3 32bit、64bit、128bit 哈希算法实现<br>
@@ -16,6 +15,10 @@ import java.nio.charset.Charset;
  * 32-bit Java port of https://code.google.com/p/smhasher/source/browse/trunk/MurmurHash3.cpp#94 <br>
  * 128-bit Java port of https://code.google.com/p/smhasher/source/browse/trunk/MurmurHash3.cpp#255
  * </p>
+ * <p>
+ * 除byte[]外，还可直接对{@link CharSequence}（按UTF-8边编码边计算）、{@link ByteBuffer}和{@link MemorySegment}计算，
+ * 不生成中间数组，结果与对应的byte[]相同。需要分多次输入数据时，使用{@link Hasher32}、{@link Hasher64}和{@link Hasher128}。
+ * </p>
  *
  * *
  */
@@ -41,17 +44,62 @@ public class MurmurHash implements Serializable {
 	private static final int N2 = 0x38495ab5;
 
 	private static final int DEFAULT_SEED = 0;
-	private static final Charset DEFAULT_CHARSET = CharsetUtil.CHARSET_UTF_8;
 	private static final ByteOrder DEFAULT_ORDER = ByteOrder.LITTLE_ENDIAN;
 
 	/**
-	 * Murmur3 32-bit Hash值计算
+	 * 线程内复用的流式计算对象，避免每次计算创建对象
+	 */
+	private static final ThreadLocal<Hasher32> HASHER_32 = ThreadLocal.withInitial(() -> new Hasher32(DEFAULT_SEED));
+	private static final ThreadLocal<Hasher64> HASHER_64 = ThreadLocal.withInitial(() -> new Hasher64(DEFAULT_SEED));
+	private static final ThreadLocal<Hasher128> HASHER_128 = ThreadLocal.withInitial(() -> new Hasher128(DEFAULT_SEED));
+
+	/**
+	 * Murmur3 32-bit Hash值计算，按UTF-8编码计算，不生成中间的byte[]
 	 *
 	 * @param data 数据
 	 * @return Hash值
 	 */
 	public static int hash32(CharSequence data) {
-		return hash32(StrUtil.bytes(data, DEFAULT_CHARSET));
+		// 全部为ASCII字符时直接按字符组装数据块，否则按UTF-8流式编码计算
+		final int length = data.length();
+		int hash = DEFAULT_SEED;
+		int i = 0;
+		for (; i + 4 <= length; i += 4) {
+			final long k = asciiBlock(data, i, 4);
+			if (k < 0) {
+				return HASHER_32.get().reset().putUtf8(data).hash();
+			}
+			hash = mix32((int) k, hash);
+		}
+		if (i < length) {
+			final long k = asciiBlock(data, i, length - i);
+			if (k < 0) {
+				return HASHER_32.get().reset().putUtf8(data).hash();
+			}
+			hash = mixTail32((int) k, hash);
+		}
+		hash ^= length;
+		return fmix32(hash);
+	}
+
+	/**
+	 * Murmur3 32-bit Hash值计算，计算position到limit之间的数据，不改变position
+	 *
+	 * @param data 数据
+	 * @return Hash值
+	 */
+	public static int hash32(ByteBuffer data) {
+		return HASHER_32.get().reset().put(data).hash();
+	}
+
+	/**
+	 * Murmur3 32-bit Hash值计算
+	 *
+	 * @param data 数据
+	 * @return Hash值
+	 */
+	public static int hash32(MemorySegment data) {
+		return HASHER_32.get().reset().put(data).hash();
 	}
 
 	/**
@@ -121,13 +169,53 @@ public class MurmurHash implements Serializable {
 	}
 
 	/**
-	 * Murmur3 64-bit Hash值计算
+	 * Murmur3 64-bit Hash值计算，按UTF-8编码计算，不生成中间的byte[]
 	 *
 	 * @param data 数据
 	 * @return Hash值
 	 */
 	public static long hash64(CharSequence data) {
-		return hash64(StrUtil.bytes(data, DEFAULT_CHARSET));
+		// 全部为ASCII字符时直接按字符组装数据块，否则按UTF-8流式编码计算
+		final int length = data.length();
+		long hash = DEFAULT_SEED;
+		int i = 0;
+		for (; i + 8 <= length; i += 8) {
+			final long k = asciiBlock(data, i, 8);
+			if (k < 0) {
+				return HASHER_64.get().reset().putUtf8(data).hash();
+			}
+			hash ^= mixK1(k);
+			hash = Long.rotateLeft(hash, R2) * M + N1;
+		}
+		if (i < length) {
+			final long k = asciiBlock(data, i, length - i);
+			if (k < 0) {
+				return HASHER_64.get().reset().putUtf8(data).hash();
+			}
+			hash ^= mixK1(k);
+		}
+		hash ^= length;
+		return fmix64(hash);
+	}
+
+	/**
+	 * Murmur3 64-bit Hash值计算，计算position到limit之间的数据，不改变position
+	 *
+	 * @param data 数据
+	 * @return Hash值
+	 */
+	public static long hash64(ByteBuffer data) {
+		return HASHER_64.get().reset().put(data).hash();
+	}
+
+	/**
+	 * Murmur3 64-bit Hash值计算
+	 *
+	 * @param data 数据
+	 * @return Hash值
+	 */
+	public static long hash64(MemorySegment data) {
+		return HASHER_64.get().reset().put(data).hash();
 	}
 
 	/**
@@ -199,13 +287,33 @@ public class MurmurHash implements Serializable {
 	}
 
 	/**
-	 * Murmur3 128-bit Hash值计算
+	 * Murmur3 128-bit Hash值计算，按UTF-8编码计算，不生成中间的byte[]
 	 *
 	 * @param data 数据
 	 * @return Hash值 (2 longs)
 	 */
 	public static long[] hash128(CharSequence data) {
-		return hash128(StrUtil.bytes(data, DEFAULT_CHARSET));
+		return HASHER_128.get().reset().putUtf8(data).hash();
+	}
+
+	/**
+	 * Murmur3 128-bit Hash值计算，计算position到limit之间的数据，不改变position
+	 *
+	 * @param data 数据
+	 * @return Hash值 (2 longs)
+	 */
+	public static long[] hash128(ByteBuffer data) {
+		return HASHER_128.get().reset().put(data).hash();
+	}
+
+	/**
+	 * Murmur3 128-bit Hash值计算
+	 *
+	 * @param data 数据
+	 * @return Hash值 (2 longs)
+	 */
+	public static long[] hash128(MemorySegment data) {
+		return HASHER_128.get().reset().put(data).hash();
 	}
 
 	/**
@@ -334,6 +442,44 @@ public class MurmurHash implements Serializable {
 		return new long[]{h1, h2};
 	}
 
+	/**
+	 * 将字符序列中的最多8个字符按小端序组装为long，每个字符占一个字节
+	 *
+	 * @param data  字符序列
+	 * @param start 开始位置
+	 * @param count 字符数，不超过8
+	 * @return 组装后的值，存在非ASCII字符时返回-1
+	 */
+	private static long asciiBlock(CharSequence data, int start, int count) {
+		long k = 0;
+		int bits = 0;
+		for (int j = 0; j < count; j++) {
+			final char c = data.charAt(start + j);
+			bits |= c;
+			k |= (long) c << (j << 3);
+		}
+		return bits < 0x80 ? k : -1;
+	}
+
+	private static int mixTail32(int k1, int hash) {
+		k1 *= C1_32;
+		k1 = Integer.rotateLeft(k1, R1_32);
+		k1 *= C2_32;
+		return hash ^ k1;
+	}
+
+	private static long mixK1(long k1) {
+		k1 *= C1;
+		k1 = Long.rotateLeft(k1, R1);
+		return k1 * C2;
+	}
+
+	private static long mixK2(long k2) {
+		k2 *= C2;
+		k2 = Long.rotateLeft(k2, R3);
+		return k2 * C1;
+	}
+
 	private static int mix32(int k, int hash) {
 		k *= C1_32;
 		k = Integer.rotateLeft(k, R1_32);
@@ -359,4 +505,167 @@ public class MurmurHash implements Serializable {
 		h ^= (h >>> 33);
 		return h;
 	}
+
+	/**
+	 * 流式Murmur3 32-bit Hash计算，结果与{@link #hash32(byte[], int, int)}相同
+	 */
+	public static class Hasher32 extends AbstractBlockHasher<Hasher32> {
+		private final int seed;
+		private int hash;
+
+		/**
+		 * 构造
+		 *
+		 * @param seed 种子
+		 */
+		public Hasher32(int seed) {
+			super(4);
+			this.seed = seed;
+			this.hash = seed;
+		}
+
+		@Override
+		protected void process(long k1, long k2) {
+			hash = mix32((int) k1, hash);
+		}
+
+		@Override
+		public Hasher32 reset() {
+			hash = seed;
+			return super.reset();
+		}
+
+		/**
+		 * 计算当前已输入数据的Hash值，之后可继续输入
+		 *
+		 * @return Hash值
+		 */
+		public int hash() {
+			int hash = this.hash;
+			if (getTailLength() > 0) {
+				hash = mixTail32((int) getTail0(), hash);
+			}
+			hash ^= (int) getLength();
+			return fmix32(hash);
+		}
+	}
+
+	/**
+	 * 流式类Murmur3 64-bit Hash计算，结果与{@link #hash64(byte[], int, int)}相同
+	 */
+	public static class Hasher64 extends AbstractBlockHasher<Hasher64> {
+		private final int seed;
+		private long hash;
+
+		/**
+		 * 构造
+		 *
+		 * @param seed 种子
+		 */
+		public Hasher64(int seed) {
+			super(8);
+			this.seed = seed;
+			this.hash = seed;
+		}
+
+		@Override
+		protected void process(long k1, long k2) {
+			hash ^= mixK1(k1);
+			hash = Long.rotateLeft(hash, R2) * M + N1;
+		}
+
+		@Override
+		public Hasher64 reset() {
+			hash = seed;
+			return super.reset();
+		}
+
+		/**
+		 * 计算当前已输入数据的Hash值，之后可继续输入
+		 *
+		 * @return Hash值
+		 */
+		public long hash() {
+			long hash = this.hash;
+			if (getTailLength() > 0) {
+				hash ^= mixK1(getTail0());
+			}
+			hash ^= (int) getLength();
+			return fmix64(hash);
+		}
+	}
+
+	/**
+	 * 流式Murmur3 128-bit Hash计算，结果与{@link #hash128(byte[], int, int)}相同
+	 */
+	public static class Hasher128 extends AbstractBlockHasher<Hasher128> {
+		private final int seed;
+		private long h1;
+		private long h2;
+
+		/**
+		 * 构造
+		 *
+		 * @param seed 种子
+		 */
+		public Hasher128(int seed) {
+			super(16);
+			this.seed = seed;
+			this.h1 = seed;
+			this.h2 = seed;
+		}
+
+		@Override
+		protected void process(long k1, long k2) {
+			h1 ^= mixK1(k1);
+			h1 = Long.rotateLeft(h1, R2);
+			h1 += h2;
+			h1 = h1 * M + N1;
+
+			h2 ^= mixK2(k2);
+			h2 = Long.rotateLeft(h2, R1);
+			h2 += h1;
+			h2 = h2 * M + N2;
+		}
+
+		@Override
+		public Hasher128 reset() {
+			h1 = seed;
+			h2 = seed;
+			return super.reset();
+		}
+
+		/**
+		 * 计算当前已输入数据的Hash值，之后可继续输入
+		 *
+		 * @return Hash值(2 longs)
+		 */
+		public long[] hash() {
+			long h1 = this.h1;
+			long h2 = this.h2;
+			final int tailLength = getTailLength();
+			if (tailLength > 8) {
+				h2 ^= mixK2(getTail1());
+			}
+			if (tailLength > 0) {
+				h1 ^= mixK1(getTail0());
+			}
+
+			// finalization
+			final int length = (int) getLength();
+			h1 ^= length;
+			h2 ^= length;
+
+			h1 += h2;
+			h2 += h1;
+
+			h1 = fmix64(h1);
+			h2 = fmix64(h2);
+
+			h1 += h2;
+			h2 += h1;
+
+			return new long[]{h1, h2};
+		}
+	}
 }
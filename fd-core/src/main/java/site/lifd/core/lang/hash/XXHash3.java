@@ -0,0 +1,541 @@
+package site.lifd.core.lang.hash;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.nio.ByteOrder;
+
+/**
+ * XXH3 Hash算法，包括64位和128位，结果与xxHash 0.8的{@code XXH3_64bits_withSeed}、{@code XXH3_128bits_withSeed}一致<br>
+ * 不适用于加密，适合散列表、一致性Hash和分片等场景，16字节以上明显快于{@link MurmurHash}和{@link CityHash}，更短的数据与MurmurHash相当。
+ * <p>
+ * 数据按小端序以long整块读取，计算64位Hash的过程中不创建任何对象。
+ * 指定非0种子计算超过240字节的数据时需要由种子派生密钥，静态方法每次调用都会派生，
+ * 频繁使用同一种子时请创建此类的对象复用，密钥只在构造时派生一次。
+ * <p>
+ * 原始算法：https://github.com/Cyan4973/xxHash
+ *
+ * @author lifengdi
+ */
+public class XXHash3 implements Hash32<byte[]>, Hash64<byte[]>, Hash128<byte[]> {
+
+	private static final VarHandle INT_HANDLE = MethodHandles.byteArrayViewVarHandle(int[].class, ByteOrder.LITTLE_ENDIAN);
+	private static final VarHandle LONG_HANDLE = MethodHandles.byteArrayViewVarHandle(long[].class, ByteOrder.LITTLE_ENDIAN);
+
+	private static final long PRIME32_1 = 0x9E3779B1L;
+	private static final long PRIME32_2 = 0x85EBCA77L;
+	private static final long PRIME32_3 = 0xC2B2AE3DL;
+	private static final long PRIME64_1 = 0x9E3779B185EBCA87L;
+	private static final long PRIME64_2 = 0xC2B2AE3D27D4EB4FL;
+	private static final long PRIME64_3 = 0x165667B19E3779F9L;
+	private static final long PRIME64_4 = 0x85EBCA77C2B2AE63L;
+	private static final long PRIME64_5 = 0x27D4EB2F165667C5L;
+	private static final long PRIME_MX1 = 0x165667919E3779F9L;
+	private static final long PRIME_MX2 = 0x9FB21C651E98DF25L;
+
+	/**
+	 * 长数据每次处理的条带长度
+	 */
+	private static final int STRIPE_LEN = 64;
+	/**
+	 * 每块包含的条带数，每处理完一块扰乱一次累加器
+	 */
+	private static final int STRIPES_PER_BLOCK = 16;
+	/**
+	 * 密钥长度
+	 */
+	private static final int SECRET_SIZE = 192;
+	/**
+	 * 中等长度数据的最大长度，超过此长度按长数据处理
+	 */
+	private static final int MIDSIZE_MAX = 240;
+
+	/**
+	 * 默认密钥
+	 */
+	private static final byte[] SECRET = new byte[SECRET_SIZE];
+
+	static {
+		final long[] secret = {
+				0xbe4ba423396cfeb8L, 0x1cad21f72c81017cL, 0xdb979083e96dd4deL, 0x1f67b3b7a4a44072L,
+				0x78e5c0cc4ee679cbL, 0x2172ffcc7dd05a82L, 0x8e2443f7744608b8L, 0x4c263a81e69035e0L,
+				0xcb00c391bb52283cL, 0xa32e531b8b65d088L, 0x4ef90da297486471L, 0xd8acdea946ef1938L,
+				0x3f349ce33f76faa8L, 0x1d4f0bc7c7bbdcf9L, 0x3159b4cd4be0518aL, 0x647378d9c97e9fc8L,
+				0xc3ebd33483acc5eaL, 0xeb6313faffa081c5L, 0x49daf0b751dd0d17L, 0x9e68d429265516d3L,
+				0xfca1477d58be162bL, 0xce31d07ad1b8f88fL, 0x280416958f3acb45L, 0x7e404bbbcafbd7afL
+		};
+		for (int i = 0; i < secret.length; i++) {
+			LONG_HANDLE.set(SECRET, i << 3, secret[i]);
+		}
+	}
+
+	/**
+	 * 种子为0的实例，需在默认密钥初始化之后创建
+	 */
+	public static final XXHash3 DEFAULT = new XXHash3(0);
+
+	/**
+	 * 种子
+	 */
+	private final long seed;
+	/**
+	 * 由种子派生的密钥，用于长数据
+	 */
+	private final byte[] secret;
+
+	/**
+	 * 构造
+	 *
+	 * @param seed 种子
+	 */
+	public XXHash3(long seed) {
+		this.seed = seed;
+		this.secret = deriveSecret(seed);
+	}
+
+	/**
+	 * 计算32位Hash值，取64位Hash值的低32位
+	 *
+	 * @param data 数据
+	 * @return hash值
+	 */
+	@Override
+	public int hash32(byte[] data) {
+		return (int) hash64(data);
+	}
+
+	@Override
+	public long hash64(byte[] data) {
+		return hash64(data, 0, data.length, seed, secret);
+	}
+
+	@Override
+	public Number128 hash128(byte[] data) {
+		return hash128(data, 0, data.length, seed, secret);
+	}
+
+	@Override
+	public Number hash(byte[] data) {
+		return hash64(data);
+	}
+
+	/**
+	 * 计算64位Hash值
+	 *
+	 * @param data 数据
+	 * @param seed 种子
+	 * @return hash值
+	 */
+	public static long hash64(byte[] data, long seed) {
+		return hash64(data, 0, data.length, seed);
+	}
+
+	/**
+	 * 计算64位Hash值
+	 *
+	 * @param data   数据
+	 * @param offset 开始位置
+	 * @param length 长度
+	 * @param seed   种子
+	 * @return hash值
+	 */
+	public static long hash64(byte[] data, int offset, int length, long seed) {
+		checkRange(data, offset, length);
+		return hash64(data, offset, length, seed, length > MIDSIZE_MAX ? deriveSecret(seed) : SECRET);
+	}
+
+	/**
+	 * 计算128位Hash值
+	 *
+	 * @param data 数据
+	 * @param seed 种子
+	 * @return hash值
+	 */
+	public static Number128 hash128(byte[] data, long seed) {
+		return hash128(data, 0, data.length, seed);
+	}
+
+	/**
+	 * 计算128位Hash值
+	 *
+	 * @param data   数据
+	 * @param offset 开始位置
+	 * @param length 长度
+	 * @param seed   种子
+	 * @return hash值
+	 */
+	public static Number128 hash128(byte[] data, int offset, int length, long seed) {
+		checkRange(data, offset, length);
+		return hash128(data, offset, length, seed, length > MIDSIZE_MAX ? deriveSecret(seed) : SECRET);
+	}
+
+	// ------------------------------------------------------------------------------------------------------- 64 bits
+
+	/**
+	 * 计算64位Hash值
+	 *
+	 * @param data   数据
+	 * @param off    开始位置
+	 * @param len    长度
+	 * @param seed   种子
+	 * @param secret 由种子派生的密钥，仅长数据使用
+	 * @return hash值
+	 */
+	private static long hash64(byte[] data, int off, int len, long seed, byte[] secret) {
+		if (len <= 16) {
+			if (len > 8) {
+				final long bitFlip1 = (readLong(SECRET, 24) ^ readLong(SECRET, 32)) + seed;
+				final long bitFlip2 = (readLong(SECRET, 40) ^ readLong(SECRET, 48)) - seed;
+				final long low = readLong(data, off) ^ bitFlip1;
+				final long high = readLong(data, off + len - 8) ^ bitFlip2;
+				return avalanche(len + Long.reverseBytes(low) + high + mul128Fold64(low, high));
+			}
+			if (len >= 4) {
+				seed ^= (long) Integer.reverseBytes((int) seed) << 32;
+				final long bitFlip = (readLong(SECRET, 8) ^ readLong(SECRET, 16)) - seed;
+				final long input = readInt(data, off + len - 4) + (readInt(data, off) << 32);
+				return rrmxmx(input ^ bitFlip, len);
+			}
+			if (len > 0) {
+				final long bitFlip = (readInt(SECRET, 0) ^ readInt(SECRET, 4)) + seed;
+				return xxh64Avalanche(combine1to3(data, off, len) ^ bitFlip);
+			}
+			return xxh64Avalanche(seed ^ readLong(SECRET, 56) ^ readLong(SECRET, 64));
+		}
+
+		if (len <= 128) {
+			long acc = len * PRIME64_1;
+			if (len > 32) {
+				if (len > 64) {
+					if (len > 96) {
+						acc += mix16B(data, off + 48, 96, seed);
+						acc += mix16B(data, off + len - 64, 112, seed);
+					}
+					acc += mix16B(data, off + 32, 64, seed);
+					acc += mix16B(data, off + len - 48, 80, seed);
+				}
+				acc += mix16B(data, off + 16, 32, seed);
+				acc += mix16B(data, off + len - 32, 48, seed);
+			}
+			acc += mix16B(data, off, 0, seed);
+			acc += mix16B(data, off + len - 16, 16, seed);
+			return avalanche(acc);
+		}
+
+		if (len <= MIDSIZE_MAX) {
+			final int rounds = len >> 4;
+			long acc = len * PRIME64_1;
+			for (int i = 0; i < 8; i++) {
+				acc += mix16B(data, off + (i << 4), i << 4, seed);
+			}
+			acc = avalanche(acc);
+			for (int i = 8; i < rounds; i++) {
+				acc += mix16B(data, off + (i << 4), ((i - 8) << 4) + 3, seed);
+			}
+			acc += mix16B(data, off + len - 16, 119, seed);
+			return avalanche(acc);
+		}
+
+		return hashLong(data, off, len, secret, null);
+	}
+
+	// ------------------------------------------------------------------------------------------------------- 128 bits
+
+	/**
+	 * 计算128位Hash值
+	 *
+	 * @param data   数据
+	 * @param off    开始位置
+	 * @param len    长度
+	 * @param seed   种子
+	 * @param secret 由种子派生的密钥，仅长数据使用
+	 * @return hash值
+	 */
+	private static Number128 hash128(byte[] data, int off, int len, long seed, byte[] secret) {
+		if (len <= 16) {
+			if (len > 8) {
+				final long bitFlipL = (readLong(SECRET, 32) ^ readLong(SECRET, 40)) - seed;
+				final long bitFlipH = (readLong(SECRET, 48) ^ readLong(SECRET, 56)) + seed;
+				final long inputLow = readLong(data, off);
+				long inputHigh = readLong(data, off + len - 8);
+				final long keyed = inputLow ^ inputHigh ^ bitFlipL;
+				long mLow = keyed * PRIME64_1;
+				long mHigh = Math.unsignedMultiplyHigh(keyed, PRIME64_1);
+				mLow += (long) (len - 1) << 54;
+				inputHigh ^= bitFlipH;
+				mHigh += inputHigh + (inputHigh & 0xffffffffL) * (PRIME32_2 - 1);
+				mLow ^= Long.reverseBytes(mHigh);
+				final long hHigh = Math.unsignedMultiplyHigh(mLow, PRIME64_2) + mHigh * PRIME64_2;
+				return new Number128(avalanche(mLow * PRIME64_2), avalanche(hHigh));
+			}
+			if (len >= 4) {
+				seed ^= (long) Integer.reverseBytes((int) seed) << 32;
+				final long bitFlip = (readLong(SECRET, 16) ^ readLong(SECRET, 24)) + seed;
+				final long keyed = (readInt(data, off) + (readInt(data, off + len - 4) << 32)) ^ bitFlip;
+				final long multiplier = PRIME64_1 + ((long) len << 2);
+				long mLow = keyed * multiplier;
+				long mHigh = Math.unsignedMultiplyHigh(keyed, multiplier);
+				mHigh += mLow << 1;
+				mLow ^= mHigh >>> 3;
+				mLow ^= mLow >>> 35;
+				mLow *= PRIME_MX2;
+				mLow ^= mLow >>> 28;
+				return new Number128(mLow, avalanche(mHigh));
+			}
+			if (len > 0) {
+				final long combinedL = combine1to3(data, off, len);
+				final long combinedH = Integer.rotateLeft(Integer.reverseBytes((int) combinedL), 13) & 0xffffffffL;
+				final long bitFlipL = (readInt(SECRET, 0) ^ readInt(SECRET, 4)) + seed;
+				final long bitFlipH = (readInt(SECRET, 8) ^ readInt(SECRET, 12)) - seed;
+				return new Number128(xxh64Avalanche(combinedL ^ bitFlipL), xxh64Avalanche(combinedH ^ bitFlipH));
+			}
+			return new Number128(xxh64Avalanche(seed ^ readLong(SECRET, 64) ^ readLong(SECRET, 72)),
+					xxh64Avalanche(seed ^ readLong(SECRET, 80) ^ readLong(SECRET, 88)));
+		}
+
+		long low = len * PRIME64_1;
+		long high = 0;
+		if (len <= 128) {
+			if (len > 32) {
+				if (len > 64) {
+					if (len > 96) {
+						low = mix32B(low, data, off + 48, off + len - 64, 96, seed);
+						high = mix32B(high, data, off + len - 64, off + 48, 112, seed);
+					}
+					low = mix32B(low, data, off + 32, off + len - 48, 64, seed);
+					high = mix32B(high, data, off + len - 48, off + 32, 80, seed);
+				}
+				low = mix32B(low, data, off + 16, off + len - 32, 32, seed);
+				high = mix32B(high, data, off + len - 32, off + 16, 48, seed);
+			}
+			low = mix32B(low, data, off, off + len - 16, 0, seed);
+			high = mix32B(high, data, off + len - 16, off, 16, seed);
+			return finalize128(low, high, len, seed);
+		}
+
+		if (len <= MIDSIZE_MAX) {
+			final int rounds = len >> 5;
+			for (int i = 0; i < 4; i++) {
+				final int p = off + (i << 5);
+				low = mix32B(low, data, p, p + 16, i << 5, seed);
+				high = mix32B(high, data, p + 16, p, (i << 5) + 16, seed);
+			}
+			low = avalanche(low);
+			high = avalanche(high);
+			for (int i = 4; i < rounds; i++) {
+				final int p = off + (i << 5);
+				low = mix32B(low, data, p, p + 16, ((i - 4) << 5) + 3, seed);
+				high = mix32B(high, data, p + 16, p, ((i - 4) << 5) + 19, seed);
+			}
+			low = mix32B(low, data, off + len - 16, off + len - 32, 103, -seed);
+			high = mix32B(high, data, off + len - 32, off + len - 16, 119, -seed);
+			return finalize128(low, high, len, seed);
+		}
+
+		final Number128 result = new Number128(0, 0);
+		hashLong(data, off, len, secret, result);
+		return result;
+	}
+
+	/**
+	 * 17~240字节数据计算128位Hash值的最后一步
+	 *
+	 * @param low  低位累加值
+	 * @param high 高位累加值
+	 * @param len  长度
+	 * @param seed 种子
+	 * @return hash值
+	 */
+	private static Number128 finalize128(long low, long high, int len, long seed) {
+		final long h1 = low + high;
+		final long h2 = low * PRIME64_1 + high * PRIME64_4 + (len - seed) * PRIME64_2;
+		return new Number128(avalanche(h1), -avalanche(h2));
+	}
+
+	// ------------------------------------------------------------------------------------------------------- long input
+
+	/**
+	 * 计算超过240字节的数据的Hash值<br>
+	 * 8个累加器使用局部变量，每64字节的条带是8路互不依赖的乘加，便于JIT展开和并行执行。
+	 *
+	 * @param data   数据
+	 * @param off    开始位置
+	 * @param len    长度
+	 * @param secret 由种子派生的密钥
+	 * @param result 为{@code null}时返回64位Hash值，否则将128位Hash值写入此对象
+	 * @return 64位hash值，计算128位时返回0
+	 */
+	private static long hashLong(byte[] data, int off, int len, byte[] secret, Number128 result) {
+		long a0 = PRIME32_3, a1 = PRIME64_1, a2 = PRIME64_2, a3 = PRIME64_3;
+		long a4 = PRIME64_4, a5 = PRIME32_2, a6 = PRIME64_5, a7 = PRIME32_1;
+
+		// 完整的块之后是不足一块的整条带，最后一个条带固定取末尾64字节，与前一条带可能重叠
+		final int blockLen = STRIPE_LEN * STRIPES_PER_BLOCK;
+		final int blocks = (len - 1) / blockLen;
+		final int stripes = blocks * STRIPES_PER_BLOCK + ((len - 1) - blocks * blockLen) / STRIPE_LEN;
+		for (int s = 0; s <= stripes; s++) {
+			final boolean last = s == stripes;
+			final int p = last ? off + len - STRIPE_LEN : off + s * STRIPE_LEN;
+			final int k = last ? SECRET_SIZE - STRIPE_LEN - 7 : (s % STRIPES_PER_BLOCK) << 3;
+
+			final long v0 = readLong(data, p);
+			final long v1 = readLong(data, p + 8);
+			final long v2 = readLong(data, p + 16);
+			final long v3 = readLong(data, p + 24);
+			final long v4 = readLong(data, p + 32);
+			final long v5 = readLong(data, p + 40);
+			final long v6 = readLong(data, p + 48);
+			final long v7 = readLong(data, p + 56);
+			a0 += v1 + mul32(v0 ^ readLong(secret, k));
+			a1 += v0 + mul32(v1 ^ readLong(secret, k + 8));
+			a2 += v3 + mul32(v2 ^ readLong(secret, k + 16));
+			a3 += v2 + mul32(v3 ^ readLong(secret, k + 24));
+			a4 += v5 + mul32(v4 ^ readLong(secret, k + 32));
+			a5 += v4 + mul32(v5 ^ readLong(secret, k + 40));
+			a6 += v7 + mul32(v6 ^ readLong(secret, k + 48));
+			a7 += v6 + mul32(v7 ^ readLong(secret, k + 56));
+
+			if (false == last && STRIPES_PER_BLOCK - 1 == s % STRIPES_PER_BLOCK) {
+				final int m = SECRET_SIZE - STRIPE_LEN;
+				a0 = scramble(a0, readLong(secret, m));
+				a1 = scramble(a1, readLong(secret, m + 8));
+				a2 = scramble(a2, readLong(secret, m + 16));
+				a3 = scramble(a3, readLong(secret, m + 24));
+				a4 = scramble(a4, readLong(secret, m + 32));
+				a5 = scramble(a5, readLong(secret, m + 40));
+				a6 = scramble(a6, readLong(secret, m + 48));
+				a7 = scramble(a7, readLong(secret, m + 56));
+			}
+		}
+
+		final long low = mergeAccs(secret, 11, len * PRIME64_1, a0, a1, a2, a3, a4, a5, a6, a7);
+		if (null == result) {
+			return low;
+		}
+		result.setLowValue(low);
+		result.setHighValue(mergeAccs(secret, SECRET_SIZE - STRIPE_LEN - 11, ~(len * PRIME64_2), a0, a1, a2, a3, a4, a5, a6, a7));
+		return 0;
+	}
+
+	/**
+	 * 合并8个累加器
+	 *
+	 * @param secret 密钥
+	 * @param k      密钥开始位置
+	 * @param start  初始值
+	 * @return 合并结果
+	 */
+	private static long mergeAccs(byte[] secret, int k, long start, long a0, long a1, long a2, long a3, long a4, long a5, long a6, long a7) {
+		long result = start;
+		result += mul128Fold64(a0 ^ readLong(secret, k), a1 ^ readLong(secret, k + 8));
+		result += mul128Fold64(a2 ^ readLong(secret, k + 16), a3 ^ readLong(secret, k + 24));
+		result += mul128Fold64(a4 ^ readLong(secret, k + 32), a5 ^ readLong(secret, k + 40));
+		result += mul128Fold64(a6 ^ readLong(secret, k + 48), a7 ^ readLong(secret, k + 56));
+		return avalanche(result);
+	}
+
+	/**
+	 * 扰乱累加器
+	 *
+	 * @param acc 累加器
+	 * @param key 密钥
+	 * @return 扰乱后的值
+	 */
+	private static long scramble(long acc, long key) {
+		return (acc ^ (acc >>> 47) ^ key) * PRIME32_1;
+	}
+
+	/**
+	 * 由种子派生长数据使用的密钥
+	 *
+	 * @param seed 种子
+	 * @return 密钥，种子为0时为默认密钥
+	 */
+	private static byte[] deriveSecret(long seed) {
+		if (0 == seed) {
+			return SECRET;
+		}
+		final byte[] secret = new byte[SECRET_SIZE];
+		for (int i = 0; i < SECRET_SIZE; i += 16) {
+			LONG_HANDLE.set(secret, i, readLong(SECRET, i) + seed);
+			LONG_HANDLE.set(secret, i + 8, readLong(SECRET, i + 8) - seed);
+		}
+		return secret;
+	}
+
+	// ------------------------------------------------------------------------------------------------------- mix
+
+	/**
+	 * 1~3字节数据组合为32位整数
+	 */
+	private static long combine1to3(byte[] data, int off, int len) {
+		final int c1 = data[off] & 0xff;
+		final int c2 = data[off + (len >> 1)] & 0xff;
+		final int c3 = data[off + len - 1] & 0xff;
+		return ((c1 << 16) | (c2 << 24) | c3 | (len << 8)) & 0xffffffffL;
+	}
+
+	/**
+	 * 混合16字节数据，使用默认密钥
+	 */
+	private static long mix16B(byte[] data, int p, int k, long seed) {
+		return mul128Fold64(readLong(data, p) ^ (readLong(SECRET, k) + seed),
+				readLong(data, p + 8) ^ (readLong(SECRET, k + 8) - seed));
+	}
+
+	/**
+	 * 混合32字节数据到128位结果的一半，另一半交换p1和p2、密钥位置加16后调用
+	 */
+	private static long mix32B(long acc, byte[] data, int p1, int p2, int k, long seed) {
+		return (acc + mix16B(data, p1, k, seed)) ^ (readLong(data, p2) + readLong(data, p2 + 8));
+	}
+
+	/**
+	 * 64位乘法得到128位结果，返回高低64位的异或
+	 */
+	private static long mul128Fold64(long a, long b) {
+		return a * b ^ Math.unsignedMultiplyHigh(a, b);
+	}
+
+	/**
+	 * 低32位与高32位无符号相乘
+	 */
+	private static long mul32(long k) {
+		return (k & 0xffffffffL) * (k >>> 32);
+	}
+
+	private static long avalanche(long h) {
+		h ^= h >>> 37;
+		h *= PRIME_MX1;
+		return h ^ (h >>> 32);
+	}
+
+	private static long xxh64Avalanche(long h) {
+		h ^= h >>> 33;
+		h *= PRIME64_2;
+		h ^= h >>> 29;
+		h *= PRIME64_3;
+		return h ^ (h >>> 32);
+	}
+
+	private static long rrmxmx(long h, int len) {
+		h ^= Long.rotateLeft(h, 49) ^ Long.rotateLeft(h, 24);
+		h *= PRIME_MX2;
+		h ^= (h >>> 35) + len;
+		h *= PRIME_MX2;
+		return h ^ (h >>> 28);
+	}
+
+	private static long readLong(byte[] data, int index) {
+		return (long) LONG_HANDLE.get(data, index);
+	}
+
+	private static long readInt(byte[] data, int index) {
+		return (int) INT_HANDLE.get(data, index) & 0xffffffffL;
+	}
+
+	private static void checkRange(byte[] data, int offset, int length) {
+		if (offset < 0 || length < 0 || offset + length > data.length) {
+			throw new IndexOutOfBoundsException("offset: " + offset + ", length: " + length + ", size: " + data.length);
+		}
+	}
+}
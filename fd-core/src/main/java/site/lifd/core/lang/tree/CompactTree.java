@@ -0,0 +1,548 @@
+package site.lifd.core.lang.tree;
+
+import site.lifd.core.comparator.CompareUtil;
+import site.lifd.core.lang.Assert;
+import site.lifd.core.map.MapUtil;
+
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.function.Function;
+import java.util.function.IntConsumer;
+
+/**
+ * 紧凑的只读树结构<br>
+ * 与{@link Tree}每个节点一个{@link java.util.LinkedHashMap}不同，此类将所有节点的ID、名称、权重和父子关系保存在平行数组中，
+ * 每个节点只占用三个引用和三个int（保留扩展字段时多一个引用），适合百万级节点的菜单、地区等树。
+ * <p>
+ * 节点按深度优先先序排列，以数组下标表示，任一节点的子树为连续的下标区间[index, subtreeEnd)，因此：
+ * <ul>
+ *     <li>遍历子树只需顺序扫描一段数组，无需递归</li>
+ *     <li>判断祖先关系只需比较下标，为O(1)</li>
+ *     <li>第一个子节点为index + 1，下一个兄弟节点为subtreeEnd，均无需额外存储</li>
+ * </ul>
+ * 构建规则与{@link TreeBuilder}一致：父ID为根ID的节点为顶层节点，兄弟节点按权重升序排列（权重相同保持原顺序），
+ * ID重复时保留最后一个，ID与根ID相同的节点、父节点不存在或成环的节点被忽略。需要序列化为JSON等格式时可通过{@link #toTree(TreeNodeConfig)}转换为{@link Tree}。
+ * 由{@link TreeNode}列表构建时保留其扩展字段，转换为{@link Tree}时一并写回；函数式构建不保存扩展字段。
+ *
+ * @param <T> ID类型
+ * @author lifengdi
+ */
+public class CompactTree<T> implements Serializable {
+	private static final long serialVersionUID = 1L;
+
+	/** 根ID，不对应任何节点 */
+	private final T rootId;
+	/** 节点ID */
+	private final Object[] ids;
+	/** 节点名称，构建时未提供名称则为null */
+	private final CharSequence[] names;
+	/** 节点权重，构建时未提供权重则为null */
+	private final Comparable<?>[] weights;
+	/** 节点扩展字段，仅由{@link TreeNode}列表构建时保存，否则为null */
+	private final Map<String, Object>[] extras;
+	/** 父节点下标，顶层节点为-1 */
+	private final int[] parents;
+	/** 子树结束下标（不包含） */
+	private final int[] subtreeEnds;
+	/** 深度，顶层节点为0 */
+	private final int[] depths;
+	/** ID到下标的索引，首次按ID查找时创建 */
+	private transient volatile Map<Object, Integer> indexMap;
+
+	/**
+	 * 由{@link TreeNode}列表构建
+	 *
+	 * @param <T>    ID类型
+	 * @param list   源数据集合
+	 * @param rootId 最顶层父id值 一般为 0 之类
+	 * @return CompactTree
+	 */
+	public static <T> CompactTree<T> of(List<TreeNode<T>> list, T rootId) {
+		return of(list, rootId, TreeNode::getId, TreeNode::getParentId, TreeNode::getName, TreeNode::getWeight, TreeNode::getExtra);
+	}
+
+	/**
+	 * 函数式构建，无需将源数据转换为{@link TreeNode}
+	 *
+	 * @param <E>          源数据类型
+	 * @param <T>          ID类型
+	 * @param list         源数据集合
+	 * @param rootId       最顶层父id值 一般为 0 之类
+	 * @param idFunc       获取节点ID函数
+	 * @param parentIdFunc 获取节点父ID函数
+	 * @param nameFunc     获取节点名称函数，{@code null}表示不保存名称
+	 * @param weightFunc   获取节点权重函数，{@code null}表示不保存权重，兄弟节点保持原顺序
+	 * @return CompactTree
+	 */
+	public static <E, T> CompactTree<T> of(List<E> list, T rootId,
+										   Function<E, T> idFunc,
+										   Function<E, T> parentIdFunc,
+										   Function<E, ? extends CharSequence> nameFunc,
+										   Function<E, ? extends Comparable<?>> weightFunc) {
+		return of(list, rootId, idFunc, parentIdFunc, nameFunc, weightFunc, null);
+	}
+
+	/**
+	 * 函数式构建
+	 *
+	 * @param <E>          源数据类型
+	 * @param <T>          ID类型
+	 * @param list         源数据集合
+	 * @param rootId       最顶层父id值 一般为 0 之类
+	 * @param idFunc       获取节点ID函数
+	 * @param parentIdFunc 获取节点父ID函数
+	 * @param nameFunc     获取节点名称函数，{@code null}表示不保存名称
+	 * @param weightFunc   获取节点权重函数，{@code null}表示不保存权重，兄弟节点保持原顺序
+	 * @param extraFunc    获取节点扩展字段函数，{@code null}表示不保存扩展字段
+	 * @return CompactTree
+	 */
+	@SuppressWarnings("unchecked")
+	private static <E, T> CompactTree<T> of(List<E> list, T rootId,
+											Function<E, T> idFunc,
+											Function<E, T> parentIdFunc,
+											Function<E, ? extends CharSequence> nameFunc,
+											Function<E, ? extends Comparable<?>> weightFunc,
+											Function<E, Map<String, Object>> extraFunc) {
+		Assert.notNull(idFunc, "idFunc must be not null !");
+		Assert.notNull(parentIdFunc, "parentIdFunc must be not null !");
+		final int size = list.size();
+		final Object[] ids = new Object[size];
+		final Comparable<?>[] weights = (null == weightFunc) ? null : new Comparable<?>[size];
+		final Map<Object, Integer> indexMap = new HashMap<>(size * 4 / 3 + 1);
+		int i = 0;
+		for (E e : list) {
+			ids[i] = idFunc.apply(e);
+			if (null != weights) {
+				weights[i] = weightFunc.apply(e);
+			}
+			// ID重复时保留最后一个
+			indexMap.put(ids[i], i);
+			i++;
+		}
+
+		// 兄弟节点的顺序：按权重稳定排序后的源数据下标
+		final int[] order = sortByWeight(size, weights);
+
+		// 按父节点分组，格式同CSR：下标为p + 1的分组存放父节点p的子节点，0号分组存放顶层节点
+		final int[] parentOf = new int[size];
+		final int[] groupStarts = new int[size + 2];
+		Arrays.fill(parentOf, Integer.MIN_VALUE);
+		i = 0;
+		for (E e : list) {
+			// 与根ID相同的节点作为根，不单独保留
+			if (indexMap.get(ids[i]) == i && false == Objects.equals(rootId, ids[i])) {
+				final T parentId = parentIdFunc.apply(e);
+				if (Objects.equals(rootId, parentId)) {
+					parentOf[i] = -1;
+				} else {
+					final Integer parent = indexMap.get(parentId);
+					if (null != parent) {
+						parentOf[i] = parent;
+					}
+				}
+				if (Integer.MIN_VALUE != parentOf[i]) {
+					groupStarts[parentOf[i] + 2]++;
+				}
+			}
+			i++;
+		}
+		for (int g = 1; g < groupStarts.length; g++) {
+			groupStarts[g] += groupStarts[g - 1];
+		}
+		final int[] groups = new int[groupStarts[size + 1]];
+		final int[] cursor = Arrays.copyOf(groupStarts, size + 1);
+		for (int k : order) {
+			if (Integer.MIN_VALUE != parentOf[k]) {
+				groups[cursor[parentOf[k] + 1]++] = k;
+			}
+		}
+
+		// 从顶层节点开始深度优先先序遍历，分配新下标
+		final int[] sourceIndexes = new int[groups.length];
+		final int[] parents = new int[groups.length];
+		final int[] subtreeEnds = new int[groups.length];
+		final int[] depths = new int[groups.length];
+		// 栈中保存新下标，同时记录每一层下一个待访问的分组位置
+		final int[] stackNode = new int[groups.length + 1];
+		final int[] stackNext = new int[groups.length + 1];
+		int top = 0;
+		stackNode[0] = -1;
+		stackNext[0] = groupStarts[0];
+		int count = 0;
+		while (top >= 0) {
+			final int node = stackNode[top];
+			final int group = (node < 0) ? 0 : sourceIndexes[node] + 1;
+			if (stackNext[top] < groupStarts[group + 1]) {
+				final int source = groups[stackNext[top]++];
+				sourceIndexes[count] = source;
+				parents[count] = node;
+				depths[count] = top;
+				top++;
+				stackNode[top] = count;
+				stackNext[top] = groupStarts[source + 1];
+				count++;
+			} else {
+				if (node >= 0) {
+					subtreeEnds[node] = count;
+				}
+				top--;
+			}
+		}
+
+		// 成环的节点无法从顶层节点到达，不计入结果
+		final Object[] newIds = new Object[count];
+		final CharSequence[] newNames = (null == nameFunc) ? null : new CharSequence[count];
+		final Comparable<?>[] newWeights = (null == weights) ? null : new Comparable<?>[count];
+		final Map<String, Object>[] newExtras = (null == extraFunc) ? null : new Map[count];
+		for (int k = 0; k < count; k++) {
+			final int source = sourceIndexes[k];
+			newIds[k] = ids[source];
+			if (null != newNames) {
+				newNames[k] = nameFunc.apply(list.get(source));
+			}
+			if (null != newWeights) {
+				newWeights[k] = weights[source];
+			}
+			if (null != newExtras) {
+				newExtras[k] = extraFunc.apply(list.get(source));
+			}
+		}
+		return new CompactTree<>(rootId, newIds, newNames, newWeights, newExtras,
+				Arrays.copyOf(parents, count), Arrays.copyOf(subtreeEnds, count), Arrays.copyOf(depths, count));
+	}
+
+	/**
+	 * 构造
+	 *
+	 * @param rootId      根ID
+	 * @param ids         按先序排列的节点ID
+	 * @param names       节点名称，可以为null
+	 * @param weights     节点权重，可以为null
+	 * @param extras      节点扩展字段，可以为null
+	 * @param parents     父节点下标
+	 * @param subtreeEnds 子树结束下标
+	 * @param depths      深度
+	 */
+	private CompactTree(T rootId, Object[] ids, CharSequence[] names, Comparable<?>[] weights,
+						Map<String, Object>[] extras, int[] parents, int[] subtreeEnds, int[] depths) {
+		this.rootId = rootId;
+		this.ids = ids;
+		this.names = names;
+		this.weights = weights;
+		this.extras = extras;
+		this.parents = parents;
+		this.subtreeEnds = subtreeEnds;
+		this.depths = depths;
+	}
+
+	/**
+	 * @return 根ID
+	 */
+	public T getRootId() {
+		return rootId;
+	}
+
+	/**
+	 * @return 节点数，不包括根
+	 */
+	public int size() {
+		return ids.length;
+	}
+
+	/**
+	 * 获取ID对应的节点下标<br>
+	 * 首次调用时创建ID索引
+	 *
+	 * @param id 节点ID
+	 * @return 节点下标，不存在返回-1
+	 */
+	public int indexOf(T id) {
+		Map<Object, Integer> indexMap = this.indexMap;
+		if (null == indexMap) {
+			indexMap = new HashMap<>(ids.length * 4 / 3 + 1);
+			for (int i = 0; i < ids.length; i++) {
+				indexMap.put(ids[i], i);
+			}
+			this.indexMap = indexMap;
+		}
+		final Integer index = indexMap.get(id);
+		return (null == index) ? -1 : index;
+	}
+
+	/**
+	 * @param index 节点下标
+	 * @return 节点ID
+	 */
+	@SuppressWarnings("unchecked")
+	public T getId(int index) {
+		return (T) ids[index];
+	}
+
+	/**
+	 * @param index 节点下标
+	 * @return 节点名称，构建时未提供名称返回null
+	 */
+	public CharSequence getName(int index) {
+		return (null == names) ? null : names[Objects.checkIndex(index, ids.length)];
+	}
+
+	/**
+	 * @param index 节点下标
+	 * @return 节点权重，构建时未提供权重返回null
+	 */
+	public Comparable<?> getWeight(int index) {
+		return (null == weights) ? null : weights[Objects.checkIndex(index, ids.length)];
+	}
+
+	/**
+	 * @param index 节点下标
+	 * @return 父节点下标，顶层节点返回-1
+	 */
+	public int getParent(int index) {
+		return parents[index];
+	}
+
+	/**
+	 * @param index 节点下标
+	 * @return 父节点ID，顶层节点返回根ID
+	 */
+	public T getParentId(int index) {
+		final int parent = parents[index];
+		return (parent < 0) ? rootId : getId(parent);
+	}
+
+	/**
+	 * @param index 节点下标
+	 * @return 深度，顶层节点为0
+	 */
+	public int getDepth(int index) {
+		return depths[index];
+	}
+
+	/**
+	 * @param index 节点下标
+	 * @return 子树结束下标（不包含），子树为[index, subtreeEnd)
+	 */
+	public int getSubtreeEnd(int index) {
+		return subtreeEnds[index];
+	}
+
+	/**
+	 * @param index 节点下标
+	 * @return 子树节点数，包括自身
+	 */
+	public int getSubtreeSize(int index) {
+		return subtreeEnds[index] - index;
+	}
+
+	/**
+	 * @param index 节点下标
+	 * @return 是否有子节点
+	 */
+	public boolean hasChild(int index) {
+		return subtreeEnds[index] > index + 1;
+	}
+
+	/**
+	 * @param index 节点下标
+	 * @return 第一个子节点下标，没有子节点返回-1
+	 */
+	public int getFirstChild(int index) {
+		return hasChild(index) ? index + 1 : -1;
+	}
+
+	/**
+	 * @param index 节点下标
+	 * @return 下一个兄弟节点下标，没有返回-1
+	 */
+	public int getNextSibling(int index) {
+		final int next = subtreeEnds[index];
+		final int parent = parents[index];
+		final int parentEnd = (parent < 0) ? ids.length : subtreeEnds[parent];
+		return (next < parentEnd) ? next : -1;
+	}
+
+	/**
+	 * @return 第一个顶层节点下标，空树返回-1，其余顶层节点通过{@link #getNextSibling(int)}获取
+	 */
+	public int getFirstRoot() {
+		return (0 == ids.length) ? -1 : 0;
+	}
+
+	/**
+	 * 获取子节点下标
+	 *
+	 * @param index 节点下标
+	 * @return 子节点下标
+	 */
+	public int[] getChildren(int index) {
+		int count = 0;
+		for (int c = getFirstChild(index); c >= 0; c = getNextSibling(c)) {
+			count++;
+		}
+		final int[] children = new int[count];
+		count = 0;
+		for (int c = getFirstChild(index); c >= 0; c = getNextSibling(c)) {
+			children[count++] = c;
+		}
+		return children;
+	}
+
+	/**
+	 * 判断是否为祖先节点
+	 *
+	 * @param ancestor 祖先节点下标
+	 * @param index    节点下标
+	 * @return ancestor是否为index的祖先节点，节点不是自身的祖先
+	 */
+	public boolean isAncestor(int ancestor, int index) {
+		Objects.checkIndex(index, ids.length);
+		return ancestor < index && index < subtreeEnds[ancestor];
+	}
+
+	/**
+	 * 按先序遍历子树，包括节点自身
+	 *
+	 * @param index    节点下标
+	 * @param consumer 节点下标处理器
+	 */
+	public void walk(int index, IntConsumer consumer) {
+		final int end = subtreeEnds[index];
+		for (int i = index; i < end; i++) {
+			consumer.accept(i);
+		}
+	}
+
+	/**
+	 * 按先序遍历所有节点
+	 *
+	 * @param consumer 节点下标处理器
+	 */
+	public void walk(IntConsumer consumer) {
+		for (int i = 0; i < ids.length; i++) {
+			consumer.accept(i);
+		}
+	}
+
+	/**
+	 * 获取从顶层节点到此节点的路径
+	 *
+	 * @param index 节点下标
+	 * @return 路径上的节点下标，第一个为顶层节点，最后一个为此节点
+	 */
+	public int[] getPath(int index) {
+		final int[] path = new int[depths[index] + 1];
+		for (int i = path.length - 1; i >= 0; i--) {
+			path[i] = index;
+			index = parents[index];
+		}
+		return path;
+	}
+
+	/**
+	 * 获取所有父节点ID列表，与{@link TreeUtil#getParentsId(Tree, boolean)}一致，由近到远排列，不包括根ID
+	 *
+	 * @param index              节点下标
+	 * @param includeCurrentNode 是否包含当前节点
+	 * @return 所有父节点ID列表
+	 */
+	public List<T> getParentsId(int index, boolean includeCurrentNode) {
+		final List<T> result = new ArrayList<>(depths[index] + 1);
+		if (includeCurrentNode) {
+			result.add(getId(index));
+		}
+		for (int p = parents[index]; p >= 0; p = parents[p]) {
+			result.add(getId(p));
+		}
+		return result;
+	}
+
+	/**
+	 * 获取所有父节点名称列表，与{@link TreeUtil#getParentsName(Tree, boolean)}一致，由近到远排列，不包括根
+	 *
+	 * @param index              节点下标
+	 * @param includeCurrentNode 是否包含当前节点的名称
+	 * @return 所有父节点名称列表
+	 */
+	public List<CharSequence> getParentsName(int index, boolean includeCurrentNode) {
+		final List<CharSequence> result = new ArrayList<>(depths[index] + 1);
+		if (includeCurrentNode) {
+			result.add(getName(index));
+		}
+		for (int p = parents[index]; p >= 0; p = parents[p]) {
+			result.add(getName(p));
+		}
+		return result;
+	}
+
+	/**
+	 * 转换为{@link Tree}，用于序列化或兼容原有接口，结果与{@link TreeUtil#buildSingle(List, Object)}结构一致，由{@link TreeNode}列表构建时包括扩展字段
+	 *
+	 * @param config 配置，{@code null}表示默认配置
+	 * @return 以根ID为ID的根节点
+	 */
+	public Tree<T> toTree(TreeNodeConfig config) {
+		final Tree<T> root = new Tree<T>(config).setId(rootId);
+		final List<Tree<T>> nodes = new ArrayList<>(ids.length);
+		for (int i = 0; i < ids.length; i++) {
+			final Tree<T> node = new Tree<T>(config).setId(getId(i)).setParentId(getParentId(i));
+			if (null != names) {
+				node.setName(names[i]);
+			}
+			if (null != weights) {
+				node.setWeight(weights[i]);
+			}
+			if (null != extras && MapUtil.isNotEmpty(extras[i])) {
+				extras[i].forEach(node::putExtra);
+			}
+			// 先序排列，父节点总在子节点之前创建，兄弟节点按顺序加入
+			final int parent = parents[i];
+			(parent < 0 ? root : nodes.get(parent)).addChildren(node);
+			nodes.add(node);
+		}
+		return root;
+	}
+
+	/**
+	 * 转换为{@link Tree}列表，结果与{@link TreeUtil#build(List, Object)}结构一致，由{@link TreeNode}列表构建时包括扩展字段
+	 *
+	 * @param config 配置，{@code null}表示默认配置
+	 * @return 顶层节点列表
+	 */
+	public List<Tree<T>> toTreeList(TreeNodeConfig config) {
+		return toTree(config).getChildren();
+	}
+
+	/**
+	 * 按权重稳定排序，返回排序后的源数据下标
+	 *
+	 * @param size    节点数
+	 * @param weights 权重，为null时保持原顺序
+	 * @return 源数据下标
+	 */
+	@SuppressWarnings({"unchecked", "rawtypes"})
+	private static int[] sortByWeight(int size, Comparable<?>[] weights) {
+		final int[] order = new int[size];
+		if (null == weights) {
+			for (int i = 0; i < size; i++) {
+				order[i] = i;
+			}
+			return order;
+		}
+		final Integer[] boxed = new Integer[size];
+		for (int i = 0; i < size; i++) {
+			boxed[i] = i;
+		}
+		// TimSort为稳定排序，权重相同保持原顺序
+		Arrays.sort(boxed, (a, b) -> CompareUtil.compare((Comparable) weights[a], (Comparable) weights[b]));
+		for (int i = 0; i < size; i++) {
+			order[i] = boxed[i];
+		}
+		return order;
+	}
+}
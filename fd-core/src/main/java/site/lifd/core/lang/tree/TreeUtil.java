@@ -8,7 +8,6 @@ import site.lifd.core.util.ObjectUtil;
 import java.util.*;
 import java.util.function.BiConsumer;
 import java.util.function.Function;
-import java.util.stream.Collectors;
 
 /**
  * 树工具类
@@ -279,7 +278,14 @@ public class TreeUtil {
 	}
 
 	/**
-	 * 函数式构建树状结构(无需继承Tree类)
+	 * 函数式构建树状结构(无需继承Tree类)<br>
+	 * 先按父ID将节点分组，再从根节点开始深度优先挂载子节点，时间复杂度O(n)：
+	 * <ul>
+	 *     <li>子节点顺序与其在nodes中的顺序一致</li>
+	 *     <li>ID相同的节点只挂载先遍历到的一个，因此成环的节点不会重复挂载</li>
+	 *     <li>无法从根节点到达的节点（父节点不存在或自身成环）被忽略</li>
+	 *     <li>每个挂载的节点都会调用一次setChildFunc，叶子节点传入空List</li>
+	 * </ul>
 	 *
 	 * @param nodes			需要构建树集合
 	 * @param rootId		根节点ID
@@ -294,38 +300,72 @@ public class TreeUtil {
 									   Function<E, T> idFunc,
 									   Function<E, T> parentIdFunc,
 									   BiConsumer<E, List<E>> setChildFunc) {
-		List<E> rootList = nodes.stream().filter(tree -> parentIdFunc.apply(tree).equals(rootId)).collect(Collectors.toList());
-		Set<T> filterOperated = new HashSet<>(rootList.size() + nodes.size());
+		// 按父ID分组，组内保持原顺序
+		final Map<T, List<E>> childrenMap = new HashMap<>();
+		for (E node : nodes) {
+			childrenMap.computeIfAbsent(parentIdFunc.apply(node), key -> new ArrayList<>()).add(node);
+		}
+		final List<E> rootList = childrenMap.getOrDefault(rootId, new ArrayList<>());
+		final Set<T> filterOperated = new HashSet<>(nodes.size());
 		//对每个根节点都封装它的孩子节点
-		rootList.forEach(root -> setChildren(root, nodes, filterOperated, idFunc, parentIdFunc, setChildFunc));
+		rootList.forEach(root -> setChildren(root, childrenMap, filterOperated, idFunc, setChildFunc));
 		return rootList;
 	}
 
 	/**
-	 * 封装孩子节点
+	 * 封装孩子节点<br>
+	 * 使用显式栈代替递归深度优先遍历，避免层级很深时栈溢出，子节点的setChildFunc先于父节点调用
 	 *
 	 * @param root				根节点
-	 * @param nodes				节点集合
-	 * @param filterOperated	过滤操作Map
+	 * @param childrenMap		父ID与子节点的对应关系
+	 * @param filterOperated	已挂载节点的ID
 	 * @param idFunc			获取节点ID函数
-	 * @param parentIdFunc		获取节点父ID函数
 	 * @param setChildFunc		设置孩子集合函数
 	 * @param <T>				节点ID类型
 	 * @param <E>				节点类型
 	 */
-	private static <T, E> void setChildren(E root, List<E> nodes, Set<T> filterOperated, Function<E, T> idFunc, Function<E, T> parentIdFunc, BiConsumer<E, List<E>> setChildFunc) {
-		List<E> children = new ArrayList<>();
-		nodes.stream()
-			//过滤出未操作过的节点
-			.filter(body -> !filterOperated.contains(idFunc.apply(body)))
-			//过滤出孩子节点
-			.filter(body -> Objects.equals(idFunc.apply(root), parentIdFunc.apply(body)))
-			.forEach(body -> {
-				filterOperated.add(idFunc.apply(body));
-				children.add(body);
-				//递归 对每个孩子节点执行同样操作
-				setChildren(body, nodes, filterOperated, idFunc, parentIdFunc, setChildFunc);
-			});
-		setChildFunc.accept(root, children);
+	private static <T, E> void setChildren(E root, Map<T, List<E>> childrenMap, Set<T> filterOperated,
+										   Function<E, T> idFunc, BiConsumer<E, List<E>> setChildFunc) {
+		final Deque<ChildrenFrame<E>> stack = new ArrayDeque<>();
+		stack.push(new ChildrenFrame<>(root, childrenMap.get(idFunc.apply(root))));
+		while (false == stack.isEmpty()) {
+			final ChildrenFrame<E> frame = stack.peek();
+			ChildrenFrame<E> next = null;
+			while (null != frame.candidates && frame.index < frame.candidates.size()) {
+				final E body = frame.candidates.get(frame.index++);
+				final T id = idFunc.apply(body);
+				//过滤出未操作过的节点
+				if (filterOperated.add(id)) {
+					frame.children.add(body);
+					next = new ChildrenFrame<>(body, childrenMap.get(id));
+					break;
+				}
+			}
+			if (null != next) {
+				// 先处理这个孩子节点的子树，再继续当前节点余下的孩子
+				stack.push(next);
+			} else {
+				stack.pop();
+				setChildFunc.accept(frame.node, frame.children);
+			}
+		}
+	}
+
+	/**
+	 * 深度优先遍历中的一个节点及其待检查的孩子节点
+	 *
+	 * @param <E> 节点类型
+	 */
+	private static class ChildrenFrame<E> {
+		private final E node;
+		/** 父ID为此节点ID的节点，可能为null */
+		private final List<E> candidates;
+		private final List<E> children = new ArrayList<>();
+		private int index;
+
+		ChildrenFrame(E node, List<E> candidates) {
+			this.node = node;
+			this.candidates = candidates;
+		}
 	}
 }
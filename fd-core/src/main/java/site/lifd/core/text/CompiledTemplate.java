@@ -0,0 +1,393 @@
+package site.lifd.core.text;
+
+import site.lifd.core.io.IORuntimeException;
+import site.lifd.core.lang.Assert;
+import site.lifd.core.map.MapUtil;
+import site.lifd.core.util.StrUtil;
+
+import java.io.IOException;
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * 预编译的字符串模板<br>
+ * 模板只在创建时解析一次，拆分为文本段和参数位，之后每次格式化只需依次拼接，不再查找占位符和判断转义符。
+ * 适用于同一模板反复格式化的场景，如日志和消息。
+ * <ul>
+ *     <li>{@link #format(Object...)}与{@link StrUtil#format(CharSequence, Object...)}结果一致，包括转义符和参数多于或少于占位符的情况</li>
+ *     <li>{@link #format(Map, boolean)}与{@link StrUtil#format(CharSequence, Map, boolean)}在通常情况下结果一致，
+ *     区别是所有变量一次替换：参数值中的{key}、替换后与相邻文本组成的{key}不会再被替换。
+ *     键不全是String时按{@code String.valueOf(key)}匹配变量名，与StrUtil一致</li>
+ * </ul>
+ * <pre>
+ * CompiledTemplate template = CompiledTemplate.of("this is {} for {}");
+ * template.format("a", "b"); // this is a for b
+ * </pre>
+ * 此类不可变，线程安全。
+ *
+ * @author lifengdi
+ * @see StrFormatter
+ */
+public class CompiledTemplate implements Serializable {
+	private static final long serialVersionUID = 1L;
+
+	/** 缓存的模板数上限，超出后清空重建 */
+	private static final int POOL_CAPACITY = 1024;
+	/** 使用默认占位符{}的模板缓存 */
+	private static final Map<String, CompiledTemplate> POOL = new ConcurrentHashMap<>();
+
+	/** 原始模板 */
+	private final String pattern;
+	/** 是否原样返回模板，模板或占位符为空白时为true */
+	private final boolean isPlain;
+	/**
+	 * 每个参数之前的文本，已处理转义符，最后一个元素为最后一个参数之后的文本<br>
+	 * 长度为占位符数 + 1
+	 */
+	private final String[] literals;
+	/** 每个参数之后剩余文本在模板中的起始位置，参数用完时剩余文本原样输出 */
+	private final int[] handledPositions;
+	/** 文本段总长度 */
+	private final int literalLength;
+	/** 按{key}解析的结果，首次按Map格式化时创建 */
+	private transient volatile NamedSegments namedSegments;
+
+	/**
+	 * 获取使用{}占位符的模板，相同的模板从缓存中获取
+	 *
+	 * @param pattern 模板，不能为null
+	 * @return CompiledTemplate
+	 */
+	public static CompiledTemplate of(String pattern) {
+		CompiledTemplate template = POOL.get(pattern);
+		if (null == template) {
+			template = compile(pattern, StrUtil.EMPTY_JSON);
+			if (POOL.size() >= POOL_CAPACITY) {
+				// 模板数过多时多为动态拼接的模板，清空避免占用过多内存
+				POOL.clear();
+			}
+			POOL.put(pattern, template);
+		}
+		return template;
+	}
+
+	/**
+	 * 编译模板，不使用缓存
+	 *
+	 * @param pattern     模板，不能为null
+	 * @param placeHolder 占位符，例如{}
+	 * @return CompiledTemplate
+	 */
+	public static CompiledTemplate compile(String pattern, String placeHolder) {
+		return new CompiledTemplate(pattern, placeHolder);
+	}
+
+	/**
+	 * 构造，解析规则与{@link StrFormatter#formatWith(String, String, Object...)}一致
+	 *
+	 * @param pattern     模板
+	 * @param placeHolder 占位符
+	 */
+	private CompiledTemplate(String pattern, String placeHolder) {
+		Assert.notNull(pattern, "Pattern must be not null !");
+		this.pattern = pattern;
+		this.isPlain = StrUtil.isBlank(pattern) || StrUtil.isBlank(placeHolder);
+		if (isPlain) {
+			this.literals = new String[]{pattern};
+			this.handledPositions = new int[0];
+			this.literalLength = pattern.length();
+			return;
+		}
+
+		final int patternLength = pattern.length();
+		final int placeHolderLength = placeHolder.length();
+		final List<String> literals = new ArrayList<>();
+		final List<Integer> handledPositions = new ArrayList<>();
+		final StringBuilder literal = new StringBuilder();
+		int handledPosition = 0;
+		int delimIndex;
+		while (true) {
+			delimIndex = pattern.indexOf(placeHolder, handledPosition);
+			if (delimIndex == -1) {
+				literal.append(pattern, handledPosition, patternLength);
+				literals.add(literal.toString());
+				break;
+			}
+			if (delimIndex > 0 && pattern.charAt(delimIndex - 1) == StrUtil.C_BACKSLASH) {
+				if (delimIndex > 1 && pattern.charAt(delimIndex - 2) == StrUtil.C_BACKSLASH) {
+					// 双转义符，占位符依旧有效
+					literal.append(pattern, handledPosition, delimIndex - 1);
+				} else {
+					// 占位符被转义
+					literal.append(pattern, handledPosition, delimIndex - 1);
+					literal.append(placeHolder.charAt(0));
+					handledPosition = delimIndex + 1;
+					continue;
+				}
+			} else {
+				literal.append(pattern, handledPosition, delimIndex);
+			}
+			literals.add(literal.toString());
+			literal.setLength(0);
+			handledPosition = delimIndex + placeHolderLength;
+			handledPositions.add(handledPosition);
+		}
+
+		this.literals = literals.toArray(new String[0]);
+		this.handledPositions = new int[handledPositions.size()];
+		int length = 0;
+		for (int i = 0; i < this.handledPositions.length; i++) {
+			this.handledPositions[i] = handledPositions.get(i);
+			length += this.literals[i].length();
+		}
+		this.literalLength = length + this.literals[this.literals.length - 1].length();
+	}
+
+	/**
+	 * @return 原始模板
+	 */
+	public String getPattern() {
+		return pattern;
+	}
+
+	/**
+	 * @return 占位符数量，不包括被转义的占位符
+	 */
+	public int getPlaceHolderCount() {
+		return handledPositions.length;
+	}
+
+	/**
+	 * 按顺序将占位符替换为参数
+	 *
+	 * @param args 参数列表
+	 * @return 结果
+	 */
+	public String format(Object... args) {
+		if (isPlain || null == args || 0 == args.length) {
+			return pattern;
+		}
+		final String[] values = toStrings(args, Math.min(args.length, handledPositions.length));
+		int length = literalLength;
+		for (String value : values) {
+			length += value.length();
+		}
+		return append(new StringBuilder(length), values, args.length).toString();
+	}
+
+	/**
+	 * 按顺序将占位符替换为参数，结果追加到已有的StringBuilder中，用于复用StringBuilder
+	 *
+	 * @param sb   结果追加到的StringBuilder
+	 * @param args 参数列表
+	 * @return sb
+	 */
+	public StringBuilder formatTo(StringBuilder sb, Object... args) {
+		if (isPlain || null == args || 0 == args.length) {
+			return sb.append(pattern);
+		}
+		final String[] values = toStrings(args, Math.min(args.length, handledPositions.length));
+		int length = literalLength;
+		for (String value : values) {
+			length += value.length();
+		}
+		sb.ensureCapacity(sb.length() + length);
+		return append(sb, values, args.length);
+	}
+
+	/**
+	 * 按顺序将占位符替换为参数，结果追加到{@link Appendable}中，例如Writer
+	 *
+	 * @param <A>        Appendable类型
+	 * @param appendable 结果追加到的Appendable
+	 * @param args       参数列表
+	 * @return appendable
+	 * @throws IORuntimeException IO异常
+	 */
+	public <A extends Appendable> A formatTo(A appendable, Object... args) throws IORuntimeException {
+		try {
+			if (isPlain || null == args || 0 == args.length) {
+				appendable.append(pattern);
+				return appendable;
+			}
+			final int count = Math.min(args.length, handledPositions.length);
+			for (int i = 0; i < count; i++) {
+				appendable.append(literals[i]);
+				appendable.append(StrUtil.utf8Str(args[i]));
+			}
+			if (args.length > handledPositions.length) {
+				appendable.append(literals[handledPositions.length]);
+			} else {
+				appendable.append(pattern, handledPositions[args.length - 1], pattern.length());
+			}
+			return appendable;
+		} catch (IOException e) {
+			throw new IORuntimeException(e);
+		}
+	}
+
+	/**
+	 * 使用 {varName} 占位，按Map中的参数格式化<br>
+	 * map = {a: "aValue", b: "bValue"} format("{a} and {b}", map) ---=》 aValue and bValue
+	 *
+	 * @param map        参数值对，非String的键按{@code String.valueOf(key)}匹配
+	 * @param ignoreNull 是否忽略 {@code null} 值，忽略则 {@code null} 值对应的变量不被替换，否则替换为""
+	 * @return 格式化后的文本
+	 */
+	public String format(Map<?, ?> map, boolean ignoreNull) {
+		if (null == map || map.isEmpty()) {
+			return pattern;
+		}
+		NamedSegments segments = this.namedSegments;
+		if (null == segments) {
+			segments = new NamedSegments(pattern);
+			this.namedSegments = segments;
+		}
+
+		final String[] keys = segments.keys;
+		final String[] values = new String[keys.length];
+		// 键全是String时直接按变量名查找，否则先转为字符串键
+		final Map<String, String> strMap = isStrKeys(map) ? null : toStrMap(map, ignoreNull);
+		int length = segments.literalLength;
+		String value;
+		for (int i = 0; i < keys.length; i++) {
+			if (null == strMap) {
+				value = StrUtil.utf8Str(map.get(keys[i]));
+				if (null == value && false == ignoreNull && map.containsKey(keys[i])) {
+					value = StrUtil.EMPTY;
+				}
+			} else {
+				value = strMap.get(keys[i]);
+			}
+			// 没有对应的参数，保留占位符
+			values[i] = null != value ? value : StrUtil.DELIM_START + keys[i] + StrUtil.DELIM_END;
+			length += values[i].length();
+		}
+
+		final StringBuilder sb = new StringBuilder(length);
+		for (int i = 0; i < keys.length; i++) {
+			sb.append(segments.literals[i]).append(values[i]);
+		}
+		return sb.append(segments.literals[keys.length]).toString();
+	}
+
+	@Override
+	public String toString() {
+		return pattern;
+	}
+
+	/**
+	 * 判断Map的键是否全是String
+	 *
+	 * @param map Map
+	 * @return 是否全是String
+	 */
+	private static boolean isStrKeys(Map<?, ?> map) {
+		for (Object key : map.keySet()) {
+			if (false == key instanceof String) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	/**
+	 * 将Map转为以{@code String.valueOf(key)}为键、参数字符串为值的Map<br>
+	 * 与{@link StrFormatter#format(CharSequence, Map, boolean)}一致：多个键转为相同字符串时先遍历到的优先，
+	 * 忽略的{@code null}值不占用变量名，不忽略时替换为""
+	 *
+	 * @param map        参数值对
+	 * @param ignoreNull 是否忽略 {@code null} 值
+	 * @return 字符串键的Map
+	 */
+	private static Map<String, String> toStrMap(Map<?, ?> map, boolean ignoreNull) {
+		final Map<String, String> result = MapUtil.newHashMap(map.size());
+		String value;
+		for (Map.Entry<?, ?> entry : map.entrySet()) {
+			value = StrUtil.utf8Str(entry.getValue());
+			if (null == value) {
+				if (ignoreNull) {
+					continue;
+				}
+				value = StrUtil.EMPTY;
+			}
+			result.putIfAbsent(String.valueOf(entry.getKey()), value);
+		}
+		return result;
+	}
+
+	/**
+	 * 按顺序拼接文本段和参数
+	 *
+	 * @param sb       结果追加到的StringBuilder
+	 * @param values   已转为字符串的参数
+	 * @param argCount 参数总数
+	 * @return sb
+	 */
+	private StringBuilder append(StringBuilder sb, String[] values, int argCount) {
+		for (int i = 0; i < values.length; i++) {
+			sb.append(literals[i]).append(values[i]);
+		}
+		if (argCount > handledPositions.length) {
+			// 参数多于占位符，剩余文本已处理转义符
+			return sb.append(literals[handledPositions.length]);
+		}
+		// 参数用完后剩余文本原样输出，与StrFormatter一致
+		return sb.append(pattern, handledPositions[argCount - 1], pattern.length());
+	}
+
+	/**
+	 * 将参数转为字符串，{@code null}转为"null"
+	 *
+	 * @param args  参数列表
+	 * @param count 需要转换的参数数量
+	 * @return 字符串数组
+	 */
+	private static String[] toStrings(Object[] args, int count) {
+		final String[] values = new String[count];
+		for (int i = 0; i < count; i++) {
+			values[i] = String.valueOf(StrUtil.utf8Str(args[i]));
+		}
+		return values;
+	}
+
+	/**
+	 * 按 {key} 解析的模板
+	 */
+	private static class NamedSegments {
+		/** 每个变量之前的文本，最后一个元素为最后一个变量之后的文本 */
+		private final String[] literals;
+		/** 变量名 */
+		private final String[] keys;
+		/** 文本段总长度 */
+		private final int literalLength;
+
+		NamedSegments(String pattern) {
+			final List<String> literals = new ArrayList<>();
+			final List<String> keys = new ArrayList<>();
+			int handledPosition = 0;
+			int open;
+			int close;
+			while ((open = pattern.indexOf(StrUtil.C_DELIM_START, handledPosition)) >= 0
+					&& (close = pattern.indexOf(StrUtil.C_DELIM_END, open + 1)) >= 0) {
+				// 取离}最近的{，如{{a}}中的变量为a
+				open = pattern.lastIndexOf(StrUtil.C_DELIM_START, close);
+				literals.add(pattern.substring(handledPosition, open));
+				keys.add(pattern.substring(open + 1, close));
+				handledPosition = close + 1;
+			}
+			literals.add(pattern.substring(handledPosition));
+
+			this.literals = literals.toArray(new String[0]);
+			this.keys = keys.toArray(new String[0]);
+			int length = 0;
+			for (String literal : this.literals) {
+				length += literal.length();
+			}
+			this.literalLength = length;
+		}
+	}
+}
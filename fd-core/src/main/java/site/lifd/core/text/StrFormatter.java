@@ -6,7 +6,8 @@ import site.lifd.core.util.StrUtil;
 import java.util.Map;
 
 /**
- * 字符串格式化工具
+ * 字符串格式化工具<br>
+ * 每次调用都会重新解析模板，同一模板反复格式化时可使用预编译的{@link CompiledTemplate}
  *
  * */
 public class StrFormatter {
@@ -1,7 +1,5 @@
 package site.lifd.core.text.escape;
 
-import site.lifd.core.text.replacer.LookupReplacer;
-
 /**
  * HTML4的ESCAPE
  * 参考：Commons Lang3
@@ -308,8 +306,6 @@ public class Html4Escape extends XmlEscape {
 	};
 
 	public Html4Escape() {
-		super();
-		addChain(new LookupReplacer(ISO8859_1_ESCAPE));
-		addChain(new LookupReplacer(HTML40_EXTENDED_ESCAPE));
+		super(ISO8859_1_ESCAPE, HTML40_EXTENDED_ESCAPE);
 	}
 }
@@ -1,7 +1,5 @@
 package site.lifd.core.text.escape;
 
-import site.lifd.core.text.replacer.LookupReplacer;
-
 /**
  * HTML4的UNESCAPE
  *
@@ -13,8 +11,6 @@ public class Html4Unescape extends XmlUnescape {
 	protected static final String[][] HTML40_EXTENDED_UNESCAPE  = InternalEscapeUtil.invert(Html4Escape.HTML40_EXTENDED_ESCAPE);
 
 	public Html4Unescape() {
-		super();
-		addChain(new LookupReplacer(ISO8859_1_UNESCAPE));
-		addChain(new LookupReplacer(HTML40_EXTENDED_UNESCAPE));
+		super(ISO8859_1_UNESCAPE, HTML40_EXTENDED_UNESCAPE);
 	}
 }
@@ -1,7 +1,8 @@
 package site.lifd.core.text.escape;
 
-import site.lifd.core.text.replacer.LookupReplacer;
 import site.lifd.core.text.replacer.ReplacerChain;
+import site.lifd.core.text.replacer.TrieReplacer;
+import site.lifd.core.util.ArrayUtil;
 
 /**
  * XML特殊字符转义<br>
@@ -31,6 +32,15 @@ public class XmlEscape extends ReplacerChain {
 	 * 构造
 	 */
 	public XmlEscape() {
-		addChain(new LookupReplacer(BASIC_ESCAPE));
+		this(new String[0][]);
+	}
+
+	/**
+	 * 构造，额外的转义表与基本转义表合并为一个{@link TrieReplacer}，一次匹配完成查找
+	 *
+	 * @param lookups 额外的转义表
+	 */
+	protected XmlEscape(String[][]... lookups) {
+		super(new TrieReplacer(ArrayUtil.addAll(BASIC_ESCAPE, ArrayUtil.addAll(lookups))));
 	}
 }
@@ -1,7 +1,8 @@
 package site.lifd.core.text.escape;
 
-import site.lifd.core.text.replacer.LookupReplacer;
 import site.lifd.core.text.replacer.ReplacerChain;
+import site.lifd.core.text.replacer.TrieReplacer;
+import site.lifd.core.util.ArrayUtil;
 
 /**
  * XML的UNESCAPE
@@ -19,8 +20,17 @@ public class XmlUnescape extends ReplacerChain {
 	 * 构造
 	 */
 	public XmlUnescape() {
-		addChain(new LookupReplacer(BASIC_UNESCAPE));
-		addChain(new NumericEntityUnescaper());
-		addChain(new LookupReplacer(OTHER_UNESCAPE));
+		this(new String[0][]);
+	}
+
+	/**
+	 * 构造，额外的反转义表与基本反转义表合并为一个{@link TrieReplacer}，一次匹配完成查找<br>
+	 * 命名实体都不以&amp;#开头，与{@link NumericEntityUnescaper}不冲突，因此合并后结果与逐个查找一致
+	 *
+	 * @param lookups 额外的反转义表
+	 */
+	protected XmlUnescape(String[][]... lookups) {
+		super(new TrieReplacer(ArrayUtil.addAll(BASIC_UNESCAPE, OTHER_UNESCAPE, ArrayUtil.addAll(lookups))),
+				new NumericEntityUnescaper());
 	}
 }
@@ -0,0 +1,54 @@
+package site.lifd.core.text.finder;
+
+import site.lifd.core.lang.DefaultSegment;
+
+/**
+ * {@link MultiStrFinder}查找到的关键字及其位置<br>
+ * 忽略大小写或全角半角时，查找到的文本与关键字可能不同
+ *
+ * @author lifengdi
+ */
+public class FoundWord extends DefaultSegment<Integer> {
+
+	/** 字典中的关键字 */
+	private final String word;
+	/** 文本中查找到的原始文本 */
+	private final String foundWord;
+
+	/**
+	 * 构造
+	 *
+	 * @param word       字典中的关键字
+	 * @param foundWord  文本中查找到的原始文本
+	 * @param startIndex 起始位置（包含）
+	 * @param endIndex   结束位置（不包含）
+	 */
+	public FoundWord(String word, String foundWord, int startIndex, int endIndex) {
+		super(startIndex, endIndex);
+		this.word = word;
+		this.foundWord = foundWord;
+	}
+
+	/**
+	 * 获取字典中的关键字
+	 *
+	 * @return 关键字
+	 */
+	public String getWord() {
+		return word;
+	}
+
+	/**
+	 * 获取文本中查找到的原始文本
+	 *
+	 * @return 查找到的文本
+	 */
+	public String getFoundWord() {
+		return foundWord;
+	}
+
+	@Override
+	public String toString() {
+		return this.foundWord;
+	}
+}
@@ -0,0 +1,532 @@
+package site.lifd.core.text.finder;
+
+import site.lifd.core.io.IORuntimeException;
+import site.lifd.core.io.IoUtil;
+import site.lifd.core.lang.Assert;
+import site.lifd.core.util.StrUtil;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.io.Serializable;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.function.Consumer;
+
+/**
+ * 多关键字查找器<br>
+ * 使用Aho-Corasick自动机，一次遍历文本即可找出字典中所有关键字的出现位置，耗时与文本长度成正比，与关键字数量无关。
+ * 适用于敏感词、标签等大量关键字的查找和过滤。
+ * <ul>
+ *     <li>可选忽略大小写和全角半角，全角转半角规则与{@link site.lifd.core.convert.Convert#toDBC(String)}一致</li>
+ *     <li>作为{@link Finder}使用时，{@link #start(int)}返回最左边的匹配，同一位置开始的取最长的，可用于多分隔符切分等场景</li>
+ *     <li>{@link #findAll(CharSequence)}返回所有匹配（包括重叠的），{@link #findAll(Reader, Consumer)}流式查找，不需要读入全部文本</li>
+ *     <li>{@link #addWords(Collection)}、{@link #removeWords(Collection)}复制并重建自动机后整体替换，查找过程中修改字典不影响正在进行的查找</li>
+ * </ul>
+ * 字典的查找和修改方法线程安全；作为{@link Finder}使用时与其他{@link TextFinder}一样保存了文本和匹配状态，不能多线程共用。
+ * <pre>
+ * MultiStrFinder finder = new MultiStrFinder(CollUtil.newArrayList("he", "she", "his", "hers"), true);
+ * finder.findAll("uSHErs"); // [SHE, HE, HErs]
+ * </pre>
+ *
+ * @author lifengdi
+ */
+public class MultiStrFinder extends TextFinder {
+	private static final long serialVersionUID = 1L;
+
+	private final boolean caseInsensitive;
+	private final boolean ignoreWidth;
+	/** 当前字典构建的自动机，修改字典时整体替换 */
+	private volatile Automaton automaton;
+	/** {@link #start(int)}找到的结束位置 */
+	private int matchEnd = INDEX_NOT_FOUND;
+
+	/**
+	 * 构造，不忽略大小写和全角半角
+	 *
+	 * @param words 关键字，空字符串被忽略
+	 */
+	public MultiStrFinder(Collection<String> words) {
+		this(words, false);
+	}
+
+	/**
+	 * 构造，不忽略全角半角
+	 *
+	 * @param words           关键字，空字符串被忽略
+	 * @param caseInsensitive 是否忽略大小写
+	 */
+	public MultiStrFinder(Collection<String> words, boolean caseInsensitive) {
+		this(words, caseInsensitive, false);
+	}
+
+	/**
+	 * 构造
+	 *
+	 * @param words           关键字，空字符串被忽略
+	 * @param caseInsensitive 是否忽略大小写
+	 * @param ignoreWidth     是否忽略全角半角，如"ＡＢＣ"与"ABC"视为相同
+	 */
+	public MultiStrFinder(Collection<String> words, boolean caseInsensitive, boolean ignoreWidth) {
+		Assert.notNull(words, "Words must be not null!");
+		this.caseInsensitive = caseInsensitive;
+		this.ignoreWidth = ignoreWidth;
+		this.automaton = new Automaton(toWordSet(words), caseInsensitive, ignoreWidth);
+	}
+
+	// ------------------------------------------------------------------------------------ Dictionary
+
+	/**
+	 * 增加关键字，复制当前字典并重建
+	 *
+	 * @param words 关键字，空字符串被忽略
+	 * @return this
+	 */
+	public MultiStrFinder addWords(String... words) {
+		return addWords(Arrays.asList(words));
+	}
+
+	/**
+	 * 增加关键字，复制当前字典并重建
+	 *
+	 * @param words 关键字，空字符串被忽略
+	 * @return this
+	 */
+	public synchronized MultiStrFinder addWords(Collection<String> words) {
+		final Set<String> wordSet = toWordSet(Arrays.asList(this.automaton.words));
+		if (wordSet.addAll(toWordSet(words))) {
+			this.automaton = new Automaton(wordSet, caseInsensitive, ignoreWidth);
+		}
+		return this;
+	}
+
+	/**
+	 * 移除关键字，复制当前字典并重建
+	 *
+	 * @param words 关键字，需与加入时的字符串相同
+	 * @return this
+	 */
+	public synchronized MultiStrFinder removeWords(Collection<String> words) {
+		final Set<String> wordSet = toWordSet(Arrays.asList(this.automaton.words));
+		if (wordSet.removeAll(new HashSet<>(words))) {
+			this.automaton = new Automaton(wordSet, caseInsensitive, ignoreWidth);
+		}
+		return this;
+	}
+
+	/**
+	 * 获取字典中的关键字，按加入顺序
+	 *
+	 * @return 关键字列表，不可修改
+	 */
+	public List<String> getWords() {
+		return Collections.unmodifiableList(Arrays.asList(this.automaton.words.clone()));
+	}
+
+	// ------------------------------------------------------------------------------------ Find
+
+	/**
+	 * 查找文本中所有关键字，包括重叠的匹配<br>
+	 * 结果按结束位置排序，结束位置相同的长的在前
+	 *
+	 * @param text 文本
+	 * @return 查找到的关键字列表
+	 */
+	public List<FoundWord> findAll(CharSequence text) {
+		final List<FoundWord> result = new ArrayList<>();
+		if (StrUtil.isEmpty(text)) {
+			return result;
+		}
+		final Automaton automaton = this.automaton;
+		int state = Automaton.ROOT;
+		int start;
+		for (int i = 0; i < text.length(); i++) {
+			state = automaton.next(state, normalize(text.charAt(i)));
+			for (int w = automaton.longest(state); w >= 0; w = automaton.outputLinks[w]) {
+				start = i + 1 - automaton.depths[w];
+				result.add(new FoundWord(automaton.wordOf(w), text.subSequence(start, i + 1).toString(), start, i + 1));
+			}
+		}
+		return result;
+	}
+
+	/**
+	 * 从{@link Reader}中流式查找所有关键字，包括重叠的匹配，只缓存最长关键字长度的文本<br>
+	 * 查找完毕后不关闭Reader。位置以int表示，文本最多{@link Integer#MAX_VALUE}个字符，
+	 * 超出时在读取下一个字符前抛出异常，此前查找到的关键字已交给consumer处理
+	 *
+	 * @param reader   文本来源
+	 * @param consumer 处理查找到的关键字，位置为在Reader中的字符位置
+	 * @throws IORuntimeException   IO异常
+	 * @throws IllegalStateException 文本超过{@link Integer#MAX_VALUE}个字符
+	 */
+	public void findAll(Reader reader, Consumer<FoundWord> consumer) throws IORuntimeException {
+		Assert.notNull(reader, "Reader must be not null!");
+		Assert.notNull(consumer, "Consumer must be not null!");
+		final Automaton automaton = this.automaton;
+		// 循环记录最近读取的字符，用于取出查找到的原始文本
+		final char[] window = new char[Math.max(automaton.maxLength, 1)];
+		final char[] buffer = new char[IoUtil.DEFAULT_BUFFER_SIZE];
+		int position = 0;
+		int state = Automaton.ROOT;
+		int read;
+		int length;
+		char[] found;
+		try {
+			while ((read = reader.read(buffer)) != -1) {
+				for (int k = 0; k < read; k++) {
+					if (Integer.MAX_VALUE == position) {
+						throw new IllegalStateException("Text length exceeds Integer.MAX_VALUE, position can not be represented as int!");
+					}
+					window[position % window.length] = buffer[k];
+					position++;
+					state = automaton.next(state, normalize(buffer[k]));
+					for (int w = automaton.longest(state); w >= 0; w = automaton.outputLinks[w]) {
+						length = automaton.depths[w];
+						found = new char[length];
+						for (int j = 0; j < length; j++) {
+							found[j] = window[(position - length + j) % window.length];
+						}
+						consumer.accept(new FoundWord(automaton.wordOf(w), new String(found),
+								position - length, position));
+					}
+				}
+			}
+		} catch (IOException e) {
+			throw new IORuntimeException(e);
+		}
+	}
+
+	/**
+	 * 文本中是否包含任意关键字
+	 *
+	 * @param text 文本
+	 * @return 是否包含
+	 */
+	public boolean containsAny(CharSequence text) {
+		if (StrUtil.isEmpty(text)) {
+			return false;
+		}
+		final Automaton automaton = this.automaton;
+		int state = Automaton.ROOT;
+		for (int i = 0; i < text.length(); i++) {
+			state = automaton.next(state, normalize(text.charAt(i)));
+			if (automaton.longest(state) >= 0) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+	/**
+	 * 将文本中所有关键字的字符替换为指定字符，重叠的关键字一并替换，用于敏感词过滤
+	 *
+	 * @param text     文本
+	 * @param maskChar 替换为的字符，如'*'
+	 * @return 替换后的文本
+	 */
+	public String mask(CharSequence text, char maskChar) {
+		if (StrUtil.isEmpty(text)) {
+			return StrUtil.str(text);
+		}
+		final Automaton automaton = this.automaton;
+		final char[] chars = text.toString().toCharArray();
+		// 以每个位置结尾的关键字中最靠左的开始位置
+		final int[] starts = new int[chars.length];
+		int state = Automaton.ROOT;
+		int w;
+		for (int i = 0; i < chars.length; i++) {
+			state = automaton.next(state, normalize(chars[i]));
+			w = automaton.longest(state);
+			starts[i] = w >= 0 ? i + 1 - automaton.depths[w] : Integer.MAX_VALUE;
+		}
+		// 从后向前，某个位置被替换当且仅当在此位置及之后结尾的关键字中，存在开始位置不大于此位置的
+		int minStart = Integer.MAX_VALUE;
+		for (int i = chars.length - 1; i >= 0; i--) {
+			minStart = Math.min(minStart, starts[i]);
+			if (minStart <= i) {
+				chars[i] = maskChar;
+			}
+		}
+		return new String(chars);
+	}
+
+	// ------------------------------------------------------------------------------------ Finder
+
+	@Override
+	public TextFinder setNegative(boolean negative) {
+		throw new UnsupportedOperationException("Negative is invalid for MultiStrFinder!");
+	}
+
+	@Override
+	public int start(int from) {
+		Assert.notNull(this.text, "Text to find must be not null!");
+		if (from < 0) {
+			from = 0;
+		}
+		final Automaton automaton = this.automaton;
+		final int limit = getValidEndIndex();
+		int state = Automaton.ROOT;
+		int bestStart = INDEX_NOT_FOUND;
+		int bestEnd = INDEX_NOT_FOUND;
+		int w;
+		int start;
+		for (int i = from; i < limit; i++) {
+			state = automaton.next(state, normalize(text.charAt(i)));
+			w = automaton.longest(state);
+			if (w >= 0) {
+				// 以当前位置结尾的最长关键字即开始位置最靠左的
+				start = i + 1 - automaton.depths[w];
+				if (INDEX_NOT_FOUND == bestStart || start <= bestStart) {
+					bestStart = start;
+					bestEnd = i + 1;
+				}
+			}
+			if (INDEX_NOT_FOUND != bestStart && i + 1 - automaton.depths[state] > bestStart) {
+				// 之后的匹配只能从更靠右的位置开始
+				break;
+			}
+		}
+		this.matchEnd = bestEnd;
+		return bestStart;
+	}
+
+	@Override
+	public int end(int start) {
+		if (start < 0) {
+			return INDEX_NOT_FOUND;
+		}
+		return this.matchEnd;
+	}
+
+	@Override
+	public MultiStrFinder reset() {
+		this.matchEnd = INDEX_NOT_FOUND;
+		return this;
+	}
+
+	/**
+	 * 规范化字符，用于忽略大小写和全角半角
+	 *
+	 * @param c 字符
+	 * @return 规范化后的字符
+	 */
+	private char normalize(char c) {
+		return normalize(c, this.caseInsensitive, this.ignoreWidth);
+	}
+
+	/**
+	 * 规范化字符，用于忽略大小写和全角半角
+	 *
+	 * @param c               字符
+	 * @param caseInsensitive 是否忽略大小写
+	 * @param ignoreWidth     是否忽略全角半角
+	 * @return 规范化后的字符
+	 */
+	private static char normalize(char c, boolean caseInsensitive, boolean ignoreWidth) {
+		if (ignoreWidth) {
+			if (c == '\u3000' || c == '\u00a0' || c == '\u2007' || c == '\u202F') {
+				c = ' ';
+			} else if (c > '\uFF00' && c < '\uFF5F') {
+				c = (char) (c - 65248);
+			}
+		}
+		if (caseInsensitive) {
+			// 与String#regionMatches(boolean, int, String, int, int)忽略大小写的规则一致
+			c = Character.toLowerCase(Character.toUpperCase(c));
+		}
+		return c;
+	}
+
+	/**
+	 * 去除空字符串并去重，保持顺序
+	 *
+	 * @param words 关键字
+	 * @return 关键字集合
+	 */
+	private static Set<String> toWordSet(Collection<String> words) {
+		final Set<String> wordSet = new LinkedHashSet<>();
+		for (String word : words) {
+			if (StrUtil.isNotEmpty(word)) {
+				wordSet.add(word);
+			}
+		}
+		return wordSet;
+	}
+
+	/**
+	 * Aho-Corasick自动机，构建后不可变<br>
+	 * 状态按广度优先编号，转移边按状态顺序存储在连续数组中，每个状态的边按字符排序，查找转移时二分查找
+	 */
+	private static class Automaton implements Serializable {
+		private static final long serialVersionUID = 1L;
+
+		/** 根状态 */
+		static final int ROOT = 0;
+
+		/** 关键字，按加入顺序 */
+		final String[] words;
+		/** 最长关键字长度 */
+		final int maxLength;
+		/** 每个状态的第一条边在edgeChars中的位置，长度为状态数 + 1 */
+		final int[] edgeStarts;
+		/** 边的字符 */
+		final char[] edgeChars;
+		/** 边指向的状态 */
+		final int[] edgeTargets;
+		/** 失败转移，即当前状态最长的、也是字典树中前缀的真后缀所在的状态 */
+		final int[] fails;
+		/** 状态深度，即从根到此状态的字符数 */
+		final int[] depths;
+		/** 以此状态结尾的关键字在words中的位置，-1表示不是关键字结尾 */
+		final int[] wordIndexes;
+		/** 沿失败转移最近的关键字结尾状态，-1表示没有 */
+		final int[] outputLinks;
+
+		/**
+		 * 构建自动机，规范化后相同的关键字以最先加入的为准
+		 *
+		 * @param words           关键字，不含空字符串
+		 * @param caseInsensitive 是否忽略大小写
+		 * @param ignoreWidth     是否忽略全角半角
+		 */
+		Automaton(Collection<String> words, boolean caseInsensitive, boolean ignoreWidth) {
+			this.words = words.toArray(new String[0]);
+
+			// 构建字典树
+			final BuildNode rootNode = new BuildNode(0);
+			int maxLength = 0;
+			BuildNode node;
+			for (int i = 0; i < this.words.length; i++) {
+				final String word = this.words[i];
+				node = rootNode;
+				for (int j = 0; j < word.length(); j++) {
+					node = node.getOrAdd(normalize(word.charAt(j), caseInsensitive, ignoreWidth));
+				}
+				if (node.wordIndex < 0) {
+					node.wordIndex = i;
+				}
+				maxLength = Math.max(maxLength, word.length());
+			}
+			this.maxLength = maxLength;
+
+			// 广度优先编号，父状态的编号总是小于子状态
+			final List<BuildNode> nodes = new ArrayList<>();
+			final ArrayDeque<BuildNode> queue = new ArrayDeque<>();
+			queue.add(rootNode);
+			while (false == queue.isEmpty()) {
+				node = queue.poll();
+				node.id = nodes.size();
+				nodes.add(node);
+				queue.addAll(node.children.values());
+			}
+
+			final int size = nodes.size();
+			this.edgeStarts = new int[size + 1];
+			this.edgeChars = new char[size - 1];
+			this.edgeTargets = new int[size - 1];
+			this.fails = new int[size];
+			this.depths = new int[size];
+			this.wordIndexes = new int[size];
+			this.outputLinks = new int[size];
+			int edge = 0;
+			for (BuildNode n : nodes) {
+				edgeStarts[n.id] = edge;
+				depths[n.id] = n.depth;
+				wordIndexes[n.id] = n.wordIndex;
+				for (BuildNode child : n.children.values()) {
+					edgeChars[edge] = child.c;
+					edgeTargets[edge] = child.id;
+					edge++;
+				}
+			}
+			edgeStarts[size] = edge;
+
+			// 按广度优先顺序计算失败转移，失败转移的目标深度更小，已计算完毕
+			outputLinks[ROOT] = -1;
+			int target;
+			int fail;
+			for (int state = 0; state < size; state++) {
+				for (int e = edgeStarts[state]; e < edgeStarts[state + 1]; e++) {
+					target = edgeTargets[e];
+					fail = (ROOT == state) ? ROOT : next(fails[state], edgeChars[e]);
+					fails[target] = fail;
+					outputLinks[target] = wordIndexes[fail] >= 0 ? fail : outputLinks[fail];
+				}
+			}
+		}
+
+		/**
+		 * 读入一个字符后的状态
+		 *
+		 * @param state 当前状态
+		 * @param c     规范化后的字符
+		 * @return 新状态
+		 */
+		int next(int state, char c) {
+			int index;
+			while (true) {
+				index = Arrays.binarySearch(edgeChars, edgeStarts[state], edgeStarts[state + 1], c);
+				if (index >= 0) {
+					return edgeTargets[index];
+				}
+				if (ROOT == state) {
+					return ROOT;
+				}
+				state = fails[state];
+			}
+		}
+
+		/**
+		 * 以此状态结尾的最长关键字所在的状态
+		 *
+		 * @param state 状态
+		 * @return 状态，-1表示没有关键字以此状态结尾
+		 */
+		int longest(int state) {
+			return wordIndexes[state] >= 0 ? state : outputLinks[state];
+		}
+
+		/**
+		 * 获取关键字结尾状态对应的关键字
+		 *
+		 * @param state 关键字结尾状态
+		 * @return 关键字
+		 */
+		String wordOf(int state) {
+			return words[wordIndexes[state]];
+		}
+	}
+
+	/**
+	 * 构建自动机时使用的字典树节点
+	 */
+	private static class BuildNode {
+		/** 从父节点到此节点的字符 */
+		private final char c;
+		private final int depth;
+		private final TreeMap<Character, BuildNode> children = new TreeMap<>();
+		private int wordIndex = -1;
+		private int id;
+
+		BuildNode(char c, int depth) {
+			this.c = c;
+			this.depth = depth;
+		}
+
+		BuildNode(int depth) {
+			this((char) 0, depth);
+		}
+
+		BuildNode getOrAdd(char c) {
+			return children.computeIfAbsent(c, key -> new BuildNode(key, depth + 1));
+		}
+	}
+}
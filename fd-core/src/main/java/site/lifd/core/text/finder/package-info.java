@@ -5,6 +5,7 @@
  *     <li>查找文本中的匹配字符（正向、反向）</li>
  *     <li>查找文本中的字符串（正向、反向）</li>
  *     <li>查找文本中匹配正则的字符串（正向）</li>
+ *     <li>一次查找文本中的多个字符串（正向）</li>
  * </ul>
  *
  * *
@@ -0,0 +1,161 @@
+package site.lifd.core.text.replacer;
+
+import site.lifd.core.lang.Assert;
+import site.lifd.core.text.StrBuilder;
+
+import java.io.Serializable;
+import java.util.Arrays;
+
+/**
+ * 基于字典树（Trie）的多关键字替换器<br>
+ * 所有关键字构建为一棵按字符索引的字典树，每个位置沿树向下匹配一次即可找到最长的关键字，
+ * 不截取子串、不计算hash，匹配过程不产生中间字符串。
+ * <ul>
+ *     <li>同一位置有多个关键字匹配时取最长的，与{@link LookupReplacer}一致</li>
+ *     <li>同一个关键字出现多次时以最先出现的为准，因此多组键值对可以合并为一个替换器，结果与按顺序组成的{@link ReplacerChain}相同
+ *     （前提是后面的组中没有以前面组中关键字为前缀的更长关键字）</li>
+ * </ul>
+ * 构建后不可变，线程安全。
+ *
+ * @author lifengdi
+ * @see LookupReplacer
+ */
+public class TrieReplacer extends StrReplacer {
+	private static final long serialVersionUID = 1L;
+
+	/** 首字符为ASCII字符时直接按下标查找 */
+	private static final int ASCII_SIZE = 128;
+
+	/** 以ASCII字符开头的子树 */
+	private final Node[] asciiRoots;
+	/** 以非ASCII字符开头的子树 */
+	private final Node root;
+
+	/**
+	 * 构造
+	 *
+	 * @param lookup 被查找的键值对，键不能为空
+	 */
+	public TrieReplacer(String[]... lookup) {
+		this.asciiRoots = new Node[ASCII_SIZE];
+		this.root = new Node(0);
+
+		String key;
+		char c;
+		Node node;
+		for (String[] pair : lookup) {
+			key = pair[0];
+			Assert.notEmpty(key, "Lookup key must be not empty !");
+			c = key.charAt(0);
+			if (c < ASCII_SIZE) {
+				node = asciiRoots[c];
+				if (null == node) {
+					node = new Node(1);
+					asciiRoots[c] = node;
+				}
+			} else {
+				node = root.getOrAdd(c);
+			}
+			for (int i = 1; i < key.length(); i++) {
+				node = node.getOrAdd(key.charAt(i));
+			}
+			if (null == node.value) {
+				node.value = pair[1];
+			}
+		}
+	}
+
+	@Override
+	protected int replace(CharSequence str, int pos, StrBuilder out) {
+		final char c = str.charAt(pos);
+		Node node = c < ASCII_SIZE ? asciiRoots[c] : root.get(c);
+		if (null == node) {
+			return 0;
+		}
+
+		// 记录最后一个匹配的关键字，以取得最长匹配
+		Node matched = null == node.value ? null : node;
+		final int len = str.length();
+		for (int i = pos + 1; i < len && null != node.chars; i++) {
+			node = node.get(str.charAt(i));
+			if (null == node) {
+				break;
+			}
+			if (null != node.value) {
+				matched = node;
+			}
+		}
+
+		if (null == matched) {
+			return 0;
+		}
+		out.append(matched.value);
+		return matched.depth;
+	}
+
+	/**
+	 * 字典树节点，子节点按字符排序存储
+	 */
+	private static class Node implements Serializable {
+		private static final long serialVersionUID = 1L;
+
+		/** 从根到此节点的字符数，即关键字长度 */
+		private final int depth;
+		/** 以此节点结尾的关键字对应的值，null表示不是关键字结尾 */
+		private String value;
+		/** 子节点字符，升序，无子节点时为null */
+		private char[] chars;
+		/** 子节点，与chars一一对应 */
+		private Node[] children;
+
+		Node(int depth) {
+			this.depth = depth;
+		}
+
+		/**
+		 * 获取子节点
+		 *
+		 * @param c 字符
+		 * @return 子节点，不存在返回null
+		 */
+		Node get(char c) {
+			final char[] chars = this.chars;
+			if (null == chars || c < chars[0] || c > chars[chars.length - 1]) {
+				return null;
+			}
+			final int index = Arrays.binarySearch(chars, c);
+			return index < 0 ? null : children[index];
+		}
+
+		/**
+		 * 获取子节点，不存在则按顺序插入
+		 *
+		 * @param c 字符
+		 * @return 子节点
+		 */
+		Node getOrAdd(char c) {
+			if (null == chars) {
+				chars = new char[]{c};
+				children = new Node[]{new Node(depth + 1)};
+				return children[0];
+			}
+			int index = Arrays.binarySearch(chars, c);
+			if (index >= 0) {
+				return children[index];
+			}
+			index = -index - 1;
+			final int size = chars.length;
+			final char[] newChars = new char[size + 1];
+			final Node[] newChildren = new Node[size + 1];
+			System.arraycopy(chars, 0, newChars, 0, index);
+			System.arraycopy(children, 0, newChildren, 0, index);
+			newChars[index] = c;
+			newChildren[index] = new Node(depth + 1);
+			System.arraycopy(chars, index, newChars, index + 1, size - index);
+			System.arraycopy(children, index, newChildren, index + 1, size - index);
+			this.chars = newChars;
+			this.children = newChildren;
+			return newChildren[index];
+		}
+	}
+}
@@ -0,0 +1,412 @@
+package site.lifd.core.thread;
+
+import site.lifd.core.lang.Assert;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.RejectedExecutionHandler;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Consumer;
+
+/**
+ * 根据观测到的排队延迟和执行耗时自动调整大小的线程池<br>
+ * 线程池记录每个任务在队列中的等待时间和执行时间，每隔一个调整周期（默认1秒）按以下规则重新计算核心线程数：
+ * <ol>
+ *     <li>按利特尔法则（Little's law），所需线程数 = 任务到达速率 × 平均执行时间，并预留20%余量</li>
+ *     <li>平均排队延迟超过目标值时，说明线程不足，至少增加当前线程数的1/4</li>
+ *     <li>所需线程数少于当前值时，每次只减少差值的一半，避免下游延迟波动时反复伸缩</li>
+ * </ol>
+ * 调整结果限制在[minPoolSize, maximumPoolSize]之间，只修改核心线程数，最大线程数保持不变，
+ * 有界队列满时仍可临时创建线程直到最大线程数。调整在提交任务或任务执行完毕的线程中顺带进行，不额外创建线程。
+ * <p>
+ * 队列中保存的是记录了入队时间的包装任务，{@link #shutdownNow()}返回原始任务，但{@link #remove(Runnable)}无法移除已入队的任务。
+ *
+ * @author lifengdi
+ * @see ExecutorBuilder#useAdaptivePoolSize(long, TimeUnit)
+ */
+public class AdaptiveThreadPoolExecutor extends ThreadPoolExecutor {
+
+	/** 默认目标排队延迟，单位毫秒 */
+	public static final long DEFAULT_TARGET_QUEUE_DELAY_MILLIS = 10;
+	/** 默认调整周期，单位毫秒 */
+	public static final long DEFAULT_ADJUST_INTERVAL_MILLIS = 1000;
+	/** 按利特尔法则计算出的线程数之上预留的余量百分比 */
+	private static final int HEADROOM_PERCENT = 20;
+
+	/** 最小线程数 */
+	private volatile int minPoolSize;
+	/** 目标排队延迟，单位纳秒 */
+	private volatile long targetQueueDelay = TimeUnit.MILLISECONDS.toNanos(DEFAULT_TARGET_QUEUE_DELAY_MILLIS);
+	/** 调整周期，单位纳秒 */
+	private volatile long adjustInterval = TimeUnit.MILLISECONDS.toNanos(DEFAULT_ADJUST_INTERVAL_MILLIS);
+	/** 每次调整后接收统计信息的监听器 */
+	private volatile Consumer<Metrics> metricsListener;
+
+	/** 本周期开始时间，竞争到调整权的线程负责更新 */
+	private final AtomicLong windowStart = new AtomicLong(System.nanoTime());
+	/** 本周期提交的任务数，包括被拒绝的任务 */
+	private final LongAdder submitted = new LongAdder();
+	/** 本周期执行完毕的任务数 */
+	private final LongAdder completed = new LongAdder();
+	/** 本周期执行完毕的任务排队时间之和，单位纳秒 */
+	private final LongAdder queueDelaySum = new LongAdder();
+	/** 本周期执行完毕的任务执行时间之和，单位纳秒 */
+	private final LongAdder serviceTimeSum = new LongAdder();
+	/** 累计被拒绝的任务数 */
+	private final LongAdder rejected;
+	/** 最近一次调整时的统计信息 */
+	private volatile Metrics metrics;
+
+	/**
+	 * 构造，核心线程数从最小线程数开始
+	 *
+	 * @param minPoolSize     最小线程数，自动调整不会低于此值
+	 * @param maximumPoolSize 最大线程数，自动调整不会高于此值
+	 * @param keepAliveTime   多于核心线程数的线程空闲保留的时长
+	 * @param unit            keepAliveTime的单位
+	 * @param workQueue       任务队列，应使用{@link java.util.concurrent.LinkedBlockingQueue}等可以保存任务的队列
+	 * @param threadFactory   线程工厂
+	 * @param handler         拒绝策略
+	 */
+	public AdaptiveThreadPoolExecutor(int minPoolSize, int maximumPoolSize, long keepAliveTime, TimeUnit unit,
+									  BlockingQueue<Runnable> workQueue, ThreadFactory threadFactory, RejectedExecutionHandler handler) {
+		this(minPoolSize, maximumPoolSize, keepAliveTime, unit, workQueue, threadFactory, new CountingHandler(handler, new LongAdder()));
+	}
+
+	/**
+	 * 构造，计数用的拒绝策略由调用方创建，构造过程中不调用本对象的方法
+	 *
+	 * @param minPoolSize     最小线程数
+	 * @param maximumPoolSize 最大线程数
+	 * @param keepAliveTime   多于核心线程数的线程空闲保留的时长
+	 * @param unit            keepAliveTime的单位
+	 * @param workQueue       任务队列
+	 * @param threadFactory   线程工厂
+	 * @param handler         统计拒绝次数的拒绝策略
+	 */
+	private AdaptiveThreadPoolExecutor(int minPoolSize, int maximumPoolSize, long keepAliveTime, TimeUnit unit,
+									   BlockingQueue<Runnable> workQueue, ThreadFactory threadFactory, CountingHandler handler) {
+		super(minPoolSize, maximumPoolSize, keepAliveTime, unit, workQueue, threadFactory, handler);
+		Assert.isTrue(minPoolSize > 0, "Min pool size must be > 0: {}", minPoolSize);
+		this.minPoolSize = minPoolSize;
+		this.rejected = handler.count;
+		this.metrics = new Metrics(minPoolSize, 0, 0, 0, 0, 0, 0, 0);
+	}
+
+	/**
+	 * 设置最小线程数，自动调整不会低于此值
+	 *
+	 * @param minPoolSize 最小线程数
+	 * @return this
+	 */
+	public AdaptiveThreadPoolExecutor setMinPoolSize(int minPoolSize) {
+		Assert.isTrue(minPoolSize > 0 && minPoolSize <= getMaximumPoolSize(),
+				"Min pool size must be in [1, {}]: {}", getMaximumPoolSize(), minPoolSize);
+		this.minPoolSize = minPoolSize;
+		if (getCorePoolSize() < minPoolSize) {
+			setCorePoolSize(minPoolSize);
+		}
+		return this;
+	}
+
+	/**
+	 * @return 最小线程数
+	 */
+	public int getMinPoolSize() {
+		return this.minPoolSize;
+	}
+
+	/**
+	 * 设置目标排队延迟，平均排队延迟超过此值时增加线程
+	 *
+	 * @param targetQueueDelay 目标排队延迟
+	 * @param unit             单位
+	 * @return this
+	 */
+	public AdaptiveThreadPoolExecutor setTargetQueueDelay(long targetQueueDelay, TimeUnit unit) {
+		Assert.isTrue(targetQueueDelay >= 0, "Target queue delay must be >= 0: {}", targetQueueDelay);
+		this.targetQueueDelay = unit.toNanos(targetQueueDelay);
+		return this;
+	}
+
+	/**
+	 * 设置调整周期，周期越短响应越快，但统计样本越少
+	 *
+	 * @param adjustInterval 调整周期
+	 * @param unit           单位
+	 * @return this
+	 */
+	public AdaptiveThreadPoolExecutor setAdjustInterval(long adjustInterval, TimeUnit unit) {
+		Assert.isTrue(adjustInterval > 0, "Adjust interval must be > 0: {}", adjustInterval);
+		this.adjustInterval = unit.toNanos(adjustInterval);
+		return this;
+	}
+
+	/**
+	 * 设置统计信息监听器，每次调整后在触发调整的线程中调用，应尽快返回
+	 *
+	 * @param metricsListener 监听器，{@code null}表示不监听
+	 * @return this
+	 */
+	public AdaptiveThreadPoolExecutor setMetricsListener(Consumer<Metrics> metricsListener) {
+		this.metricsListener = metricsListener;
+		return this;
+	}
+
+	/**
+	 * 获取最近一个调整周期的统计信息
+	 *
+	 * @return 统计信息
+	 */
+	public Metrics getMetrics() {
+		return this.metrics;
+	}
+
+	/**
+	 * @return 累计被拒绝的任务数
+	 */
+	public long getRejectedCount() {
+		return rejected.sum();
+	}
+
+	@Override
+	public void execute(Runnable command) {
+		if (null == command) {
+			throw new NullPointerException();
+		}
+		final long now = System.nanoTime();
+		submitted.increment();
+		super.execute(new TimedTask(command, now));
+		tryAdjust(now);
+	}
+
+	@Override
+	protected void beforeExecute(Thread t, Runnable r) {
+		super.beforeExecute(t, r);
+		if (r instanceof TimedTask) {
+			((TimedTask) r).startTime = System.nanoTime();
+		}
+	}
+
+	@Override
+	protected void afterExecute(Runnable r, Throwable t) {
+		super.afterExecute(r, t);
+		if (r instanceof TimedTask) {
+			final TimedTask task = (TimedTask) r;
+			final long now = System.nanoTime();
+			queueDelaySum.add(task.startTime - task.submitTime);
+			serviceTimeSum.add(now - task.startTime);
+			completed.increment();
+			tryAdjust(now);
+		}
+	}
+
+	@Override
+	public List<Runnable> shutdownNow() {
+		final List<Runnable> tasks = super.shutdownNow();
+		final List<Runnable> result = new ArrayList<>(tasks.size());
+		for (Runnable task : tasks) {
+			result.add((task instanceof TimedTask) ? ((TimedTask) task).task : task);
+		}
+		return result;
+	}
+
+	@Override
+	public void setRejectedExecutionHandler(RejectedExecutionHandler handler) {
+		super.setRejectedExecutionHandler(new CountingHandler(handler, this.rejected));
+	}
+
+	@Override
+	public RejectedExecutionHandler getRejectedExecutionHandler() {
+		return ((CountingHandler) super.getRejectedExecutionHandler()).handler;
+	}
+
+	/**
+	 * 距离上次调整超过调整周期时，竞争调整权并调整核心线程数
+	 *
+	 * @param now 当前时间，单位纳秒
+	 */
+	private void tryAdjust(long now) {
+		final long start = windowStart.get();
+		if (now - start < adjustInterval || false == windowStart.compareAndSet(start, now)) {
+			return;
+		}
+		adjust(now - start);
+	}
+
+	/**
+	 * 根据本周期的统计调整核心线程数，并重置统计
+	 *
+	 * @param elapsed 本周期时长，单位纳秒
+	 */
+	private void adjust(long elapsed) {
+		final long submitted = this.submitted.sumThenReset();
+		final long completed = this.completed.sumThenReset();
+		final long queueDelaySum = this.queueDelaySum.sumThenReset();
+		final long serviceTimeSum = this.serviceTimeSum.sumThenReset();
+		final long avgQueueDelay = (completed > 0) ? queueDelaySum / completed : 0;
+		final long avgServiceTime = (completed > 0) ? serviceTimeSum / completed : 0;
+		final double arrivalRate = (double) submitted / elapsed;
+
+		final int current = getCorePoolSize();
+		long target;
+		if (completed > 0) {
+			// 利特尔法则：平均忙碌线程数 = 到达速率 × 平均执行时间
+			target = (long) Math.ceil(arrivalRate * avgServiceTime * (100 + HEADROOM_PERCENT) / 100);
+		} else {
+			// 整个周期没有任务完成，任务仍在排队时视为线程全部被占满
+			target = getQueue().isEmpty() ? current : current + 1L;
+		}
+		if (avgQueueDelay > targetQueueDelay) {
+			target = Math.max(target, current + Math.max(1, current / 4));
+		} else if (target < current) {
+			target = current - Math.max(1, (current - target) / 2);
+		}
+		final int size = (int) Math.max(minPoolSize, Math.min(target, getMaximumPoolSize()));
+		if (size != current && false == isShutdown()) {
+			setCorePoolSize(size);
+		}
+
+		final Metrics metrics = new Metrics(size, getPoolSize(), getActiveCount(), getQueue().size(),
+				arrivalRate * TimeUnit.SECONDS.toNanos(1), avgQueueDelay, avgServiceTime, rejected.sum());
+		this.metrics = metrics;
+		final Consumer<Metrics> listener = this.metricsListener;
+		if (null != listener) {
+			listener.accept(metrics);
+		}
+	}
+
+	/**
+	 * 记录入队时间和开始执行时间的任务，每个任务只在一个线程中执行
+	 */
+	private static class TimedTask implements Runnable {
+		private final Runnable task;
+		private final long submitTime;
+		private long startTime;
+
+		TimedTask(Runnable task, long submitTime) {
+			this.task = task;
+			this.submitTime = submitTime;
+		}
+
+		@Override
+		public void run() {
+			task.run();
+		}
+	}
+
+	/**
+	 * 统计拒绝次数的拒绝策略包装
+	 */
+	private static class CountingHandler implements RejectedExecutionHandler {
+		private final RejectedExecutionHandler handler;
+		private final LongAdder count;
+
+		CountingHandler(RejectedExecutionHandler handler, LongAdder count) {
+			Assert.notNull(handler, "handler must be not null !");
+			this.handler = handler;
+			this.count = count;
+		}
+
+		@Override
+		public void rejectedExecution(Runnable r, ThreadPoolExecutor executor) {
+			count.increment();
+			handler.rejectedExecution((r instanceof TimedTask) ? ((TimedTask) r).task : r, executor);
+		}
+	}
+
+	/**
+	 * 一个调整周期的统计信息
+	 */
+	public static class Metrics {
+		private final int corePoolSize;
+		private final int poolSize;
+		private final int activeCount;
+		private final int queueSize;
+		private final double arrivalRate;
+		private final long averageQueueDelay;
+		private final long averageServiceTime;
+		private final long rejectedCount;
+
+		Metrics(int corePoolSize, int poolSize, int activeCount, int queueSize,
+				double arrivalRate, long averageQueueDelay, long averageServiceTime, long rejectedCount) {
+			this.corePoolSize = corePoolSize;
+			this.poolSize = poolSize;
+			this.activeCount = activeCount;
+			this.queueSize = queueSize;
+			this.arrivalRate = arrivalRate;
+			this.averageQueueDelay = averageQueueDelay;
+			this.averageServiceTime = averageServiceTime;
+			this.rejectedCount = rejectedCount;
+		}
+
+		/**
+		 * @return 调整后的核心线程数
+		 */
+		public int getCorePoolSize() {
+			return corePoolSize;
+		}
+
+		/**
+		 * @return 当前线程数
+		 */
+		public int getPoolSize() {
+			return poolSize;
+		}
+
+		/**
+		 * @return 正在执行任务的线程数
+		 */
+		public int getActiveCount() {
+			return activeCount;
+		}
+
+		/**
+		 * @return 队列中等待的任务数
+		 */
+		public int getQueueSize() {
+			return queueSize;
+		}
+
+		/**
+		 * @return 任务到达速率，单位：个/秒
+		 */
+		public double getArrivalRate() {
+			return arrivalRate;
+		}
+
+		/**
+		 * @return 平均排队延迟，单位纳秒
+		 */
+		public long getAverageQueueDelay() {
+			return averageQueueDelay;
+		}
+
+		/**
+		 * @return 平均执行时间，单位纳秒
+		 */
+		public long getAverageServiceTime() {
+			return averageServiceTime;
+		}
+
+		/**
+		 * @return 累计被拒绝的任务数
+		 */
+		public long getRejectedCount() {
+			return rejectedCount;
+		}
+
+		@Override
+		public String toString() {
+			return "Metrics{corePoolSize=" + corePoolSize + ", poolSize=" + poolSize + ", activeCount=" + activeCount
+					+ ", queueSize=" + queueSize + ", arrivalRate=" + arrivalRate
+					+ ", averageQueueDelay=" + averageQueueDelay + ", averageServiceTime=" + averageServiceTime
+					+ ", rejectedCount=" + rejectedCount + '}';
+		}
+	}
+}
@@ -1,12 +1,22 @@
 package site.lifd.core.thread;
 
 import java.lang.reflect.UndeclaredThrowableException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.Callable;
 import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionService;
 import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
 
 /**
  * {@link CompletableFuture}异步工具类<br>
- * {@link CompletableFuture} 是 Future 的改进，可以通过传入回调对象，在任务完成后调用之
+ * {@link CompletableFuture} 是 Future 的改进，可以通过传入回调对象，在任务完成后调用之<br>
+ * {@link #invokeAll(Collection)}和{@link #invokeAny(Collection)}以结构化并发的方式在虚拟线程中执行一组任务，
+ * 方法返回时所有任务均已结束，不会遗留仍在执行的线程
  *
  * *
  */
@@ -59,4 +69,90 @@ public class AsyncUtil {
 		}
 	}
 
+	/**
+	 * 每个任务使用一个新的虚拟线程并行执行，等待全部完成后按任务顺序返回结果，包裹了异常<br>
+	 * 任一任务失败时中断其余任务，等待其结束后抛出异常
+	 *
+	 * @param <T>   任务返回值类型
+	 * @param tasks 并行任务
+	 * @return 任务返回值列表，与任务顺序一致
+	 * @throws ThreadException 任务失败或等待时被中断
+	 */
+	@SafeVarargs
+	public static <T> List<T> invokeAll(Callable<T>... tasks) {
+		// 逐个复制，不将可变参数数组传给其它方法
+		final List<Callable<T>> list = new ArrayList<>(tasks.length);
+		for (Callable<T> task : tasks) {
+			list.add(task);
+		}
+		return invokeAll(list);
+	}
+
+	/**
+	 * 每个任务使用一个新的虚拟线程并行执行，等待全部完成后按任务顺序返回结果，包裹了异常<br>
+	 * 任一任务失败时中断其余任务，等待其结束后抛出异常
+	 *
+	 * @param <T>   任务返回值类型
+	 * @param tasks 并行任务
+	 * @return 任务返回值列表，与任务顺序一致
+	 * @throws ThreadException 任务失败或等待时被中断
+	 */
+	public static <T> List<T> invokeAll(Collection<? extends Callable<T>> tasks) {
+		try (ExecutorService executor = ThreadUtil.newVirtualExecutor()) {
+			final CompletionService<T> completionService = new ExecutorCompletionService<>(executor);
+			final List<Future<T>> futures = new ArrayList<>(tasks.size());
+			for (Callable<T> task : tasks) {
+				futures.add(completionService.submit(task));
+			}
+			try {
+				// 按完成顺序检查，尽早发现失败的任务
+				for (int i = 0; i < futures.size(); i++) {
+					completionService.take().get();
+				}
+			} catch (InterruptedException | ExecutionException e) {
+				executor.shutdownNow();
+				throw new ThreadException(e);
+			}
+
+			final List<T> result = new ArrayList<>(futures.size());
+			for (Future<T> future : futures) {
+				result.add(future.resultNow());
+			}
+			return result;
+		}
+	}
+
+	/**
+	 * 每个任务使用一个新的虚拟线程并行执行，返回最先成功完成的任务结果，并中断其余任务，包裹了异常
+	 *
+	 * @param <T>   任务返回值类型
+	 * @param tasks 并行任务
+	 * @return 最先成功完成的任务返回值
+	 * @throws ThreadException 所有任务均失败或等待时被中断
+	 */
+	@SafeVarargs
+	public static <T> T invokeAny(Callable<T>... tasks) {
+		// 逐个复制，不将可变参数数组传给其它方法
+		final List<Callable<T>> list = new ArrayList<>(tasks.length);
+		for (Callable<T> task : tasks) {
+			list.add(task);
+		}
+		return invokeAny(list);
+	}
+
+	/**
+	 * 每个任务使用一个新的虚拟线程并行执行，返回最先成功完成的任务结果，并中断其余任务，包裹了异常
+	 *
+	 * @param <T>   任务返回值类型
+	 * @param tasks 并行任务
+	 * @return 最先成功完成的任务返回值
+	 * @throws ThreadException 所有任务均失败或等待时被中断
+	 */
+	public static <T> T invokeAny(Collection<? extends Callable<T>> tasks) {
+		try (ExecutorService executor = ThreadUtil.newVirtualExecutor()) {
+			return executor.invokeAny(tasks);
+		} catch (InterruptedException | ExecutionException e) {
+			throw new ThreadException(e);
+		}
+	}
 }
@@ -1,6 +1,7 @@
 package site.lifd.core.thread;
 
 import site.lifd.core.builder.Builder;
+import site.lifd.core.lang.Assert;
 import site.lifd.core.util.ObjectUtil;
 
 import java.util.concurrent.ArrayBlockingQueue;
@@ -13,6 +14,7 @@ import java.util.concurrent.SynchronousQueue;
 import java.util.concurrent.ThreadFactory;
 import java.util.concurrent.ThreadPoolExecutor;
 import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
 
 /**
  * {@link ThreadPoolExecutor} 建造者
@@ -23,6 +25,12 @@ import java.util.concurrent.TimeUnit;
  *     3. 队列满                              -》 新建线程立即执行
  *     4. 执行中的线程 &gt; maxPoolSize        -》 触发handler（RejectedExecutionHandler）异常
  * </pre>
+ * <p>
+ * 阻塞IO为主的任务可使用{@link #buildVirtual()}构建每个任务一个虚拟线程的ExecutorService，
+ * 此时只有maxPoolSize和threadFactory生效，maxPoolSize表示允许同时执行的最大任务数。
+ * <p>
+ * 下游延迟随时间变化时可调用{@link #useAdaptivePoolSize(long, TimeUnit)}，构建根据排队延迟自动调整核心线程数的
+ * {@link AdaptiveThreadPoolExecutor}，此时corePoolSize和maxPoolSize为调整的上下限。
  *
  */
 public class ExecutorBuilder implements Builder<ThreadPoolExecutor> {
@@ -36,7 +44,7 @@ public class ExecutorBuilder implements Builder<ThreadPoolExecutor> {
 	 */
 	private int corePoolSize;
 	/**
-	 * 最大池大小（允许同时执行的最大线程数）
+	 * 最大池大小（允许同时执行的最大线程数），虚拟线程模式下为允许同时执行的最大任务数
 	 */
 	private int maxPoolSize = Integer.MAX_VALUE;
 	/**
@@ -59,6 +67,14 @@ public class ExecutorBuilder implements Builder<ThreadPoolExecutor> {
 	 * 线程执行超时后是否回收线程
 	 */
 	private Boolean allowCoreThreadTimeOut;
+	/**
+	 * 自动调整线程数时的目标排队延迟，单位纳秒，{@code null}表示不自动调整
+	 */
+	private Long targetQueueDelay;
+	/**
+	 * 自动调整线程数时接收统计信息的监听器，不参与序列化
+	 */
+	private transient Consumer<AdaptiveThreadPoolExecutor.Metrics> metricsListener;
 
 	/**
 	 * 设置初始池大小，默认0
@@ -195,6 +211,41 @@ public class ExecutorBuilder implements Builder<ThreadPoolExecutor> {
 		return this;
 	}
 
+	/**
+	 * 根据观测到的排队延迟和执行耗时自动调整核心线程数，使用默认的目标排队延迟
+	 *
+	 * @return this
+	 * @see #useAdaptivePoolSize(long, TimeUnit)
+	 */
+	public ExecutorBuilder useAdaptivePoolSize() {
+		return useAdaptivePoolSize(AdaptiveThreadPoolExecutor.DEFAULT_TARGET_QUEUE_DELAY_MILLIS, TimeUnit.MILLISECONDS);
+	}
+
+	/**
+	 * 根据观测到的排队延迟和执行耗时自动调整核心线程数，构建的线程池为{@link AdaptiveThreadPoolExecutor}<br>
+	 * 核心线程数在[corePoolSize, maxPoolSize]之间调整，corePoolSize最小为1，maxPoolSize必须设置；
+	 * 未设置队列时使用容量为{@value #DEFAULT_QUEUE_CAPACITY}的LinkedBlockingQueue
+	 *
+	 * @param targetQueueDelay 目标排队延迟，平均排队延迟超过此值时增加线程
+	 * @param unit             单位
+	 * @return this
+	 */
+	public ExecutorBuilder useAdaptivePoolSize(long targetQueueDelay, TimeUnit unit) {
+		this.targetQueueDelay = unit.toNanos(targetQueueDelay);
+		return this;
+	}
+
+	/**
+	 * 设置自动调整线程数时接收统计信息的监听器，仅在{@link #useAdaptivePoolSize(long, TimeUnit)}时生效
+	 *
+	 * @param metricsListener 监听器，每个调整周期调用一次
+	 * @return this
+	 */
+	public ExecutorBuilder setMetricsListener(Consumer<AdaptiveThreadPoolExecutor.Metrics> metricsListener) {
+		this.metricsListener = metricsListener;
+		return this;
+	}
+
 	/**
 	 * 创建ExecutorBuilder，开始构建
 	 *
@@ -222,6 +273,26 @@ public class ExecutorBuilder implements Builder<ThreadPoolExecutor> {
 		return new FinalizableDelegatedExecutorService(build());
 	}
 
+	/**
+	 * 构建每个任务一个虚拟线程的ExecutorService<br>
+	 * 任务不排队，提交后立即创建虚拟线程执行，适合大量阻塞IO的任务，此时队列、拒绝策略和存活时间等设置不生效。
+	 * <ul>
+	 *     <li>设置了maxPoolSize时，使用信号量限制同时执行的任务数，超出的任务在各自的虚拟线程中等待</li>
+	 *     <li>未设置线程工厂时使用无名称的虚拟线程，可通过{@link ThreadUtil#newVirtualThreadFactory(String)}指定线程名前缀</li>
+	 * </ul>
+	 *
+	 * @return {@link ExecutorService}
+	 * @see SemaphoreExecutorService
+	 */
+	public ExecutorService buildVirtual() {
+		final ThreadFactory threadFactory = (null != this.threadFactory) ? this.threadFactory : Thread.ofVirtual().factory();
+		final ExecutorService executor = Executors.newThreadPerTaskExecutor(threadFactory);
+		if (this.maxPoolSize < Integer.MAX_VALUE) {
+			return new SemaphoreExecutorService(executor, this.maxPoolSize);
+		}
+		return executor;
+	}
+
 	/**
 	 * 构建ThreadPoolExecutor
 	 *
@@ -232,24 +303,39 @@ public class ExecutorBuilder implements Builder<ThreadPoolExecutor> {
 		final int corePoolSize = builder.corePoolSize;
 		final int maxPoolSize = builder.maxPoolSize;
 		final long keepAliveTime = builder.keepAliveTime;
+		final boolean isAdaptive = null != builder.targetQueueDelay;
 		final BlockingQueue<Runnable> workQueue;
 		if (null != builder.workQueue) {
 			workQueue = builder.workQueue;
 		} else {
-			// corePoolSize为0则要使用SynchronousQueue避免无限阻塞
-			workQueue = (corePoolSize <= 0) ? new SynchronousQueue<>() : new LinkedBlockingQueue<>(DEFAULT_QUEUE_CAPACITY);
+			// corePoolSize为0则要使用SynchronousQueue避免无限阻塞，自动调整时任务需在队列中排队才能观测到排队延迟
+			workQueue = (corePoolSize <= 0 && false == isAdaptive) ? new SynchronousQueue<>() : new LinkedBlockingQueue<>(DEFAULT_QUEUE_CAPACITY);
 		}
 		final ThreadFactory threadFactory = (null != builder.threadFactory) ? builder.threadFactory : Executors.defaultThreadFactory();
 		RejectedExecutionHandler handler = ObjectUtil.defaultIfNull(builder.handler, RejectPolicy.ABORT.getValue());
 
-		final ThreadPoolExecutor threadPoolExecutor = new ThreadPoolExecutor(//
-				corePoolSize, //
-				maxPoolSize, //
-				keepAliveTime, TimeUnit.NANOSECONDS, //
-				workQueue, //
-				threadFactory, //
-				handler//
-		);
+		final ThreadPoolExecutor threadPoolExecutor;
+		if (isAdaptive) {
+			Assert.isTrue(maxPoolSize < Integer.MAX_VALUE, "Adaptive pool requires a bounded maxPoolSize");
+			threadPoolExecutor = new AdaptiveThreadPoolExecutor(//
+					Math.max(1, corePoolSize), //
+					maxPoolSize, //
+					keepAliveTime, TimeUnit.NANOSECONDS, //
+					workQueue, //
+					threadFactory, //
+					handler//
+			).setTargetQueueDelay(builder.targetQueueDelay, TimeUnit.NANOSECONDS)
+					.setMetricsListener(builder.metricsListener);
+		} else {
+			threadPoolExecutor = new ThreadPoolExecutor(//
+					corePoolSize, //
+					maxPoolSize, //
+					keepAliveTime, TimeUnit.NANOSECONDS, //
+					workQueue, //
+					threadFactory, //
+					handler//
+			);
+		}
 		if (null != builder.allowCoreThreadTimeOut) {
 			threadPoolExecutor.allowCoreThreadTimeOut(builder.allowCoreThreadTimeOut);
 		}
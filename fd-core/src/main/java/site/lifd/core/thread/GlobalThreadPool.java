@@ -8,12 +8,13 @@ import site.lifd.core.exceptions.UtilException;
 
 /**
  * 全局公共线程池<br>
- * 此线程池是一个无限线程池，即加入的线程不等待任何线程，直接执行
+ * 此线程池是一个无限线程池，即加入的线程不等待任何线程，直接执行<br>
+ * 任务以阻塞IO为主时可调用{@link #initVirtual()}改为每个任务一个虚拟线程
  *
  * *
  */
 public class GlobalThreadPool {
-	private static ExecutorService executor;
+	private static volatile ExecutorService executor;
 
 	private GlobalThreadPool() {
 	}
@@ -32,6 +33,17 @@ public class GlobalThreadPool {
 		executor = ExecutorBuilder.create().useSynchronousQueue().build();
 	}
 
+	/**
+	 * 初始化全局线程池为虚拟线程ExecutorService，每个任务使用一个新的虚拟线程执行<br>
+	 * 原线程池立即关闭，虚拟线程总是守护线程
+	 */
+	synchronized public static void initVirtual() {
+		if (null != executor) {
+			executor.shutdownNow();
+		}
+		executor = ThreadUtil.newVirtualExecutor("global-virtual-");
+	}
+
 	/**
 	 * 关闭公共线程池
 	 *
@@ -0,0 +1,109 @@
+package site.lifd.core.thread;
+
+import site.lifd.core.lang.Assert;
+
+import java.util.List;
+import java.util.concurrent.AbstractExecutorService;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 使用信号量限制同时执行任务数的{@link ExecutorService}<br>
+ * 任务提交后立即交给被包装的ExecutorService，在执行线程中获取许可后才开始执行，因此提交方不会阻塞。
+ * 主要用于包装虚拟线程的ExecutorService：虚拟线程等待许可的开销很小，
+ * 可以提交大量任务的同时限制对数据库连接等有限资源的并发访问。
+ * <p>
+ * 等待许可时线程被中断（例如调用{@link #shutdownNow()}），任务不再执行，通过submit提交的任务其{@link Future}被取消。
+ *
+ * @author lifengdi
+ * @see SemaphoreRunnable
+ */
+public class SemaphoreExecutorService extends AbstractExecutorService {
+
+	/** 实际执行任务的ExecutorService */
+	private final ExecutorService executor;
+	/** 信号量 */
+	private final Semaphore semaphore;
+
+	/**
+	 * 构造
+	 *
+	 * @param executor      实际执行任务的ExecutorService
+	 * @param maxConcurrency 最大同时执行任务数
+	 */
+	public SemaphoreExecutorService(ExecutorService executor, int maxConcurrency) {
+		this(executor, new Semaphore(maxConcurrency));
+		Assert.isTrue(maxConcurrency > 0, "Max concurrency must be > 0: {}", maxConcurrency);
+	}
+
+	/**
+	 * 构造
+	 *
+	 * @param executor  实际执行任务的ExecutorService
+	 * @param semaphore 信号量，可与其他ExecutorService共享，共同限制并发数
+	 */
+	public SemaphoreExecutorService(ExecutorService executor, Semaphore semaphore) {
+		Assert.notNull(executor, "executor must be not null !");
+		Assert.notNull(semaphore, "semaphore must be not null !");
+		this.executor = executor;
+		this.semaphore = semaphore;
+	}
+
+	/**
+	 * 获取信号量
+	 *
+	 * @return 信号量
+	 */
+	public Semaphore getSemaphore() {
+		return this.semaphore;
+	}
+
+	@Override
+	public void execute(Runnable command) {
+		Assert.notNull(command, "command must be not null !");
+		executor.execute(() -> {
+			try {
+				semaphore.acquire();
+			} catch (InterruptedException e) {
+				// 未执行的任务取消，避免等待结果的线程无限阻塞
+				if (command instanceof Future) {
+					((Future<?>) command).cancel(false);
+				}
+				Thread.currentThread().interrupt();
+				return;
+			}
+			try {
+				command.run();
+			} finally {
+				semaphore.release();
+			}
+		});
+	}
+
+	@Override
+	public void shutdown() {
+		executor.shutdown();
+	}
+
+	@Override
+	public List<Runnable> shutdownNow() {
+		return executor.shutdownNow();
+	}
+
+	@Override
+	public boolean isShutdown() {
+		return executor.isShutdown();
+	}
+
+	@Override
+	public boolean isTerminated() {
+		return executor.isTerminated();
+	}
+
+	@Override
+	public boolean awaitTermination(long timeout, TimeUnit unit) throws InterruptedException {
+		return executor.awaitTermination(timeout, unit);
+	}
+}
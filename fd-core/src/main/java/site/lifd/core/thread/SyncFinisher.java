@@ -22,6 +22,7 @@ import java.util.concurrent.ExecutorService;
  * });
  * sf.start()
  * </pre>
+ * 并发数很大且以阻塞IO为主时，可通过{@link #setVirtual(boolean)}让每个worker使用一个虚拟线程。
  *
  */
 public class SyncFinisher implements Closeable {
@@ -31,6 +32,10 @@ public class SyncFinisher implements Closeable {
 	private ExecutorService executorService;
 
 	private boolean isBeginAtSameTime;
+	/**
+	 * 是否使用虚拟线程
+	 */
+	private boolean isVirtual;
 	/**
 	 * 启动同步器，用于保证所有worker线程同时开始
 	 */
@@ -78,6 +83,18 @@ public class SyncFinisher implements Closeable {
 		return this;
 	}
 
+	/**
+	 * 设置是否使用虚拟线程执行worker，仅在未设置自定义线程池时生效<br>
+	 * 使用虚拟线程时每个worker使用一个新的虚拟线程，不受线程数限制，适合模拟大量并发的阻塞IO任务
+	 *
+	 * @param isVirtual 是否使用虚拟线程
+	 * @return this
+	 */
+	public SyncFinisher setVirtual(boolean isVirtual) {
+		this.isVirtual = isVirtual;
+		return this;
+	}
+
 	/**
 	 * 设置异常处理
 	 *
@@ -265,6 +282,11 @@ public class SyncFinisher implements Closeable {
 	 * @return {@link ExecutorService}
 	 */
 	private ExecutorService buildExecutor() {
+		if (isVirtual) {
+			return ExecutorBuilder.create()
+				.setThreadFactory(ThreadUtil.newVirtualThreadFactory("hutool-", exceptionHandler))
+				.buildVirtual();
+		}
 		return ExecutorBuilder.create()
 			.setCorePoolSize(threadSize)
 			.setThreadFactory(new NamedThreadFactory("hutool-", null, false, exceptionHandler))
@@ -1,6 +1,7 @@
 package site.lifd.core.thread;
 
 import site.lifd.core.util.RuntimeUtil;
+import site.lifd.core.util.StrUtil;
 
 import java.lang.Thread.UncaughtExceptionHandler;
 import java.util.concurrent.Callable;
@@ -131,6 +132,23 @@ public class ThreadUtil {
 		return ExecutorBuilder.create().setCorePoolSize(poolSize).setMaxPoolSize(poolSize).setKeepAliveTime(0L).build();
 	}
 
+	/**
+	 * 获得一个新的自动调整大小的线程池<br>
+	 * 与{@link #newExecutorByBlockingCoefficient(float)}只计算一次不同，此线程池持续统计任务的排队延迟和执行耗时，
+	 * 在最小和最大线程数之间调整核心线程数，适合下游延迟随时间变化的场景
+	 *
+	 * @param minPoolSize 最小线程数
+	 * @param maxPoolSize 最大线程数
+	 * @return {@link AdaptiveThreadPoolExecutor}
+	 */
+	public static AdaptiveThreadPoolExecutor newAdaptiveExecutor(int minPoolSize, int maxPoolSize) {
+		return (AdaptiveThreadPoolExecutor) ExecutorBuilder.create()
+				.setCorePoolSize(minPoolSize)
+				.setMaxPoolSize(maxPoolSize)
+				.useAdaptivePoolSize()
+				.build();
+	}
+
 	/**
 	 * 获取一个新的线程池，默认的策略如下<br>
 	 * <pre>
@@ -192,6 +210,43 @@ public class ThreadUtil {
 				.build();
 	}
 
+	/**
+	 * 获得一个新的虚拟线程ExecutorService，每个任务使用一个新的虚拟线程执行，不限制同时执行的任务数<br>
+	 * 适用于大量阻塞IO的任务，计算密集型任务请使用平台线程的线程池
+	 *
+	 * @return ExecutorService
+	 */
+	public static ExecutorService newVirtualExecutor() {
+		return ExecutorBuilder.create().buildVirtual();
+	}
+
+	/**
+	 * 获得一个新的虚拟线程ExecutorService，每个任务使用一个新的虚拟线程执行，不限制同时执行的任务数
+	 *
+	 * @param threadNamePrefix 线程名称前缀
+	 * @return ExecutorService
+	 */
+	public static ExecutorService newVirtualExecutor(String threadNamePrefix) {
+		return ExecutorBuilder.create()
+				.setThreadFactory(newVirtualThreadFactory(threadNamePrefix))
+				.buildVirtual();
+	}
+
+	/**
+	 * 获得一个新的虚拟线程ExecutorService，每个任务使用一个新的虚拟线程执行，使用信号量限制同时执行的任务数<br>
+	 * 提交任务不会阻塞，超出限制的任务在各自的虚拟线程中等待许可
+	 *
+	 * @param threadNamePrefix 线程名称前缀
+	 * @param maxConcurrency   最大同时执行任务数
+	 * @return ExecutorService
+	 */
+	public static ExecutorService newVirtualExecutor(String threadNamePrefix, int maxConcurrency) {
+		return ExecutorBuilder.create()
+				.setMaxPoolSize(maxConcurrency)
+				.setThreadFactory(newVirtualThreadFactory(threadNamePrefix))
+				.buildVirtual();
+	}
+
 	/**
 	 * 直接在公共线程池中执行线程
 	 *
@@ -240,6 +295,17 @@ public class ThreadUtil {
 		return GlobalThreadPool.submit(runnable);
 	}
 
+	/**
+	 * 在新的虚拟线程中执行方法<br>
+	 * 虚拟线程创建开销很小，适合大量阻塞IO的任务，虚拟线程总是守护线程
+	 *
+	 * @param runnable 需要执行的方法体
+	 * @return 执行方法的虚拟线程
+	 */
+	public static Thread execVirtual(Runnable runnable) {
+		return Thread.startVirtualThread(runnable);
+	}
+
 	/**
 	 * 新建一个CompletionService，调用其submit方法可以异步执行多个任务，最后调用take方法按照完成的顺序获得其结果。<br>
 	 * 若未完成，则会阻塞
@@ -594,6 +660,34 @@ public class ThreadUtil {
 		return new NamedThreadFactory(prefix, threadGroup, isDaemon, handler);
 	}
 
+	/**
+	 * 创建虚拟线程工厂，线程名为前缀加从1开始的序号
+	 *
+	 * @param prefix 线程名前缀，{@code null}或空白表示不命名
+	 * @return {@link ThreadFactory}
+	 */
+	public static ThreadFactory newVirtualThreadFactory(String prefix) {
+		return newVirtualThreadFactory(prefix, null);
+	}
+
+	/**
+	 * 创建虚拟线程工厂，线程名为前缀加从1开始的序号
+	 *
+	 * @param prefix  线程名前缀，{@code null}或空白表示不命名
+	 * @param handler 未捕获异常处理，可以为null
+	 * @return {@link ThreadFactory}
+	 */
+	public static ThreadFactory newVirtualThreadFactory(String prefix, UncaughtExceptionHandler handler) {
+		final Thread.Builder.OfVirtual builder = Thread.ofVirtual();
+		if (StrUtil.isNotBlank(prefix)) {
+			builder.name(prefix, 1);
+		}
+		if (null != handler) {
+			builder.uncaughtExceptionHandler(handler);
+		}
+		return builder.factory();
+	}
+
 	/**
 	 * 阻塞当前线程，保证在main方法中执行不被退出
 	 *
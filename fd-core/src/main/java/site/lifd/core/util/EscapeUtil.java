@@ -25,6 +25,13 @@ public class EscapeUtil {
 					|| Character.isUpperCase(c)
 					|| StrUtil.contains(NOT_ESCAPE_CHARS, c)
 	);
+	/**
+	 * 转义器构建后不可变，共用实例，避免每次调用重建转义表
+	 */
+	private static final XmlEscape XML_ESCAPE = new XmlEscape();
+	private static final XmlUnescape XML_UNESCAPE = new XmlUnescape();
+	private static final Html4Escape HTML4_ESCAPE = new Html4Escape();
+	private static final Html4Unescape HTML4_UNESCAPE = new Html4Unescape();
 
 	/**
 	 * 转义XML中的特殊字符<br>
@@ -41,8 +48,7 @@ public class EscapeUtil {
 	 * 
 	 */
 	public static String escapeXml(CharSequence xml) {
-		XmlEscape escape = new XmlEscape();
-		return escape.replace(xml).toString();
+		return XML_ESCAPE.replace(xml).toString();
 	}
 
 	/**
@@ -53,8 +59,7 @@ public class EscapeUtil {
 	 * 
 	 */
 	public static String unescapeXml(CharSequence xml) {
-		XmlUnescape unescape = new XmlUnescape();
-		return unescape.replace(xml).toString();
+		return XML_UNESCAPE.replace(xml).toString();
 	}
 
 	/**
@@ -65,8 +70,7 @@ public class EscapeUtil {
 	 * 
 	 */
 	public static String escapeHtml4(CharSequence html) {
-		Html4Escape escape = new Html4Escape();
-		return escape.replace(html).toString();
+		return HTML4_ESCAPE.replace(html).toString();
 	}
 
 	/**
@@ -77,8 +81,7 @@ public class EscapeUtil {
 	 * 
 	 */
 	public static String unescapeHtml4(CharSequence html) {
-		Html4Unescape unescape = new Html4Unescape();
-		return unescape.replace(html).toString();
+		return HTML4_UNESCAPE.replace(html).toString();
 	}
 
 	/**
@@ -4,6 +4,7 @@ import site.lifd.core.lang.hash.CityHash;
 import site.lifd.core.lang.hash.MetroHash;
 import site.lifd.core.lang.hash.MurmurHash;
 import site.lifd.core.lang.hash.Number128;
+import site.lifd.core.lang.hash.XXHash3;
 
 /**
  * Hash算法大全<br>
@@ -588,6 +589,48 @@ public class HashUtil {
 		return MetroHash.hash128(data).getLongArray();
 	}
 
+	/**
+	 * XXH3 算法64-bit实现
+	 *
+	 * @param data 数据
+	 * @param seed 种子
+	 * @return hash值
+	 */
+	public static long xxh3Hash64(byte[] data, long seed) {
+		return XXHash3.hash64(data, seed);
+	}
+
+	/**
+	 * XXH3 算法64-bit实现
+	 *
+	 * @param data 数据
+	 * @return hash值
+	 */
+	public static long xxh3Hash64(byte[] data) {
+		return XXHash3.DEFAULT.hash64(data);
+	}
+
+	/**
+	 * XXH3 算法128-bit实现
+	 *
+	 * @param data 数据
+	 * @param seed 种子
+	 * @return hash值，long[0]：低位，long[1]：高位
+	 */
+	public static long[] xxh3Hash128(byte[] data, long seed) {
+		return XXHash3.hash128(data, seed).getLongArray();
+	}
+
+	/**
+	 * XXH3 算法128-bit实现
+	 *
+	 * @param data 数据
+	 * @return hash值，long[0]：低位，long[1]：高位
+	 */
+	public static long[] xxh3Hash128(byte[] data) {
+		return XXHash3.DEFAULT.hash128(data).getLongArray();
+	}
+
 	/**
 	 * HF Hash算法
 	 *
@@ -62,6 +62,26 @@ public class IdUtil {
 		return UUID.fastUUID().toString(true);
 	}
 
+	/**
+	 * 获取有序UUID（类型7），高48位为毫秒时间戳，同一进程内严格递增，适合作为数据库索引键
+	 *
+	 * @return 有序UUID
+	 * @see UUID#timeOrderedUUID()
+	 */
+	public static String timeOrderedUUID() {
+		return UUID.timeOrderedUUID().toString();
+	}
+
+	/**
+	 * 简化的有序UUID（类型7），去掉了横线
+	 *
+	 * @return 简化的有序UUID，去掉了横线
+	 * @see UUID#timeOrderedUUID()
+	 */
+	public static String simpleTimeOrderedUUID() {
+		return UUID.timeOrderedUUID().toString(true);
+	}
+
 	/**
 	 * 创建MongoDB ID生成策略实现<br>
 	 * ObjectId由以下几部分组成：
@@ -139,6 +159,22 @@ public class IdUtil {
 		return Singleton.get(Snowflake.class, workerId, datacenterId);
 	}
 
+	/**
+	 * 获取单例的分片模式Snowflake 算法生成器对象<br>
+	 * 12位序号的高shardBits位作为分片号，各线程固定使用一个分片，生成ID时线程之间不竞争同一个缓存行，
+	 * 适合多线程高并发生成ID的场景。同一分片内ID递增，同一毫秒内不同分片的ID之间不保证先后顺序。
+	 * <p>
+	 * 注意：同一workerId和datacenterId在同一进程内只能使用一种模式的单例，否则ID会重复。
+	 *
+	 * @param workerId     终端ID
+	 * @param datacenterId 数据中心ID
+	 * @param shardBits    分片位数，0~{@link Snowflake#MAX_SHARD_BITS}，0表示不分片
+	 * @return {@link Snowflake}
+	 */
+	public static Snowflake getSnowflake(long workerId, long datacenterId, int shardBits) {
+		return Singleton.get(Snowflake.class, workerId, datacenterId, shardBits);
+	}
+
 	/**
 	 * 获取单例的Twitter的Snowflake 算法生成器对象<br>
 	 * 分布式系统中，有一些需要使用全局唯一ID的场景，有些时候我们希望能使用一种简单一些的ID，并且希望ID能够按照时间有序生成。